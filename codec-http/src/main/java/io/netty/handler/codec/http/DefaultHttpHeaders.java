@@ -25,6 +25,7 @@ import io.netty.util.AsciiString;
 import io.netty.util.ByteProcessor;
 import io.netty.util.internal.PlatformDependent;
 
+import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
@@ -391,13 +392,22 @@ public class DefaultHttpHeaders extends HttpHeaders {
                 return (CharSequence) value;
             }
             if (value instanceof Date) {
-                return HttpHeaderDateFormat.get().format((Date) value);
+                return HttpHeaderDate.format(((Date) value).getTime());
             }
             if (value instanceof Calendar) {
-                return HttpHeaderDateFormat.get().format(((Calendar) value).getTime());
+                return HttpHeaderDate.format(((Calendar) value).getTimeInMillis());
             }
             return value.toString();
         }
+
+        @Override
+        public long convertToTimeMillis(CharSequence value) {
+            long millis = HttpHeaderDate.parse(value);
+            if (millis == -1) {
+                PlatformDependent.throwException(new ParseException("invalid date: " + value, 0));
+            }
+            return millis;
+        }
     }
 
     private static final class HeaderValueConverterAndValidator extends HeaderValueConverter {
@@ -17,8 +17,11 @@ package io.netty.handler.codec.http;
 
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.BrotliOptions;
+import io.netty.handler.codec.compression.CompressionOptions;
 import io.netty.handler.codec.compression.ZlibCodecFactory;
 import io.netty.handler.codec.compression.ZlibWrapper;
+import io.netty.handler.codec.compression.ZstdOptions;
 import io.netty.util.internal.StringUtil;
 
 /**
@@ -27,12 +30,18 @@ import io.netty.util.internal.StringUtil;
  * If there is no matching encoding, no compression is done.  For more
  * information on how this handler modifies the message, please refer to
  * {@link HttpContentEncoder}.
+ * <p>
+ * Additional encodings like {@code br} and {@code zstd} can be enabled by passing their {@link CompressionOptions},
+ * which are preferred over {@code gzip} and {@code deflate} if the client accepts them with at least the same
+ * quality. If the client accepts both with the same quality, {@code br} is preferred over {@code zstd}.
  */
 public class HttpContentCompressor extends HttpContentEncoder {
 
     private final int compressionLevel;
     private final int windowBits;
     private final int memLevel;
+    private final BrotliOptions brotliOptions;
+    private final ZstdOptions zstdOptions;
     private ChannelHandlerContext ctx;
 
     /**
@@ -76,6 +85,43 @@ public class HttpContentCompressor extends HttpContentEncoder {
      *        at the expense of memory usage.  The default value is {@code 8}
      */
     public HttpContentCompressor(int compressionLevel, int windowBits, int memLevel) {
+        this(compressionLevel, windowBits, memLevel, new CompressionOptions[0]);
+    }
+
+    /**
+     * Creates a new handler with the default settings for {@code gzip} and {@code deflate} which also supports
+     * the encodings of the given options.
+     *
+     * @param options
+     *        the options of the additional encodings to support, like
+     *        {@link io.netty.handler.codec.compression.StandardCompressionOptions#zstd()}
+     */
+    public HttpContentCompressor(CompressionOptions... options) {
+        this(6, 15, 8, options);
+    }
+
+    /**
+     * Creates a new handler with the specified compression level, window size,
+     * and memory level for {@code gzip} and {@code deflate} which also supports
+     * the encodings of the given options.
+     *
+     * @param compressionLevel
+     *        {@code 1} yields the fastest compression and {@code 9} yields the
+     *        best compression.  {@code 0} means no compression.  The default
+     *        compression level is {@code 6}.
+     * @param windowBits
+     *        The base two logarithm of the size of the history buffer.  The
+     *        value should be in the range {@code 9} to {@code 15} inclusive.
+     * @param memLevel
+     *        How much memory should be allocated for the internal compression
+     *        state.  {@code 1} uses minimum memory and {@code 9} uses maximum
+     *        memory.
+     * @param options
+     *        the options of the additional encodings to support, like
+     *        {@link io.netty.handler.codec.compression.StandardCompressionOptions#zstd()}
+     */
+    public HttpContentCompressor(int compressionLevel, int windowBits, int memLevel,
+                                 CompressionOptions... options) {
         if (compressionLevel < 0 || compressionLevel > 9) {
             throw new IllegalArgumentException(
                     "compressionLevel: " + compressionLevel +
@@ -89,9 +135,25 @@ public class HttpContentCompressor extends HttpContentEncoder {
             throw new IllegalArgumentException(
                     "memLevel: " + memLevel + " (expected: 1-9)");
         }
+        if (options == null) {
+            throw new NullPointerException("options");
+        }
+        BrotliOptions brotliOptions = null;
+        ZstdOptions zstdOptions = null;
+        for (CompressionOptions option : options) {
+            if (option instanceof BrotliOptions) {
+                brotliOptions = (BrotliOptions) option;
+            } else if (option instanceof ZstdOptions) {
+                zstdOptions = (ZstdOptions) option;
+            } else {
+                throw new IllegalArgumentException("unsupported CompressionOptions: " + option);
+            }
+        }
         this.compressionLevel = compressionLevel;
         this.windowBits = windowBits;
         this.memLevel = memLevel;
+        this.brotliOptions = brotliOptions;
+        this.zstdOptions = zstdOptions;
     }
 
     @Override
@@ -107,6 +169,22 @@ public class HttpContentCompressor extends HttpContentEncoder {
             return null;
         }
 
+        if (brotliOptions != null || zstdOptions != null) {
+            CharSequence encoding = determineEncoding(acceptEncoding);
+            if (encoding == HttpHeaderValues.BR) {
+                return new Result(
+                        HttpHeaderValues.BR.toString(),
+                        new EmbeddedChannel(ctx.channel().id(), ctx.channel().metadata().hasDisconnect(),
+                                ctx.channel().config(), brotliOptions.newEncoder()));
+            }
+            if (encoding == HttpHeaderValues.ZSTD) {
+                return new Result(
+                        HttpHeaderValues.ZSTD.toString(),
+                        new EmbeddedChannel(ctx.channel().id(), ctx.channel().metadata().hasDisconnect(),
+                                ctx.channel().config(), zstdOptions.newEncoder()));
+            }
+        }
+
         ZlibWrapper wrapper = determineWrapper(acceptEncoding);
         if (wrapper == null) {
             return null;
@@ -131,6 +209,58 @@ public class HttpContentCompressor extends HttpContentEncoder {
                         wrapper, compressionLevel, windowBits, memLevel)));
     }
 
+    /**
+     * Returns {@link HttpHeaderValues#BR} or {@link HttpHeaderValues#ZSTD} if the client accepts the enabled encoding
+     * explicitly with at least the quality of {@code gzip} and {@code deflate}, or {@code null} if
+     * {@link #determineWrapper(String)} should choose the encoding.
+     */
+    private CharSequence determineEncoding(String acceptEncoding) {
+        float brQ = -1.0f;
+        float zstdQ = -1.0f;
+        float otherQ = -1.0f;
+        for (String encoding: StringUtil.split(acceptEncoding, ',')) {
+            float q = 1.0f;
+            int equalsPos = encoding.indexOf('=');
+            if (equalsPos != -1) {
+                try {
+                    q = Float.valueOf(encoding.substring(equalsPos + 1));
+                } catch (NumberFormatException e) {
+                    // Ignore encoding
+                    q = 0.0f;
+                }
+            }
+            if (encoding.contains("zstd")) {
+                zstdQ = Math.max(zstdQ, q);
+            } else if (encoding.contains("gzip") || encoding.contains("deflate")) {
+                otherQ = Math.max(otherQ, q);
+            } else if (isBr(encoding)) {
+                brQ = Math.max(brQ, q);
+            }
+        }
+        if (brotliOptions == null) {
+            brQ = -1.0f;
+        }
+        if (zstdOptions == null) {
+            zstdQ = -1.0f;
+        }
+        if (brQ > 0.0f && brQ >= zstdQ && brQ >= otherQ) {
+            return HttpHeaderValues.BR;
+        }
+        if (zstdQ > 0.0f && zstdQ >= otherQ) {
+            return HttpHeaderValues.ZSTD;
+        }
+        return null;
+    }
+
+    /**
+     * Returns {@code true} if the token names {@code br}, which is too short to be searched as part of the token
+     * like the other encodings.
+     */
+    private static boolean isBr(String encoding) {
+        int end = encoding.indexOf(';');
+        return "br".equalsIgnoreCase((end != -1 ? encoding.substring(0, end) : encoding).trim());
+    }
+
     @SuppressWarnings("FloatingPointEquality")
     protected ZlibWrapper determineWrapper(String acceptEncoding) {
         float starQ = -1.0f;
@@ -0,0 +1,327 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.util.AsciiString;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses the initial line and the headers of a HTTP message at once, once the whole header block, which ends with
+ * an empty line, was received.
+ * <p>
+ * The received bytes are searched for line feeds eight bytes at a time. The lines which were found are remembered,
+ * so a header block which is received in many small fragments is only scanned once. The complete header block is
+ * copied into a single {@code byte[]}, and the header names and values are {@link AsciiString}s backed by it, except
+ * for the names defined by {@link HttpHeaderNames}, which are replaced by these constants.
+ */
+final class HttpHeaderBlockParser {
+
+    private static final long LF_PATTERN = 0x0A0A0A0A0A0A0A0AL;
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+    private static final AsciiString[] KNOWN_NAMES;
+    private static final int KNOWN_NAMES_MASK;
+
+    static {
+        List<AsciiString> names = new ArrayList<AsciiString>();
+        for (Field field : HttpHeaderNames.class.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && field.getType() == AsciiString.class) {
+                try {
+                    names.add((AsciiString) field.get(null));
+                } catch (IllegalAccessException e) {
+                    throw new ExceptionInInitializerError(e);
+                }
+            }
+        }
+
+        int size = 1;
+        while (size < names.size() * 4) {
+            size <<= 1;
+        }
+        AsciiString[] table = new AsciiString[size];
+        for (AsciiString name : names) {
+            byte[] array = name.array();
+            int i = hash(array, name.arrayOffset(), name.arrayOffset() + name.length()) & size - 1;
+            while (table[i] != null) {
+                i = i + 1 & size - 1;
+            }
+            table[i] = name;
+        }
+        KNOWN_NAMES = table;
+        KNOWN_NAMES_MASK = size - 1;
+    }
+
+    private final int maxInitialLineLength;
+    private final int maxHeaderSize;
+
+    // The offsets of the line feeds found so far, relative to the start of the header block.
+    private int[] lineEnds = new int[16];
+    private int lines;
+    // The offset of the first line which is not complete yet, relative to the start of the header block.
+    private int scanned;
+    private int headerSize;
+    private byte[] block;
+
+    HttpHeaderBlockParser(int maxInitialLineLength, int maxHeaderSize) {
+        this.maxInitialLineLength = maxInitialLineLength;
+        this.maxHeaderSize = maxHeaderSize;
+    }
+
+    /**
+     * Searches the header block at the reader index of the given buffer, and consumes it if it is complete.
+     *
+     * @return {@code true} if the header block is complete, so {@link #initialLine()} and
+     *         {@link #addHeaders(HttpHeaders)} can be called
+     */
+    boolean parse(ByteBuf buffer) {
+        final int readerIndex = buffer.readerIndex();
+        final int writerIndex = buffer.writerIndex();
+        for (;;) {
+            final int lineStart = readerIndex + scanned;
+            final int lineFeed = indexOfLineFeed(buffer, lineStart, writerIndex);
+            final int lineEnd = lineFeed < 0 ? writerIndex : lineFeed;
+            int length = lineEnd - lineStart;
+            if (length > 0 && buffer.getByte(lineEnd - 1) == HttpConstants.CR) {
+                length --;
+            }
+
+            if (lines == 0) {
+                if (length > maxInitialLineLength) {
+                    throw new TooLongFrameException("An HTTP line is larger than " + maxInitialLineLength + " bytes.");
+                }
+            } else if (headerSize + length > maxHeaderSize) {
+                throw new TooLongFrameException("HTTP header is larger than " + maxHeaderSize + " bytes.");
+            }
+
+            if (lineFeed < 0) {
+                return false;
+            }
+
+            if (lines == lineEnds.length) {
+                int[] newLineEnds = new int[lines << 1];
+                System.arraycopy(lineEnds, 0, newLineEnds, 0, lines);
+                lineEnds = newLineEnds;
+            }
+            lineEnds[lines ++] = lineFeed - readerIndex;
+            scanned = lineFeed + 1 - readerIndex;
+
+            if (lines > 1) {
+                if (length == 0) {
+                    // The empty line which ends the header block.
+                    block = new byte[scanned];
+                    buffer.readBytes(block);
+                    return true;
+                }
+                headerSize += length;
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the first line feed between {@code index} and {@code end}, or {@code -1}.
+     */
+    private static int indexOfLineFeed(ByteBuf buffer, int index, int end) {
+        for (int last = end - 8; index <= last; index += 8) {
+            // A byte of x is zero exactly where the word contains a line feed. Unlike the usual
+            // (x - 0x01..) & ~x trick, no carry crosses byte boundaries, so the first match is exact.
+            long x = buffer.getLong(index) ^ LF_PATTERN;
+            long t = ~((x & LOW_BITS) + LOW_BITS | x | LOW_BITS);
+            if (t != 0) {
+                return index + (Long.numberOfLeadingZeros(t) >>> 3);
+            }
+        }
+        for (; index < end; index ++) {
+            if (buffer.getByte(index) == HttpConstants.LF) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the method, URI and version of a request or the version, status and reason phrase of a response.
+     */
+    String[] initialLine() {
+        final byte[] block = this.block;
+        final int end = lineEnd(0);
+
+        int aStart = findNonWhitespace(block, 0, end);
+        int aEnd = findWhitespace(block, aStart, end);
+
+        int bStart = findNonWhitespace(block, aEnd, end);
+        int bEnd = findWhitespace(block, bStart, end);
+
+        int cStart = findNonWhitespace(block, bEnd, end);
+        int cEnd = findEndOfString(block, 0, end);
+
+        return new String[] {
+                toString(block, aStart, aEnd),
+                toString(block, bStart, bEnd),
+                cStart < cEnd? toString(block, cStart, cEnd) : "" };
+    }
+
+    /**
+     * Adds the headers of the header block to the given {@link HttpHeaders}.
+     */
+    void addHeaders(HttpHeaders headers) {
+        final byte[] block = this.block;
+        CharSequence name = null;
+        CharSequence value = null;
+        // The last line is the empty line which ends the header block.
+        for (int i = 1; i < lines - 1; i ++) {
+            final int start = lineEnds[i - 1] + 1;
+            final int end = lineEnd(i);
+
+            byte firstByte = block[start];
+            if (name != null && (firstByte == ' ' || firstByte == '\t')) {
+                // A folded value.
+                String continuation = toString(block, start, end).trim();
+                StringBuilder buf = new StringBuilder(value.length() + continuation.length() + 1);
+                buf.append(value)
+                   .append(' ')
+                   .append(continuation);
+                value = buf.toString();
+                continue;
+            }
+
+            if (name != null) {
+                headers.add(name, value);
+            }
+
+            int nameStart = findNonWhitespace(block, start, end);
+            int nameEnd;
+            for (nameEnd = nameStart; nameEnd < end; nameEnd ++) {
+                byte b = block[nameEnd];
+                if (b == ':' || isWhitespace(b)) {
+                    break;
+                }
+            }
+
+            int colonEnd;
+            for (colonEnd = nameEnd; colonEnd < end; colonEnd ++) {
+                if (block[colonEnd] == ':') {
+                    colonEnd ++;
+                    break;
+                }
+            }
+
+            name = name(block, nameStart, nameEnd);
+            int valueStart = findNonWhitespace(block, colonEnd, end);
+            if (valueStart == end) {
+                value = AsciiString.EMPTY_STRING;
+            } else {
+                int valueEnd = findEndOfString(block, valueStart, end);
+                value = new AsciiString(block, valueStart, valueEnd - valueStart, false);
+            }
+        }
+
+        if (name != null) {
+            headers.add(name, value);
+        }
+    }
+
+    /**
+     * Forgets the current header block, so that the next one can be parsed.
+     */
+    void reset() {
+        lines = 0;
+        scanned = 0;
+        headerSize = 0;
+        block = null;
+    }
+
+    private int lineEnd(int line) {
+        int end = lineEnds[line];
+        int start = line == 0 ? 0 : lineEnds[line - 1] + 1;
+        return end > start && block[end - 1] == HttpConstants.CR ? end - 1 : end;
+    }
+
+    private static AsciiString name(byte[] block, int start, int end) {
+        int i = hash(block, start, end) & KNOWN_NAMES_MASK;
+        for (AsciiString known; (known = KNOWN_NAMES[i]) != null; i = i + 1 & KNOWN_NAMES_MASK) {
+            if (equalsIgnoreCase(known, block, start, end)) {
+                return known;
+            }
+        }
+        return new AsciiString(block, start, end - start, false);
+    }
+
+    private static int hash(byte[] bytes, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i ++) {
+            hash = hash * 31 + toLowerCase(bytes[i]);
+        }
+        return hash ^ hash >>> 16;
+    }
+
+    private static boolean equalsIgnoreCase(AsciiString known, byte[] bytes, int start, int end) {
+        if (known.length() != end - start) {
+            return false;
+        }
+        byte[] array = known.array();
+        for (int i = start, j = known.arrayOffset(); i < end; i ++, j ++) {
+            if (toLowerCase(bytes[i]) != array[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte toLowerCase(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + 32) : b;
+    }
+
+    private static String toString(byte[] bytes, int start, int end) {
+        return new AsciiString(bytes, start, end - start, false).toString();
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return Character.isWhitespace((char) b);
+    }
+
+    private static int findNonWhitespace(byte[] bytes, int offset, int end) {
+        for (int result = offset; result < end; ++result) {
+            if (!isWhitespace(bytes[result])) {
+                return result;
+            }
+        }
+        return end;
+    }
+
+    private static int findWhitespace(byte[] bytes, int offset, int end) {
+        for (int result = offset; result < end; ++result) {
+            if (isWhitespace(bytes[result])) {
+                return result;
+            }
+        }
+        return end;
+    }
+
+    private static int findEndOfString(byte[] bytes, int start, int end) {
+        for (int result = end; result > start; --result) {
+            if (!isWhitespace(bytes[result - 1])) {
+                return result;
+            }
+        }
+        return start;
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.util.AsciiString;
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.text.ParsePosition;
+import java.util.Date;
+
+/**
+ * Formats and parses the dates of HTTP headers like {@code Date} and {@code If-Modified-Since} without a
+ * {@link java.text.DateFormat}.
+ * <p>
+ * {@link #now()} returns the current date, which is formatted at most once per second by every thread, so a server
+ * can add it to all of its responses cheaply:
+ * <pre>
+ * response.headers().set({@link HttpHeaderNames#DATE}, {@link HttpHeaderDate#now()});
+ * </pre>
+ * Only the preferred format {@code Sun, 06 Nov 1994 08:49:37 GMT} is generated. {@link #parse(CharSequence)} parses
+ * it without creating any objects, and falls back to {@link HttpHeaderDateFormat} for the obsolete formats.
+ */
+public final class HttpHeaderDate {
+
+    private static final int LENGTH = 29;
+
+    private static final byte[][] DAYS = {
+            bytes("Sun"), bytes("Mon"), bytes("Tue"), bytes("Wed"), bytes("Thu"), bytes("Fri"), bytes("Sat") };
+    private static final byte[][] MONTHS = {
+            bytes("Jan"), bytes("Feb"), bytes("Mar"), bytes("Apr"), bytes("May"), bytes("Jun"),
+            bytes("Jul"), bytes("Aug"), bytes("Sep"), bytes("Oct"), bytes("Nov"), bytes("Dec") };
+
+    // Earlier dates are formatted and parsed by HttpHeaderDateFormat, which uses the Julian calendar for them.
+    private static final int MIN_YEAR = 1583;
+
+    private static final long MILLIS_PER_DAY = 86400000L;
+    private static final int DAYS_PER_ERA = 146097;
+    // The number of days between 0000-03-01 and 1970-01-01.
+    private static final int EPOCH_OFFSET = 719468;
+
+    private static final FastThreadLocal<CachedDate> CACHED_DATE = new FastThreadLocal<CachedDate>() {
+        @Override
+        protected CachedDate initialValue() {
+            return new CachedDate();
+        }
+    };
+
+    private HttpHeaderDate() { }
+
+    /**
+     * Returns the current date. The same instance is returned by the calling thread until the current second ends.
+     */
+    public static AsciiString now() {
+        return now(System.currentTimeMillis());
+    }
+
+    static AsciiString now(long currentTimeMillis) {
+        CachedDate cached = CACHED_DATE.get();
+        long second = floorDiv(currentTimeMillis, 1000);
+        AsciiString date = cached.date;
+        if (date == null || cached.second != second) {
+            cached.date = date = format(currentTimeMillis);
+            cached.second = second;
+        }
+        return date;
+    }
+
+    /**
+     * Formats the given date, for example as {@code Sun, 06 Nov 1994 08:49:37 GMT}.
+     *
+     * @param millis    the milliseconds since the epoch
+     */
+    public static AsciiString format(long millis) {
+        long days = floorDiv(millis, MILLIS_PER_DAY);
+        int secondOfDay = (int) ((millis - days * MILLIS_PER_DAY) / 1000);
+
+        // See http://howardhinnant.github.io/date_algorithms.html#civil_from_days
+        long z = days + EPOCH_OFFSET;
+        long era = floorDiv(z, DAYS_PER_ERA);
+        int dayOfEra = (int) (z - era * DAYS_PER_ERA);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        if (year < MIN_YEAR || year > 9999) {
+            return new AsciiString(HttpHeaderDateFormat.get().format(new Date(millis)));
+        }
+
+        byte[] date = new byte[LENGTH];
+        // 1970-01-01 was a Thursday.
+        System.arraycopy(DAYS[(int) floorMod(days + 4, 7)], 0, date, 0, 3);
+        date[3] = ',';
+        date[4] = ' ';
+        writeTwoDigits(date, 5, day);
+        date[7] = ' ';
+        System.arraycopy(MONTHS[month - 1], 0, date, 8, 3);
+        date[11] = ' ';
+        writeTwoDigits(date, 12, (int) year / 100);
+        writeTwoDigits(date, 14, (int) year % 100);
+        date[16] = ' ';
+        writeTwoDigits(date, 17, secondOfDay / 3600);
+        date[19] = ':';
+        writeTwoDigits(date, 20, secondOfDay / 60 % 60);
+        date[22] = ':';
+        writeTwoDigits(date, 23, secondOfDay % 60);
+        date[25] = ' ';
+        date[26] = 'G';
+        date[27] = 'M';
+        date[28] = 'T';
+        return new AsciiString(date, false);
+    }
+
+    /**
+     * Parses a date in any of the formats supported by {@link HttpHeaderDateFormat}.
+     *
+     * @return the milliseconds since the epoch, or {@code -1} if the date could not be parsed
+     */
+    public static long parse(CharSequence value) {
+        long millis = parsePreferred(value);
+        if (millis != -1) {
+            return millis;
+        }
+        Date date = HttpHeaderDateFormat.get().parse(value.toString(), new ParsePosition(0));
+        return date != null ? date.getTime() : -1;
+    }
+
+    /**
+     * Parses the preferred format, {@code Sun, 06 Nov 1994 08:49:37 GMT}.
+     */
+    private static long parsePreferred(CharSequence value) {
+        if (value.length() != LENGTH ||
+            value.charAt(3) != ',' || value.charAt(4) != ' ' || value.charAt(7) != ' ' || value.charAt(11) != ' ' ||
+            value.charAt(16) != ' ' || value.charAt(19) != ':' || value.charAt(22) != ':' ||
+            value.charAt(25) != ' ' || value.charAt(26) != 'G' || value.charAt(27) != 'M' ||
+            value.charAt(28) != 'T') {
+            return -1;
+        }
+
+        int month = indexOf(MONTHS, value, 8) + 1;
+        int day = parseTwoDigits(value, 5);
+        int century = parseTwoDigits(value, 12);
+        int yearOfCentury = parseTwoDigits(value, 14);
+        int hour = parseTwoDigits(value, 17);
+        int minute = parseTwoDigits(value, 20);
+        int second = parseTwoDigits(value, 23);
+        if ((century | yearOfCentury | hour | minute | second) < 0 || month == 0 || day < 1 || day > 31 ||
+            hour > 23 || minute > 59 || second > 59 || indexOf(DAYS, value, 0) < 0) {
+            // Let the lenient HttpHeaderDateFormat decide.
+            return -1;
+        }
+        int year = century * 100 + yearOfCentury;
+        if (year < MIN_YEAR) {
+            return -1;
+        }
+
+        // See http://howardhinnant.github.io/date_algorithms.html#days_from_civil
+        int y = month <= 2 ? year - 1 : year;
+        int era = y / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        long days = (long) era * DAYS_PER_ERA + dayOfEra - EPOCH_OFFSET;
+        return (days * 86400 + hour * 3600 + minute * 60 + second) * 1000;
+    }
+
+    private static int indexOf(byte[][] names, CharSequence value, int index) {
+        for (int i = 0; i < names.length; i ++) {
+            byte[] name = names[i];
+            if (value.charAt(index) == name[0] && value.charAt(index + 1) == name[1] &&
+                value.charAt(index + 2) == name[2]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the value of the two digits at the given index, or {@code -1} if they are not digits.
+     */
+    private static int parseTwoDigits(CharSequence value, int index) {
+        int high = value.charAt(index) - '0';
+        int low = value.charAt(index + 1) - '0';
+        if (high < 0 || high > 9 || low < 0 || low > 9) {
+            return -1;
+        }
+        return high * 10 + low;
+    }
+
+    private static void writeTwoDigits(byte[] date, int index, int value) {
+        date[index] = (byte) ('0' + value / 10);
+        date[index + 1] = (byte) ('0' + value % 10);
+    }
+
+    private static long floorDiv(long x, long y) {
+        long q = x / y;
+        return (x % y != 0 && (x ^ y) < 0) ? q - 1 : q;
+    }
+
+    private static long floorMod(long x, long y) {
+        return x - floorDiv(x, y) * y;
+    }
+
+    private static byte[] bytes(String s) {
+        byte[] bytes = new byte[s.length()];
+        for (int i = 0; i < bytes.length; i ++) {
+            bytes[i] = (byte) s.charAt(i);
+        }
+        return bytes;
+    }
+
+    private static final class CachedDate {
+        long second;
+        AsciiString date;
+    }
+}
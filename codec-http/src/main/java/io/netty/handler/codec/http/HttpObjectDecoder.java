@@ -23,6 +23,7 @@ import io.netty.handler.codec.ByteToMessageDecoder;
 import io.netty.handler.codec.DecoderResult;
 import io.netty.handler.codec.PrematureChannelClosureException;
 import io.netty.handler.codec.TooLongFrameException;
+import io.netty.util.AsciiString;
 import io.netty.util.ByteProcessor;
 import io.netty.util.internal.AppendableCharSequence;
 
@@ -107,6 +108,7 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
     protected final boolean validateHeaders;
     private final HeaderParser headerParser;
     private final LineParser lineParser;
+    private final HttpHeaderBlockParser headerBlockParser;
 
     private HttpMessage message;
     private long chunkSize;
@@ -168,6 +170,23 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
     protected HttpObjectDecoder(
             int maxInitialLineLength, int maxHeaderSize, int maxChunkSize,
             boolean chunkedSupported, boolean validateHeaders, int initialBufferSize) {
+        this(maxInitialLineLength, maxHeaderSize, maxChunkSize, chunkedSupported, validateHeaders, initialBufferSize,
+             false);
+    }
+
+    /**
+     * Creates a new instance with the specified parameters.
+     *
+     * @param parseHeaderBlock  {@code true} to wait until the initial line and all headers of a message were
+     *                          received, and then parse them at once. The header names and values are
+     *                          {@link AsciiString}s backed by a copy of the received header block, and the names
+     *                          which are defined by {@link HttpHeaderNames} are replaced by these lower-case
+     *                          constants. This avoids copying every line into a {@link String}, but keeps the header
+     *                          block in memory as long as the headers are referenced.
+     */
+    protected HttpObjectDecoder(
+            int maxInitialLineLength, int maxHeaderSize, int maxChunkSize,
+            boolean chunkedSupported, boolean validateHeaders, int initialBufferSize, boolean parseHeaderBlock) {
         if (maxInitialLineLength <= 0) {
             throw new IllegalArgumentException(
                     "maxInitialLineLength must be a positive integer: " +
@@ -186,6 +205,7 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         AppendableCharSequence seq = new AppendableCharSequence(initialBufferSize);
         lineParser = new LineParser(seq, maxInitialLineLength);
         headerParser = new HeaderParser(seq, maxHeaderSize);
+        headerBlockParser = parseHeaderBlock ? new HttpHeaderBlockParser(maxInitialLineLength, maxHeaderSize) : null;
         this.maxChunkSize = maxChunkSize;
         this.chunkedSupported = chunkedSupported;
         this.validateHeaders = validateHeaders;
@@ -205,18 +225,24 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
             currentState = State.READ_INITIAL;
         }
         case READ_INITIAL: try {
-            AppendableCharSequence line = lineParser.parse(buffer);
-            if (line == null) {
-                return;
-            }
-            String[] initialLine = splitInitialLine(line);
-            if (initialLine.length < 3) {
-                // Invalid initial line - ignore.
-                currentState = State.SKIP_CONTROL_CHARS;
-                return;
-            }
+            if (headerBlockParser != null) {
+                if (!readHeaderBlock(buffer)) {
+                    return;
+                }
+            } else {
+                AppendableCharSequence line = lineParser.parse(buffer);
+                if (line == null) {
+                    return;
+                }
+                String[] initialLine = splitInitialLine(line);
+                if (initialLine.length < 3) {
+                    // Invalid initial line - ignore.
+                    currentState = State.SKIP_CONTROL_CHARS;
+                    return;
+                }
 
-            message = createMessage(initialLine);
+                message = createMessage(initialLine);
+            }
             currentState = State.READ_HEADER;
             // fall-through
         } catch (Exception e) {
@@ -224,7 +250,7 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
             return;
         }
         case READ_HEADER: try {
-            State nextState = readHeaders(buffer);
+            State nextState = headerBlockParser != null ? contentState() : readHeaders(buffer);
             if (nextState == null) {
                 return;
             }
@@ -500,6 +526,9 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         contentLength = Long.MIN_VALUE;
         lineParser.reset();
         headerParser.reset();
+        if (headerBlockParser != null) {
+            headerBlockParser.reset();
+        }
         trailer = null;
         if (!isDecodingRequest()) {
             HttpResponse res = (HttpResponse) message;
@@ -600,19 +629,42 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         name = null;
         value = null;
 
-        State nextState;
+        return contentState();
+    }
 
+    /**
+     * Parses the initial line and the headers at once if the whole header block was received.
+     */
+    private boolean readHeaderBlock(ByteBuf buffer) throws Exception {
+        final HttpHeaderBlockParser headerBlockParser = this.headerBlockParser;
+        if (!headerBlockParser.parse(buffer)) {
+            return false;
+        }
+        try {
+            message = createMessage(headerBlockParser.initialLine());
+            headerBlockParser.addHeaders(message.headers());
+        } finally {
+            headerBlockParser.reset();
+        }
+        return true;
+    }
+
+    /**
+     * Returns the state which reads the content of the current message, whose headers were read completely.
+     */
+    private State contentState() {
+        final HttpMessage message = this.message;
         if (isContentAlwaysEmpty(message)) {
             HttpUtil.setTransferEncodingChunked(message, false);
-            nextState = State.SKIP_CONTROL_CHARS;
-        } else if (HttpUtil.isTransferEncodingChunked(message)) {
-            nextState = State.READ_CHUNK_SIZE;
-        } else if (contentLength() >= 0) {
-            nextState = State.READ_FIXED_LENGTH_CONTENT;
-        } else {
-            nextState = State.READ_VARIABLE_LENGTH_CONTENT;
+            return State.SKIP_CONTROL_CHARS;
+        }
+        if (HttpUtil.isTransferEncodingChunked(message)) {
+            return State.READ_CHUNK_SIZE;
+        }
+        if (contentLength() >= 0) {
+            return State.READ_FIXED_LENGTH_CONTENT;
         }
-        return nextState;
+        return State.READ_VARIABLE_LENGTH_CONTENT;
     }
 
     private long contentLength() {
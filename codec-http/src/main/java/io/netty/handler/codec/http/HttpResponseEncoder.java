@@ -22,6 +22,9 @@ import static io.netty.handler.codec.http.HttpConstants.*;
 /**
  * Encodes an {@link HttpResponse} or an {@link HttpContent} into
  * a {@link ByteBuf}.
+ * <p>
+ * The status line and the headers of a response created by a {@link HttpResponseTemplate} are copied from the
+ * template, so only the headers of the response itself are encoded.
  */
 public class HttpResponseEncoder extends HttpObjectEncoder<HttpResponse> {
     private static final byte[] CRLF = { CR, LF };
@@ -33,6 +36,12 @@ public class HttpResponseEncoder extends HttpObjectEncoder<HttpResponse> {
 
     @Override
     protected void encodeInitialLine(ByteBuf buf, HttpResponse response) throws Exception {
+        HttpResponseTemplate template = HttpResponseTemplate.templateOf(response);
+        if (template != null) {
+            // Also writes the headers of the template, which precede the headers of the response.
+            template.encode(buf, response);
+            return;
+        }
         response.protocolVersion().encode(buf);
         buf.writeByte(SP);
         response.status().encode(buf);
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.util.Iterator;
+import java.util.Map.Entry;
+
+import static io.netty.handler.codec.http.HttpConstants.CR;
+import static io.netty.handler.codec.http.HttpConstants.LF;
+import static io.netty.handler.codec.http.HttpConstants.SP;
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
+/**
+ * The status line and the headers which are the same for many responses, encoded once, so that
+ * {@link HttpResponseEncoder} copies them as a whole instead of encoding them again for every response.
+ * <p>
+ * The responses created by {@link #newResponse()} and {@link #newFullResponse(ByteBuf)} only contain the headers
+ * which differ between the responses, like {@code Date}, in their {@link HttpResponse#headers()}. The headers of
+ * the template are not visible there, so they must not be needed by other handlers, for example by an
+ * {@link HttpContentEncoder}. The {@code Content-Length} and {@code Transfer-Encoding} headers of the template, which
+ * determine how the content is encoded, are not encoded in advance, but added to every new response instead.
+ * <pre>
+ * {@link HttpHeaders} headers = new {@link DefaultHttpHeaders}();
+ * headers.set({@link HttpHeaderNames#SERVER}, "example");
+ * headers.set({@link HttpHeaderNames#CONTENT_TYPE}, "text/plain");
+ * {@link HttpResponseTemplate} template = new {@link HttpResponseTemplate}(
+ *         {@link HttpVersion#HTTP_1_1}, {@link HttpResponseStatus#OK}, headers);
+ *
+ * {@link FullHttpResponse} response = template.newFullResponse(content);
+ * {@link HttpUtil}.setContentLength(response, content.readableBytes());
+ * response.headers().set({@link HttpHeaderNames#DATE}, {@link HttpHeaderDate#now()});
+ * ctx.writeAndFlush(response);
+ * </pre>
+ * A template is immutable and can be shared by many channels.
+ */
+public final class HttpResponseTemplate {
+
+    private static final byte[] CRLF = { CR, LF };
+
+    private final HttpVersion version;
+    private final HttpResponseStatus status;
+    private final HttpHeaders framingHeaders = new DefaultHttpHeaders(false);
+    private final byte[] encoded;
+    private final int initialLineLength;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param version   the HTTP version of the responses
+     * @param status    the status of the responses
+     * @param headers   the headers which are the same for all responses
+     */
+    public HttpResponseTemplate(HttpVersion version, HttpResponseStatus status, HttpHeaders headers) {
+        this.version = checkNotNull(version, "version");
+        this.status = checkNotNull(status, "status");
+        checkNotNull(headers, "headers");
+
+        ByteBuf buf = Unpooled.buffer();
+        try {
+            version.encode(buf);
+            buf.writeByte(SP);
+            status.encode(buf);
+            buf.writeBytes(CRLF);
+            initialLineLength = buf.readableBytes();
+
+            Iterator<Entry<CharSequence, CharSequence>> iter = headers.iteratorCharSequence();
+            while (iter.hasNext()) {
+                Entry<CharSequence, CharSequence> header = iter.next();
+                CharSequence name = header.getKey();
+                if (HttpHeaderNames.CONTENT_LENGTH.contentEqualsIgnoreCase(name) ||
+                    HttpHeaderNames.TRANSFER_ENCODING.contentEqualsIgnoreCase(name)) {
+                    framingHeaders.add(name, header.getValue());
+                } else {
+                    HttpHeadersEncoder.encoderHeader(name, header.getValue(), buf);
+                }
+            }
+            encoded = new byte[buf.readableBytes()];
+            buf.readBytes(encoded);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("invalid headers: " + headers, e);
+        } finally {
+            buf.release();
+        }
+    }
+
+    /**
+     * Returns the HTTP version of the responses.
+     */
+    public HttpVersion protocolVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the status of the responses.
+     */
+    public HttpResponseStatus status() {
+        return status;
+    }
+
+    /**
+     * Creates a new {@link HttpResponse} whose content follows in separate {@link HttpContent}s.
+     */
+    public HttpResponse newResponse() {
+        Response response = new Response(this);
+        response.headers().add(framingHeaders);
+        return response;
+    }
+
+    /**
+     * Creates a new {@link FullHttpResponse} with the given content.
+     */
+    public FullHttpResponse newFullResponse(ByteBuf content) {
+        FullResponse response = new FullResponse(this, content, new DefaultHttpHeaders(), new DefaultHttpHeaders());
+        response.headers().add(framingHeaders);
+        return response;
+    }
+
+    /**
+     * Returns the template which the given response was created from, or {@code null}.
+     */
+    static HttpResponseTemplate templateOf(HttpResponse response) {
+        if (response instanceof Response) {
+            return ((Response) response).template;
+        }
+        if (response instanceof FullResponse) {
+            return ((FullResponse) response).template;
+        }
+        return null;
+    }
+
+    /**
+     * Writes the status line of the given response, which was created from this template, and the headers of this
+     * template.
+     */
+    void encode(ByteBuf buf, HttpResponse response) {
+        if (response.protocolVersion() == version && response.status() == status) {
+            buf.writeBytes(encoded);
+        } else {
+            // The version or status was changed after the response was created.
+            response.protocolVersion().encode(buf);
+            buf.writeByte(SP);
+            response.status().encode(buf);
+            buf.writeBytes(CRLF);
+            buf.writeBytes(encoded, initialLineLength, encoded.length - initialLineLength);
+        }
+    }
+
+    private static final class Response extends DefaultHttpResponse {
+        final HttpResponseTemplate template;
+
+        Response(HttpResponseTemplate template) {
+            super(template.version, template.status);
+            this.template = template;
+        }
+    }
+
+    private static final class FullResponse extends DefaultFullHttpResponse {
+        final HttpResponseTemplate template;
+
+        FullResponse(HttpResponseTemplate template, ByteBuf content, HttpHeaders headers,
+                     HttpHeaders trailingHeaders) {
+            super(template.version, template.status, content, headers, trailingHeaders);
+            this.template = template;
+        }
+
+        @Override
+        public FullHttpResponse replace(ByteBuf content) {
+            FullResponse response = new FullResponse(template, content, headers(), trailingHeaders());
+            response.setProtocolVersion(protocolVersion());
+            response.setStatus(status());
+            return response;
+        }
+    }
+}
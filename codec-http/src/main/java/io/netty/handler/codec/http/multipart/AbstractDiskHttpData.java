@@ -16,6 +16,8 @@
 package io.netty.handler.codec.http.multipart;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.channel.FileRegion;
 import io.netty.handler.codec.http.HttpConstants;
 import io.netty.util.internal.EmptyArrays;
 import io.netty.util.internal.logging.InternalLogger;
@@ -436,6 +438,18 @@ public abstract class AbstractDiskHttpData extends AbstractHttpData {
         return file;
     }
 
+    /**
+     * Returns a {@link FileRegion} of the content which was added so far, which can be written to a
+     * {@link io.netty.channel.Channel} without reading the file into memory, so the transport may send it with
+     * {@code sendfile}. The file is only opened once the region is written, and must not be deleted before.
+     */
+    public FileRegion toFileRegion() throws IOException {
+        if (file == null) {
+            file = tempFile();
+        }
+        return new DefaultFileRegion(file, 0, size);
+    }
+
     @Override
     public HttpData touch() {
         return this;
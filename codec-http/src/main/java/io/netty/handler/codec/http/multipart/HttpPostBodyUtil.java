@@ -16,6 +16,7 @@
 package io.netty.handler.codec.http.multipart;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.util.CharsetUtil;
 
 /**
  * Shared Static object between HttpMessageDecoder, HttpPostRequestDecoder and HttpPostRequestEncoder
@@ -138,6 +139,81 @@ final class HttpPostBodyUtil {
         }
     }
 
+    /**
+     * Searches a multipart delimiter with the Boyer-Moore-Horspool algorithm, which compares the last byte of the
+     * delimiter first and skips ahead by up to the length of the delimiter on a mismatch, instead of looking at
+     * every byte of the body.
+     */
+    static final class DelimiterSearch {
+        final String delimiter;
+        private final byte[] pattern;
+        private final int[] shifts = new int[256];
+
+        DelimiterSearch(String delimiter) {
+            this.delimiter = delimiter;
+            pattern = delimiter.getBytes(CharsetUtil.US_ASCII);
+            final int last = pattern.length - 1;
+            for (int i = 0; i < shifts.length; i++) {
+                shifts[i] = pattern.length;
+            }
+            for (int i = 0; i < last; i++) {
+                shifts[pattern[i] & 0xFF] = last - i;
+            }
+        }
+
+        /**
+         * Returns the length of the delimiter in bytes.
+         */
+        int length() {
+            return pattern.length;
+        }
+
+        /**
+         * Returns the index of the first occurrence of the delimiter which starts at or after {@code fromIndex} and
+         * ends before {@code toIndex}, or {@code -1} if there is none.
+         */
+        int indexOf(ByteBuf buffer, int fromIndex, int toIndex) {
+            final byte[] pattern = this.pattern;
+            final int[] shifts = this.shifts;
+            final int last = pattern.length - 1;
+            final byte lastByte = pattern[last];
+            if (buffer.hasArray()) {
+                final byte[] array = buffer.array();
+                final int offset = buffer.arrayOffset();
+                final int end = toIndex + offset - last;
+                for (int i = fromIndex + offset; i < end;) {
+                    byte b = array[i + last];
+                    if (b == lastByte) {
+                        int j = last - 1;
+                        while (j >= 0 && array[i + j] == pattern[j]) {
+                            j--;
+                        }
+                        if (j < 0) {
+                            return i - offset;
+                        }
+                    }
+                    i += shifts[b & 0xFF];
+                }
+            } else {
+                final int end = toIndex - last;
+                for (int i = fromIndex; i < end;) {
+                    byte b = buffer.getByte(i + last);
+                    if (b == lastByte) {
+                        int j = last - 1;
+                        while (j >= 0 && buffer.getByte(i + j) == pattern[j]) {
+                            j--;
+                        }
+                        if (j < 0) {
+                            return i;
+                        }
+                    }
+                    i += shifts[b & 0xFF];
+                }
+            }
+            return -1;
+        }
+    }
+
     /**
      * Find the first non whitespace
      * @return the rank of the first non whitespace
@@ -18,9 +18,12 @@ package io.netty.handler.codec.http.multipart;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.channel.FileRegion;
 import io.netty.handler.codec.DecoderResult;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
 import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
 import io.netty.handler.codec.http.EmptyHttpHeaders;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpConstants;
@@ -34,6 +37,7 @@ import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.handler.stream.ChunkedInput;
+import io.netty.util.ReferenceCountUtil;
 import io.netty.util.internal.ThreadLocalRandom;
 
 import java.io.File;
@@ -790,6 +794,82 @@ public class HttpPostRequestEncoder implements ChunkedInput<HttpContent> {
         return isChunked;
     }
 
+    /**
+     * Returns the body of the finalized request as the messages to write after the request instead of this encoder.
+     * The content of a {@link FileUpload} or {@link Attribute} which is stored on disk is returned as a
+     * {@link FileRegion}, so the transport may send it with {@code sendfile} instead of reading it into memory, and
+     * the last message is a {@link LastHttpContent}. If the request does not need chunk (isChunked() == false), the
+     * body is already part of the request and the returned list is empty.<br>
+     * As a {@link FileRegion} cannot be encrypted, this must not be used if the channel uses SSL/TLS. The files
+     * must not be deleted before the messages were written.
+     *
+     * @return the messages to write after the request
+     * @throws ErrorDataEncoderException
+     *             if the encoding is in error or if the request was not finalized or is already being encoded
+     */
+    public List<Object> readBodyWithFileRegions() throws ErrorDataEncoderException {
+        if (!headerFinalized) {
+            throw new ErrorDataEncoderException("Header not encoded");
+        }
+        if (!isChunked) {
+            return new ArrayList<Object>(0);
+        }
+        if (iterator.previousIndex() >= 0 || isLastChunkSent) {
+            throw new ErrorDataEncoderException("Body already encoded");
+        }
+        List<Object> messages = new ArrayList<Object>();
+        if (!isMultipart) {
+            // No FileUpload, as only its filename is sent
+            while (!isLastChunkSent) {
+                HttpContent chunk = nextChunk();
+                globalProgress += chunk.content().readableBytes();
+                messages.add(chunk);
+            }
+            return messages;
+        }
+        ByteBuf buffer = null;
+        try {
+            while (iterator.hasNext()) {
+                InterfaceHttpData data = iterator.next();
+                ByteBuf next;
+                if (data instanceof InternalAttribute) {
+                    next = ((InternalAttribute) data).toByteBuf();
+                } else {
+                    HttpData httpData = (HttpData) data;
+                    if (httpData.length() == 0) {
+                        continue;
+                    }
+                    if (!httpData.isInMemory()) {
+                        if (buffer != null) {
+                            messages.add(new DefaultHttpContent(buffer));
+                            buffer = null;
+                        }
+                        FileRegion region = httpData instanceof AbstractDiskHttpData ?
+                                ((AbstractDiskHttpData) httpData).toFileRegion() :
+                                new DefaultFileRegion(httpData.getFile(), 0, httpData.length());
+                        messages.add(region);
+                        continue;
+                    }
+                    next = httpData.getByteBuf().retainedDuplicate();
+                }
+                buffer = buffer == null ? next : wrappedBuffer(buffer, next);
+            }
+        } catch (IOException e) {
+            if (buffer != null) {
+                buffer.release();
+            }
+            for (Object message : messages) {
+                ReferenceCountUtil.release(message);
+            }
+            throw new ErrorDataEncoderException(e);
+        }
+        messages.add(buffer == null ? LastHttpContent.EMPTY_LAST_CONTENT : new DefaultLastHttpContent(buffer));
+        isLastChunk = true;
+        isLastChunkSent = true;
+        globalProgress = globalBodySize;
+        return messages;
+    }
+
     /**
      * Encode one attribute
      *
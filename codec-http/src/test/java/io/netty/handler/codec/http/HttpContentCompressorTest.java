@@ -19,6 +19,7 @@ import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.EncoderException;
+import io.netty.handler.codec.compression.StandardCompressionOptions;
 import io.netty.handler.codec.compression.ZlibWrapper;
 import io.netty.util.CharsetUtil;
 import io.netty.util.ReferenceCountUtil;
@@ -373,6 +374,142 @@ public class HttpContentCompressorTest {
         }
     }
 
+    @Test
+    public void testZstdNegotiation() throws Exception {
+        String[] tests = {
+            // Accept-Encoding -> Content-Encoding
+            "zstd", "zstd",
+            "gzip, zstd", "zstd",
+            "zstd;q=0.5, gzip", "gzip",
+            "zstd;q=0, gzip", "gzip",
+            "*", "gzip",
+            "deflate;q=0.5, zstd;q=0.5", "zstd",
+        };
+        for (int i = 0; i < tests.length; i += 2) {
+            EmbeddedChannel ch = new EmbeddedChannel(new HttpContentCompressor(StandardCompressionOptions.zstd()));
+            FullHttpRequest req = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+            req.headers().set(HttpHeaderNames.ACCEPT_ENCODING, tests[i]);
+            ch.writeInbound(req);
+            ch.writeOutbound(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+
+            HttpResponse res = ch.readOutbound();
+            assertEquals(tests[i + 1], res.headers().get(HttpHeaderNames.CONTENT_ENCODING));
+            ch.finishAndReleaseAll();
+        }
+    }
+
+    @Test
+    public void testZstdFullContent() throws Exception {
+        EmbeddedChannel ch = new EmbeddedChannel(new HttpContentCompressor(StandardCompressionOptions.zstd()));
+        FullHttpRequest req = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+        req.headers().set(HttpHeaderNames.ACCEPT_ENCODING, "zstd, gzip");
+        ch.writeInbound(req);
+
+        FullHttpResponse res = new DefaultFullHttpResponse(
+                HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                Unpooled.copiedBuffer("Hello, World", CharsetUtil.US_ASCII));
+        res.headers().set(HttpHeaderNames.CONTENT_LENGTH, res.content().readableBytes());
+        ch.writeOutbound(res);
+
+        // Decode the response again on the client side.
+        EmbeddedChannel client = new EmbeddedChannel(new HttpContentDecompressor());
+        for (;;) {
+            Object message = ch.readOutbound();
+            if (message == null) {
+                break;
+            }
+            if (message instanceof HttpResponse) {
+                assertEquals("zstd", ((HttpResponse) message).headers().get(HttpHeaderNames.CONTENT_ENCODING));
+            }
+            client.writeInbound(message);
+        }
+
+        HttpResponse decoded = client.readInbound();
+        assertThat(decoded.headers().get(HttpHeaderNames.CONTENT_ENCODING), is(nullValue()));
+        StringBuilder content = new StringBuilder();
+        for (;;) {
+            HttpContent c = client.readInbound();
+            if (c == null) {
+                break;
+            }
+            content.append(c.content().toString(CharsetUtil.US_ASCII));
+            c.release();
+        }
+        assertEquals("Hello, World", content.toString());
+        ch.finishAndReleaseAll();
+        assertThat(client.finish(), is(false));
+    }
+
+    @Test
+    public void testBrotliNegotiation() throws Exception {
+        String[] tests = {
+            // Accept-Encoding -> Content-Encoding
+            "br", "br",
+            "gzip, deflate, br", "br",
+            "br;q=0.5, gzip", "gzip",
+            "br;q=0, gzip", "gzip",
+            "*", "gzip",
+            "zstd, br", "br",
+            "zstd, br;q=0.8", "zstd",
+            "brotli, gzip", "gzip",
+        };
+        for (int i = 0; i < tests.length; i += 2) {
+            EmbeddedChannel ch = new EmbeddedChannel(new HttpContentCompressor(
+                    StandardCompressionOptions.brotli(), StandardCompressionOptions.zstd()));
+            FullHttpRequest req = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+            req.headers().set(HttpHeaderNames.ACCEPT_ENCODING, tests[i]);
+            ch.writeInbound(req);
+            ch.writeOutbound(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+
+            HttpResponse res = ch.readOutbound();
+            assertEquals(tests[i], tests[i + 1], res.headers().get(HttpHeaderNames.CONTENT_ENCODING));
+            ch.finishAndReleaseAll();
+        }
+    }
+
+    @Test
+    public void testBrotliChunkedContent() throws Exception {
+        EmbeddedChannel ch = new EmbeddedChannel(new HttpContentCompressor(StandardCompressionOptions.brotli()));
+        FullHttpRequest req = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+        req.headers().set(HttpHeaderNames.ACCEPT_ENCODING, "gzip, br");
+        ch.writeInbound(req);
+
+        HttpResponse res = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        res.headers().set(HttpHeaderNames.TRANSFER_ENCODING, HttpHeaderValues.CHUNKED);
+        ch.writeOutbound(res);
+        ch.writeOutbound(new DefaultHttpContent(Unpooled.copiedBuffer("Hell", CharsetUtil.US_ASCII)));
+        ch.writeOutbound(new DefaultHttpContent(Unpooled.copiedBuffer("o, w", CharsetUtil.US_ASCII)));
+        ch.writeOutbound(new DefaultLastHttpContent(Unpooled.copiedBuffer("orld", CharsetUtil.US_ASCII)));
+
+        // Decode the response again on the client side.
+        EmbeddedChannel client = new EmbeddedChannel(new HttpContentDecompressor());
+        for (;;) {
+            Object message = ch.readOutbound();
+            if (message == null) {
+                break;
+            }
+            if (message instanceof HttpResponse) {
+                assertEquals("br", ((HttpResponse) message).headers().get(HttpHeaderNames.CONTENT_ENCODING));
+            }
+            client.writeInbound(message);
+        }
+
+        HttpResponse decoded = client.readInbound();
+        assertThat(decoded.headers().get(HttpHeaderNames.CONTENT_ENCODING), is(nullValue()));
+        StringBuilder content = new StringBuilder();
+        for (;;) {
+            HttpContent c = client.readInbound();
+            if (c == null) {
+                break;
+            }
+            content.append(c.content().toString(CharsetUtil.US_ASCII));
+            c.release();
+        }
+        assertEquals("Hello, world", content.toString());
+        ch.finishAndReleaseAll();
+        assertThat(client.finish(), is(false));
+    }
+
     private static FullHttpRequest newRequest() {
         FullHttpRequest req = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
         req.headers().set(HttpHeaderNames.ACCEPT_ENCODING, "gzip");
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.util.AsciiString;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class HttpHeaderDateTest {
+    /**
+     * 06 Nov 1994 08:49:37 GMT, like in the examples of RFC 7231.
+     */
+    private static final long DATE = 784111777000L;
+
+    @Test
+    public void testFormat() {
+        assertEquals("Sun, 06 Nov 1994 08:49:37 GMT", HttpHeaderDate.format(DATE).toString());
+        assertEquals("Thu, 01 Jan 1970 00:00:00 GMT", HttpHeaderDate.format(0).toString());
+        assertEquals("Wed, 31 Dec 1969 23:59:59 GMT", HttpHeaderDate.format(-1).toString());
+        assertEquals("Tue, 29 Feb 2000 12:00:00 GMT", HttpHeaderDate.format(951825600000L).toString());
+    }
+
+    @Test
+    public void testFormatLikeHttpHeaderDateFormat() {
+        HttpHeaderDateFormat format = HttpHeaderDateFormat.get();
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            // Between the years 1 and 9999, before the Gregorian calendar and long after it was introduced.
+            long millis = (long) (random.nextDouble() * 315506361600000L) - 62135596800000L;
+            String expected = format.format(new Date(millis));
+            assertEquals(expected, HttpHeaderDate.format(millis).toString());
+            assertEquals(expected, millis - millis % 1000 - (millis % 1000 < 0 ? 1000 : 0),
+                         HttpHeaderDate.parse(expected));
+        }
+    }
+
+    @Test
+    public void testParse() {
+        assertEquals(DATE, HttpHeaderDate.parse("Sun, 06 Nov 1994 08:49:37 GMT"));
+        assertEquals(DATE, HttpHeaderDate.parse(new AsciiString("Sun, 06 Nov 1994 08:49:37 GMT")));
+        // Obsolete formats.
+        assertEquals(DATE, HttpHeaderDate.parse("Sun, 6 Nov 1994 08:49:37 GMT"));
+        assertEquals(DATE, HttpHeaderDate.parse("Sunday, 06-Nov-94 08:49:37 GMT"));
+        assertEquals(DATE, HttpHeaderDate.parse("Sun Nov 6 08:49:37 1994"));
+    }
+
+    @Test
+    public void testParseInvalid() {
+        assertEquals(-1, HttpHeaderDate.parse(""));
+        assertEquals(-1, HttpHeaderDate.parse("Sun, 06 Nov 1994"));
+        assertEquals(-1, HttpHeaderDate.parse("Sun, 06 Xyz 1994 08:49:37 GMT"));
+        assertEquals(-1, HttpHeaderDate.parse("Sun, 06 Nov 19x4 08:49:37 GMT"));
+    }
+
+    @Test
+    public void testNowIsCachedForOneSecond() {
+        AsciiString date = HttpHeaderDate.now(DATE);
+        assertEquals("Sun, 06 Nov 1994 08:49:37 GMT", date.toString());
+        assertSame(date, HttpHeaderDate.now(DATE + 999));
+        assertEquals("Sun, 06 Nov 1994 08:49:38 GMT", HttpHeaderDate.now(DATE + 1000).toString());
+    }
+}
@@ -17,10 +17,13 @@ package io.netty.handler.codec.http;
 
 import io.netty.buffer.Unpooled;
 import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.TooLongFrameException;
 import io.netty.util.CharsetUtil;
 import org.junit.Test;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map.Entry;
 
 import static io.netty.handler.codec.http.HttpHeadersTestUtils.of;
 import static org.hamcrest.CoreMatchers.instanceOf;
@@ -30,6 +33,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
@@ -63,21 +67,40 @@ public class HttpRequestDecoderTest {
 
     @Test
     public void testDecodeWholeRequestAtOnceCRLFDelimiters() {
-        testDecodeWholeRequestAtOnce(CONTENT_CRLF_DELIMITERS);
+        testDecodeWholeRequestAtOnce(CONTENT_CRLF_DELIMITERS, false);
+    }
+
+    @Test
+    public void testDecodeWholeRequestAtOnceCRLFDelimitersAsHeaderBlock() {
+        testDecodeWholeRequestAtOnce(CONTENT_CRLF_DELIMITERS, true);
     }
 
     @Test
     public void testDecodeWholeRequestAtOnceLFDelimiters() {
-        testDecodeWholeRequestAtOnce(CONTENT_LF_DELIMITERS);
+        testDecodeWholeRequestAtOnce(CONTENT_LF_DELIMITERS, false);
+    }
+
+    @Test
+    public void testDecodeWholeRequestAtOnceLFDelimitersAsHeaderBlock() {
+        testDecodeWholeRequestAtOnce(CONTENT_LF_DELIMITERS, true);
     }
 
     @Test
     public void testDecodeWholeRequestAtOnceMixedDelimiters() {
-        testDecodeWholeRequestAtOnce(CONTENT_MIXED_DELIMITERS);
+        testDecodeWholeRequestAtOnce(CONTENT_MIXED_DELIMITERS, false);
     }
 
-    private static void testDecodeWholeRequestAtOnce(byte[] content) {
-        EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder());
+    @Test
+    public void testDecodeWholeRequestAtOnceMixedDelimitersAsHeaderBlock() {
+        testDecodeWholeRequestAtOnce(CONTENT_MIXED_DELIMITERS, true);
+    }
+
+    private static HttpRequestDecoder newDecoder(boolean headerBlock) {
+        return new HttpRequestDecoder(4096, 8192, 8192, true, 128, headerBlock);
+    }
+
+    private static void testDecodeWholeRequestAtOnce(byte[] content, boolean headerBlock) {
+        EmbeddedChannel channel = new EmbeddedChannel(newDecoder(headerBlock));
         assertTrue(channel.writeInbound(Unpooled.wrappedBuffer(content)));
         HttpRequest req = channel.readInbound();
         assertNotNull(req);
@@ -112,27 +135,43 @@ public class HttpRequestDecoderTest {
 
     @Test
     public void testDecodeWholeRequestInMultipleStepsCRLFDelimiters() {
-        testDecodeWholeRequestInMultipleSteps(CONTENT_CRLF_DELIMITERS);
+        testDecodeWholeRequestInMultipleSteps(CONTENT_CRLF_DELIMITERS, false);
+    }
+
+    @Test
+    public void testDecodeWholeRequestInMultipleStepsCRLFDelimitersAsHeaderBlock() {
+        testDecodeWholeRequestInMultipleSteps(CONTENT_CRLF_DELIMITERS, true);
     }
 
     @Test
     public void testDecodeWholeRequestInMultipleStepsLFDelimiters() {
-        testDecodeWholeRequestInMultipleSteps(CONTENT_LF_DELIMITERS);
+        testDecodeWholeRequestInMultipleSteps(CONTENT_LF_DELIMITERS, false);
+    }
+
+    @Test
+    public void testDecodeWholeRequestInMultipleStepsLFDelimitersAsHeaderBlock() {
+        testDecodeWholeRequestInMultipleSteps(CONTENT_LF_DELIMITERS, true);
     }
 
     @Test
     public void testDecodeWholeRequestInMultipleStepsMixedDelimiters() {
-        testDecodeWholeRequestInMultipleSteps(CONTENT_MIXED_DELIMITERS);
+        testDecodeWholeRequestInMultipleSteps(CONTENT_MIXED_DELIMITERS, false);
     }
 
-    private static void testDecodeWholeRequestInMultipleSteps(byte[] content) {
+    @Test
+    public void testDecodeWholeRequestInMultipleStepsMixedDelimitersAsHeaderBlock() {
+        testDecodeWholeRequestInMultipleSteps(CONTENT_MIXED_DELIMITERS, true);
+    }
+
+    private static void testDecodeWholeRequestInMultipleSteps(byte[] content, boolean headerBlock) {
         for (int i = 1; i < content.length; i++) {
-            testDecodeWholeRequestInMultipleSteps(content, i);
+            testDecodeWholeRequestInMultipleSteps(content, i, headerBlock);
         }
     }
 
-    private static void testDecodeWholeRequestInMultipleSteps(byte[] content, int fragmentSize) {
-        EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder());
+    private static void testDecodeWholeRequestInMultipleSteps(byte[] content, int fragmentSize,
+                                                              boolean headerBlock) {
+        EmbeddedChannel channel = new EmbeddedChannel(newDecoder(headerBlock));
         int headerLength = content.length - CONTENT_LENGTH;
 
         // split up the header
@@ -184,6 +223,89 @@ public class HttpRequestDecoderTest {
         assertEquals("", req.headers().get(of("EmptyHeader")));
     }
 
+    @Test
+    public void testEmptyHeaderValueAsHeaderBlock() {
+        EmbeddedChannel channel = new EmbeddedChannel(newDecoder(true));
+        String crlf = "\r\n";
+        String request =  "GET /some/path HTTP/1.1" + crlf +
+                "Host: localhost" + crlf +
+                "EmptyHeader:" + crlf + crlf;
+        channel.writeInbound(Unpooled.wrappedBuffer(request.getBytes(CharsetUtil.US_ASCII)));
+        HttpRequest req = channel.readInbound();
+        assertEquals("", req.headers().get(of("EmptyHeader")));
+    }
+
+    @Test
+    public void testHeaderBlockInternsKnownNames() {
+        EmbeddedChannel channel = new EmbeddedChannel(newDecoder(true));
+        String request = "GET / HTTP/1.1\r\n" +
+                "HOST: localhost\r\n" +
+                "X-Custom: a\r\n" +
+                "  b\r\n\r\n";
+        channel.writeInbound(Unpooled.copiedBuffer(request, CharsetUtil.US_ASCII));
+        HttpRequest req = channel.readInbound();
+        assertEquals(HttpMethod.GET, req.method());
+        assertEquals("/", req.uri());
+        assertEquals(HttpVersion.HTTP_1_1, req.protocolVersion());
+
+        Iterator<Entry<CharSequence, CharSequence>> headers = req.headers().iteratorCharSequence();
+        Entry<CharSequence, CharSequence> host = headers.next();
+        assertSame(HttpHeaderNames.HOST, host.getKey());
+        assertEquals("localhost", host.getValue().toString());
+        Entry<CharSequence, CharSequence> custom = headers.next();
+        assertEquals("X-Custom", custom.getKey().toString());
+        // Folded lines are joined like by the line based parser.
+        assertEquals("a b", custom.getValue().toString());
+        assertFalse(headers.hasNext());
+        assertThat(channel.readInbound(), is(instanceOf(LastHttpContent.class)));
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testHeaderBlockWithTooLongInitialLine() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder(16, 8192, 8192, true, 128, true));
+        // Fails before the header block is complete.
+        channel.writeInbound(Unpooled.copiedBuffer("GET /some/long/path", CharsetUtil.US_ASCII));
+        HttpRequest req = channel.readInbound();
+        assertTrue(req.decoderResult().cause() instanceof TooLongFrameException);
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testHeaderBlockWithTooLargeHeaders() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder(4096, 24, 8192, true, 128, true));
+        channel.writeInbound(Unpooled.copiedBuffer("GET / HTTP/1.1\r\nHost: localhost\r\n", CharsetUtil.US_ASCII));
+        assertNull(channel.readInbound());
+        channel.writeInbound(Unpooled.copiedBuffer("Accept: text/plain\r\n", CharsetUtil.US_ASCII));
+        HttpRequest req = channel.readInbound();
+        assertTrue(req.decoderResult().cause() instanceof TooLongFrameException);
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testHeaderBlockPipelinedRequests() {
+        EmbeddedChannel channel = new EmbeddedChannel(newDecoder(true));
+        String requests = "GET /first HTTP/1.1\r\nHost: localhost\r\n\r\n" +
+                "POST /second HTTP/1.1\r\nContent-Length: 1\r\n\r\nx" +
+                "GET /third HTTP/1.0\n\n";
+        channel.writeInbound(Unpooled.copiedBuffer(requests, CharsetUtil.US_ASCII));
+
+        HttpRequest req = channel.readInbound();
+        assertEquals("/first", req.uri());
+        assertThat(channel.readInbound(), is(instanceOf(LastHttpContent.class)));
+        req = channel.readInbound();
+        assertEquals("/second", req.uri());
+        assertEquals("1", req.headers().get(HttpHeaderNames.CONTENT_LENGTH));
+        LastHttpContent content = channel.readInbound();
+        assertEquals("x", content.content().toString(CharsetUtil.US_ASCII));
+        content.release();
+        req = channel.readInbound();
+        assertEquals("/third", req.uri());
+        assertEquals(HttpVersion.HTTP_1_0, req.protocolVersion());
+        assertThat(channel.readInbound(), is(instanceOf(LastHttpContent.class)));
+        assertFalse(channel.finish());
+    }
+
     @Test
     public void test100Continue() {
         HttpRequestDecoder decoder = new HttpRequestDecoder();
@@ -64,6 +64,81 @@ public class HttpResponseEncoderTest {
         assertFalse(channel.finish());
     }
 
+    @Test
+    public void testTemplateFullResponse() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpResponseEncoder());
+        HttpResponseTemplate template = newTemplate(HttpResponseStatus.OK);
+
+        for (int i = 0; i < 2; i++) {
+            FullHttpResponse response = template.newFullResponse(
+                    Unpooled.copiedBuffer("Hello", CharsetUtil.US_ASCII));
+            assertTrue(response.headers().isEmpty());
+            response.headers().set(HttpHeaderNames.CONTENT_LENGTH, 5);
+            response.headers().set(HttpHeaderNames.DATE, "Thu, 01 Jan 1970 00:00:0" + i + " GMT");
+            assertTrue(channel.writeOutbound(response));
+            assertOutbound(channel, "HTTP/1.1 200 OK\r\n" +
+                    "server: netty\r\n" +
+                    "content-type: text/plain\r\n" +
+                    "content-length: 5\r\n" +
+                    "date: Thu, 01 Jan 1970 00:00:0" + i + " GMT\r\n\r\n" +
+                    "Hello");
+        }
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testTemplateAddsFramingHeadersToResponse() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpResponseEncoder());
+        HttpHeaders headers = new DefaultHttpHeaders();
+        headers.set(HttpHeaderNames.SERVER, "netty");
+        headers.set(HttpHeaderNames.TRANSFER_ENCODING, HttpHeaderValues.CHUNKED);
+        HttpResponseTemplate template = new HttpResponseTemplate(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, headers);
+
+        HttpResponse response = template.newResponse();
+        assertTrue(HttpUtil.isTransferEncodingChunked(response));
+        assertTrue(channel.writeOutbound(response));
+        assertOutbound(channel, "HTTP/1.1 200 OK\r\nserver: netty\r\ntransfer-encoding: chunked\r\n\r\n");
+
+        assertTrue(channel.writeOutbound(new DefaultLastHttpContent(
+                Unpooled.copiedBuffer("abc", CharsetUtil.US_ASCII))));
+        assertOutbound(channel, "3\r\n");
+        assertOutbound(channel, "abc");
+        assertOutbound(channel, "\r\n");
+        assertOutbound(channel, "0\r\n\r\n");
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testTemplateResponseWithChangedStatus() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpResponseEncoder());
+        FullHttpResponse response = newTemplate(HttpResponseStatus.OK).newFullResponse(Unpooled.EMPTY_BUFFER);
+        response.setStatus(HttpResponseStatus.NOT_FOUND);
+        response.headers().set(HttpHeaderNames.CONTENT_LENGTH, 0);
+
+        // Keeps the template when the content is replaced.
+        FullHttpResponse duplicate = response.duplicate();
+        assertTrue(duplicate.headers().contains(HttpHeaderNames.CONTENT_LENGTH));
+        assertTrue(channel.writeOutbound(duplicate));
+        assertOutbound(channel, "HTTP/1.1 404 Not Found\r\n" +
+                "server: netty\r\n" +
+                "content-type: text/plain\r\n" +
+                "content-length: 0\r\n\r\n");
+        assertFalse(channel.finish());
+    }
+
+    private static HttpResponseTemplate newTemplate(HttpResponseStatus status) {
+        HttpHeaders headers = new DefaultHttpHeaders();
+        headers.set(HttpHeaderNames.SERVER, "netty");
+        headers.set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.TEXT_PLAIN);
+        return new HttpResponseTemplate(HttpVersion.HTTP_1_1, status, headers);
+    }
+
+    private static void assertOutbound(EmbeddedChannel channel, String expected) {
+        ByteBuf buffer = channel.readOutbound();
+        assertEquals(expected, buffer.toString(CharsetUtil.US_ASCII));
+        buffer.release();
+    }
+
     private static class DummyLongFileRegion implements FileRegion {
 
         @Override
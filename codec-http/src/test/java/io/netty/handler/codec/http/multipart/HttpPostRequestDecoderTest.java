@@ -35,8 +35,10 @@ import org.junit.Test;
 
 import java.nio.charset.UnsupportedCharsetException;
 import java.util.Arrays;
+import java.util.Random;
 
 import static io.netty.util.ReferenceCountUtil.releaseLater;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -492,4 +494,95 @@ public class HttpPostRequestDecoderTest {
             content.release();
         }
     }
+
+    @Test
+    public void testMultipartReceivedInSmallChunks() throws Exception {
+        testMultipartReceivedInSmallChunks(new DefaultHttpDataFactory(false));
+    }
+
+    @Test
+    public void testMultipartReceivedInSmallChunksOnDisk() throws Exception {
+        testMultipartReceivedInSmallChunks(new DefaultHttpDataFactory(true));
+    }
+
+    @Test
+    public void testMultipartReceivedInSmallChunksMixed() throws Exception {
+        // The file is moved to disk while it is received, the field stays in memory.
+        testMultipartReceivedInSmallChunks(new DefaultHttpDataFactory(1000));
+    }
+
+    private static void testMultipartReceivedInSmallChunks(HttpDataFactory factory) throws Exception {
+        final String boundary = "dLV9Wyq26L_-JQxk6ferf-RT153LhOO";
+        final String delimiter = "--" + boundary;
+        // Line breaks and parts of the delimiter which are data.
+        final String field = "\r\n" + delimiter.substring(0, 20) + "\r\r\n\n-" + delimiter.substring(2) + '\r';
+        final byte[] file = new byte[10000];
+        new Random(42).nextBytes(file);
+        System.arraycopy(field.getBytes(CharsetUtil.US_ASCII), 0, file, 5000, field.length());
+        file[file.length - 1] = '\n';
+
+        ByteBuf body = Unpooled.buffer();
+        body.writeBytes((delimiter + "\r\n" +
+                "Content-Disposition: form-data; name=\"field\"\r\n" +
+                "\r\n" +
+                field + "\r\n" +
+                delimiter + "\r\n" +
+                "Content-Disposition: form-data; name=\"file\"; filename=\"tmp-0.bin\"\r\n" +
+                "Content-Type: application/octet-stream\r\n" +
+                "\r\n").getBytes(CharsetUtil.US_ASCII));
+        body.writeBytes(file);
+        body.writeBytes(("\r\n" + delimiter + "--\r\n").getBytes(CharsetUtil.US_ASCII));
+
+        for (int chunkSize : new int[] { 1, 7, 100, 4096 }) {
+            final DefaultHttpRequest req = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST,
+                    "http://localhost");
+            req.headers().add(HttpHeaderNames.CONTENT_TYPE, "multipart/form-data; boundary=" + boundary);
+            req.headers().add(HttpHeaderNames.TRANSFER_ENCODING, HttpHeaderValues.CHUNKED);
+            final HttpPostRequestDecoder decoder = new HttpPostRequestDecoder(factory, req);
+
+            for (int i = 0; i < body.readableBytes(); i += chunkSize) {
+                int length = Math.min(chunkSize, body.readableBytes() - i);
+                decoder.offer(new DefaultHttpContent(body.slice(i, length)));
+            }
+            decoder.offer(LastHttpContent.EMPTY_LAST_CONTENT);
+
+            Attribute attribute = (Attribute) decoder.getBodyHttpData("field");
+            assertEquals("chunkSize: " + chunkSize, field, attribute.getValue());
+            FileUpload upload = (FileUpload) decoder.getBodyHttpData("file");
+            assertTrue(upload.isCompleted());
+            assertArrayEquals("chunkSize: " + chunkSize, file, upload.get());
+            decoder.destroy();
+        }
+        body.release();
+    }
+
+    @Test
+    public void testFileUploadIsPassedOnWhileReceived() throws Exception {
+        final String boundary = "dLV9Wyq26L_-JQxk6ferf-RT153LhOO";
+        final DefaultHttpRequest req = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST,
+                "http://localhost");
+        req.headers().add(HttpHeaderNames.CONTENT_TYPE, "multipart/form-data; boundary=" + boundary);
+        req.headers().add(HttpHeaderNames.TRANSFER_ENCODING, HttpHeaderValues.CHUNKED);
+        final HttpPostRequestDecoder decoder = new HttpPostRequestDecoder(new DefaultHttpDataFactory(true), req);
+
+        final byte[] data = new byte[1024];
+        Arrays.fill(data, (byte) 'a');
+        decoder.offer(releaseLater(new DefaultHttpContent(Unpooled.copiedBuffer(
+                "--" + boundary + "\r\n" +
+                "Content-Disposition: form-data; name=\"file\"; filename=\"tmp-0.txt\"\r\n" +
+                "\r\n", CharsetUtil.US_ASCII))));
+        for (int i = 1; i <= 3; i++) {
+            decoder.offer(new DefaultHttpContent(Unpooled.wrappedBuffer(data)));
+            FileUpload upload = (FileUpload) decoder.currentPartialHttpData();
+            assertFalse(upload.isCompleted());
+            // Only the bytes which may be the CRLF and the delimiter are kept.
+            assertEquals(i * data.length - ("\r\n--" + boundary).length(), upload.length());
+        }
+        decoder.offer(new DefaultLastHttpContent(Unpooled.copiedBuffer(
+                "\r\n--" + boundary + "--\r\n", CharsetUtil.US_ASCII)));
+        FileUpload upload = (FileUpload) decoder.getBodyHttpData("file");
+        assertTrue(upload.isCompleted());
+        assertEquals(3 * data.length, upload.length());
+        decoder.destroy();
+    }
 }
@@ -19,16 +19,22 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.SlicedByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.FileRegion;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
 import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.handler.codec.http.multipart.HttpPostRequestEncoder.EncoderMode;
 import io.netty.util.CharsetUtil;
+import io.netty.util.ReferenceCountUtil;
 import io.netty.util.internal.StringUtil;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.util.Arrays;
 import java.util.List;
 
@@ -37,6 +43,7 @@ import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_LENGTH;
 import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_TRANSFER_ENCODING;
 import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_TYPE;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /** {@link HttpPostRequestEncoder} test case. */
 public class HttpPostRequestEncoderTest {
@@ -236,6 +243,91 @@ public class HttpPostRequestEncoderTest {
         encoder.close();
     }
 
+    @Test
+    public void testReadBodyWithFileRegions() throws Exception {
+        DefaultFullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1,
+                HttpMethod.POST, "http://localhost");
+
+        // Force to use disk-based data.
+        HttpPostRequestEncoder encoder = new HttpPostRequestEncoder(new DefaultHttpDataFactory(true), request, true);
+        File file1 = new File(getClass().getResource("/file-01.txt").toURI());
+        File file2 = new File(getClass().getResource("/file-02.txt").toURI());
+        encoder.addBodyAttribute("foo", "bar");
+        encoder.addBodyFileUpload("quux", file1, "text/plain", false);
+        encoder.addBodyFileUpload("quuz", file2, "text/plain", false);
+        encoder.finalizeRequest();
+
+        String multipartDataBoundary = encoder.multipartDataBoundary;
+        String expected = "--" + multipartDataBoundary + "\r\n" +
+                CONTENT_DISPOSITION + ": form-data; name=\"foo\"" + "\r\n" +
+                CONTENT_LENGTH + ": 3" + "\r\n" +
+                CONTENT_TYPE + ": text/plain; charset=UTF-8" + "\r\n" +
+                "\r\n" +
+                "bar" +
+                "\r\n" +
+                "--" + multipartDataBoundary + "\r\n" +
+                CONTENT_DISPOSITION + ": form-data; name=\"quux\"; filename=\"file-01.txt\"" + "\r\n" +
+                CONTENT_LENGTH + ": " + file1.length() + "\r\n" +
+                CONTENT_TYPE + ": text/plain" + "\r\n" +
+                CONTENT_TRANSFER_ENCODING + ": binary" + "\r\n" +
+                "\r\n" +
+                "File 01" + StringUtil.NEWLINE +
+                "\r\n" +
+                "--" + multipartDataBoundary + "\r\n" +
+                CONTENT_DISPOSITION + ": form-data; name=\"quuz\"; filename=\"file-02.txt\"" + "\r\n" +
+                CONTENT_LENGTH + ": " + file2.length() + "\r\n" +
+                CONTENT_TYPE + ": text/plain" + "\r\n" +
+                CONTENT_TRANSFER_ENCODING + ": binary" + "\r\n" +
+                "\r\n" +
+                "File 02" + StringUtil.NEWLINE +
+                "\r\n" +
+                "--" + multipartDataBoundary + "--" + "\r\n";
+
+        List<Object> messages = encoder.readBodyWithFileRegions();
+        assertTrue(encoder.isEndOfInput());
+        assertEquals(encoder.length(), encoder.progress());
+        assertTrue(messages.get(messages.size() - 1) instanceof LastHttpContent);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        int fileRegions = 0;
+        for (Object message : messages) {
+            if (message instanceof FileRegion) {
+                FileRegion region = (FileRegion) message;
+                while (region.transferred() < region.count()) {
+                    region.transferTo(target, region.transferred());
+                }
+                fileRegions++;
+            } else {
+                ByteBuf content = ((HttpContent) message).content();
+                content.readBytes(out, content.readableBytes());
+            }
+            ReferenceCountUtil.release(message);
+        }
+        // The attribute is stored on disk as well.
+        assertEquals(3, fileRegions);
+        assertEquals(expected, out.toString(CharsetUtil.UTF_8.name()));
+        encoder.cleanFiles();
+    }
+
+    @Test
+    public void testDiskFileUploadToFileRegion() throws Exception {
+        DiskFileUpload upload = new DiskFileUpload("quux", "file.txt", "text/plain", null, null, 0);
+        upload.addContent(Unpooled.copiedBuffer("File ", CharsetUtil.US_ASCII), false);
+        upload.addContent(Unpooled.copiedBuffer("01", CharsetUtil.US_ASCII), true);
+
+        FileRegion region = upload.toFileRegion();
+        assertEquals(0, region.position());
+        assertEquals(7, region.count());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        while (region.transferred() < region.count()) {
+            region.transferTo(Channels.newChannel(out), region.transferred());
+        }
+        assertEquals("File 01", out.toString(CharsetUtil.US_ASCII.name()));
+        region.release();
+        upload.delete();
+    }
+
     private static String getRequestBody(HttpPostRequestEncoder encoder) throws Exception {
         encoder.finalizeRequest();
 
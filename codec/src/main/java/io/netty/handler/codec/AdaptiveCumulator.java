@@ -0,0 +1,150 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.handler.codec.ByteToMessageDecoder.Cumulator;
+
+/**
+ * {@link Cumulator} which decides for every received {@link ByteBuf} whether it is cheaper to copy it or to add it
+ * to a {@link CompositeByteBuf}:
+ *
+ * <ul>
+ *     <li>Small fragments are copied into the cumulation. If the cumulation needs to grow, a new buffer is allocated
+ *     which is sized based on the number of bytes that were cumulated before, so following fragments fit as well.
+ *     </li>
+ *     <li>Large fragments are added to a {@link CompositeByteBuf} without copying them. Once the
+ *     {@link CompositeByteBuf} has too many components, its content is copied into one buffer again.</li>
+ *     <li>Bytes that were already read are discarded once they make up a given ratio of the cumulation's
+ *     capacity.</li>
+ * </ul>
+ *
+ * As this {@link Cumulator} keeps state, a new instance must be used for every {@link ByteToMessageDecoder}.
+ */
+public final class AdaptiveCumulator implements Cumulator {
+
+    private static final int DEFAULT_COMPOSE_THRESHOLD = 4096;
+    private static final int DEFAULT_MAX_COMPONENTS = 16;
+    private static final float DEFAULT_DISCARD_RATIO = 0.5f;
+
+    private final int composeThreshold;
+    private final int maxComponents;
+    private final float discardRatio;
+
+    // Peak of the cumulated bytes which slowly decays, used to size newly allocated cumulations.
+    private int sizeEstimate;
+
+    /**
+     * Create a new instance which adds fragments of at least {@code 4096} bytes to a {@link CompositeByteBuf} with at
+     * most {@code 16} components and discards read bytes once they make up half of the capacity.
+     */
+    public AdaptiveCumulator() {
+        this(DEFAULT_COMPOSE_THRESHOLD, DEFAULT_MAX_COMPONENTS, DEFAULT_DISCARD_RATIO);
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param composeThreshold  the minimal number of readable bytes of a fragment to be added to a
+     *                          {@link CompositeByteBuf} instead of being copied.
+     * @param maxComponents     the maximal number of components of the {@link CompositeByteBuf}. If reached its
+     *                          content is copied into one buffer.
+     * @param discardRatio      the ratio of read bytes to the capacity of the cumulation at which the read bytes
+     *                          are discarded.
+     */
+    public AdaptiveCumulator(int composeThreshold, int maxComponents, float discardRatio) {
+        if (composeThreshold <= 0) {
+            throw new IllegalArgumentException("composeThreshold: " + composeThreshold + " (expected: > 0)");
+        }
+        if (maxComponents < 2) {
+            throw new IllegalArgumentException("maxComponents: " + maxComponents + " (expected: >= 2)");
+        }
+        if (discardRatio <= 0 || discardRatio > 1) {
+            throw new IllegalArgumentException("discardRatio: " + discardRatio + " (expected: 0 < discardRatio <= 1)");
+        }
+        this.composeThreshold = composeThreshold;
+        this.maxComponents = maxComponents;
+        this.discardRatio = discardRatio;
+    }
+
+    @Override
+    public ByteBuf cumulate(ByteBufAllocator alloc, ByteBuf cumulation, ByteBuf in) {
+        int inBytes = in.readableBytes();
+        int required = cumulation.readableBytes() + inBytes;
+        int estimate = Math.max(required, sizeEstimate - (sizeEstimate >>> 3));
+        sizeEstimate = estimate;
+
+        if (cumulation.refCnt() > 1) {
+            // Expand cumulation (by replace it) when the refCnt is greater then 1 which may happen when the user
+            // use slice().retain() or duplicate().retain().
+            //
+            // See:
+            // - https://github.com/netty/netty/issues/2327
+            // - https://github.com/netty/netty/issues/1764
+            return copy(alloc, cumulation, in, estimate);
+        }
+
+        discardReadBytes(cumulation);
+
+        if (cumulation instanceof CompositeByteBuf) {
+            CompositeByteBuf composite = (CompositeByteBuf) cumulation;
+            if (composite.numComponents() >= maxComponents) {
+                // Too many components make indexing slow, copy everything into one buffer again.
+                return copy(alloc, composite, in, estimate);
+            }
+            composite.addComponent(true, in);
+            return composite;
+        }
+
+        if (inBytes >= composeThreshold) {
+            // Copying would be expensive, compose instead.
+            CompositeByteBuf composite = alloc.compositeBuffer(maxComponents);
+            composite.addComponent(true, cumulation);
+            composite.addComponent(true, in);
+            return composite;
+        }
+
+        if (cumulation.writableBytes() < inBytes) {
+            return copy(alloc, cumulation, in, estimate);
+        }
+        cumulation.writeBytes(in);
+        in.release();
+        return cumulation;
+    }
+
+    private void discardReadBytes(ByteBuf cumulation) {
+        int readerIndex = cumulation.readerIndex();
+        // Only discard if this does not need to move more bytes than it reclaims.
+        if (readerIndex >= cumulation.capacity() * discardRatio && cumulation.readableBytes() <= readerIndex) {
+            if (cumulation instanceof CompositeByteBuf) {
+                ((CompositeByteBuf) cumulation).discardReadComponents();
+            } else {
+                cumulation.discardReadBytes();
+            }
+        }
+    }
+
+    private static ByteBuf copy(ByteBufAllocator alloc, ByteBuf cumulation, ByteBuf in, int capacity) {
+        ByteBuf buffer = alloc.buffer(capacity);
+        buffer.writeBytes(cumulation);
+        buffer.writeBytes(in);
+        cumulation.release();
+        in.release();
+        return buffer;
+    }
+}
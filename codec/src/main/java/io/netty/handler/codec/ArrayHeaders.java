@@ -0,0 +1,983 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec;
+
+import io.netty.handler.codec.DefaultHeaders.NameValidator;
+import io.netty.util.HashingStrategy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static io.netty.util.HashingStrategy.JAVA_HASHER;
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
+/**
+ * An implementation of {@link Headers} which keeps the names, the values and the hash codes of the names in flat
+ * arrays in insertion order, and finds a name by comparing the hash codes one after another.
+ * <p>
+ * Unlike {@link DefaultHeaders}, adding a header does not allocate an entry object, and the headers are iterated
+ * without following references. This is faster and creates less garbage for the small number of headers which most
+ * messages have, but every look-up visits all headers, so {@link DefaultHeaders} should be preferred if many headers
+ * are expected. Removing a header moves the following headers.
+ *
+ * @param <K> the type of the header name.
+ * @param <V> the type of the header value.
+ * @param <T> the type to use for return values when the intention is to return {@code this} object.
+ */
+public class ArrayHeaders<K, V, T extends Headers<K, V, T>> implements Headers<K, V, T> {
+    private static final int DEFAULT_INITIAL_CAPACITY = 8;
+
+    private final ValueConverter<V> valueConverter;
+    private final NameValidator<K> nameValidator;
+    private final HashingStrategy<K> hashingStrategy;
+
+    private int[] hashes;
+    private K[] names;
+    private V[] values;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public ArrayHeaders(ValueConverter<V> valueConverter) {
+        this(JAVA_HASHER, valueConverter);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ArrayHeaders(ValueConverter<V> valueConverter, NameValidator<K> nameValidator) {
+        this(JAVA_HASHER, valueConverter, nameValidator);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ArrayHeaders(HashingStrategy<K> nameHashingStrategy, ValueConverter<V> valueConverter) {
+        this(nameHashingStrategy, valueConverter, NameValidator.NOT_NULL);
+    }
+
+    public ArrayHeaders(HashingStrategy<K> nameHashingStrategy,
+            ValueConverter<V> valueConverter, NameValidator<K> nameValidator) {
+        this(nameHashingStrategy, valueConverter, nameValidator, DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * Create a new instance.
+     * @param nameHashingStrategy Used to hash and equality compare names.
+     * @param valueConverter Used to convert values to/from native types.
+     * @param nameValidator Used to validate name elements.
+     * @param initialCapacity The number of headers which can be added before the arrays need to be expanded.
+     */
+    @SuppressWarnings("unchecked")
+    public ArrayHeaders(HashingStrategy<K> nameHashingStrategy,
+            ValueConverter<V> valueConverter, NameValidator<K> nameValidator, int initialCapacity) {
+        this.valueConverter = checkNotNull(valueConverter, "valueConverter");
+        this.nameValidator = checkNotNull(nameValidator, "nameValidator");
+        this.hashingStrategy = checkNotNull(nameHashingStrategy, "nameHashingStrategy");
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("initialCapacity: " + initialCapacity + " (expected: > 0)");
+        }
+        hashes = new int[initialCapacity];
+        names = (K[]) new Object[initialCapacity];
+        values = (V[]) new Object[initialCapacity];
+    }
+
+    @Override
+    public V get(K name) {
+        checkNotNull(name, "name");
+
+        int i = indexOf(hashingStrategy.hashCode(name), name, 0);
+        return i >= 0 ? values[i] : null;
+    }
+
+    @Override
+    public V get(K name, V defaultValue) {
+        V value = get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        return value;
+    }
+
+    @Override
+    public V getAndRemove(K name) {
+        checkNotNull(name, "name");
+
+        int h = hashingStrategy.hashCode(name);
+        int i = indexOf(h, name, 0);
+        if (i < 0) {
+            return null;
+        }
+        V value = values[i];
+        remove0(h, name, i);
+        return value;
+    }
+
+    @Override
+    public V getAndRemove(K name, V defaultValue) {
+        V value = getAndRemove(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        return value;
+    }
+
+    @Override
+    public List<V> getAll(K name) {
+        checkNotNull(name, "name");
+
+        int h = hashingStrategy.hashCode(name);
+        int i = indexOf(h, name, 0);
+        if (i < 0) {
+            return new ArrayList<V>(0);
+        }
+        List<V> all = new ArrayList<V>(4);
+        do {
+            all.add(values[i]);
+            i = indexOf(h, name, i + 1);
+        } while (i >= 0);
+        return all;
+    }
+
+    @Override
+    public List<V> getAllAndRemove(K name) {
+        List<V> all = getAll(name);
+        remove(name);
+        return all;
+    }
+
+    @Override
+    public boolean contains(K name) {
+        return get(name) != null;
+    }
+
+    @Override
+    public boolean containsObject(K name, Object value) {
+        return contains(name, valueConverter.convertObject(checkNotNull(value, "value")));
+    }
+
+    @Override
+    public boolean containsBoolean(K name, boolean value) {
+        return contains(name, valueConverter.convertBoolean(value));
+    }
+
+    @Override
+    public boolean containsByte(K name, byte value) {
+        return contains(name, valueConverter.convertByte(value));
+    }
+
+    @Override
+    public boolean containsChar(K name, char value) {
+        return contains(name, valueConverter.convertChar(value));
+    }
+
+    @Override
+    public boolean containsShort(K name, short value) {
+        return contains(name, valueConverter.convertShort(value));
+    }
+
+    @Override
+    public boolean containsInt(K name, int value) {
+        return contains(name, valueConverter.convertInt(value));
+    }
+
+    @Override
+    public boolean containsLong(K name, long value) {
+        return contains(name, valueConverter.convertLong(value));
+    }
+
+    @Override
+    public boolean containsFloat(K name, float value) {
+        return contains(name, valueConverter.convertFloat(value));
+    }
+
+    @Override
+    public boolean containsDouble(K name, double value) {
+        return contains(name, valueConverter.convertDouble(value));
+    }
+
+    @Override
+    public boolean containsTimeMillis(K name, long value) {
+        return contains(name, valueConverter.convertTimeMillis(value));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean contains(K name, V value) {
+        return contains(name, value, JAVA_HASHER);
+    }
+
+    public final boolean contains(K name, V value, HashingStrategy<? super V> valueHashingStrategy) {
+        checkNotNull(name, "name");
+
+        int h = hashingStrategy.hashCode(name);
+        for (int i = indexOf(h, name, 0); i >= 0; i = indexOf(h, name, i + 1)) {
+            if (valueHashingStrategy.equals(value, values[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public Set<K> names() {
+        if (isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<K> names = new LinkedHashSet<K>(size());
+        for (int i = 0; i < size; i++) {
+            names.add(this.names[i]);
+        }
+        return names;
+    }
+
+    @Override
+    public T add(K name, V value) {
+        nameValidator.validateName(name);
+        checkNotNull(value, "value");
+        add0(hashingStrategy.hashCode(name), name, value);
+        return thisT();
+    }
+
+    @Override
+    public T add(K name, Iterable<? extends V> values) {
+        nameValidator.validateName(name);
+        int h = hashingStrategy.hashCode(name);
+        for (V v: values) {
+            add0(h, name, v);
+        }
+        return thisT();
+    }
+
+    @Override
+    public T add(K name, V... values) {
+        nameValidator.validateName(name);
+        int h = hashingStrategy.hashCode(name);
+        for (V v: values) {
+            add0(h, name, v);
+        }
+        return thisT();
+    }
+
+    @Override
+    public T addObject(K name, Object value) {
+        return add(name, valueConverter.convertObject(checkNotNull(value, "value")));
+    }
+
+    @Override
+    public T addObject(K name, Iterable<?> values) {
+        for (Object value : values) {
+            addObject(name, value);
+        }
+        return thisT();
+    }
+
+    @Override
+    public T addObject(K name, Object... values) {
+        for (int i = 0; i < values.length; i++) {
+            addObject(name, values[i]);
+        }
+        return thisT();
+    }
+
+    @Override
+    public T addInt(K name, int value) {
+        return add(name, valueConverter.convertInt(value));
+    }
+
+    @Override
+    public T addLong(K name, long value) {
+        return add(name, valueConverter.convertLong(value));
+    }
+
+    @Override
+    public T addDouble(K name, double value) {
+        return add(name, valueConverter.convertDouble(value));
+    }
+
+    @Override
+    public T addTimeMillis(K name, long value) {
+        return add(name, valueConverter.convertTimeMillis(value));
+    }
+
+    @Override
+    public T addChar(K name, char value) {
+        return add(name, valueConverter.convertChar(value));
+    }
+
+    @Override
+    public T addBoolean(K name, boolean value) {
+        return add(name, valueConverter.convertBoolean(value));
+    }
+
+    @Override
+    public T addFloat(K name, float value) {
+        return add(name, valueConverter.convertFloat(value));
+    }
+
+    @Override
+    public T addByte(K name, byte value) {
+        return add(name, valueConverter.convertByte(value));
+    }
+
+    @Override
+    public T addShort(K name, short value) {
+        return add(name, valueConverter.convertShort(value));
+    }
+
+    @Override
+    public T add(Headers<? extends K, ? extends V, ?> headers) {
+        if (headers == this) {
+            throw new IllegalArgumentException("can't add to itself.");
+        }
+        addImpl(headers);
+        return thisT();
+    }
+
+    protected void addImpl(Headers<? extends K, ? extends V, ?> headers) {
+        if (headers instanceof ArrayHeaders) {
+            @SuppressWarnings("unchecked")
+            final ArrayHeaders<? extends K, ? extends V, ?> arrayHeaders =
+                    (ArrayHeaders<? extends K, ? extends V, ?>) headers;
+            if (arrayHeaders.hashingStrategy == hashingStrategy &&
+                    arrayHeaders.nameValidator == nameValidator) {
+                // Fastest copy
+                final int otherSize = arrayHeaders.size;
+                ensureCapacity(size + otherSize);
+                System.arraycopy(arrayHeaders.hashes, 0, hashes, size, otherSize);
+                System.arraycopy(arrayHeaders.names, 0, names, size, otherSize);
+                System.arraycopy(arrayHeaders.values, 0, values, size, otherSize);
+                size += otherSize;
+            } else {
+                // Fast copy
+                for (int i = 0; i < arrayHeaders.size; i++) {
+                    add(arrayHeaders.names[i], arrayHeaders.values[i]);
+                }
+            }
+        } else {
+            // Slow copy
+            for (Entry<? extends K, ? extends V> header : headers) {
+                add(header.getKey(), header.getValue());
+            }
+        }
+    }
+
+    @Override
+    public T set(K name, V value) {
+        nameValidator.validateName(name);
+        checkNotNull(value, "value");
+        int h = hashingStrategy.hashCode(name);
+        remove0(h, name, 0);
+        add0(h, name, value);
+        return thisT();
+    }
+
+    @Override
+    public T set(K name, Iterable<? extends V> values) {
+        nameValidator.validateName(name);
+        checkNotNull(values, "values");
+
+        int h = hashingStrategy.hashCode(name);
+
+        remove0(h, name, 0);
+        for (V v: values) {
+            if (v == null) {
+                break;
+            }
+            add0(h, name, v);
+        }
+
+        return thisT();
+    }
+
+    @Override
+    public T set(K name, V... values) {
+        nameValidator.validateName(name);
+        checkNotNull(values, "values");
+
+        int h = hashingStrategy.hashCode(name);
+
+        remove0(h, name, 0);
+        for (V v: values) {
+            if (v == null) {
+                break;
+            }
+            add0(h, name, v);
+        }
+
+        return thisT();
+    }
+
+    @Override
+    public T setObject(K name, Object value) {
+        checkNotNull(value, "value");
+        V convertedValue = checkNotNull(valueConverter.convertObject(value), "convertedValue");
+        return set(name, convertedValue);
+    }
+
+    @Override
+    public T setObject(K name, Iterable<?> values) {
+        nameValidator.validateName(name);
+
+        int h = hashingStrategy.hashCode(name);
+        remove0(h, name, 0);
+        for (Object v: values) {
+            if (v == null) {
+                break;
+            }
+            add0(h, name, valueConverter.convertObject(v));
+        }
+
+        return thisT();
+    }
+
+    @Override
+    public T setObject(K name, Object... values) {
+        nameValidator.validateName(name);
+
+        int h = hashingStrategy.hashCode(name);
+        remove0(h, name, 0);
+        for (Object v: values) {
+            if (v == null) {
+                break;
+            }
+            add0(h, name, valueConverter.convertObject(v));
+        }
+
+        return thisT();
+    }
+
+    @Override
+    public T setInt(K name, int value) {
+        return set(name, valueConverter.convertInt(value));
+    }
+
+    @Override
+    public T setLong(K name, long value) {
+        return set(name, valueConverter.convertLong(value));
+    }
+
+    @Override
+    public T setDouble(K name, double value) {
+        return set(name, valueConverter.convertDouble(value));
+    }
+
+    @Override
+    public T setTimeMillis(K name, long value) {
+        return set(name, valueConverter.convertTimeMillis(value));
+    }
+
+    @Override
+    public T setFloat(K name, float value) {
+        return set(name, valueConverter.convertFloat(value));
+    }
+
+    @Override
+    public T setChar(K name, char value) {
+        return set(name, valueConverter.convertChar(value));
+    }
+
+    @Override
+    public T setBoolean(K name, boolean value) {
+        return set(name, valueConverter.convertBoolean(value));
+    }
+
+    @Override
+    public T setByte(K name, byte value) {
+        return set(name, valueConverter.convertByte(value));
+    }
+
+    @Override
+    public T setShort(K name, short value) {
+        return set(name, valueConverter.convertShort(value));
+    }
+
+    @Override
+    public T set(Headers<? extends K, ? extends V, ?> headers) {
+        if (headers != this) {
+            clear();
+            addImpl(headers);
+        }
+        return thisT();
+    }
+
+    @Override
+    public T setAll(Headers<? extends K, ? extends V, ?> headers) {
+        if (headers != this) {
+            for (K key : headers.names()) {
+                remove(key);
+            }
+            addImpl(headers);
+        }
+        return thisT();
+    }
+
+    @Override
+    public boolean remove(K name) {
+        checkNotNull(name, "name");
+        return remove0(hashingStrategy.hashCode(name), name, 0);
+    }
+
+    @Override
+    public T clear() {
+        Arrays.fill(names, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+        return thisT();
+    }
+
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        return new HeaderIterator();
+    }
+
+    @Override
+    public Boolean getBoolean(K name) {
+        V v = get(name);
+        return v != null ? valueConverter.convertToBoolean(v) : null;
+    }
+
+    @Override
+    public boolean getBoolean(K name, boolean defaultValue) {
+        Boolean v = getBoolean(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Byte getByte(K name) {
+        V v = get(name);
+        return v != null ? valueConverter.convertToByte(v) : null;
+    }
+
+    @Override
+    public byte getByte(K name, byte defaultValue) {
+        Byte v = getByte(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Character getChar(K name) {
+        V v = get(name);
+        return v != null ? valueConverter.convertToChar(v) : null;
+    }
+
+    @Override
+    public char getChar(K name, char defaultValue) {
+        Character v = getChar(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Short getShort(K name) {
+        V v = get(name);
+        return v != null ? valueConverter.convertToShort(v) : null;
+    }
+
+    @Override
+    public short getShort(K name, short defaultValue) {
+        Short v = getShort(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Integer getInt(K name) {
+        V v = get(name);
+        return v != null ? valueConverter.convertToInt(v) : null;
+    }
+
+    @Override
+    public int getInt(K name, int defaultValue) {
+        Integer v = getInt(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Long getLong(K name) {
+        V v = get(name);
+        return v != null ? valueConverter.convertToLong(v) : null;
+    }
+
+    @Override
+    public long getLong(K name, long defaultValue) {
+        Long v = getLong(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Float getFloat(K name) {
+        V v = get(name);
+        return v != null ? valueConverter.convertToFloat(v) : null;
+    }
+
+    @Override
+    public float getFloat(K name, float defaultValue) {
+        Float v = getFloat(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Double getDouble(K name) {
+        V v = get(name);
+        return v != null ? valueConverter.convertToDouble(v) : null;
+    }
+
+    @Override
+    public double getDouble(K name, double defaultValue) {
+        Double v = getDouble(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Long getTimeMillis(K name) {
+        V v = get(name);
+        return v != null ? valueConverter.convertToTimeMillis(v) : null;
+    }
+
+    @Override
+    public long getTimeMillis(K name, long defaultValue) {
+        Long v = getTimeMillis(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Boolean getBooleanAndRemove(K name) {
+        V v = getAndRemove(name);
+        return v != null ? valueConverter.convertToBoolean(v) : null;
+    }
+
+    @Override
+    public boolean getBooleanAndRemove(K name, boolean defaultValue) {
+        Boolean v = getBooleanAndRemove(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Byte getByteAndRemove(K name) {
+        V v = getAndRemove(name);
+        return v != null ? valueConverter.convertToByte(v) : null;
+    }
+
+    @Override
+    public byte getByteAndRemove(K name, byte defaultValue) {
+        Byte v = getByteAndRemove(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Character getCharAndRemove(K name) {
+        V v = getAndRemove(name);
+        if (v == null) {
+            return null;
+        }
+        try {
+            return valueConverter.convertToChar(v);
+        } catch (Throwable ignored) {
+            return null;
+        }
+    }
+
+    @Override
+    public char getCharAndRemove(K name, char defaultValue) {
+        Character v = getCharAndRemove(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Short getShortAndRemove(K name) {
+        V v = getAndRemove(name);
+        return v != null ? valueConverter.convertToShort(v) : null;
+    }
+
+    @Override
+    public short getShortAndRemove(K name, short defaultValue) {
+        Short v = getShortAndRemove(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Integer getIntAndRemove(K name) {
+        V v = getAndRemove(name);
+        return v != null ? valueConverter.convertToInt(v) : null;
+    }
+
+    @Override
+    public int getIntAndRemove(K name, int defaultValue) {
+        Integer v = getIntAndRemove(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Long getLongAndRemove(K name) {
+        V v = getAndRemove(name);
+        return v != null ? valueConverter.convertToLong(v) : null;
+    }
+
+    @Override
+    public long getLongAndRemove(K name, long defaultValue) {
+        Long v = getLongAndRemove(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Float getFloatAndRemove(K name) {
+        V v = getAndRemove(name);
+        return v != null ? valueConverter.convertToFloat(v) : null;
+    }
+
+    @Override
+    public float getFloatAndRemove(K name, float defaultValue) {
+        Float v = getFloatAndRemove(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Double getDoubleAndRemove(K name) {
+        V v = getAndRemove(name);
+        return v != null ? valueConverter.convertToDouble(v) : null;
+    }
+
+    @Override
+    public double getDoubleAndRemove(K name, double defaultValue) {
+        Double v = getDoubleAndRemove(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Long getTimeMillisAndRemove(K name) {
+        V v = getAndRemove(name);
+        return v != null ? valueConverter.convertToTimeMillis(v) : null;
+    }
+
+    @Override
+    public long getTimeMillisAndRemove(K name, long defaultValue) {
+        Long v = getTimeMillisAndRemove(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Headers)) {
+            return false;
+        }
+
+        return equals((Headers<K, V, ?>) o, JAVA_HASHER);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public int hashCode() {
+        return hashCode(JAVA_HASHER);
+    }
+
+    /**
+     * Test this object for equality against {@code h2}.
+     * @param h2 The object to check equality for.
+     * @param valueHashingStrategy Defines how values will be compared for equality.
+     * @return {@code true} if this object equals {@code h2} given {@code valueHashingStrategy}.
+     * {@code false} otherwise.
+     */
+    public final boolean equals(Headers<K, V, ?> h2, HashingStrategy<V> valueHashingStrategy) {
+        if (h2.size() != size()) {
+            return false;
+        }
+
+        if (this == h2) {
+            return true;
+        }
+
+        for (K name : names()) {
+            List<V> otherValues = h2.getAll(name);
+            List<V> values = getAll(name);
+            if (otherValues.size() != values.size()) {
+                return false;
+            }
+            for (int i = 0; i < otherValues.size(); i++) {
+                if (!valueHashingStrategy.equals(otherValues.get(i), values.get(i))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Generate a hash code for this object given a {@link HashingStrategy} to generate hash codes for
+     * individual values.
+     * @param valueHashingStrategy Defines how values will be hashed.
+     */
+    public final int hashCode(HashingStrategy<V> valueHashingStrategy) {
+        int result = DefaultHeaders.HASH_CODE_SEED;
+        for (K name : names()) {
+            result = 31 * result + hashingStrategy.hashCode(name);
+            List<V> values = getAll(name);
+            for (int i = 0; i < values.size(); ++i) {
+                result = 31 * result + valueHashingStrategy.hashCode(values.get(i));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(getClass().getSimpleName()).append('[');
+        String separator = "";
+        for (K name : names()) {
+            List<V> values = getAll(name);
+            for (int i = 0; i < values.size(); ++i) {
+                builder.append(separator);
+                builder.append(name).append(": ").append(values.get(i));
+                separator = ", ";
+            }
+        }
+        return builder.append(']').toString();
+    }
+
+    protected ValueConverter<V> valueConverter() {
+        return valueConverter;
+    }
+
+    /**
+     * @return the index of the first header at or after {@code start} whose hash code equals {@code h} and whose
+     * name is equal to {@code name}, or {@code -1}.
+     */
+    private int indexOf(int h, K name, int start) {
+        final int[] hashes = this.hashes;
+        for (int i = start; i < size; i++) {
+            if (hashes[i] == h && hashingStrategy.equals(name, names[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void add0(int h, K name, V value) {
+        ensureCapacity(size + 1);
+        hashes[size] = h;
+        names[size] = name;
+        values[size] = value;
+        ++size;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > hashes.length) {
+            int newCapacity = Math.max(hashes.length << 1, capacity);
+            hashes = Arrays.copyOf(hashes, newCapacity);
+            names = Arrays.copyOf(names, newCapacity);
+            values = Arrays.copyOf(values, newCapacity);
+        }
+    }
+
+    /**
+     * Removes all headers at or after {@code start} whose hash code equals {@code h} and whose name is equal to
+     * {@code name}, and moves the following headers forward.
+     *
+     * @return {@code true} if a header was removed
+     */
+    private boolean remove0(int h, K name, int start) {
+        final int[] hashes = this.hashes;
+        final K[] names = this.names;
+        final V[] values = this.values;
+        final int size = this.size;
+        int newSize = start;
+        for (int i = start; i < size; i++) {
+            if (hashes[i] != h || !hashingStrategy.equals(name, names[i])) {
+                hashes[newSize] = hashes[i];
+                names[newSize] = names[i];
+                values[newSize] = values[i];
+                newSize++;
+            }
+        }
+        if (newSize == size) {
+            return false;
+        }
+        Arrays.fill(names, newSize, size, null);
+        Arrays.fill(values, newSize, size, null);
+        this.size = newSize;
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T thisT() {
+        return (T) this;
+    }
+
+    private final class HeaderIterator implements Iterator<Map.Entry<K, V>> {
+        private int next;
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (next >= size) {
+                throw new NoSuchElementException();
+            }
+            return new HeaderEntry(next++);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("read-only iterator");
+        }
+    }
+
+    private final class HeaderEntry implements Map.Entry<K, V> {
+        private final int index;
+
+        HeaderEntry(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public K getKey() {
+            return names[index];
+        }
+
+        @Override
+        public V getValue() {
+            return values[index];
+        }
+
+        @Override
+        public V setValue(V value) {
+            checkNotNull(value, "value");
+            V oldValue = values[index];
+            values[index] = value;
+            return oldValue;
+        }
+
+        @Override
+        public String toString() {
+            return getKey().toString() + '=' + getValue().toString();
+        }
+    }
+}
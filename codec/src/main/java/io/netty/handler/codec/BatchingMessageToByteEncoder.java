@@ -0,0 +1,109 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+
+/**
+ * {@link MessageToByteEncoder} which can encode consecutive messages into the same {@link ByteBuf}, which is passed
+ * on once it is flushed, once {@link #setMaxBatchBytes(int) maxBatchBytes} bytes were encoded into it or before a
+ * message which is not handled by this encoder. This saves allocations and the per-message overhead of the following
+ * handlers and the transport for small messages.
+ * <p>
+ * The batch is also passed on before the {@link io.netty.channel.Channel} is closed or disconnected and when the
+ * encoder is removed from the {@link io.netty.channel.ChannelPipeline}. Sub-classes which override
+ * {@link #flush(ChannelHandlerContext)}, {@link #close(ChannelHandlerContext, ChannelPromise)},
+ * {@link #disconnect(ChannelHandlerContext, ChannelPromise)} or {@link #handlerRemoved(ChannelHandlerContext)} must
+ * call the super method, or call {@link #flushBatch(ChannelHandlerContext)} before they write anything themselves.
+ */
+public abstract class BatchingMessageToByteEncoder<I> extends MessageToByteEncoder<I> {
+
+    /**
+     * @see {@link MessageToByteEncoder#MessageToByteEncoder()}
+     */
+    protected BatchingMessageToByteEncoder() {
+    }
+
+    /**
+     * @see {@link MessageToByteEncoder#MessageToByteEncoder(Class)}
+     */
+    protected BatchingMessageToByteEncoder(Class<? extends I> outboundMessageType) {
+        super(outboundMessageType);
+    }
+
+    /**
+     * @see {@link MessageToByteEncoder#MessageToByteEncoder(boolean)}
+     */
+    protected BatchingMessageToByteEncoder(boolean preferDirect) {
+        super(preferDirect);
+    }
+
+    /**
+     * @see {@link MessageToByteEncoder#MessageToByteEncoder(Class, boolean)}
+     */
+    protected BatchingMessageToByteEncoder(Class<? extends I> outboundMessageType, boolean preferDirect) {
+        super(outboundMessageType, preferDirect);
+    }
+
+    /**
+     * Sets the number of bytes after which a batch is passed on even if it was not flushed yet. The default is
+     * {@code 0}, which passes on every message on its own.
+     * <p>
+     * Batching keeps per-channel state, so it can not be used by a {@link ChannelHandler.Sharable} encoder.
+     */
+    public void setMaxBatchBytes(int maxBatchBytes) {
+        if (maxBatchBytes < 0) {
+            throw new IllegalArgumentException("maxBatchBytes: " + maxBatchBytes + " (expected: >= 0)");
+        }
+        if (maxBatchBytes > 0 && isSharable()) {
+            throw new IllegalStateException("batching is not supported by a @Sharable encoder");
+        }
+        this.maxBatchBytes = maxBatchBytes;
+    }
+
+    /**
+     * Passes on the messages which were encoded into the current batch, if any, without flushing them.
+     */
+    protected final void flushBatch(ChannelHandlerContext ctx) {
+        writeBatch(ctx);
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        writeBatch(ctx);
+        ctx.flush();
+    }
+
+    @Override
+    public void close(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        writeBatch(ctx);
+        ctx.close(promise);
+    }
+
+    @Override
+    public void disconnect(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        writeBatch(ctx);
+        ctx.disconnect(promise);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        writeBatch(ctx);
+    }
+}
@@ -129,6 +129,43 @@ public abstract class ByteToMessageDecoder extends ChannelInboundHandlerAdapter
         }
     };
 
+    /**
+     * Cumulate {@link ByteBuf}s by add them to a {@link CompositeByteBuf} and never do a memory copy, even if the
+     * cumulation is still referenced by slices which were produced by the decoder. In this case a new
+     * {@link CompositeByteBuf} is created which references the unread parts of the old cumulation, so the slices are
+     * not affected. This is useful for decoders which only emit retained slices of the cumulation, like
+     * {@link LengthFieldBasedFrameDecoder} and {@link FixedLengthFrameDecoder}, as every received byte is then never
+     * copied. Frames which span multiple received {@link ByteBuf}s are then slices of a {@link CompositeByteBuf}.
+     */
+    public static final Cumulator ZERO_COPY_CUMULATOR = new Cumulator() {
+        @Override
+        public ByteBuf cumulate(ByteBufAllocator alloc, ByteBuf cumulation, ByteBuf in) {
+            if (!cumulation.isReadable()) {
+                cumulation.release();
+                return in;
+            }
+            if (cumulation.refCnt() == 1 && cumulation instanceof CompositeByteBuf) {
+                return ((CompositeByteBuf) cumulation).addComponent(true, in);
+            }
+            CompositeByteBuf composite = alloc.compositeBuffer(Integer.MAX_VALUE);
+            if (cumulation instanceof CompositeByteBuf) {
+                // Reference the unread components directly instead of nesting composites. The old cumulation is
+                // released once all slices of it are released.
+                List<ByteBuf> components = ((CompositeByteBuf) cumulation).decompose(
+                        cumulation.readerIndex(), cumulation.readableBytes());
+                for (ByteBuf component : components) {
+                    composite.addComponent(true, component.retain());
+                }
+                cumulation.release();
+            } else {
+                // The component only covers the readable bytes, so this also works if slices are still referenced.
+                composite.addComponent(true, cumulation);
+            }
+            composite.addComponent(true, in);
+            return composite;
+        }
+    };
+
     ByteBuf cumulation;
     private Cumulator cumulator = MERGE_CUMULATOR;
     private boolean singleDecode;
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.internal.StringUtil;
+
+import java.util.List;
+
+/**
+ * A stateful {@link ByteToMessageDecoder} which resumes decoding from explicit checkpoints, like
+ * {@link ReplayingDecoder} but without throwing an {@link Error} whenever there is not enough data, and without
+ * wrapping the input {@link ByteBuf}.
+ * <p>
+ * {@link #decode(ChannelHandlerContext, ByteBuf, List)} checks itself whether enough bytes are readable and simply
+ * returns if not. Every byte read since the last {@link #checkpoint()} is then unread, so the next call continues
+ * from the checkpoint once more data was received. Bytes read before a message was added to the output
+ * {@link List} are never unread, so a decoder which decodes one message per call does not need any checkpoint.
+ * <p>
+ * For example, a decoder of messages which are prefixed by their length:
+ * <pre>
+ * public class IntegerHeaderFrameDecoder
+ *      extends {@link CheckpointDecoder}&lt;<strong>MyDecoderState</strong>&gt; {
+ *
+ *   private int length;
+ *
+ *   public IntegerHeaderFrameDecoder() {
+ *     // Set the initial state.
+ *     <strong>super(MyDecoderState.READ_LENGTH);</strong>
+ *   }
+ *
+ *   {@code @Override}
+ *   protected void decode({@link ChannelHandlerContext} ctx,
+ *                           {@link ByteBuf} buf, List&lt;Object&gt; out) throws Exception {
+ *     switch (state()) {
+ *     case READ_LENGTH:
+ *       if (buf.readableBytes() &lt; 4) {
+ *         return;
+ *       }
+ *       length = buf.readInt();
+ *       <strong>checkpoint(MyDecoderState.READ_CONTENT);</strong>
+ *     case READ_CONTENT:
+ *       if (buf.readableBytes() &lt; length) {
+ *         return;
+ *       }
+ *       out.add(buf.readRetainedSlice(length));
+ *       <strong>checkpoint(MyDecoderState.READ_LENGTH);</strong>
+ *       break;
+ *     default:
+ *       throw new Error("Shouldn't reach here.");
+ *     }
+ *   }
+ * }
+ * </pre>
+ *
+ * @param <S>
+ *        the state type which is usually an enum; use {@link Void} if state
+ *        management is unused
+ */
+public abstract class CheckpointDecoder<S> extends ByteToMessageDecoder {
+
+    private S state;
+    private int checkpoint = -1;
+    // The number of decoded messages when the checkpoint was stored.
+    private int checkpointOutSize;
+    private List<Object> out;
+
+    /**
+     * Creates a new instance with no initial state (i.e: {@code null}).
+     */
+    protected CheckpointDecoder() {
+        this(null);
+    }
+
+    /**
+     * Creates a new instance with the specified initial state.
+     */
+    protected CheckpointDecoder(S initialState) {
+        state = initialState;
+    }
+
+    /**
+     * Stores the internal cumulative buffer's reader position, so the bytes read so far are not read again by the
+     * next call of {@link #decode(ChannelHandlerContext, ByteBuf, List)}.
+     */
+    protected void checkpoint() {
+        checkpoint = internalBuffer().readerIndex();
+        List<Object> out = this.out;
+        checkpointOutSize = out != null ? out.size() : 0;
+    }
+
+    /**
+     * Stores the internal cumulative buffer's reader position and updates
+     * the current decoder state.
+     */
+    protected void checkpoint(S state) {
+        checkpoint();
+        state(state);
+    }
+
+    /**
+     * Returns the current state of this decoder.
+     * @return the current state of this decoder
+     */
+    protected S state() {
+        return state;
+    }
+
+    /**
+     * Sets the current state of this decoder.
+     * @return the old state of this decoder
+     */
+    protected S state(S newState) {
+        S oldState = state;
+        state = newState;
+        return oldState;
+    }
+
+    @Override
+    protected void callDecode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        this.out = out;
+        try {
+            while (in.isReadable()) {
+                int outSize = out.size();
+
+                if (outSize > 0) {
+                    fireChannelRead(ctx, out, outSize);
+                    out.clear();
+
+                    // Check if this handler was removed before continuing with decoding.
+                    // If it was removed, it is not safe to continue to operate on the buffer.
+                    //
+                    // See:
+                    // - https://github.com/netty/netty/issues/4635
+                    if (ctx.isRemoved()) {
+                        break;
+                    }
+                    outSize = 0;
+                }
+
+                S oldState = state;
+                int oldReaderIndex = checkpoint = in.readerIndex();
+                checkpointOutSize = 0;
+                decode(ctx, in, out);
+
+                // Check if this handler was removed before continuing the loop.
+                // If it was removed, it is not safe to continue to operate on the buffer.
+                //
+                // See https://github.com/netty/netty/issues/1664
+                if (ctx.isRemoved()) {
+                    break;
+                }
+
+                if (out.size() == checkpointOutSize) {
+                    // Nothing was decoded since the checkpoint, so unread everything read after it.
+                    in.readerIndex(checkpoint);
+                }
+
+                if (outSize == out.size()) {
+                    if (oldReaderIndex == in.readerIndex() && oldState == state) {
+                        // Not enough data to continue.
+                        break;
+                    } else {
+                        continue;
+                    }
+                }
+
+                if (oldReaderIndex == in.readerIndex() && oldState == state) {
+                    throw new DecoderException(
+                            StringUtil.simpleClassName(getClass()) + ".decode() method must consume the inbound " +
+                            "data or change its state if it decoded something.");
+                }
+
+                if (isSingleDecode()) {
+                    break;
+                }
+            }
+        } catch (DecoderException e) {
+            throw e;
+        } catch (Throwable cause) {
+            throw new DecoderException(cause);
+        } finally {
+            this.out = null;
+        }
+    }
+}
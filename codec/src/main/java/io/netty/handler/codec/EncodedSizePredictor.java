@@ -0,0 +1,71 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec;
+
+import io.netty.util.internal.AdaptiveSizeTable;
+
+/**
+ * Predicts the size of the next encoded message from the sizes of the previous ones, like
+ * {@link io.netty.channel.AdaptiveRecvByteBufAllocator} does for reads with the same {@link AdaptiveSizeTable}. The
+ * prediction grows quickly if a message did not fit and shrinks slowly if the messages are consistently smaller.
+ * <p>
+ * The state is not synchronized, as an outdated prediction of a {@link io.netty.channel.ChannelHandler.Sharable}
+ * encoder only results in a buffer which is too small or too large.
+ */
+final class EncodedSizePredictor {
+
+    static final int DEFAULT_MINIMUM = 64;
+    static final int DEFAULT_INITIAL = 256;
+    static final int DEFAULT_MAXIMUM = 1048576;
+
+    private static final int INDEX_INCREMENT = 4;
+    private static final int INDEX_DECREMENT = 1;
+
+    private static final int MIN_INDEX = AdaptiveSizeTable.index(DEFAULT_MINIMUM);
+    private static final int MAX_INDEX = AdaptiveSizeTable.index(DEFAULT_MAXIMUM);
+
+    private int index = AdaptiveSizeTable.index(DEFAULT_INITIAL);
+    private int nextSize = AdaptiveSizeTable.size(index);
+    private boolean decreaseNow;
+
+    /**
+     * Returns the capacity of the buffer to allocate for the next message.
+     */
+    int guess() {
+        return nextSize;
+    }
+
+    /**
+     * Records the actual size of an encoded message.
+     */
+    void record(int actualBytes) {
+        int index = this.index;
+        if (actualBytes <= AdaptiveSizeTable.size(Math.max(0, index - INDEX_DECREMENT - 1))) {
+            if (decreaseNow) {
+                index = Math.max(index - INDEX_DECREMENT, MIN_INDEX);
+                decreaseNow = false;
+            } else {
+                decreaseNow = true;
+            }
+        } else if (actualBytes >= nextSize) {
+            // Grow at least to the actual size, as the buffer had to be expanded for this message already.
+            index = Math.min(Math.max(index + INDEX_INCREMENT, AdaptiveSizeTable.index(actualBytes)), MAX_INDEX);
+            decreaseNow = false;
+        }
+        this.index = index;
+        nextSize = AdaptiveSizeTable.size(index);
+    }
+}
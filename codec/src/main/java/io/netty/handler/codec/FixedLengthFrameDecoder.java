@@ -16,6 +16,7 @@
 package io.netty.handler.codec;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 
 import java.util.List;
@@ -46,11 +47,26 @@ public class FixedLengthFrameDecoder extends ByteToMessageDecoder {
      * @param frameLength the length of the frame
      */
     public FixedLengthFrameDecoder(int frameLength) {
+        this(frameLength, false);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param frameLength the length of the frame
+     * @param zeroCopy    if {@code true}, the received buffers are never copied and the frames are slices of them,
+     *                    or of a {@link CompositeByteBuf} if a frame spans multiple received buffers.
+     *                    See {@link ByteToMessageDecoder#ZERO_COPY_CUMULATOR}.
+     */
+    public FixedLengthFrameDecoder(int frameLength, boolean zeroCopy) {
         if (frameLength <= 0) {
             throw new IllegalArgumentException(
                     "frameLength must be a positive integer: " + frameLength);
         }
         this.frameLength = frameLength;
+        if (zeroCopy) {
+            setCumulator(ZERO_COPY_CUMULATOR);
+        }
     }
 
     @Override
@@ -49,6 +49,10 @@ import java.util.List;
  * + 0x000E | "HELLO, WORLD" |
  * +--------+----------------+
  * </pre>
+ * The content is never copied, as the length field is written into a separate
+ * {@link ByteBuf} which is written before the content. Together with a
+ * {@link LengthFieldBasedFrameDecoder} which uses the
+ * {@link ByteToMessageDecoder#ZERO_COPY_CUMULATOR} no frame is copied on either side.
  */
 @Sharable
 public class LengthFieldPrepender extends MessageToMessageEncoder<ByteBuf> {
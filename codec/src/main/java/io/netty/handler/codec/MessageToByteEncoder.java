@@ -18,13 +18,17 @@ package io.netty.handler.codec;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelOutboundHandler;
 import io.netty.channel.ChannelOutboundHandlerAdapter;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.ChannelPromise;
 import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.PromiseNotifier;
 import io.netty.util.internal.TypeParameterMatcher;
 
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * {@link ChannelOutboundHandlerAdapter} which encodes message in a stream-like fashion from one message to an
@@ -42,11 +46,22 @@ import io.netty.util.internal.TypeParameterMatcher;
  *         }
  *     }
  * </pre>
+ *
+ * The capacity of the {@link ByteBuf} allocated for a message is {@link #estimateEncodedSize(Object)} if the
+ * sub-class knows the size in advance, and otherwise predicted from the sizes of the previously encoded messages.
+ * <p>
+ * A {@link BatchingMessageToByteEncoder} can encode consecutive messages into the same {@link ByteBuf}, which is
+ * only passed on when it is flushed or full.
  */
 public abstract class MessageToByteEncoder<I> extends ChannelOutboundHandlerAdapter {
 
     private final TypeParameterMatcher matcher;
     private final boolean preferDirect;
+    private final EncodedSizePredictor sizePredictor = new EncodedSizePredictor();
+    // Only set by BatchingMessageToByteEncoder, so the other encoders do not need to intercept flush() and close().
+    int maxBatchBytes;
+    private ByteBuf batch;
+    private List<ChannelPromise> batchPromises;
 
     /**
      * @see {@link #MessageToByteEncoder(boolean)} with {@code true} as boolean parameter.
@@ -102,12 +117,17 @@ public abstract class MessageToByteEncoder<I> extends ChannelOutboundHandlerAdap
             if (acceptOutboundMessage(msg)) {
                 @SuppressWarnings("unchecked")
                 I cast = (I) msg;
+                if (maxBatchBytes > 0) {
+                    encodeBatched(ctx, cast, promise);
+                    return;
+                }
                 buf = allocateBuffer(ctx, cast, preferDirect);
                 try {
                     encode(ctx, cast, buf);
                 } finally {
                     ReferenceCountUtil.release(cast);
                 }
+                sizePredictor.record(buf.readableBytes());
 
                 if (buf.isReadable()) {
                     ctx.write(buf, promise);
@@ -117,6 +137,7 @@ public abstract class MessageToByteEncoder<I> extends ChannelOutboundHandlerAdap
                 }
                 buf = null;
             } else {
+                writeBatch(ctx);
                 ctx.write(msg, promise);
             }
         } catch (EncoderException e) {
@@ -130,19 +151,100 @@ public abstract class MessageToByteEncoder<I> extends ChannelOutboundHandlerAdap
         }
     }
 
+    private void encodeBatched(ChannelHandlerContext ctx, I msg, ChannelPromise promise) throws Exception {
+        ByteBuf batch = this.batch;
+        if (batch == null) {
+            batch = this.batch = allocateBuffer(ctx, msg, preferDirect);
+        }
+        int writerIndex = batch.writerIndex();
+        boolean success = false;
+        try {
+            encode(ctx, msg, batch);
+            success = true;
+        } finally {
+            ReferenceCountUtil.release(msg);
+            if (!success) {
+                // Drop the partially encoded message, so the batch stays intact for the other messages.
+                batch.writerIndex(writerIndex);
+            }
+        }
+        sizePredictor.record(batch.writerIndex() - writerIndex);
+
+        if (!promise.isVoid()) {
+            List<ChannelPromise> promises = batchPromises;
+            if (promises == null) {
+                promises = batchPromises = new ArrayList<ChannelPromise>();
+            }
+            promises.add(promise);
+        }
+        if (batch.readableBytes() >= maxBatchBytes) {
+            writeBatch(ctx);
+        }
+    }
+
+    void writeBatch(ChannelHandlerContext ctx) {
+        ByteBuf batch = this.batch;
+        if (batch == null) {
+            return;
+        }
+        this.batch = null;
+
+        List<ChannelPromise> promises = batchPromises;
+        ChannelPromise promise;
+        if (promises == null || promises.isEmpty()) {
+            if (!batch.isReadable()) {
+                batch.release();
+                return;
+            }
+            promise = ctx.voidPromise();
+        } else if (promises.size() == 1) {
+            promise = promises.get(0);
+        } else {
+            promise = ctx.newPromise();
+            promise.addListener(new PromiseNotifier<Void, ChannelFuture>(
+                    promises.toArray(new ChannelPromise[promises.size()])));
+        }
+        if (promises != null) {
+            promises.clear();
+        }
+
+        if (batch.isReadable()) {
+            ctx.write(batch, promise);
+        } else {
+            batch.release();
+            ctx.write(Unpooled.EMPTY_BUFFER, promise);
+        }
+    }
+
     /**
      * Allocate a {@link ByteBuf} which will be used as argument of {@link #encode(ChannelHandlerContext, I, ByteBuf)}.
      * Sub-classes may override this method to returna {@link ByteBuf} with a perfect matching {@code initialCapacity}.
+     * By default the capacity is {@link #estimateEncodedSize(Object)}, or predicted from the sizes of the previously
+     * encoded messages if there is no estimate.
      */
-    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, @SuppressWarnings("unused") I msg,
+    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, I msg,
                                boolean preferDirect) throws Exception {
+        int initialCapacity = estimateEncodedSize(msg);
+        if (initialCapacity < 0) {
+            initialCapacity = sizePredictor.guess();
+        }
         if (preferDirect) {
-            return ctx.alloc().ioBuffer();
+            return ctx.alloc().ioBuffer(initialCapacity);
         } else {
-            return ctx.alloc().heapBuffer();
+            return ctx.alloc().heapBuffer(initialCapacity);
         }
     }
 
+    /**
+     * Returns the number of bytes {@code msg} is expected to be encoded into, or {@code -1} if unknown. This is used
+     * as the initial capacity of the {@link ByteBuf} allocated by
+     * {@link #allocateBuffer(ChannelHandlerContext, Object, boolean)}, so a correct estimate avoids expanding it
+     * while encoding. The default implementation returns {@code -1}.
+     */
+    protected int estimateEncodedSize(@SuppressWarnings("unused") I msg) throws Exception {
+        return -1;
+    }
+
     /**
      * Encode a message into a {@link ByteBuf}. This method will be called for each written message that can be handled
      * by this encoder.
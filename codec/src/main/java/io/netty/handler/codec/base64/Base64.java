@@ -45,6 +45,16 @@ public final class Base64 {
 
     private static final byte EQUALS_SIGN_ENC = -1; // Indicates equals sign in encoding
 
+    /**
+     * The number of bytes which are copied at once from or to a buffer which is not backed by an array. A multiple
+     * of 3 and 4, so that a chunk consists of complete groups in both directions.
+     */
+    private static final int CHUNK_SIZE = 57 * 4 * 16;
+
+    private static final int MAX_ENCODED_CHUNK_SIZE = CHUNK_SIZE / 3 * 4 + CHUNK_SIZE / 3 * 4 / MAX_LINE_LENGTH;
+
+    private static final int MAX_DECODED_CHUNK_SIZE = CHUNK_SIZE / 4 * 3 + 3;
+
     private static byte[] alphabet(Base64Dialect dialect) {
         if (dialect == null) {
             throw new NullPointerException("dialect");
@@ -117,82 +127,16 @@ public final class Base64 {
             throw new NullPointerException("dialect");
         }
 
-        int len43 = len * 4 / 3;
-        ByteBuf dest = allocator.buffer(
-                len43 +
-                        (len % 3 > 0 ? 4 : 0) + // Account for padding
-                        (breakLines ? len43 / MAX_LINE_LENGTH : 0)).order(src.order()); // New lines
-        int d = 0;
-        int e = 0;
-        int len2 = len - 2;
-        int lineLength = 0;
-        for (; d < len2; d += 3, e += 4) {
-            encode3to4(src, d + off, 3, dest, e, dialect);
-
-            lineLength += 4;
-
-            if (breakLines && lineLength == MAX_LINE_LENGTH) {
-                dest.setByte(e + 4, NEW_LINE);
-                e ++;
-                lineLength = 0;
-            } // end if: end of line
-        } // end for: each piece of array
-
-        if (d < len) {
-            encode3to4(src, d + off, len - d, dest, e, dialect);
-            e += 4;
-        } // end if: some padding needed
-
-        // Remove last byte if it's a newline
-        if (e > 1 && dest.getByte(e - 1) == NEW_LINE) {
-            e--;
-        }
-
-        return dest.slice(0, e);
+        ByteBuf dest = allocator.buffer(encodedBufferSize(len, breakLines)).order(src.order());
+        Encoder encoder = new Encoder(breakLines, dialect);
+        encoder.encode(src, off, len, dest);
+        encoder.finish(dest);
+        return dest;
     }
 
-    private static void encode3to4(
-            ByteBuf src, int srcOffset, int numSigBytes,
-            ByteBuf dest, int destOffset, Base64Dialect dialect) {
-
-        byte[] ALPHABET = alphabet(dialect);
-
-        //           1         2         3
-        // 01234567890123456789012345678901 Bit position
-        // --------000000001111111122222222 Array position from threeBytes
-        // --------|    ||    ||    ||    | Six bit groups to index ALPHABET
-        //          >>18  >>12  >> 6  >> 0  Right shift necessary
-        //                0x3f  0x3f  0x3f  Additional AND
-
-        // Create buffer with zero-padding if there are only one or two
-        // significant bytes passed in the array.
-        // We have to shift left 24 in order to flush out the 1's that appear
-        // when Java treats a value as negative that is cast from a byte to an int.
-        int inBuff =
-                (numSigBytes > 0? src.getByte(srcOffset)     << 24 >>>  8 : 0) |
-                (numSigBytes > 1? src.getByte(srcOffset + 1) << 24 >>> 16 : 0) |
-                (numSigBytes > 2? src.getByte(srcOffset + 2) << 24 >>> 24 : 0);
-
-        switch (numSigBytes) {
-        case 3:
-            dest.setByte(destOffset    , ALPHABET[inBuff >>> 18       ]);
-            dest.setByte(destOffset + 1, ALPHABET[inBuff >>> 12 & 0x3f]);
-            dest.setByte(destOffset + 2, ALPHABET[inBuff >>>  6 & 0x3f]);
-            dest.setByte(destOffset + 3, ALPHABET[inBuff        & 0x3f]);
-            break;
-        case 2:
-            dest.setByte(destOffset    , ALPHABET[inBuff >>> 18       ]);
-            dest.setByte(destOffset + 1, ALPHABET[inBuff >>> 12 & 0x3f]);
-            dest.setByte(destOffset + 2, ALPHABET[inBuff >>> 6  & 0x3f]);
-            dest.setByte(destOffset + 3, EQUALS_SIGN);
-            break;
-        case 1:
-            dest.setByte(destOffset    , ALPHABET[inBuff >>> 18       ]);
-            dest.setByte(destOffset + 1, ALPHABET[inBuff >>> 12 & 0x3f]);
-            dest.setByte(destOffset + 2, EQUALS_SIGN);
-            dest.setByte(destOffset + 3, EQUALS_SIGN);
-            break;
-        }
+    private static int encodedBufferSize(int len, boolean breakLines) {
+        int len43 = (len + 2) / 3 * 4;
+        return len43 + (breakLines && len43 > 0 ? (len43 - 1) / MAX_LINE_LENGTH : 0); // New lines
     }
 
     public static ByteBuf decode(ByteBuf src) {
@@ -230,85 +174,345 @@ public final class Base64 {
             throw new NullPointerException("dialect");
         }
 
-        byte[] DECODABET = decodabet(dialect);
-
-        int len34 = len * 3 / 4;
-        ByteBuf dest = allocator.buffer(len34).order(src.order()); // Upper limit on size of output
-        int outBuffPosn = 0;
-
-        byte[] b4 = new byte[4];
-        int b4Posn = 0;
-        int i;
-        byte sbiCrop;
-        byte sbiDecode;
-        for (i = off; i < off + len; i ++) {
-            sbiCrop = (byte) (src.getByte(i) & 0x7f); // Only the low seven bits
-            sbiDecode = DECODABET[sbiCrop];
-
-            if (sbiDecode >= WHITE_SPACE_ENC) { // White space, Equals sign or better
-                if (sbiDecode >= EQUALS_SIGN_ENC) { // Equals sign or better
-                    b4[b4Posn ++] = sbiCrop;
-                    if (b4Posn > 3) { // Quartet built
-                        outBuffPosn += decode4to3(
-                                b4, 0, dest, outBuffPosn, dialect);
-                        b4Posn = 0;
-
-                        // If that was the equals sign, break out of 'for' loop
-                        if (sbiCrop == EQUALS_SIGN) {
-                            break;
-                        }
-                    }
+        ByteBuf dest = allocator.buffer(len * 3 / 4).order(src.order()); // Upper limit on size of output
+        boolean success = false;
+        try {
+            new Decoder(dialect, true).decode(src, off, len, dest);
+            success = true;
+            return dest;
+        } finally {
+            if (!success) {
+                dest.release();
+            }
+        }
+    }
+
+    /**
+     * Encodes a sequence of bytes, which may be split into several chunks, into Base64 notation. Only complete
+     * groups of three bytes are encoded until {@link #finish(ByteBuf)} is called, so the output does not depend on
+     * how the input was split.
+     * <p>
+     * Groups are encoded between {@code byte[]}s, so the bytes of a buffer which is not backed by an array are
+     * copied in bulk through a chunk of limited size instead of being accessed one by one.
+     */
+    static final class Encoder {
+
+        private final byte[] alphabet;
+        private final boolean breakLines;
+        private final byte[] group = new byte[3];
+        private int groupLength;
+        private int lineLength;
+        private byte[] srcChunk;
+        private byte[] destChunk;
+
+        Encoder(boolean breakLines, Base64Dialect dialect) {
+            alphabet = alphabet(dialect);
+            this.breakLines = breakLines;
+        }
+
+        /**
+         * Encodes the given bytes and writes the result to {@code dest}, except for up to two bytes at the end
+         * which are kept until the next call.
+         */
+        void encode(ByteBuf src, int off, int len, ByteBuf dest) {
+            if (groupLength > 0) {
+                int n = Math.min(3 - groupLength, len);
+                src.getBytes(off, group, groupLength, n);
+                groupLength += n;
+                off += n;
+                len -= n;
+                if (groupLength < 3) {
+                    return;
+                }
+                encodeGroups(group, 0, 3, dest);
+                groupLength = 0;
+            }
+
+            int remainder = len % 3;
+            int groupsLength = len - remainder;
+            if (src.hasArray()) {
+                encodeGroups(src.array(), src.arrayOffset() + off, groupsLength, dest);
+            } else if (groupsLength > 0) {
+                byte[] chunk = srcChunk;
+                if (chunk == null || chunk.length < CHUNK_SIZE && chunk.length < groupsLength) {
+                    srcChunk = chunk = new byte[Math.min(groupsLength, CHUNK_SIZE)];
+                }
+                // The length of the chunk is a multiple of three, so only complete groups are copied.
+                for (int i = 0; i < groupsLength;) {
+                    int n = Math.min(groupsLength - i, chunk.length);
+                    src.getBytes(off + i, chunk, 0, n);
+                    encodeGroups(chunk, 0, n, dest);
+                    i += n;
                 }
-            } else {
-                throw new IllegalArgumentException(
-                        "bad Base64 input character at " + i + ": " +
-                        src.getUnsignedByte(i) + " (decimal)");
+            }
+
+            if (remainder > 0) {
+                src.getBytes(off + groupsLength, group, 0, remainder);
+                groupLength = remainder;
             }
         }
 
-        return dest.slice(0, outBuffPosn);
+        /**
+         * Writes the bytes kept by {@link #encode(ByteBuf, int, int, ByteBuf)} with padding to {@code dest}. The
+         * bytes encoded afterwards start a new text, so its lines are counted from zero again.
+         */
+        void finish(ByteBuf dest) {
+            int numSigBytes = groupLength;
+            if (numSigBytes == 0) {
+                lineLength = 0;
+                return;
+            }
+            groupLength = 0;
+
+            byte[] ALPHABET = alphabet;
+            if (breakLines && lineLength == MAX_LINE_LENGTH) {
+                dest.writeByte(NEW_LINE);
+            }
+            lineLength = 0;
+
+            int inBuff = (group[0] & 0xff) << 16 | (numSigBytes > 1 ? (group[1] & 0xff) << 8 : 0);
+            dest.ensureWritable(4);
+            dest.writeByte(ALPHABET[inBuff >>> 18       ]);
+            dest.writeByte(ALPHABET[inBuff >>> 12 & 0x3f]);
+            dest.writeByte(numSigBytes > 1 ? ALPHABET[inBuff >>> 6 & 0x3f] : EQUALS_SIGN);
+            dest.writeByte(EQUALS_SIGN);
+        }
+
+        private void encodeGroups(byte[] src, int srcOffset, int len, ByteBuf dest) {
+            if (dest.hasArray()) {
+                dest.ensureWritable(maxEncodedLength(len));
+                int writerIndex = dest.writerIndex();
+                int written = encodeGroups(src, srcOffset, len, dest.array(), dest.arrayOffset() + writerIndex);
+                dest.writerIndex(writerIndex + written);
+                return;
+            }
+
+            int maxLength = maxEncodedLength(len);
+            dest.ensureWritable(maxLength);
+            byte[] chunk = destChunk;
+            if (chunk == null || chunk.length < MAX_ENCODED_CHUNK_SIZE && chunk.length < maxLength) {
+                destChunk = chunk = new byte[Math.min(maxLength, MAX_ENCODED_CHUNK_SIZE)];
+            }
+            for (int end = srcOffset + len; srcOffset < end;) {
+                int n = Math.min(end - srcOffset, CHUNK_SIZE);
+                int written = encodeGroups(src, srcOffset, n, chunk, 0);
+                dest.writeBytes(chunk, 0, written);
+                srcOffset += n;
+            }
+        }
+
+        /**
+         * Returns the number of bytes written by {@link #encodeGroups(byte[], int, int, ByteBuf)} for {@code len}
+         * bytes, including the new lines in front of every group which does not fit into the current line anymore.
+         */
+        private int maxEncodedLength(int len) {
+            int len43 = len / 3 * 4;
+            if (!breakLines || len43 == 0) {
+                return len43;
+            }
+            return len43 + (lineLength + len43 + MAX_LINE_LENGTH - 1) / MAX_LINE_LENGTH - 1;
+        }
+
+        /**
+         * Encodes {@code len} bytes, which must be a multiple of three, line by line.
+         */
+        private int encodeGroups(byte[] src, int srcOffset, int len, byte[] dest, int destOffset) {
+            final byte[] ALPHABET = alphabet;
+            final boolean breakLines = this.breakLines;
+            int lineLength = this.lineLength;
+            int d = destOffset;
+            for (int end = srcOffset + len; srcOffset < end;) {
+                int groups = (end - srcOffset) / 3;
+                if (breakLines) {
+                    if (lineLength == MAX_LINE_LENGTH) {
+                        dest[d ++] = NEW_LINE;
+                        lineLength = 0;
+                    }
+                    groups = Math.min(groups, MAX_LINE_LENGTH - lineLength >>> 2);
+                    lineLength += groups << 2;
+                }
+
+                for (int i = 0; i < groups; i ++, srcOffset += 3, d += 4) {
+                    int inBuff =
+                            (src[srcOffset    ] & 0xff) << 16 |
+                            (src[srcOffset + 1] & 0xff) <<  8 |
+                             src[srcOffset + 2] & 0xff;
+
+                    dest[d    ] = ALPHABET[inBuff >>> 18       ];
+                    dest[d + 1] = ALPHABET[inBuff >>> 12 & 0x3f];
+                    dest[d + 2] = ALPHABET[inBuff >>>  6 & 0x3f];
+                    dest[d + 3] = ALPHABET[inBuff        & 0x3f];
+                }
+            }
+            this.lineLength = lineLength;
+            return d - destOffset;
+        }
     }
 
-    private static int decode4to3(
-            byte[] src, int srcOffset,
-            ByteBuf dest, int destOffset, Base64Dialect dialect) {
+    /**
+     * Decodes a sequence of bytes in Base64 notation, which may be split into several chunks. Quartets of valid
+     * characters are decoded in one go, while white space and padding are handled character by character.
+     */
+    static final class Decoder {
+
+        private final byte[] decodabet;
+        private final boolean stopAtPadding;
+        private final byte[] b4 = new byte[4];
+        private int b4Posn;
+        private boolean done;
+        private byte[] srcChunk;
+        private byte[] destChunk;
+
+        /**
+         * @param stopAtPadding {@code true} if everything following a quartet which ends with padding should be
+         *                      ignored, {@code false} if it should be decoded as well
+         */
+        Decoder(Base64Dialect dialect, boolean stopAtPadding) {
+            decodabet = decodabet(dialect);
+            this.stopAtPadding = stopAtPadding;
+        }
 
-        byte[] DECODABET = decodabet(dialect);
+        /**
+         * Decodes the given bytes and writes the result to {@code dest}, except for the characters of an incomplete
+         * quartet at the end which are kept until the next call.
+         */
+        void decode(ByteBuf src, int off, int len, ByteBuf dest) {
+            if (src.hasArray()) {
+                decode(src.array(), src.arrayOffset() + off, len, off, dest);
+                return;
+            }
+
+            byte[] chunk = srcChunk;
+            if (chunk == null || chunk.length < CHUNK_SIZE && chunk.length < len) {
+                srcChunk = chunk = new byte[Math.min(len, CHUNK_SIZE)];
+            }
+            for (int i = 0; i < len && !done;) {
+                int n = Math.min(len - i, chunk.length);
+                src.getBytes(off + i, chunk, 0, n);
+                decode(chunk, 0, n, off + i, dest);
+                i += n;
+            }
+        }
+
+        /**
+         * @param index the index of {@code src[srcOffset]} in the original buffer
+         */
+        private void decode(byte[] src, int srcOffset, int len, int index, ByteBuf dest) {
+            if (dest.hasArray()) {
+                dest.ensureWritable(maxDecodedLength(len));
+                int writerIndex = dest.writerIndex();
+                int written = decode(src, srcOffset, len, index, dest.array(), dest.arrayOffset() + writerIndex);
+                dest.writerIndex(writerIndex + written);
+                return;
+            }
+
+            int maxLength = maxDecodedLength(len);
+            dest.ensureWritable(maxLength);
+            byte[] chunk = destChunk;
+            if (chunk == null || chunk.length < MAX_DECODED_CHUNK_SIZE && chunk.length < maxLength) {
+                destChunk = chunk = new byte[Math.min(maxLength, MAX_DECODED_CHUNK_SIZE)];
+            }
+            for (int i = 0; i < len && !done;) {
+                int n = Math.min(len - i, CHUNK_SIZE);
+                int written = decode(src, srcOffset + i, n, index + i, chunk, 0);
+                dest.writeBytes(chunk, 0, written);
+                i += n;
+            }
+        }
 
-        if (src[srcOffset + 2] == EQUALS_SIGN) {
+        private int maxDecodedLength(int len) {
+            return (b4Posn + len) / 4 * 3;
+        }
+
+        private int decode(byte[] src, int srcOffset, int len, int index, byte[] dest, int destOffset) {
+            if (done) {
+                return 0;
+            }
+
+            final byte[] DECODABET = decodabet;
+            final byte[] b4 = this.b4;
+            int b4Posn = this.b4Posn;
+            int d = destOffset;
+            int end = srcOffset + len;
+            for (int i = srcOffset; i < end; i ++) {
+                if (b4Posn == 0) {
+                    // Decode complete quartets without white space or padding in one go.
+                    for (int last = end - 4; i <= last; i += 4, d += 3) {
+                        int b0 = DECODABET[src[i    ] & 0x7f];
+                        int b1 = DECODABET[src[i + 1] & 0x7f];
+                        int b2 = DECODABET[src[i + 2] & 0x7f];
+                        int b3 = DECODABET[src[i + 3] & 0x7f];
+                        if ((b0 | b1 | b2 | b3) < 0) {
+                            break;
+                        }
+                        int outBuff = b0 << 18 | b1 << 12 | b2 << 6 | b3;
+                        dest[d    ] = (byte) (outBuff >>> 16);
+                        dest[d + 1] = (byte) (outBuff >>>  8);
+                        dest[d + 2] = (byte)  outBuff;
+                    }
+                    if (i == end) {
+                        break;
+                    }
+                }
+
+                byte sbiCrop = (byte) (src[i] & 0x7f); // Only the low seven bits
+                byte sbiDecode = DECODABET[sbiCrop];
+
+                if (sbiDecode >= WHITE_SPACE_ENC) { // White space, Equals sign or better
+                    if (sbiDecode >= EQUALS_SIGN_ENC) { // Equals sign or better
+                        b4[b4Posn ++] = sbiCrop;
+                        if (b4Posn > 3) { // Quartet built
+                            d += decode4to3(b4, dest, d, DECODABET);
+                            b4Posn = 0;
+
+                            // If that was the equals sign, break out of 'for' loop
+                            if (sbiCrop == EQUALS_SIGN && stopAtPadding) {
+                                done = true;
+                                break;
+                            }
+                        }
+                    }
+                } else {
+                    throw new IllegalArgumentException(
+                            "bad Base64 input character at " + (index + i - srcOffset) + ": " +
+                            (src[i] & 0xff) + " (decimal)");
+                }
+            }
+            this.b4Posn = b4Posn;
+            return d - destOffset;
+        }
+    }
+
+    private static int decode4to3(byte[] src, byte[] dest, int destOffset, byte[] decodabet) {
+        if (src[2] == EQUALS_SIGN) {
             // Example: Dk==
             int outBuff =
-                    (DECODABET[src[srcOffset    ]] & 0xFF) << 18 |
-                    (DECODABET[src[srcOffset + 1]] & 0xFF) << 12;
+                    (decodabet[src[0]] & 0xFF) << 18 |
+                    (decodabet[src[1]] & 0xFF) << 12;
 
-            dest.setByte(destOffset, (byte) (outBuff >>> 16));
+            dest[destOffset] = (byte) (outBuff >>> 16);
             return 1;
-        } else if (src[srcOffset + 3] == EQUALS_SIGN) {
+        } else if (src[3] == EQUALS_SIGN) {
             // Example: DkL=
             int outBuff =
-                    (DECODABET[src[srcOffset    ]] & 0xFF) << 18 |
-                    (DECODABET[src[srcOffset + 1]] & 0xFF) << 12 |
-                    (DECODABET[src[srcOffset + 2]] & 0xFF) <<  6;
+                    (decodabet[src[0]] & 0xFF) << 18 |
+                    (decodabet[src[1]] & 0xFF) << 12 |
+                    (decodabet[src[2]] & 0xFF) <<  6;
 
-            dest.setByte(destOffset    , (byte) (outBuff >>> 16));
-            dest.setByte(destOffset + 1, (byte) (outBuff >>>  8));
+            dest[destOffset    ] = (byte) (outBuff >>> 16);
+            dest[destOffset + 1] = (byte) (outBuff >>>  8);
             return 2;
         } else {
             // Example: DkLE
-            int outBuff;
-            try {
-                outBuff =
-                        (DECODABET[src[srcOffset    ]] & 0xFF) << 18 |
-                        (DECODABET[src[srcOffset + 1]] & 0xFF) << 12 |
-                        (DECODABET[src[srcOffset + 2]] & 0xFF) <<  6 |
-                         DECODABET[src[srcOffset + 3]] & 0xFF;
-            } catch (IndexOutOfBoundsException ignored) {
-                throw new IllegalArgumentException("not encoded in Base64");
-            }
-
-            dest.setByte(destOffset    , (byte) (outBuff >> 16));
-            dest.setByte(destOffset + 1, (byte) (outBuff >>  8));
-            dest.setByte(destOffset + 2, (byte)  outBuff);
+            int outBuff =
+                    (decodabet[src[0]] & 0xFF) << 18 |
+                    (decodabet[src[1]] & 0xFF) << 12 |
+                    (decodabet[src[2]] & 0xFF) <<  6 |
+                     decodabet[src[3]] & 0xFF;
+
+            dest[destOffset    ] = (byte) (outBuff >> 16);
+            dest[destOffset + 1] = (byte) (outBuff >>  8);
+            dest[destOffset + 2] = (byte)  outBuff;
             return 3;
         }
     }
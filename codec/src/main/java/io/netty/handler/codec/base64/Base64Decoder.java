@@ -42,6 +42,7 @@ import java.util.List;
  * // Encoder
  * pipeline.addLast("base64Encoder", new {@link Base64Encoder}());
  * </pre>
+ * Use a {@link Base64StreamDecoder} to decode a stream which is not split into frames.
  */
 @Sharable
 public class Base64Decoder extends MessageToMessageDecoder<ByteBuf> {
@@ -38,6 +38,8 @@ import java.util.List;
  * // Encoder
  * pipeline.addLast("base64Encoder", new {@link Base64Encoder}());
  * </pre>
+ * Every message is encoded into a complete Base64 text including padding. Use a {@link Base64StreamEncoder} to
+ * encode a stream of messages into a single Base64 text.
  */
 @Sharable
 public class Base64Encoder extends MessageToMessageEncoder<ByteBuf> {
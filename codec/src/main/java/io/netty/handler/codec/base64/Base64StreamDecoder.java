@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.base64;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageDecoder;
+
+import java.util.List;
+
+/**
+ * Decodes a stream of Base64-encoded {@link ByteBuf}s, which may be split at arbitrary positions, into
+ * {@link ByteBuf}s. Unlike {@link Base64Decoder}, it does not need a frame decoder in front of it, as the characters
+ * of an incomplete quartet at the end of a received {@link ByteBuf} are kept until the next one is received. Every
+ * received {@link ByteBuf} is decoded as soon as it was received, so large Base64 texts are never accumulated.
+ * <p>
+ * Decoding continues after padding, so the output of {@link Base64Encoder} for consecutive messages can be decoded
+ * as well. White space, such as the new lines inserted by {@link Base64Encoder}, is ignored.
+ * <p>
+ * This decoder keeps the state of the stream and thus can not be shared between channels.
+ */
+public class Base64StreamDecoder extends MessageToMessageDecoder<ByteBuf> {
+
+    private final Base64.Decoder decoder;
+
+    public Base64StreamDecoder() {
+        this(Base64Dialect.STANDARD);
+    }
+
+    public Base64StreamDecoder(Base64Dialect dialect) {
+        if (dialect == null) {
+            throw new NullPointerException("dialect");
+        }
+        decoder = new Base64.Decoder(dialect, false);
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
+        int len = msg.readableBytes();
+        ByteBuf dest = ctx.alloc().buffer((len + 3) / 4 * 3);
+        boolean release = true;
+        try {
+            decoder.decode(msg, msg.readerIndex(), len, dest);
+            if (dest.isReadable()) {
+                out.add(dest);
+                release = false;
+            }
+        } finally {
+            if (release) {
+                dest.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.base64;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.MessageToMessageEncoder;
+import io.netty.util.concurrent.EventExecutor;
+
+import java.util.List;
+
+/**
+ * Encodes a stream of {@link ByteBuf}s into a single Base64 text. Unlike {@link Base64Encoder}, which pads every
+ * message, the up to two bytes at the end of a message which do not form a complete group are kept and encoded
+ * together with the following message, so the output does not depend on how the input was split into messages.
+ * <p>
+ * The remaining bytes are written with padding when {@link #finish()} is called or the channel is closed.
+ * <p>
+ * This encoder keeps the state of the stream and thus can not be shared between channels.
+ */
+public class Base64StreamEncoder extends MessageToMessageEncoder<ByteBuf> {
+
+    private final Base64.Encoder encoder;
+    private volatile ChannelHandlerContext ctx;
+
+    public Base64StreamEncoder() {
+        this(true);
+    }
+
+    public Base64StreamEncoder(boolean breakLines) {
+        this(breakLines, Base64Dialect.STANDARD);
+    }
+
+    public Base64StreamEncoder(boolean breakLines, Base64Dialect dialect) {
+        if (dialect == null) {
+            throw new NullPointerException("dialect");
+        }
+        encoder = new Base64.Encoder(breakLines, dialect);
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.ctx = ctx;
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
+        int len = msg.readableBytes();
+        ByteBuf dest = ctx.alloc().buffer((len + 2) / 3 * 4);
+        boolean release = true;
+        try {
+            encoder.encode(msg, msg.readerIndex(), len, dest);
+            if (dest.isReadable()) {
+                out.add(dest);
+                release = false;
+            }
+        } finally {
+            if (release) {
+                dest.release();
+            }
+        }
+    }
+
+    /**
+     * Writes the remaining bytes with padding and flushes, so that the Base64 text written so far is complete.
+     * Messages written afterwards are encoded as a new Base64 text.
+     */
+    public ChannelFuture finish() {
+        final ChannelHandlerContext ctx = this.ctx;
+        if (ctx == null) {
+            throw new IllegalStateException("not added to a pipeline");
+        }
+        EventExecutor executor = ctx.executor();
+        if (executor.inEventLoop()) {
+            return finish(ctx, ctx.newPromise());
+        }
+        final ChannelPromise promise = ctx.newPromise();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                finish(ctx, promise);
+            }
+        });
+        return promise;
+    }
+
+    private ChannelFuture finish(ChannelHandlerContext ctx, ChannelPromise promise) {
+        ByteBuf tail = ctx.alloc().buffer(5);
+        encoder.finish(tail);
+        if (!tail.isReadable()) {
+            tail.release();
+            ctx.flush();
+            return promise.setSuccess();
+        }
+        return ctx.writeAndFlush(tail, promise);
+    }
+
+    @Override
+    public void close(final ChannelHandlerContext ctx, final ChannelPromise promise) throws Exception {
+        finish(ctx, ctx.newPromise()).addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                ctx.close(promise);
+            }
+        });
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.ReferenceCountUtil;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Compresses the blocks of a stream with an {@link Executor} and writes them in the order they were submitted.
+ * <p>
+ * All methods must be called from the {@link io.netty.channel.EventLoop} of the channel, only
+ * {@link Block#compress(ByteBufAllocator)} is called by the {@link Executor}. If the maximum number of blocks is
+ * pending already, a block is compressed by the caller, which bounds the memory held by the pending blocks.
+ * <p>
+ * If a block fails to compress, the stream can not be continued without it. The block and all blocks after it are
+ * released instead of written, their promises are failed and the channel is closed.
+ */
+final class BlockCompressionQueue {
+
+    /**
+     * A part of the compressed stream.
+     */
+    abstract static class Block {
+        final ChannelPromise promise;
+        private ByteBuf compressed;
+        private Throwable cause;
+        private volatile boolean done;
+
+        Block() {
+            this(null);
+        }
+
+        /**
+         * Creates a block which completes the {@code promise} once it was written, or fails it if the block was
+         * released instead.
+         */
+        Block(ChannelPromise promise) {
+            this.promise = promise;
+        }
+
+        /**
+         * Compresses the block, called by the {@link Executor} or the caller of
+         * {@link BlockCompressionQueue#submit(Block)}. Returns the compressed data.
+         */
+        abstract ByteBuf compress(ByteBufAllocator alloc) throws Exception;
+
+        /**
+         * Writes the compressed block, called from the {@link io.netty.channel.EventLoop} once all blocks submitted
+         * before were written. The {@code compressed} data is {@code null} for blocks which were added by
+         * {@link BlockCompressionQueue#add(Block)}.
+         */
+        void write(ChannelHandlerContext ctx, ByteBuf compressed) throws Exception {
+            if (promise != null) {
+                ctx.writeAndFlush(compressed, promise);
+            } else {
+                ctx.write(compressed);
+            }
+        }
+    }
+
+    private final ChannelHandlerContext ctx;
+    private final Executor executor;
+    private final int maxPendingBlocks;
+    private final ArrayDeque<Block> pending = new ArrayDeque<Block>();
+    private final Runnable drainTask = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    private boolean flushPending;
+    // Set once the blocks are released instead of written.
+    private Throwable failure;
+
+    BlockCompressionQueue(ChannelHandlerContext ctx, Executor executor, int maxPendingBlocks) {
+        this.ctx = ctx;
+        this.executor = executor;
+        this.maxPendingBlocks = maxPendingBlocks;
+    }
+
+    static void checkParameters(Executor executor, int maxPendingBlocks) {
+        if (executor == null) {
+            throw new NullPointerException("executor");
+        }
+        if (maxPendingBlocks <= 0) {
+            throw new IllegalArgumentException("maxPendingBlocks: " + maxPendingBlocks + " (expected: > 0)");
+        }
+    }
+
+    /**
+     * Returns {@code true} if no block is waiting to be written.
+     */
+    boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    /**
+     * Compresses the block with the {@link Executor} and writes it after all blocks submitted before.
+     */
+    void submit(final Block block) {
+        pending.add(block);
+        if (pending.size() > maxPendingBlocks) {
+            compress(block);
+            drain();
+            return;
+        }
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    compress(block);
+                    try {
+                        ctx.executor().execute(drainTask);
+                    } catch (RejectedExecutionException e) {
+                        // The channel is gone, so the block will never be written.
+                        ReferenceCountUtil.release(block.compressed);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            compress(block);
+            drain();
+        }
+    }
+
+    /**
+     * Writes a block which needs no compression after all blocks submitted before.
+     */
+    void add(Block block) {
+        pending.add(block);
+        block.done = true;
+        drain();
+    }
+
+    /**
+     * Writes {@code buf} after all blocks submitted before.
+     */
+    void add(ByteBuf buf) {
+        add(buf, null);
+    }
+
+    /**
+     * Writes and flushes {@code buf} with the {@code promise} after all blocks submitted before, or writes it
+     * without a flush if the {@code promise} is {@code null}.
+     */
+    void add(ByteBuf buf, ChannelPromise promise) {
+        Block block = new Block(promise) {
+            @Override
+            ByteBuf compress(ByteBufAllocator alloc) {
+                throw new IllegalStateException();
+            }
+        };
+        block.compressed = buf;
+        add(block);
+    }
+
+    /**
+     * Returns the promise for the direct output of a message whose blocks are submitted to this queue, which only
+     * fails the {@code promise} of the message if the write fails. The {@code promise} itself is passed to
+     * {@link #addPromise(ChannelPromise)} once the message was encoded.
+     */
+    ChannelPromise newOutputPromise(final ChannelPromise promise) {
+        ChannelPromise outputPromise = ctx.newPromise();
+        outputPromise.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) {
+                if (!future.isSuccess()) {
+                    promise.tryFailure(future.cause());
+                }
+            }
+        });
+        return outputPromise;
+    }
+
+    /**
+     * Completes the {@code promise} once all blocks submitted before were written, or fails it if they were
+     * released instead.
+     */
+    void addPromise(final ChannelPromise promise) {
+        add(new Block(promise) {
+            @Override
+            ByteBuf compress(ByteBufAllocator alloc) {
+                throw new IllegalStateException();
+            }
+
+            @Override
+            void write(ChannelHandlerContext ctx, ByteBuf compressed) {
+                // Completes after the blocks before, as the writes of a channel complete in order.
+                ctx.write(Unpooled.EMPTY_BUFFER, promise);
+            }
+        });
+    }
+
+    /**
+     * Flushes the channel now if no blocks are pending, or else once the pending blocks were written.
+     */
+    void flush() {
+        if (pending.isEmpty()) {
+            ctx.flush();
+        } else {
+            flushPending = true;
+        }
+    }
+
+    /**
+     * Releases all blocks instead of writing them, for when the handler was removed.
+     */
+    void release() {
+        if (failure == null) {
+            failure = new IllegalStateException("encoder removed");
+        }
+        drain();
+    }
+
+    private void compress(Block block) {
+        try {
+            block.compressed = block.compress(ctx.alloc());
+        } catch (Throwable cause) {
+            block.cause = cause;
+        }
+        block.done = true;
+    }
+
+    private void drain() {
+        boolean written = false;
+        for (;;) {
+            Block block = pending.peek();
+            if (block == null || !block.done) {
+                break;
+            }
+            pending.poll();
+            if (block.cause != null && failure == null) {
+                Throwable cause = block.cause;
+                if (!(cause instanceof CompressionException)) {
+                    cause = new CompressionException(cause);
+                }
+                // The following blocks would be written without this one, which the peer can not decompress.
+                failure = cause;
+                fail(block);
+                // Fail the promises of the pending blocks with the cause before the close fails them otherwise.
+                // The blocks themselves are released once they were compressed.
+                for (Block next : pending) {
+                    if (next.promise != null) {
+                        next.promise.tryFailure(cause);
+                    }
+                }
+                ctx.fireExceptionCaught(cause);
+                ctx.close();
+                continue;
+            }
+            if (failure != null) {
+                fail(block);
+                continue;
+            }
+            written = true;
+            try {
+                block.write(ctx, block.compressed);
+            } catch (Throwable cause) {
+                ctx.fireExceptionCaught(cause);
+            }
+        }
+        if (written && flushPending) {
+            flushPending = !pending.isEmpty();
+            ctx.flush();
+        }
+    }
+
+    private void fail(Block block) {
+        ReferenceCountUtil.release(block.compressed);
+        if (block.promise != null) {
+            block.promise.tryFailure(failure);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.Signal;
+
+import static io.netty.handler.codec.compression.BrotliConstants.*;
+
+/**
+ * Reads the bits of a Brotli stream from the cumulated input of the {@link BrotliDecoder}, least significant bit
+ * first.
+ * <p>
+ * The decoder reads its input in steps which are either completed or repeated once more input was received. Every
+ * completed step is {@linkplain #mark() marked}, and if a step runs out of input, {@link #NEED_MORE_INPUT} is
+ * thrown. The input is consumed up to the last mark. If the mark is within a byte, the byte is consumed as well and
+ * its remaining bits are kept until the next call of {@link #begin(ByteBuf)}, so every step which needed more input
+ * advances the reader index of the input.
+ */
+final class BrotliBitReader {
+    static final Signal NEED_MORE_INPUT = Signal.valueOf(BrotliDecoder.class, "NEED_MORE_INPUT");
+
+    private static final int HUFFMAN_TABLE_MASK = (1 << HUFFMAN_TABLE_BITS) - 1;
+
+    private ByteBuf in;
+    private int position;
+    private int limit;
+    private long accumulator;
+    private int bitCount;
+
+    private int markedPosition;
+    private long markedAccumulator;
+    private int markedBitCount;
+
+    /**
+     * Remaining bits of the last byte which was consumed partially.
+     */
+    private int pendingBits;
+    private int pendingBitCount;
+
+    /**
+     * Starts reading at the reader index of {@code in}.
+     */
+    void begin(ByteBuf in) {
+        this.in = in;
+        position = in.readerIndex();
+        limit = in.writerIndex();
+        accumulator = pendingBits;
+        bitCount = pendingBitCount;
+        mark();
+    }
+
+    /**
+     * Consumes the input up to the last mark.
+     */
+    void end() {
+        int consumedBits = markedPosition * 8 - markedBitCount;
+        pendingBitCount = -consumedBits & 7;
+        pendingBits = (int) markedAccumulator & ((1 << pendingBitCount) - 1);
+        in.readerIndex((consumedBits + 7) >>> 3);
+        in = null;
+    }
+
+    /**
+     * Marks the end of a completed step.
+     */
+    void mark() {
+        markedPosition = position;
+        markedAccumulator = accumulator;
+        markedBitCount = bitCount;
+    }
+
+    /**
+     * Returns to the last mark.
+     */
+    void reset() {
+        position = markedPosition;
+        accumulator = markedAccumulator;
+        bitCount = markedBitCount;
+    }
+
+    /**
+     * Reads {@code numBits} bits, at most {@code 24}.
+     */
+    int readBits(int numBits) {
+        if (bitCount < numBits) {
+            fill(numBits);
+        }
+        int value = (int) accumulator & ((1 << numBits) - 1);
+        accumulator >>>= numBits;
+        bitCount -= numBits;
+        return value;
+    }
+
+    boolean readBit() {
+        return readBits(1) != 0;
+    }
+
+    private void skipBits(int numBits) {
+        accumulator >>>= numBits;
+        bitCount -= numBits;
+    }
+
+    /**
+     * Reads a symbol of the prefix code with the given lookup table, which was built by {@link BrotliHuffmanTable}.
+     */
+    int readSymbol(int[] table) {
+        if (bitCount < MAX_HUFFMAN_CODE_LENGTH) {
+            // The code may be shorter than the bits which are left in the input.
+            fillAvailable(MAX_HUFFMAN_CODE_LENGTH);
+        }
+        int bits = (int) accumulator;
+        int entry = table[bits & HUFFMAN_TABLE_MASK];
+        int length = entry >>> 16;
+        if (length > HUFFMAN_TABLE_BITS) {
+            int subtableMask = (1 << (length - HUFFMAN_TABLE_BITS)) - 1;
+            entry = table[(entry & 0xFFFF) + ((bits >>> HUFFMAN_TABLE_BITS) & subtableMask)];
+            length = entry >>> 16;
+        }
+        if (length > bitCount) {
+            throw NEED_MORE_INPUT;
+        }
+        skipBits(length);
+        return entry & 0xFFFF;
+    }
+
+    /**
+     * Skips to the next byte boundary, the skipped bits need to be zero.
+     */
+    void alignToByte() {
+        int padding = bitCount & 7;
+        if (padding != 0 && readBits(padding) != 0) {
+            throw new DecompressionException("non-zero padding bits");
+        }
+    }
+
+    /**
+     * Copies up to {@code length} bytes to {@code dst}, the reader has to be aligned to a byte boundary. Returns the
+     * number of bytes copied, which is less if there is not enough input.
+     */
+    int readBytes(byte[] dst, int offset, int length) {
+        int n = 0;
+        while (bitCount >= 8 && n < length) {
+            dst[offset + n++] = (byte) accumulator;
+            skipBits(8);
+        }
+        int direct = Math.min(length - n, limit - position);
+        in.getBytes(position, dst, offset + n, direct);
+        position += direct;
+        return n + direct;
+    }
+
+    /**
+     * Skips up to {@code length} bytes, the reader has to be aligned to a byte boundary. Returns the number of bytes
+     * skipped.
+     */
+    int skipBytes(int length) {
+        int n = 0;
+        while (bitCount >= 8 && n < length) {
+            skipBits(8);
+            n++;
+        }
+        int direct = Math.min(length - n, limit - position);
+        position += direct;
+        return n + direct;
+    }
+
+    /**
+     * Returns {@code true} if all input was read.
+     */
+    boolean isExhausted() {
+        return bitCount == 0 && position == limit;
+    }
+
+    private void fill(int numBits) {
+        fillAvailable(numBits);
+        if (bitCount < numBits) {
+            throw NEED_MORE_INPUT;
+        }
+    }
+
+    private void fillAvailable(int numBits) {
+        if (bitCount <= 32 && limit - position >= 4) {
+            accumulator |= (in.getIntLE(position) & 0xFFFFFFFFL) << bitCount;
+            position += 4;
+            bitCount += 32;
+            return;
+        }
+        while (bitCount < numBits && position < limit) {
+            accumulator |= (long) in.getUnsignedByte(position++) << bitCount;
+            bitCount += 8;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.Arrays;
+
+/**
+ * Writes a Brotli stream, least significant bit first, to a buffer which grows as needed. The state of the writer
+ * can be {@linkplain #mark() marked}, so a meta-block can be written again in another way if it turns out to be
+ * too large.
+ */
+final class BrotliBitWriter {
+    private byte[] buffer;
+    private int position;
+    private long container;
+    private int bitCount;
+
+    private int markedPosition;
+    private long markedContainer;
+    private int markedBitCount;
+
+    BrotliBitWriter(int initialCapacity) {
+        buffer = new byte[initialCapacity];
+    }
+
+    /**
+     * Writes the lowest {@code numBits} bits of {@code value}, at most {@code 32}.
+     */
+    void writeBits(int value, int numBits) {
+        container |= (value & ((1L << numBits) - 1)) << bitCount;
+        bitCount += numBits;
+        if (bitCount >= 32) {
+            ensureCapacity(4);
+            byte[] buffer = this.buffer;
+            int position = this.position;
+            long container = this.container;
+            buffer[position] = (byte) container;
+            buffer[position + 1] = (byte) (container >>> 8);
+            buffer[position + 2] = (byte) (container >>> 16);
+            buffer[position + 3] = (byte) (container >>> 24);
+            this.position = position + 4;
+            this.container = container >>> 32;
+            bitCount -= 32;
+        }
+    }
+
+    /**
+     * Pads the stream with zero bits up to the next byte boundary.
+     */
+    void alignToByte() {
+        writeBits(0, -bitCount & 7);
+        ensureCapacity(4);
+        while (bitCount > 0) {
+            buffer[position++] = (byte) container;
+            container >>>= 8;
+            bitCount -= 8;
+        }
+    }
+
+    /**
+     * Writes bytes at a byte boundary.
+     */
+    void writeBytes(byte[] src, int offset, int length) {
+        alignToByte();
+        ensureCapacity(length);
+        System.arraycopy(src, offset, buffer, position, length);
+        position += length;
+    }
+
+    /**
+     * Returns the number of bits written since the last {@link #drainTo(ByteBuf)}.
+     */
+    long bitLength() {
+        return position * 8L + bitCount;
+    }
+
+    void mark() {
+        markedPosition = position;
+        markedContainer = container;
+        markedBitCount = bitCount;
+    }
+
+    void reset() {
+        position = markedPosition;
+        container = markedContainer;
+        bitCount = markedBitCount;
+    }
+
+    /**
+     * Returns the number of complete bytes which {@link #drainTo(ByteBuf)} would write.
+     */
+    int pending() {
+        return position + (bitCount >>> 3);
+    }
+
+    /**
+     * Writes all complete bytes to {@code out}, the bits of an incomplete byte are kept.
+     */
+    void drainTo(ByteBuf out) {
+        ensureCapacity(4);
+        while (bitCount >= 8) {
+            buffer[position++] = (byte) container;
+            container >>>= 8;
+            bitCount -= 8;
+        }
+        out.writeBytes(buffer, 0, position);
+        position = 0;
+    }
+
+    private void ensureCapacity(int length) {
+        if (position + length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, position + length));
+        }
+    }
+}
@@ -0,0 +1,512 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.Arrays;
+
+import static io.netty.handler.codec.compression.BrotliConstants.*;
+
+/**
+ * Compresses the meta-blocks of a Brotli stream. The input is collected in a window which also holds the history the
+ * matches are searched in, with the help of a hash table and hash chains. Matches are found greedily or, for the
+ * higher qualities, lazily. Each meta-block uses a single block type and prefix code per category, and falls back
+ * to an uncompressed meta-block if it does not get any smaller.
+ * <p>
+ * An instance keeps all of its buffers and tables, so it is meant to be used for all meta-blocks of a stream.
+ */
+final class BrotliBlockCompressor {
+    // Matches are searched with a hash of 4 bytes, so shorter matches are never found.
+    private static final int MIN_MATCH_LENGTH = 4;
+    private static final int HASH_PRIME = 0x9E3779B1;
+    private static final int MAX_HASH_LOG = 16;
+    private static final int MAX_CHAIN_LOG = 17;
+    private static final int MAX_SEARCH_DEPTH = 512;
+    // At the lowest qualities, the search skips ahead faster when there were no matches for a while.
+    private static final int SEARCH_SKIP_LOG = 6;
+
+    // Matches are scored by their length and the number of bits of their distance.
+    private static final int LITERAL_SCORE = 135;
+    private static final int DISTANCE_BIT_PENALTY = 30;
+    private static final int LAST_DISTANCE_SCORE = 200;
+    private static final int MIN_SCORE = 300;
+    private static final int LAZY_SCORE_MARGIN = 135;
+
+    /**
+     * Meta-block header of at most six nibbles of length, and the padding of an uncompressed meta-block.
+     */
+    static final int MAX_META_BLOCK_OVERHEAD = 5;
+
+    /**
+     * The first insert-and-copy symbol of each combination of insert and copy length code ranges, which use an
+     * explicit distance.
+     */
+    private static final int[] COMMAND_RANGE_SYMBOLS = { 128, 192, 384, 256, 320, 512, 448, 576, 640 };
+
+    private static final int DISTANCE_ALPHABET_SIZE = NUM_DISTANCE_SHORT_CODES + NUM_DISTANCE_LONG_CODES;
+
+    private final int maxDistance;
+    private final int historySize;
+    private final int blockSize;
+    private final int searchDepth;
+    private final int lazyDepth;
+    private final boolean skipAhead;
+
+    private byte[] window;
+    private int position;
+    private int blockStart;
+
+    /**
+     * Number of bytes which were moved out of the window, so the position of the window in the stream.
+     */
+    private long windowOffset;
+
+    private final int hashLog;
+    private final int[] hashTable;
+    private final int chainMask;
+    private final int[] chainTable;
+    private int nextToUpdate;
+
+    private final int[] distances = new int[4];
+    private final int[] previousDistances = new int[4];
+
+    // The commands of the current meta-block.
+    private final int[] insertLengths;
+    private final int[] copyLengths;
+    private final int[] distanceCodes;
+    private final int[] distanceExtraBits;
+    private int numCommands;
+    private final byte[] literals;
+    private int numLiterals;
+
+    // Result of the last match search.
+    private int matchLength;
+    private int matchDistance;
+
+    private final int[] commandSymbols;
+    private final int[] literalCounts = new int[NUM_LITERAL_SYMBOLS];
+    private final int[] commandCounts = new int[NUM_COMMAND_SYMBOLS];
+    private final int[] distanceCounts = new int[DISTANCE_ALPHABET_SIZE];
+    private final BrotliHuffmanEncoder literalEncoder = new BrotliHuffmanEncoder(NUM_LITERAL_SYMBOLS);
+    private final BrotliHuffmanEncoder commandEncoder = new BrotliHuffmanEncoder(NUM_COMMAND_SYMBOLS);
+    private final BrotliHuffmanEncoder distanceEncoder = new BrotliHuffmanEncoder(DISTANCE_ALPHABET_SIZE);
+
+    BrotliBlockCompressor(int quality, int windowBits, int blockSize) {
+        historySize = 1 << windowBits;
+        maxDistance = historySize - WINDOW_GAP;
+        this.blockSize = blockSize;
+        searchDepth = quality < 2 ? 1 : Math.min(1 << (quality - 1), MAX_SEARCH_DEPTH);
+        lazyDepth = quality < 4 ? 0 : quality < 8 ? 1 : 2;
+        skipAhead = quality < 2;
+
+        hashLog = Math.min(windowBits, MAX_HASH_LOG);
+        hashTable = new int[1 << hashLog];
+        if (searchDepth > 1) {
+            int chainLog = Math.min(windowBits, MAX_CHAIN_LOG);
+            chainMask = (1 << chainLog) - 1;
+            chainTable = new int[1 << chainLog];
+        } else {
+            chainMask = 0;
+            chainTable = null;
+        }
+
+        // Every command but the last one holds a match.
+        int maxCommands = blockSize / MIN_MATCH_LENGTH + 1;
+        insertLengths = new int[maxCommands];
+        copyLengths = new int[maxCommands];
+        distanceCodes = new int[maxCommands];
+        distanceExtraBits = new int[maxCommands];
+        commandSymbols = new int[maxCommands];
+        literals = new byte[blockSize];
+
+        window = new byte[Math.min(blockSize * 2, historySize + blockSize)];
+        System.arraycopy(INITIAL_DISTANCES, 0, distances, 0, 4);
+    }
+
+    /**
+     * Returns the number of bytes which are not compressed yet.
+     */
+    int pending() {
+        return position - blockStart;
+    }
+
+    /**
+     * Appends up to {@code length} bytes to the current meta-block. Returns the number of bytes appended, which is
+     * less if the meta-block is full.
+     */
+    int append(ByteBuf in, int length) {
+        if (position == blockStart) {
+            prepareBlock();
+        }
+        int n = Math.min(length, blockSize - pending());
+        in.readBytes(window, position, n);
+        position += n;
+        return n;
+    }
+
+    boolean isBlockFull() {
+        return pending() == blockSize;
+    }
+
+    private void prepareBlock() {
+        if (position + blockSize <= window.length) {
+            return;
+        }
+        int limit = 2 * historySize + blockSize;
+        if (window.length < limit) {
+            window = Arrays.copyOf(window, Math.min(limit, Math.max(window.length << 1, position + blockSize)));
+            if (position + blockSize <= window.length) {
+                return;
+            }
+        }
+        // Move the history to the start of the window. The distance it is moved is a multiple of the size of the
+        // chain table, so positions keep their slot in there.
+        int shift = (position - historySize) & ~chainMask;
+        System.arraycopy(window, shift, window, 0, position - shift);
+        position -= shift;
+        blockStart -= shift;
+        windowOffset += shift;
+        nextToUpdate = Math.max(0, nextToUpdate - shift);
+        rebase(hashTable, shift);
+        if (chainTable != null) {
+            rebase(chainTable, shift);
+        }
+    }
+
+    private static void rebase(int[] table, int shift) {
+        for (int i = 0; i < table.length; i++) {
+            int value = table[i];
+            table[i] = value > shift ? value - shift : 0;
+        }
+    }
+
+    /**
+     * Compresses the pending input into a meta-block which is not the last one of the stream.
+     */
+    void compressBlock(BrotliBitWriter writer) {
+        int start = blockStart;
+        int length = position - start;
+        blockStart = position;
+        if (length == 0) {
+            return;
+        }
+
+        System.arraycopy(distances, 0, previousDistances, 0, 4);
+        findCommands(start, position);
+        long startBits = writer.bitLength();
+        writer.mark();
+        writeMetaBlockHeader(writer, length, false);
+        writeCompressedMetaBlock(writer);
+        if (writer.bitLength() - startBits > (length + MAX_META_BLOCK_OVERHEAD) * 8L) {
+            // The decoder does not see the distances of an uncompressed meta-block, so it keeps the previous ones.
+            System.arraycopy(previousDistances, 0, distances, 0, 4);
+            writer.reset();
+            writeMetaBlockHeader(writer, length, true);
+            writer.writeBytes(window, start, length);
+        }
+    }
+
+    private static void writeMetaBlockHeader(BrotliBitWriter writer, int length, boolean uncompressed) {
+        int value = length - 1;
+        int nibbles = value < 1 << 16 ? 4 : value < 1 << 20 ? 5 : 6;
+        writer.writeBits(0, 1);
+        writer.writeBits(nibbles - 4, 2);
+        writer.writeBits(value, nibbles * 4);
+        writer.writeBits(uncompressed ? 1 : 0, 1);
+    }
+
+    private static int hash(byte[] window, int position, int hashLog) {
+        return (XxHash64.readIntLE(window, position) * HASH_PRIME) >>> (32 - hashLog);
+    }
+
+    /**
+     * Inserts all positions up to {@code target} into the hash table and chains.
+     */
+    private void insertHashes(int target) {
+        byte[] window = this.window;
+        int[] hashTable = this.hashTable;
+        int[] chainTable = this.chainTable;
+        int hashLog = this.hashLog;
+        for (int p = nextToUpdate; p < target; p++) {
+            int h = hash(window, p, hashLog);
+            if (chainTable != null) {
+                chainTable[p & chainMask] = hashTable[h];
+            }
+            hashTable[h] = p + 1;
+        }
+        nextToUpdate = Math.max(nextToUpdate, target);
+    }
+
+    private void findCommands(int start, int end) {
+        byte[] window = this.window;
+        numCommands = 0;
+        numLiterals = 0;
+        int anchor = start;
+        int ip = start;
+        int limit = end - MIN_MATCH_LENGTH;
+        while (ip < limit) {
+            if (!findMatch(ip, end)) {
+                ip += skipAhead ? 1 + ((ip - anchor) >>> SEARCH_SKIP_LOG) : 1;
+                continue;
+            }
+            int length = matchLength;
+            int distance = matchDistance;
+
+            // Check if the next position has a better match.
+            for (int i = 0; i < lazyDepth && ip + 1 < limit; i++) {
+                int score = score(length, distance) + LAZY_SCORE_MARGIN;
+                if (!findMatch(ip + 1, end) || score(matchLength, matchDistance) < score) {
+                    break;
+                }
+                ip++;
+                length = matchLength;
+                distance = matchDistance;
+            }
+
+            // Extend the match backwards.
+            while (ip > anchor && ip - distance > 0 && window[ip - 1] == window[ip - distance - 1]) {
+                ip--;
+                length++;
+            }
+
+            addCommand(anchor, ip - anchor, length, distance);
+            ip += length;
+            anchor = ip;
+        }
+        if (anchor < end) {
+            // The meta-block ends after the literals, so the copy length of the last command is never used.
+            addCommand(anchor, end - anchor, 0, 0);
+        }
+        insertHashes(end - MIN_MATCH_LENGTH);
+    }
+
+    /**
+     * Estimates how much a match saves, in about 1/135 of a literal. Matches which save less than
+     * {@link #MIN_SCORE} are not used.
+     */
+    private int score(int length, int distance) {
+        if (distance == distances[0]) {
+            return LITERAL_SCORE * length + LAST_DISTANCE_SCORE;
+        }
+        return LITERAL_SCORE * length - DISTANCE_BIT_PENALTY * (31 - Integer.numberOfLeadingZeros(distance));
+    }
+
+    /**
+     * Returns the largest distance a match at {@code ip} can have, larger distances refer to the static dictionary.
+     */
+    private int maxDistance(int ip) {
+        return (int) Math.min(maxDistance, windowOffset + ip);
+    }
+
+    /**
+     * Searches the longest match at {@code ip}, checking the last distances first. Returns {@code true} and stores
+     * the match in {@link #matchLength} and {@link #matchDistance} if one was found.
+     */
+    private boolean findMatch(int ip, int end) {
+        byte[] window = this.window;
+        int maxDistance = Math.min(maxDistance(ip), ip);
+        int bestLength = MIN_MATCH_LENGTH - 1;
+        int bestDistance = 0;
+        int bestScore = MIN_SCORE;
+
+        for (int i = 0; i < 4; i++) {
+            int distance = distances[i];
+            if (distance <= maxDistance) {
+                int length = matchLength(window, ip, ip - distance, end);
+                int score = score(length, distance);
+                if (length > bestLength && score > bestScore) {
+                    bestLength = length;
+                    bestDistance = distance;
+                    bestScore = score;
+                }
+            }
+        }
+
+        insertHashes(ip);
+        int candidate = hashTable[hash(window, ip, hashLog)];
+        int[] chainTable = this.chainTable;
+        int minPosition = ip - maxDistance;
+        // Older positions may share their slot in the chain table with newer ones.
+        int minChainPosition = ip - chainMask;
+        if (ip + bestLength == end) {
+            candidate = 0;
+        }
+        for (int depth = searchDepth; candidate > 0 && depth > 0; depth--) {
+            int match = candidate - 1;
+            if (match < minPosition) {
+                break;
+            }
+            // Quick check of the byte which would make the match longer than the best one so far.
+            if (window[match + bestLength] == window[ip + bestLength]) {
+                int length = matchLength(window, ip, match, end);
+                int score = score(length, ip - match);
+                if (length > bestLength && score > bestScore) {
+                    bestLength = length;
+                    bestDistance = ip - match;
+                    bestScore = score;
+                    if (ip + length == end) {
+                        break;
+                    }
+                }
+            }
+            if (chainTable == null || match < minChainPosition) {
+                break;
+            }
+            int next = chainTable[match & chainMask];
+            if (next >= candidate) {
+                // The slot was overwritten by a newer position.
+                break;
+            }
+            candidate = next;
+        }
+        if (bestDistance == 0) {
+            return false;
+        }
+        matchLength = bestLength;
+        matchDistance = bestDistance;
+        return true;
+    }
+
+    private static int matchLength(byte[] window, int ip, int match, int end) {
+        int length = 0;
+        int max = end - ip;
+        while (length < max && window[ip + length] == window[match + length]) {
+            length++;
+        }
+        return length;
+    }
+
+    private void addCommand(int anchor, int insertLength, int copyLength, int distance) {
+        System.arraycopy(window, anchor, literals, numLiterals, insertLength);
+        numLiterals += insertLength;
+
+        // Encode the distance and update the last distances the same way the decoder does.
+        int[] distances = this.distances;
+        int code;
+        int extraBits = 0;
+        if (copyLength == 0 || distance == distances[0]) {
+            code = 0;
+        } else {
+            if (distance == distances[1]) {
+                code = 1;
+            } else if (distance == distances[2]) {
+                code = 2;
+            } else if (distance == distances[3]) {
+                code = 3;
+            } else {
+                int value = distance + 3;
+                int numExtraBits = 30 - Integer.numberOfLeadingZeros(value);
+                int prefix = (value >>> numExtraBits) & 1;
+                code = NUM_DISTANCE_SHORT_CODES + 2 * (numExtraBits - 1) + prefix;
+                extraBits = value - ((2 + prefix) << numExtraBits);
+            }
+            distances[3] = distances[2];
+            distances[2] = distances[1];
+            distances[1] = distances[0];
+            distances[0] = distance;
+        }
+
+        int n = numCommands++;
+        insertLengths[n] = insertLength;
+        copyLengths[n] = copyLength;
+        distanceCodes[n] = code;
+        distanceExtraBits[n] = extraBits;
+    }
+
+    private static int insertLengthCode(int length) {
+        int code = 0;
+        while (code < INSERT_LENGTH_BASE.length - 1 && INSERT_LENGTH_BASE[code + 1] <= length) {
+            code++;
+        }
+        return code;
+    }
+
+    private static int copyLengthCode(int length) {
+        int code = 0;
+        while (code < COPY_LENGTH_BASE.length - 1 && COPY_LENGTH_BASE[code + 1] <= length) {
+            code++;
+        }
+        return code;
+    }
+
+    private static int commandSymbol(int insertCode, int copyCode, boolean lastDistance) {
+        int low = (insertCode & 7) << 3 | copyCode & 7;
+        if (lastDistance && insertCode < 8 && copyCode < 16) {
+            // The symbols below 128 use the last distance without a distance symbol.
+            return (copyCode < 8 ? 0 : 64) | low;
+        }
+        return COMMAND_RANGE_SYMBOLS[(insertCode >>> 3) * 3 + (copyCode >>> 3)] | low;
+    }
+
+    private void writeCompressedMetaBlock(BrotliBitWriter writer) {
+        int numCommands = this.numCommands;
+        int[] literalCounts = this.literalCounts;
+        int[] commandCounts = this.commandCounts;
+        int[] distanceCounts = this.distanceCounts;
+        Arrays.fill(literalCounts, 0);
+        Arrays.fill(commandCounts, 0);
+        Arrays.fill(distanceCounts, 0);
+        for (int i = 0; i < numLiterals; i++) {
+            literalCounts[literals[i] & 0xFF]++;
+        }
+        for (int i = 0; i < numCommands; i++) {
+            int copyLength = copyLengths[i];
+            int symbol = commandSymbol(insertLengthCode(insertLengths[i]),
+                    copyLengthCode(Math.max(copyLength, COPY_LENGTH_BASE[0])), distanceCodes[i] == 0);
+            commandSymbols[i] = symbol;
+            commandCounts[symbol]++;
+            if (symbol >= 128 && copyLength != 0) {
+                distanceCounts[distanceCodes[i]]++;
+            }
+        }
+        literalEncoder.build(literalCounts);
+        commandEncoder.build(commandCounts);
+        distanceEncoder.build(distanceCounts);
+
+        // A single block type of each category, no direct distance codes, and a single prefix code per category.
+        writer.writeBits(0, 3);
+        writer.writeBits(0, 6);
+        writer.writeBits(CONTEXT_LSB6, 2);
+        writer.writeBits(0, 2);
+        literalEncoder.writeTable(writer);
+        commandEncoder.writeTable(writer);
+        distanceEncoder.writeTable(writer);
+
+        int literal = 0;
+        for (int i = 0; i < numCommands; i++) {
+            int insertLength = insertLengths[i];
+            int copyLength = copyLengths[i];
+            int insertCode = insertLengthCode(insertLength);
+            commandEncoder.writeSymbol(writer, commandSymbols[i]);
+            writer.writeBits(insertLength - INSERT_LENGTH_BASE[insertCode], INSERT_LENGTH_EXTRA_BITS[insertCode]);
+            if (copyLength != 0) {
+                int copyCode = copyLengthCode(copyLength);
+                writer.writeBits(copyLength - COPY_LENGTH_BASE[copyCode], COPY_LENGTH_EXTRA_BITS[copyCode]);
+            }
+            for (int end = literal + insertLength; literal < end; literal++) {
+                literalEncoder.writeSymbol(writer, literals[literal] & 0xFF);
+            }
+            if (commandSymbols[i] >= 128 && copyLength != 0) {
+                int code = distanceCodes[i];
+                distanceEncoder.writeSymbol(writer, code);
+                if (code >= NUM_DISTANCE_SHORT_CODES) {
+                    writer.writeBits(distanceExtraBits[i], 1 + ((code - NUM_DISTANCE_SHORT_CODES) >>> 1));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+/**
+ * Constants for both the {@link BrotliEncoder} and the {@link BrotliDecoder}, as defined by
+ * <a href="https://tools.ietf.org/html/rfc7932">RFC 7932</a>.
+ */
+final class BrotliConstants {
+
+    static final int MIN_WINDOW_BITS = 10;
+    static final int MAX_WINDOW_BITS = 24;
+
+    /**
+     * The window is {@code 16} bytes smaller than {@code 1 << windowBits}.
+     */
+    static final int WINDOW_GAP = 16;
+
+    /**
+     * Maximum number of bytes a meta-block can hold.
+     */
+    static final int MAX_META_BLOCK_LENGTH = 1 << 24;
+
+    static final int NUM_LITERAL_SYMBOLS = 256;
+    static final int NUM_COMMAND_SYMBOLS = 704;
+    static final int NUM_BLOCK_LENGTH_SYMBOLS = 26;
+    static final int NUM_DISTANCE_SHORT_CODES = 16;
+    static final int MAX_BLOCK_TYPES = 256;
+
+    /**
+     * Number of distance symbols which encode the extra bits of the distance, per postfix code.
+     */
+    static final int NUM_DISTANCE_LONG_CODES = 48;
+
+    static final int MAX_HUFFMAN_CODE_LENGTH = 15;
+    static final int HUFFMAN_TABLE_BITS = 8;
+
+    static final int NUM_CODE_LENGTH_CODES = 18;
+    static final int MAX_CODE_LENGTH_CODE_LENGTH = 5;
+    static final int REPEAT_PREVIOUS_CODE_LENGTH = 16;
+    static final int REPEAT_ZERO_CODE_LENGTH = 17;
+    static final int INITIAL_REPEATED_CODE_LENGTH = 8;
+
+    /**
+     * Order in which the code lengths of the code length alphabet are stored.
+     */
+    static final int[] CODE_LENGTH_CODE_ORDER = { 1, 2, 3, 4, 0, 5, 17, 6, 16, 7, 8, 9, 10, 11, 12, 13, 14, 15 };
+
+    static final int NUM_LITERAL_CONTEXTS = 64;
+    static final int NUM_DISTANCE_CONTEXTS = 4;
+
+    static final int CONTEXT_LSB6 = 0;
+    static final int CONTEXT_MSB6 = 1;
+    static final int CONTEXT_UTF8 = 2;
+    static final int CONTEXT_SIGNED = 3;
+
+    static final int[] INSERT_LENGTH_BASE = {
+            0, 1, 2, 3, 4, 5, 6, 8, 10, 14, 18, 26, 34, 50, 66, 98, 130, 194, 322, 578, 1090, 2114, 6210, 22594 };
+    static final int[] INSERT_LENGTH_EXTRA_BITS = {
+            0, 0, 0, 0, 0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 6, 7, 8, 9, 10, 12, 14, 24 };
+    static final int[] COPY_LENGTH_BASE = {
+            2, 3, 4, 5, 6, 7, 8, 9, 10, 12, 14, 18, 22, 30, 38, 54, 70, 102, 134, 198, 326, 582, 1094, 2118 };
+    static final int[] COPY_LENGTH_EXTRA_BITS = {
+            0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 6, 7, 8, 9, 10, 24 };
+
+    static final int[] BLOCK_LENGTH_BASE = {
+            1, 5, 9, 13, 17, 25, 33, 41, 49, 65, 81, 97, 113, 145, 177, 209, 241, 305, 369, 497, 753, 1265, 2289,
+            4337, 8433, 16625 };
+    static final int[] BLOCK_LENGTH_EXTRA_BITS = {
+            2, 2, 2, 2, 3, 3, 3, 3, 4, 4, 4, 4, 5, 5, 5, 5, 6, 6, 7, 8, 9, 10, 11, 12, 13, 24 };
+
+    /**
+     * Insert and copy length codes of the insert-and-copy symbols from {@code 128} on, in blocks of {@code 64}
+     * symbols. The symbols below {@code 128} use the last distance implicitly and have insert length codes below
+     * {@code 8}.
+     */
+    static final int[] COMMAND_INSERT_CODE_BASE = { 0, 0, 8, 8, 0, 16, 8, 16, 16 };
+    static final int[] COMMAND_COPY_CODE_BASE = { 0, 8, 0, 8, 16, 0, 16, 8, 16 };
+
+    /**
+     * The distance short codes refer to one of the last four distances, plus the given offset.
+     */
+    static final int[] DISTANCE_SHORT_CODE_INDEX = { 0, 1, 2, 3, 0, 0, 0, 0, 0, 0, 1, 1, 1, 1, 1, 1 };
+    static final int[] DISTANCE_SHORT_CODE_OFFSET = { 0, 0, 0, 0, -1, 1, -2, 2, -3, 3, -1, 1, -2, 2, -3, 3 };
+
+    /**
+     * The last four distances a stream starts with, the last one first.
+     */
+    static final int[] INITIAL_DISTANCES = { 4, 11, 15, 16 };
+
+    /**
+     * Context ids of the literals, as {@code 512} entries per context mode. The id is the entry for the last byte
+     * ORed with the entry {@code 256} further on for the second last byte.
+     */
+    static final byte[] CONTEXT_LOOKUP = new byte[4 * 512];
+
+    private static final byte[] UTF8_LAST_BYTE_CONTEXT = {
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 4, 4, 0, 0, 4, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+            8, 12, 16, 12, 12, 20, 12, 16, 24, 28, 12, 12, 32, 12, 36, 12,
+            44, 44, 44, 44, 44, 44, 44, 44, 44, 44, 32, 32, 24, 40, 28, 12,
+            12, 48, 52, 52, 52, 48, 52, 52, 52, 48, 52, 52, 52, 52, 52, 48,
+            52, 52, 52, 52, 52, 48, 52, 52, 52, 52, 52, 24, 12, 28, 12, 12,
+            12, 56, 60, 60, 60, 56, 60, 60, 60, 56, 60, 60, 60, 60, 60, 56,
+            60, 60, 60, 60, 60, 56, 60, 60, 60, 60, 60, 24, 12, 28, 12, 0,
+            0, 1, 0, 1, 0, 1, 0, 1, 0, 1, 0, 1, 0, 1, 0, 1,
+            0, 1, 0, 1, 0, 1, 0, 1, 0, 1, 0, 1, 0, 1, 0, 1,
+            0, 1, 0, 1, 0, 1, 0, 1, 0, 1, 0, 1, 0, 1, 0, 1,
+            0, 1, 0, 1, 0, 1, 0, 1, 0, 1, 0, 1, 0, 1, 0, 1,
+            2, 3, 2, 3, 2, 3, 2, 3, 2, 3, 2, 3, 2, 3, 2, 3,
+            2, 3, 2, 3, 2, 3, 2, 3, 2, 3, 2, 3, 2, 3, 2, 3,
+            2, 3, 2, 3, 2, 3, 2, 3, 2, 3, 2, 3, 2, 3, 2, 3,
+            2, 3, 2, 3, 2, 3, 2, 3, 2, 3, 2, 3, 2, 3, 2, 3
+    };
+
+    private static final byte[] UTF8_SECOND_LAST_BYTE_CONTEXT = {
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
+            2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 1, 1, 1, 1, 1, 1,
+            1, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2,
+            2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 1, 1, 1, 1, 1,
+            1, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3,
+            3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 1, 1, 1, 1, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+            2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2,
+            2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2
+    };
+
+    static {
+        for (int b = 0; b < 256; b++) {
+            CONTEXT_LOOKUP[CONTEXT_LSB6 * 512 + b] = (byte) (b & 0x3F);
+            CONTEXT_LOOKUP[CONTEXT_MSB6 * 512 + b] = (byte) (b >>> 2);
+            CONTEXT_LOOKUP[CONTEXT_UTF8 * 512 + b] = UTF8_LAST_BYTE_CONTEXT[b];
+            CONTEXT_LOOKUP[CONTEXT_UTF8 * 512 + 256 + b] = UTF8_SECOND_LAST_BYTE_CONTEXT[b];
+            int signed = b == 0 ? 0 : b < 16 ? 1 : b < 64 ? 2 : b < 128 ? 3 :
+                    b < 192 ? 4 : b < 240 ? 5 : b < 255 ? 6 : 7;
+            CONTEXT_LOOKUP[CONTEXT_SIGNED * 512 + b] = (byte) (signed << 3);
+            CONTEXT_LOOKUP[CONTEXT_SIGNED * 512 + 256 + b] = (byte) signed;
+        }
+    }
+
+    private BrotliConstants() { }
+}
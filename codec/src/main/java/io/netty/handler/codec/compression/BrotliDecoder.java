@@ -0,0 +1,605 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.util.Signal;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static io.netty.handler.codec.compression.BrotliConstants.*;
+
+/**
+ * Uncompresses a {@link ByteBuf} encoded with the Brotli format as described in
+ * <a href="https://tools.ietf.org/html/rfc7932">RFC 7932</a>.
+ * <p>
+ * The stream is decoded as far as the received input allows, so the decompressed data is emitted as soon as
+ * possible and not only when a meta-block is complete. The sliding window is allocated as the stream grows, up to
+ * twice the window size the stream declares in its header. Any data which follows the end of the stream is
+ * discarded.
+ */
+public class BrotliDecoder extends ByteToMessageDecoder {
+    private static final int LITERAL = 0;
+    private static final int COMMAND = 1;
+    private static final int DISTANCE = 2;
+
+    private static final int INITIAL_WINDOW_CAPACITY = 64 * 1024;
+
+    /**
+     * Maximum number of bytes which are copied to the window at once.
+     */
+    private static final int MAX_CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * Current state of stream.
+     */
+    private enum State {
+        INIT_STREAM,
+        INIT_META_BLOCK,
+        COPY_UNCOMPRESSED,
+        SKIP_METADATA,
+        READ_COMPRESSED_HEADER,
+        READ_COMMAND,
+        INSERT_LITERALS,
+        READ_DISTANCE,
+        COPY_MATCH,
+        FINISHED,
+        CORRUPTED
+    }
+
+    private State currentState = State.INIT_STREAM;
+
+    private final BrotliBitReader reader = new BrotliBitReader();
+
+    private int windowSize;
+    private byte[] window;
+    private int position;
+    private int emitted;
+    private long totalSize;
+
+    private boolean lastMetaBlock;
+    private int metaBlockRemaining;
+
+    /**
+     * Step of the compressed meta-block header which is read next.
+     */
+    private int headerStep;
+
+    private final int[] numBlockTypes = new int[3];
+    private final int[][] blockTypeTrees = new int[3][];
+    private final int[][] blockLengthTrees = new int[3][];
+    private final int[] blockTypes = new int[3];
+    private final int[] previousBlockTypes = new int[3];
+    private final int[] blockLengths = new int[3];
+
+    private int postfixBits;
+    private int numDirectDistanceCodes;
+    private byte[] contextModes;
+    private byte[] literalContextMap;
+    private byte[] distanceContextMap;
+    private int[][] literalTrees;
+    private int[][] commandTrees;
+    private int[][] distanceTrees;
+
+    private final int[] distances = new int[4];
+
+    // The command which is currently executed.
+    private int insertLength;
+    private int copyLength;
+    private int distanceCode;
+    private int distance;
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        if (currentState == State.FINISHED || currentState == State.CORRUPTED) {
+            in.skipBytes(in.readableBytes());
+            return;
+        }
+        BrotliBitReader reader = this.reader;
+        reader.begin(in);
+        try {
+            while (currentState != State.FINISHED) {
+                switch (currentState) {
+                case INIT_STREAM:
+                    readStreamHeader();
+                    break;
+                case INIT_META_BLOCK:
+                    readMetaBlockHeader();
+                    break;
+                case COPY_UNCOMPRESSED:
+                    copyUncompressed(ctx, out);
+                    break;
+                case SKIP_METADATA:
+                    skipMetadata();
+                    break;
+                case READ_COMPRESSED_HEADER:
+                    readCompressedHeader();
+                    break;
+                case READ_COMMAND:
+                    readCommand();
+                    break;
+                case INSERT_LITERALS:
+                    insertLiterals(ctx, out);
+                    break;
+                case READ_DISTANCE:
+                    readDistance();
+                    break;
+                case COPY_MATCH:
+                    copyMatch(ctx, out);
+                    break;
+                default:
+                    throw new IllegalStateException();
+                }
+                reader.mark();
+            }
+            reader.skipBytes(Integer.MAX_VALUE);
+            reader.mark();
+        } catch (Signal signal) {
+            signal.expect(BrotliBitReader.NEED_MORE_INPUT);
+            reader.reset();
+        } catch (Exception e) {
+            currentState = State.CORRUPTED;
+            throw e;
+        }
+        reader.end();
+        emit(ctx, out);
+    }
+
+    private void readStreamHeader() {
+        BrotliBitReader reader = this.reader;
+        int windowBits;
+        if (!reader.readBit()) {
+            windowBits = 16;
+        } else {
+            int n = reader.readBits(3);
+            if (n != 0) {
+                windowBits = 17 + n;
+            } else {
+                n = reader.readBits(3);
+                if (n == 1) {
+                    throw new DecompressionException("large window streams are not supported");
+                }
+                windowBits = n == 0 ? 17 : 8 + n;
+            }
+        }
+        windowSize = 1 << windowBits;
+        window = new byte[Math.min(INITIAL_WINDOW_CAPACITY, windowSize * 2)];
+        System.arraycopy(INITIAL_DISTANCES, 0, distances, 0, 4);
+        currentState = State.INIT_META_BLOCK;
+    }
+
+    private void readMetaBlockHeader() {
+        BrotliBitReader reader = this.reader;
+        boolean last = reader.readBit();
+        if (last && reader.readBit()) {
+            reader.alignToByte();
+            currentState = State.FINISHED;
+            return;
+        }
+        int sizeNibbles = reader.readBits(2);
+        if (sizeNibbles == 3) {
+            if (last) {
+                throw new DecompressionException("last meta-block holds metadata");
+            }
+            if (reader.readBit()) {
+                throw new DecompressionException("reserved bit of the meta-block header is set");
+            }
+            int sizeBytes = reader.readBits(2);
+            int length = 0;
+            for (int i = 0; i < sizeBytes; i++) {
+                int b = reader.readBits(8);
+                if (i + 1 == sizeBytes && sizeBytes > 1 && b == 0) {
+                    throw new DecompressionException("exuberant metadata length byte");
+                }
+                length |= b << (i * 8);
+            }
+            if (sizeBytes > 0) {
+                length++;
+            }
+            reader.alignToByte();
+            lastMetaBlock = false;
+            metaBlockRemaining = length;
+            currentState = State.SKIP_METADATA;
+            return;
+        }
+
+        sizeNibbles += 4;
+        int length = 0;
+        for (int i = 0; i < sizeNibbles; i++) {
+            int nibble = reader.readBits(4);
+            if (i + 1 == sizeNibbles && sizeNibbles > 4 && nibble == 0) {
+                throw new DecompressionException("exuberant meta-block length nibble");
+            }
+            length |= nibble << (i * 4);
+        }
+        length++;
+        if (!last && reader.readBit()) {
+            reader.alignToByte();
+            currentState = State.COPY_UNCOMPRESSED;
+        } else {
+            headerStep = 0;
+            currentState = State.READ_COMPRESSED_HEADER;
+        }
+        lastMetaBlock = last;
+        metaBlockRemaining = length;
+    }
+
+    private void finishMetaBlock() {
+        if (lastMetaBlock) {
+            reader.alignToByte();
+            currentState = State.FINISHED;
+        } else {
+            currentState = State.INIT_META_BLOCK;
+        }
+    }
+
+    private void copyUncompressed(ChannelHandlerContext ctx, List<Object> out) {
+        BrotliBitReader reader = this.reader;
+        while (metaBlockRemaining > 0) {
+            int length = Math.min(metaBlockRemaining, MAX_CHUNK_SIZE);
+            ensureRoom(ctx, out, length);
+            int n = reader.readBytes(window, position, length);
+            position += n;
+            totalSize += n;
+            metaBlockRemaining -= n;
+            reader.mark();
+            if (n < length) {
+                throw BrotliBitReader.NEED_MORE_INPUT;
+            }
+        }
+        finishMetaBlock();
+    }
+
+    private void skipMetadata() {
+        BrotliBitReader reader = this.reader;
+        metaBlockRemaining -= reader.skipBytes(metaBlockRemaining);
+        reader.mark();
+        if (metaBlockRemaining > 0) {
+            throw BrotliBitReader.NEED_MORE_INPUT;
+        }
+        finishMetaBlock();
+    }
+
+    /**
+     * Reads the header of a compressed meta-block, in steps which are marked on their own.
+     */
+    private void readCompressedHeader() {
+        BrotliBitReader reader = this.reader;
+        for (;;) {
+            int step = headerStep;
+            if (step <= DISTANCE) {
+                readBlockTypes(step);
+            } else if (step == 3) {
+                int postfixBits = reader.readBits(2);
+                int numDirectDistanceCodes = reader.readBits(4) << postfixBits;
+                byte[] contextModes = new byte[numBlockTypes[LITERAL]];
+                for (int i = 0; i < contextModes.length; i++) {
+                    contextModes[i] = (byte) reader.readBits(2);
+                }
+                this.postfixBits = postfixBits;
+                this.numDirectDistanceCodes = numDirectDistanceCodes;
+                this.contextModes = contextModes;
+            } else if (step == 4) {
+                int numTrees = readVarLenUint8() + 1;
+                literalContextMap = readContextMap(numTrees, numBlockTypes[LITERAL] * NUM_LITERAL_CONTEXTS);
+                literalTrees = new int[numTrees][];
+            } else if (step == 5) {
+                int numTrees = readVarLenUint8() + 1;
+                distanceContextMap = readContextMap(numTrees, numBlockTypes[DISTANCE] * NUM_DISTANCE_CONTEXTS);
+                distanceTrees = new int[numTrees][];
+                commandTrees = new int[numBlockTypes[COMMAND]][];
+            } else {
+                int tree = step - 6;
+                if (tree < literalTrees.length) {
+                    literalTrees[tree] = BrotliHuffmanTable.read(reader, NUM_LITERAL_SYMBOLS);
+                } else if ((tree -= literalTrees.length) < commandTrees.length) {
+                    commandTrees[tree] = BrotliHuffmanTable.read(reader, NUM_COMMAND_SYMBOLS);
+                } else if ((tree -= commandTrees.length) < distanceTrees.length) {
+                    int alphabetSize = NUM_DISTANCE_SHORT_CODES + numDirectDistanceCodes +
+                            (NUM_DISTANCE_LONG_CODES << postfixBits);
+                    distanceTrees[tree] = BrotliHuffmanTable.read(reader, alphabetSize);
+                } else {
+                    currentState = State.READ_COMMAND;
+                    return;
+                }
+            }
+            headerStep++;
+            reader.mark();
+        }
+    }
+
+    private void readBlockTypes(int category) {
+        BrotliBitReader reader = this.reader;
+        int numTypes = readVarLenUint8() + 1;
+        int[] typeTree = null;
+        int[] lengthTree = null;
+        // A single block type covers the whole meta-block.
+        int length = MAX_META_BLOCK_LENGTH;
+        if (numTypes > 1) {
+            typeTree = BrotliHuffmanTable.read(reader, numTypes + 2);
+            lengthTree = BrotliHuffmanTable.read(reader, NUM_BLOCK_LENGTH_SYMBOLS);
+            length = readBlockLength(lengthTree);
+        }
+        numBlockTypes[category] = numTypes;
+        blockTypeTrees[category] = typeTree;
+        blockLengthTrees[category] = lengthTree;
+        blockTypes[category] = 0;
+        previousBlockTypes[category] = 1;
+        blockLengths[category] = length;
+    }
+
+    private int readVarLenUint8() {
+        BrotliBitReader reader = this.reader;
+        if (!reader.readBit()) {
+            return 0;
+        }
+        int n = reader.readBits(3);
+        return n == 0 ? 1 : (1 << n) + reader.readBits(n);
+    }
+
+    private int readBlockLength(int[] tree) {
+        int code = reader.readSymbol(tree);
+        return BLOCK_LENGTH_BASE[code] + reader.readBits(BLOCK_LENGTH_EXTRA_BITS[code]);
+    }
+
+    private byte[] readContextMap(int numTrees, int size) {
+        byte[] contextMap = new byte[size];
+        if (numTrees == 1) {
+            return contextMap;
+        }
+        BrotliBitReader reader = this.reader;
+        int maxRunLengthPrefix = reader.readBit() ? reader.readBits(4) + 1 : 0;
+        int[] tree = BrotliHuffmanTable.read(reader, numTrees + maxRunLengthPrefix);
+        for (int i = 0; i < size;) {
+            int code = reader.readSymbol(tree);
+            if (code == 0) {
+                i++;
+            } else if (code <= maxRunLengthPrefix) {
+                // A run of zeros.
+                i += (1 << code) + reader.readBits(code);
+                if (i > size) {
+                    throw new DecompressionException("context map run exceeds the context map");
+                }
+            } else {
+                contextMap[i++] = (byte) (code - maxRunLengthPrefix);
+            }
+        }
+        if (reader.readBit()) {
+            inverseMoveToFront(contextMap);
+        }
+        return contextMap;
+    }
+
+    private static void inverseMoveToFront(byte[] values) {
+        byte[] mtf = new byte[256];
+        for (int i = 0; i < mtf.length; i++) {
+            mtf[i] = (byte) i;
+        }
+        for (int i = 0; i < values.length; i++) {
+            int index = values[i] & 0xFF;
+            byte value = mtf[index];
+            values[i] = value;
+            System.arraycopy(mtf, 0, mtf, 1, index);
+            mtf[0] = value;
+        }
+    }
+
+    /**
+     * Reads a block switch command of the given category.
+     */
+    private void switchBlockType(int category) {
+        BrotliBitReader reader = this.reader;
+        int code = reader.readSymbol(blockTypeTrees[category]);
+        int length = readBlockLength(blockLengthTrees[category]);
+        int type = code == 0 ? previousBlockTypes[category] : code == 1 ? blockTypes[category] + 1 : code - 2;
+        if (type >= numBlockTypes[category]) {
+            type -= numBlockTypes[category];
+        }
+        previousBlockTypes[category] = blockTypes[category];
+        blockTypes[category] = type;
+        blockLengths[category] = length;
+        reader.mark();
+    }
+
+    private void readCommand() {
+        if (blockLengths[COMMAND] == 0) {
+            switchBlockType(COMMAND);
+        }
+        BrotliBitReader reader = this.reader;
+        int command = reader.readSymbol(commandTrees[blockTypes[COMMAND]]);
+        int range = command >>> 6;
+        if (range >= 2) {
+            range -= 2;
+        }
+        int insertCode = COMMAND_INSERT_CODE_BASE[range] + ((command >>> 3) & 7);
+        int copyCode = COMMAND_COPY_CODE_BASE[range] + (command & 7);
+        int insertLength = INSERT_LENGTH_BASE[insertCode] + reader.readBits(INSERT_LENGTH_EXTRA_BITS[insertCode]);
+        int copyLength = COPY_LENGTH_BASE[copyCode] + reader.readBits(COPY_LENGTH_EXTRA_BITS[copyCode]);
+        if (insertLength > metaBlockRemaining) {
+            throw new DecompressionException("insert length exceeds the meta-block");
+        }
+        blockLengths[COMMAND]--;
+        this.insertLength = insertLength;
+        this.copyLength = copyLength;
+        // The commands below 128 use the last distance, the same as distance code 0.
+        distanceCode = command < 128 ? 0 : -1;
+        currentState = State.INSERT_LITERALS;
+    }
+
+    private void insertLiterals(ChannelHandlerContext ctx, List<Object> out) {
+        BrotliBitReader reader = this.reader;
+        int[] blockLengths = this.blockLengths;
+        while (insertLength > 0) {
+            if (blockLengths[LITERAL] == 0) {
+                switchBlockType(LITERAL);
+            }
+            ensureRoom(ctx, out, 1);
+            byte[] window = this.window;
+            int position = this.position;
+            int type = blockTypes[LITERAL];
+            int p1 = position > 0 ? window[position - 1] & 0xFF : 0;
+            int p2 = position > 1 ? window[position - 2] & 0xFF : 0;
+            int lookup = contextModes[type] * 512;
+            int context = CONTEXT_LOOKUP[lookup + p1] | CONTEXT_LOOKUP[lookup + 256 + p2];
+            int tree = literalContextMap[type * NUM_LITERAL_CONTEXTS + context] & 0xFF;
+            window[position] = (byte) reader.readSymbol(literalTrees[tree]);
+            this.position = position + 1;
+            totalSize++;
+            metaBlockRemaining--;
+            blockLengths[LITERAL]--;
+            insertLength--;
+            reader.mark();
+        }
+        if (metaBlockRemaining == 0) {
+            // The copy length of the last command of a meta-block is ignored.
+            finishMetaBlock();
+        } else if (distanceCode == 0) {
+            distance = distances[0];
+            currentState = State.COPY_MATCH;
+        } else {
+            currentState = State.READ_DISTANCE;
+        }
+    }
+
+    private void readDistance() {
+        if (blockLengths[DISTANCE] == 0) {
+            switchBlockType(DISTANCE);
+        }
+        BrotliBitReader reader = this.reader;
+        int context = copyLength > 4 ? 3 : copyLength - 2;
+        int tree = distanceContextMap[blockTypes[DISTANCE] * NUM_DISTANCE_CONTEXTS + context] & 0xFF;
+        int code = reader.readSymbol(distanceTrees[tree]);
+        int distance;
+        if (code < NUM_DISTANCE_SHORT_CODES) {
+            distance = distances[DISTANCE_SHORT_CODE_INDEX[code]] + DISTANCE_SHORT_CODE_OFFSET[code];
+            if (distance <= 0) {
+                throw new DecompressionException("invalid distance: " + distance);
+            }
+        } else if (code < NUM_DISTANCE_SHORT_CODES + numDirectDistanceCodes) {
+            distance = code - NUM_DISTANCE_SHORT_CODES + 1;
+        } else {
+            int postfixBits = this.postfixBits;
+            int longCode = code - NUM_DISTANCE_SHORT_CODES - numDirectDistanceCodes;
+            int numExtraBits = 1 + (longCode >>> (postfixBits + 1));
+            int offset = ((2 + ((longCode >>> postfixBits) & 1)) << numExtraBits) - 4;
+            distance = ((offset + reader.readBits(numExtraBits)) << postfixBits) +
+                    (longCode & ((1 << postfixBits) - 1)) + numDirectDistanceCodes + 1;
+        }
+        blockLengths[DISTANCE]--;
+        distanceCode = code;
+        this.distance = distance;
+        currentState = State.COPY_MATCH;
+    }
+
+    private void copyMatch(ChannelHandlerContext ctx, List<Object> out) {
+        int distance = this.distance;
+        int maxDistance = (int) Math.min(windowSize - WINDOW_GAP, totalSize);
+        if (distance > maxDistance) {
+            copyDictionaryWord(ctx, out, distance - maxDistance - 1);
+        } else {
+            if (distanceCode != 0) {
+                int[] distances = this.distances;
+                distances[3] = distances[2];
+                distances[2] = distances[1];
+                distances[1] = distances[0];
+                distances[0] = distance;
+            }
+            int remaining = copyLength;
+            if (remaining > metaBlockRemaining) {
+                throw new DecompressionException("copy length exceeds the meta-block");
+            }
+            metaBlockRemaining -= remaining;
+            totalSize += remaining;
+            while (remaining > 0) {
+                int n = Math.min(remaining, MAX_CHUNK_SIZE);
+                ensureRoom(ctx, out, n);
+                byte[] window = this.window;
+                int position = this.position;
+                if (distance >= n) {
+                    System.arraycopy(window, position - distance, window, position, n);
+                } else {
+                    for (int i = position, end = position + n; i < end; i++) {
+                        window[i] = window[i - distance];
+                    }
+                }
+                this.position = position + n;
+                remaining -= n;
+            }
+        }
+        if (metaBlockRemaining == 0) {
+            finishMetaBlock();
+        } else {
+            currentState = State.READ_COMMAND;
+        }
+    }
+
+    private void copyDictionaryWord(ChannelHandlerContext ctx, List<Object> out, int wordId) {
+        int length = copyLength;
+        if (length < BrotliDictionary.MIN_WORD_LENGTH || length > BrotliDictionary.MAX_WORD_LENGTH) {
+            throw new DecompressionException("invalid dictionary word length: " + length);
+        }
+        int sizeBits = BrotliDictionary.sizeBits(length);
+        int transform = wordId >>> sizeBits;
+        if (transform >= BrotliDictionary.NUM_TRANSFORMS) {
+            throw new DecompressionException("invalid dictionary transform: " + transform);
+        }
+        ensureRoom(ctx, out, BrotliDictionary.MAX_TRANSFORMED_WORD_LENGTH);
+        int n = BrotliDictionary.transformWord(window, position, length, wordId & ((1 << sizeBits) - 1), transform);
+        if (n > metaBlockRemaining) {
+            throw new DecompressionException("dictionary word exceeds the meta-block");
+        }
+        position += n;
+        totalSize += n;
+        metaBlockRemaining -= n;
+    }
+
+    /**
+     * Makes room for {@code length} more bytes in the window. Once the window reached its maximum capacity, the
+     * output is emitted and the history is moved to the start of the window.
+     */
+    private void ensureRoom(ChannelHandlerContext ctx, List<Object> out, int length) {
+        byte[] window = this.window;
+        int position = this.position;
+        if (position + length <= window.length) {
+            return;
+        }
+        int windowSize = this.windowSize;
+        int maxCapacity = windowSize + Math.max(windowSize, MAX_CHUNK_SIZE);
+        if (window.length < maxCapacity) {
+            int capacity = Math.min(maxCapacity, Math.max(window.length << 1, position + length));
+            this.window = window = Arrays.copyOf(window, capacity);
+            if (position + length <= capacity) {
+                return;
+            }
+        }
+        emit(ctx, out);
+        int shift = position - windowSize;
+        System.arraycopy(window, shift, window, 0, windowSize);
+        this.position = windowSize;
+        emitted = windowSize;
+    }
+
+    private void emit(ChannelHandlerContext ctx, List<Object> out) {
+        int length = position - emitted;
+        if (length > 0) {
+            out.add(ctx.alloc().heapBuffer(length, length).writeBytes(window, emitted, length));
+            emitted = position;
+        }
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.util.CharsetUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The static dictionary of the Brotli format and the transformations which are applied to its words, as defined
+ * in section 8 and the appendices A and B of <a href="https://tools.ietf.org/html/rfc7932">RFC 7932</a>.
+ * <p>
+ * The dictionary is loaded from the class path when a stream refers to it for the first time, and shared by all
+ * decoders.
+ */
+final class BrotliDictionary {
+    static final int MIN_WORD_LENGTH = 4;
+    static final int MAX_WORD_LENGTH = 24;
+    static final int NUM_TRANSFORMS = 121;
+
+    /**
+     * Maximum number of bytes a transformed word can take.
+     */
+    static final int MAX_TRANSFORMED_WORD_LENGTH = 5 + MAX_WORD_LENGTH + 8;
+
+    private static final int DATA_SIZE = 122784;
+
+    /**
+     * Base two logarithm of the number of words of each length.
+     */
+    private static final int[] SIZE_BITS_BY_LENGTH = {
+            0, 0, 0, 0, 10, 10, 11, 11, 10, 10, 10, 10, 10, 9, 9, 8, 7, 7, 8, 7, 7, 6, 6, 5, 5 };
+    private static final int[] OFFSETS_BY_LENGTH = new int[MAX_WORD_LENGTH + 1];
+
+    private static final int IDENTITY = 0;
+    private static final int OMIT_LAST_1 = 1;
+    private static final int OMIT_LAST_9 = 9;
+    private static final int UPPERCASE_FIRST = 10;
+    private static final int UPPERCASE_ALL = 11;
+    private static final int OMIT_FIRST_1 = 12;
+    private static final int OMIT_FIRST_9 = 20;
+
+    private static final byte[][] PREFIXES = new byte[NUM_TRANSFORMS][];
+    private static final int[] TYPES = new int[NUM_TRANSFORMS];
+    private static final byte[][] SUFFIXES = new byte[NUM_TRANSFORMS][];
+    private static int numTransforms;
+
+    private static final byte[] DATA;
+
+    static {
+        for (int length = MIN_WORD_LENGTH; length < MAX_WORD_LENGTH; length++) {
+            OFFSETS_BY_LENGTH[length + 1] = OFFSETS_BY_LENGTH[length] + (length << SIZE_BITS_BY_LENGTH[length]);
+        }
+
+        // Non-ASCII characters stand for the byte of the same value.
+        transform("", IDENTITY, "");
+        transform("", IDENTITY, " ");
+        transform(" ", IDENTITY, " ");
+        transform("", OMIT_FIRST_1, "");
+        transform("", UPPERCASE_FIRST, " ");
+        transform("", IDENTITY, " the ");
+        transform(" ", IDENTITY, "");
+        transform("s ", IDENTITY, " ");
+        transform("", IDENTITY, " of ");
+        transform("", UPPERCASE_FIRST, "");
+        transform("", IDENTITY, " and ");
+        transform("", OMIT_FIRST_1 + 1, "");
+        transform("", OMIT_LAST_1, "");
+        transform(", ", IDENTITY, " ");
+        transform("", IDENTITY, ", ");
+        transform(" ", UPPERCASE_FIRST, " ");
+        transform("", IDENTITY, " in ");
+        transform("", IDENTITY, " to ");
+        transform("e ", IDENTITY, " ");
+        transform("", IDENTITY, "\"");
+        transform("", IDENTITY, ".");
+        transform("", IDENTITY, "\">");
+        transform("", IDENTITY, "\n");
+        transform("", OMIT_LAST_1 + 2, "");
+        transform("", IDENTITY, "]");
+        transform("", IDENTITY, " for ");
+        transform("", OMIT_FIRST_1 + 2, "");
+        transform("", OMIT_LAST_1 + 1, "");
+        transform("", IDENTITY, " a ");
+        transform("", IDENTITY, " that ");
+        transform(" ", UPPERCASE_FIRST, "");
+        transform("", IDENTITY, ". ");
+        transform(".", IDENTITY, "");
+        transform(" ", IDENTITY, ", ");
+        transform("", OMIT_FIRST_1 + 3, "");
+        transform("", IDENTITY, " with ");
+        transform("", IDENTITY, "'");
+        transform("", IDENTITY, " from ");
+        transform("", IDENTITY, " by ");
+        transform("", OMIT_FIRST_1 + 4, "");
+        transform("", OMIT_FIRST_1 + 5, "");
+        transform(" the ", IDENTITY, "");
+        transform("", OMIT_LAST_1 + 3, "");
+        transform("", IDENTITY, ". The ");
+        transform("", UPPERCASE_ALL, "");
+        transform("", IDENTITY, " on ");
+        transform("", IDENTITY, " as ");
+        transform("", IDENTITY, " is ");
+        transform("", OMIT_LAST_1 + 6, "");
+        transform("", OMIT_LAST_1, "ing ");
+        transform("", IDENTITY, "\n\t");
+        transform("", IDENTITY, ":");
+        transform(" ", IDENTITY, ". ");
+        transform("", IDENTITY, "ed ");
+        transform("", OMIT_FIRST_1 + 8, "");
+        transform("", OMIT_FIRST_1 + 6, "");
+        transform("", OMIT_LAST_1 + 5, "");
+        transform("", IDENTITY, "(");
+        transform("", UPPERCASE_FIRST, ", ");
+        transform("", OMIT_LAST_1 + 7, "");
+        transform("", IDENTITY, " at ");
+        transform("", IDENTITY, "ly ");
+        transform(" the ", IDENTITY, " of ");
+        transform("", OMIT_LAST_1 + 4, "");
+        transform("", OMIT_LAST_1 + 8, "");
+        transform(" ", UPPERCASE_FIRST, ", ");
+        transform("", UPPERCASE_FIRST, "\"");
+        transform(".", IDENTITY, "(");
+        transform("", UPPERCASE_ALL, " ");
+        transform("", UPPERCASE_FIRST, "\">");
+        transform("", IDENTITY, "=\"");
+        transform(" ", IDENTITY, ".");
+        transform(".com/", IDENTITY, "");
+        transform(" the ", IDENTITY, " of the ");
+        transform("", UPPERCASE_FIRST, "'");
+        transform("", IDENTITY, ". This ");
+        transform("", IDENTITY, ",");
+        transform(".", IDENTITY, " ");
+        transform("", UPPERCASE_FIRST, "(");
+        transform("", UPPERCASE_FIRST, ".");
+        transform("", IDENTITY, " not ");
+        transform(" ", IDENTITY, "=\"");
+        transform("", IDENTITY, "er ");
+        transform(" ", UPPERCASE_ALL, " ");
+        transform("", IDENTITY, "al ");
+        transform(" ", UPPERCASE_ALL, "");
+        transform("", IDENTITY, "='");
+        transform("", UPPERCASE_ALL, "\"");
+        transform("", UPPERCASE_FIRST, ". ");
+        transform(" ", IDENTITY, "(");
+        transform("", IDENTITY, "ful ");
+        transform(" ", UPPERCASE_FIRST, ". ");
+        transform("", IDENTITY, "ive ");
+        transform("", IDENTITY, "less ");
+        transform("", UPPERCASE_ALL, "'");
+        transform("", IDENTITY, "est ");
+        transform(" ", UPPERCASE_FIRST, ".");
+        transform("", UPPERCASE_ALL, "\">");
+        transform(" ", IDENTITY, "='");
+        transform("", UPPERCASE_FIRST, ",");
+        transform("", IDENTITY, "ize ");
+        transform("", UPPERCASE_ALL, ".");
+        transform("\u00c2\u00a0", IDENTITY, "");
+        transform(" ", IDENTITY, ",");
+        transform("", UPPERCASE_FIRST, "=\"");
+        transform("", UPPERCASE_ALL, "=\"");
+        transform("", IDENTITY, "ous ");
+        transform("", UPPERCASE_ALL, ", ");
+        transform("", UPPERCASE_FIRST, "='");
+        transform(" ", UPPERCASE_FIRST, ",");
+        transform(" ", UPPERCASE_ALL, "=\"");
+        transform(" ", UPPERCASE_ALL, ", ");
+        transform("", UPPERCASE_ALL, ",");
+        transform("", UPPERCASE_ALL, "(");
+        transform("", UPPERCASE_ALL, ". ");
+        transform(" ", UPPERCASE_ALL, ".");
+        transform("", UPPERCASE_ALL, "='");
+        transform(" ", UPPERCASE_ALL, ". ");
+        transform(" ", UPPERCASE_FIRST, "=\"");
+        transform(" ", UPPERCASE_ALL, "='");
+        transform(" ", UPPERCASE_FIRST, "='");
+
+        DATA = load();
+    }
+
+    private static void transform(String prefix, int type, String suffix) {
+        PREFIXES[numTransforms] = prefix.getBytes(CharsetUtil.ISO_8859_1);
+        TYPES[numTransforms] = type;
+        SUFFIXES[numTransforms] = suffix.getBytes(CharsetUtil.ISO_8859_1);
+        numTransforms++;
+    }
+
+    private static byte[] load() {
+        InputStream in = BrotliDictionary.class.getResourceAsStream("brotli-dictionary.bin");
+        if (in == null) {
+            throw new IllegalStateException("brotli-dictionary.bin not found");
+        }
+        try {
+            byte[] data = new byte[DATA_SIZE];
+            int length = 0;
+            int n;
+            while (length < data.length && (n = in.read(data, length, data.length - length)) > 0) {
+                length += n;
+            }
+            if (length != DATA_SIZE || in.read() != -1) {
+                throw new IllegalStateException("brotli-dictionary.bin has an unexpected size");
+            }
+            return data;
+        } catch (IOException e) {
+            throw new IllegalStateException("failed to load brotli-dictionary.bin", e);
+        } finally {
+            try {
+                in.close();
+            } catch (IOException ignore) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * Returns the base two logarithm of the number of words with the given length, or {@code 0} if there are
+     * none.
+     */
+    static int sizeBits(int length) {
+        return length <= MAX_WORD_LENGTH ? SIZE_BITS_BY_LENGTH[length] : 0;
+    }
+
+    /**
+     * Writes the word of the given length and index to {@code dst}, transformed by the given transformation. The
+     * word may be written up to two bytes beyond the returned length. Returns the number of bytes written.
+     */
+    static int transformWord(byte[] dst, int offset, int length, int index, int transform) {
+        int position = offset;
+        byte[] prefix = PREFIXES[transform];
+        System.arraycopy(prefix, 0, dst, position, prefix.length);
+        position += prefix.length;
+
+        int type = TYPES[transform];
+        int start = OFFSETS_BY_LENGTH[length] + index * length;
+        if (type >= OMIT_LAST_1 && type <= OMIT_LAST_9) {
+            length -= type - OMIT_LAST_1 + 1;
+        } else if (type >= OMIT_FIRST_1 && type <= OMIT_FIRST_9) {
+            int skip = type - OMIT_FIRST_1 + 1;
+            start += skip;
+            length -= skip;
+        }
+        if (length > 0) {
+            System.arraycopy(DATA, start, dst, position, length);
+            if (type == UPPERCASE_FIRST) {
+                toUpperCase(dst, position);
+            } else if (type == UPPERCASE_ALL) {
+                for (int i = 0; i < length;) {
+                    i += toUpperCase(dst, position + i);
+                }
+            }
+            position += length;
+        }
+
+        byte[] suffix = SUFFIXES[transform];
+        System.arraycopy(suffix, 0, dst, position, suffix.length);
+        position += suffix.length;
+        return position - offset;
+    }
+
+    /**
+     * Turns the UTF-8 character at {@code offset} into upper case the simplified way the format defines, and
+     * returns its length.
+     */
+    private static int toUpperCase(byte[] dst, int offset) {
+        int c = dst[offset] & 0xFF;
+        if (c < 0xC0) {
+            if (c >= 'a' && c <= 'z') {
+                dst[offset] ^= 32;
+            }
+            return 1;
+        }
+        if (c < 0xE0) {
+            dst[offset + 1] ^= 32;
+            return 2;
+        }
+        dst[offset + 2] ^= 5;
+        return 3;
+    }
+
+    private BrotliDictionary() { }
+}
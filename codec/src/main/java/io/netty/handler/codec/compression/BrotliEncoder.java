@@ -0,0 +1,286 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.ChannelPromiseNotifier;
+import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.util.concurrent.EventExecutor;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.netty.handler.codec.compression.BrotliConstants.*;
+
+/**
+ * Compresses a {@link ByteBuf} using the Brotli format as described in
+ * <a href="https://tools.ietf.org/html/rfc7932">RFC 7932</a>.
+ * <p>
+ * All data written to a channel is compressed into a single stream, which is finished when the encoder is closed.
+ * The data is buffered until either a meta-block is full or the channel is flushed. Every flush ends the current
+ * meta-block and pads the stream to a byte boundary with an empty metadata meta-block, so the receiving
+ * {@link BrotliDecoder} can decompress everything which was flushed. The window and hash tables are allocated once
+ * per encoder and used for all meta-blocks of the stream.
+ * <p>
+ * The encoder neither splits meta-blocks into several block types nor uses context modeling or the static
+ * dictionary of the format, so it favors speed over the best compression ratio.
+ */
+public class BrotliEncoder extends MessageToByteEncoder<ByteBuf> {
+    /**
+     * The quality used by default, which is a good trade-off for compressing on the fly.
+     */
+    public static final int DEFAULT_QUALITY = 4;
+
+    /**
+     * The highest quality, which searches longest for matches.
+     */
+    public static final int MAX_QUALITY = 11;
+
+    /**
+     * The base two logarithm of the window size used by default.
+     */
+    public static final int DEFAULT_WINDOW_BITS = 22;
+
+    private static final int META_BLOCK_SIZE = 1 << 16;
+
+    private final int quality;
+    private final int windowBits;
+
+    /**
+     * Compresses the meta-blocks of the stream, created when the first data is written.
+     */
+    private BrotliBlockCompressor compressor;
+    private BrotliBitWriter writer;
+
+    /**
+     * Indicates if the compressed stream has been finished.
+     */
+    private volatile boolean finished;
+
+    /**
+     * Used to interact with its {@link io.netty.channel.ChannelPipeline} and {@link io.netty.channel.EventLoop}.
+     */
+    private volatile ChannelHandlerContext ctx;
+
+    /**
+     * Creates a new encoder with the {@link #DEFAULT_QUALITY} and {@link #DEFAULT_WINDOW_BITS}.
+     */
+    public BrotliEncoder() {
+        this(DEFAULT_QUALITY);
+    }
+
+    /**
+     * Creates a new encoder with the specified quality and the {@link #DEFAULT_WINDOW_BITS}.
+     *
+     * @param quality  {@code 0} yields the fastest compression and {@link #MAX_QUALITY} the best compression
+     */
+    public BrotliEncoder(int quality) {
+        this(quality, DEFAULT_WINDOW_BITS);
+    }
+
+    /**
+     * Creates a new encoder with the specified quality and window size.
+     *
+     * @param quality     {@code 0} yields the fastest compression and {@link #MAX_QUALITY} the best compression
+     * @param windowBits  the base two logarithm of the window size, so how far back matches can refer. Larger
+     *                    values result in better compression at the expense of memory usage, of both the encoder
+     *                    and the decoder. Must be in the range {@code 10} to {@code 24}.
+     */
+    public BrotliEncoder(int quality, int windowBits) {
+        checkParameters(quality, windowBits);
+        this.quality = quality;
+        this.windowBits = windowBits;
+    }
+
+    static void checkParameters(int quality, int windowBits) {
+        if (quality < 0 || quality > MAX_QUALITY) {
+            throw new IllegalArgumentException("quality: " + quality + " (expected: 0-" + MAX_QUALITY + ')');
+        }
+        if (windowBits < MIN_WINDOW_BITS || windowBits > MAX_WINDOW_BITS) {
+            throw new IllegalArgumentException(
+                    "windowBits: " + windowBits + " (expected: " + MIN_WINDOW_BITS + '-' + MAX_WINDOW_BITS + ')');
+        }
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, ByteBuf in, ByteBuf out) throws Exception {
+        if (finished) {
+            out.writeBytes(in);
+            return;
+        }
+        BrotliBlockCompressor compressor = compressor();
+        BrotliBitWriter writer = this.writer;
+        while (in.isReadable()) {
+            compressor.append(in, in.readableBytes());
+            if (compressor.isBlockFull()) {
+                compressor.compressBlock(writer);
+                writer.drainTo(out);
+            }
+        }
+    }
+
+    @Override
+    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, ByteBuf msg, boolean preferDirect) throws Exception {
+        // Meta-blocks are written once they are full, in the worst case without any compression.
+        int pending = compressor != null ? compressor.pending() : 0;
+        int size = (pending + msg.readableBytes()) / META_BLOCK_SIZE *
+                (META_BLOCK_SIZE + BrotliBlockCompressor.MAX_META_BLOCK_OVERHEAD) + 8;
+        return ctx.alloc().heapBuffer(size);
+    }
+
+    /**
+     * Returns the compressor, creating it and writing the stream header first if this is the first data.
+     */
+    private BrotliBlockCompressor compressor() {
+        BrotliBlockCompressor compressor = this.compressor;
+        if (compressor == null) {
+            writer = new BrotliBitWriter(META_BLOCK_SIZE + BrotliBlockCompressor.MAX_META_BLOCK_OVERHEAD);
+            writeStreamHeader(writer, windowBits);
+            compressor = new BrotliBlockCompressor(quality, windowBits, META_BLOCK_SIZE);
+            this.compressor = compressor;
+        }
+        return compressor;
+    }
+
+    private static void writeStreamHeader(BrotliBitWriter writer, int windowBits) {
+        if (windowBits == 16) {
+            writer.writeBits(0, 1);
+        } else if (windowBits == 17) {
+            writer.writeBits(1, 7);
+        } else if (windowBits > 17) {
+            writer.writeBits(1 | (windowBits - 17) << 1, 4);
+        } else {
+            writer.writeBits(1 | (windowBits - 8) << 4, 7);
+        }
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        BrotliBlockCompressor compressor = this.compressor;
+        BrotliBitWriter writer = this.writer;
+        if (!finished && compressor != null && (compressor.pending() > 0 || writer.bitLength() > 0)) {
+            compressor.compressBlock(writer);
+            // An empty metadata meta-block, followed by the padding to the next byte boundary.
+            writer.writeBits(6, 6);
+            writer.alignToByte();
+            ByteBuf out = ctx.alloc().heapBuffer(writer.pending());
+            writer.drainTo(out);
+            ctx.write(out);
+        }
+        ctx.flush();
+    }
+
+    private ChannelFuture finishEncode(final ChannelHandlerContext ctx, ChannelPromise promise) {
+        if (finished) {
+            promise.setSuccess();
+            return promise;
+        }
+        finished = true;
+
+        BrotliBitWriter writer = this.writer;
+        if (compressor != null) {
+            compressor.compressBlock(writer);
+        } else {
+            // Nothing was written, so there is no need to set up the compressor for an empty stream.
+            writer = new BrotliBitWriter(8);
+            writeStreamHeader(writer, windowBits);
+        }
+        // The last meta-block, which is empty.
+        writer.writeBits(3, 2);
+        writer.alignToByte();
+        final ByteBuf footer = ctx.alloc().heapBuffer(writer.pending());
+        writer.drainTo(footer);
+        compressor = null;
+        this.writer = null;
+
+        return ctx.writeAndFlush(footer, promise);
+    }
+
+    /**
+     * Returns {@code true} if and only if the compressed stream has been finished.
+     */
+    public boolean isClosed() {
+        return finished;
+    }
+
+    /**
+     * Close this {@link BrotliEncoder} and so finish the encoding.
+     *
+     * The returned {@link ChannelFuture} will be notified once the operation completes.
+     */
+    public ChannelFuture close() {
+        return close(ctx().newPromise());
+    }
+
+    /**
+     * Close this {@link BrotliEncoder} and so finish the encoding.
+     * The given {@link ChannelFuture} will be notified once the operation
+     * completes and will also be returned.
+     */
+    public ChannelFuture close(final ChannelPromise promise) {
+        ChannelHandlerContext ctx = ctx();
+        EventExecutor executor = ctx.executor();
+        if (executor.inEventLoop()) {
+            return finishEncode(ctx, promise);
+        } else {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    ChannelFuture f = finishEncode(ctx(), promise);
+                    f.addListener(new ChannelPromiseNotifier(promise));
+                }
+            });
+            return promise;
+        }
+    }
+
+    @Override
+    public void close(final ChannelHandlerContext ctx, final ChannelPromise promise) throws Exception {
+        ChannelFuture f = finishEncode(ctx, ctx.newPromise());
+        f.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture f) throws Exception {
+                ctx.close(promise);
+            }
+        });
+
+        if (!f.isDone()) {
+            // Ensure the channel is closed even if the write operation completes in time.
+            ctx.executor().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    ctx.close(promise);
+                }
+            }, 10, TimeUnit.SECONDS); // FIXME: Magic number
+        }
+    }
+
+    private ChannelHandlerContext ctx() {
+        ChannelHandlerContext ctx = this.ctx;
+        if (ctx == null) {
+            throw new IllegalStateException("not added to a pipeline");
+        }
+        return ctx;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.ctx = ctx;
+    }
+}
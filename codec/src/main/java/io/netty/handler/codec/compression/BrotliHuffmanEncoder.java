@@ -0,0 +1,299 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import java.util.Arrays;
+
+import static io.netty.handler.codec.compression.BrotliConstants.*;
+
+/**
+ * Builds a prefix code of the Brotli format for the symbol counts of a meta-block, writes its description and
+ * encodes the symbols. Codes of up to four symbols are described as simple prefix codes, all others by their code
+ * lengths, which are limited to {@link BrotliConstants#MAX_HUFFMAN_CODE_LENGTH} bits by the
+ * {@link Bzip2HuffmanAllocator}.
+ */
+final class BrotliHuffmanEncoder {
+    /**
+     * The fixed code of the code lengths of the code length alphabet, the same as {@link BrotliHuffmanTable} reads.
+     */
+    private static final int[] CODE_LENGTH_PREFIX_CODES = { 0, 7, 3, 2, 1, 15 };
+    private static final int[] CODE_LENGTH_PREFIX_LENGTHS = { 2, 4, 3, 2, 2, 4 };
+
+    private final int alphabetSize;
+    private final int[] codes;
+    private final int[] lengths;
+    private final int[] sorted;
+
+    /**
+     * The symbols of a simple prefix code, in the order they are written.
+     */
+    private final int[] simpleSymbols = new int[4];
+    private int numSimpleSymbols;
+    private boolean simpleTreeSelect;
+
+    // The code lengths as code length symbols and their extra bits.
+    private final int[] tokens;
+    private final int[] tokenExtraBits;
+    private final int[] codeLengthCounts = new int[NUM_CODE_LENGTH_CODES];
+    private final int[] codeLengthCodes = new int[NUM_CODE_LENGTH_CODES];
+    private final int[] codeLengthLengths = new int[NUM_CODE_LENGTH_CODES];
+
+    BrotliHuffmanEncoder(int alphabetSize) {
+        this.alphabetSize = alphabetSize;
+        codes = new int[alphabetSize];
+        lengths = new int[alphabetSize];
+        sorted = new int[alphabetSize];
+        tokens = new int[alphabetSize];
+        tokenExtraBits = new int[alphabetSize];
+    }
+
+    /**
+     * Builds the code for the given symbol counts. Returns the number of bits the symbols will take once encoded.
+     */
+    long build(int[] counts) {
+        int alphabetSize = this.alphabetSize;
+        int[] sorted = this.sorted;
+        int[] lengths = this.lengths;
+        int numSymbols = 0;
+        for (int s = 0; s < alphabetSize; s++) {
+            if (counts[s] != 0) {
+                sorted[numSymbols++] = counts[s] << 10 | s;
+            }
+        }
+        Arrays.sort(sorted, 0, numSymbols);
+        Arrays.fill(lengths, 0);
+
+        if (numSymbols <= 4) {
+            // The most frequent symbol is written first, so it gets the shortest code.
+            numSimpleSymbols = Math.max(1, numSymbols);
+            simpleSymbols[0] = 0;
+            for (int i = 0; i < numSymbols; i++) {
+                simpleSymbols[i] = sorted[numSymbols - 1 - i] & 0x3FF;
+            }
+            simpleTreeSelect = false;
+            switch (numSymbols) {
+                case 0:
+                case 1:
+                    break;
+                case 2:
+                    lengths[simpleSymbols[0]] = 1;
+                    lengths[simpleSymbols[1]] = 1;
+                    break;
+                case 3:
+                    lengths[simpleSymbols[0]] = 1;
+                    lengths[simpleSymbols[1]] = 2;
+                    lengths[simpleSymbols[2]] = 2;
+                    break;
+                default:
+                    long balanced = 2L * (counts[simpleSymbols[0]] + counts[simpleSymbols[1]] +
+                            counts[simpleSymbols[2]] + counts[simpleSymbols[3]]);
+                    long skewed = counts[simpleSymbols[0]] + 2L * counts[simpleSymbols[1]] +
+                            3L * (counts[simpleSymbols[2]] + counts[simpleSymbols[3]]);
+                    simpleTreeSelect = skewed < balanced;
+                    lengths[simpleSymbols[0]] = simpleTreeSelect ? 1 : 2;
+                    lengths[simpleSymbols[1]] = 2;
+                    lengths[simpleSymbols[2]] = simpleTreeSelect ? 3 : 2;
+                    lengths[simpleSymbols[3]] = simpleTreeSelect ? 3 : 2;
+                    break;
+            }
+        } else {
+            numSimpleSymbols = 0;
+            int[] frequencies = new int[numSymbols];
+            for (int i = 0; i < numSymbols; i++) {
+                frequencies[i] = sorted[i] >>> 10;
+            }
+            Bzip2HuffmanAllocator.allocateHuffmanCodeLengths(frequencies, MAX_HUFFMAN_CODE_LENGTH);
+            for (int i = 0; i < numSymbols; i++) {
+                lengths[sorted[i] & 0x3FF] = frequencies[i];
+            }
+        }
+        assignCodes(lengths, codes, alphabetSize);
+
+        long bits = 0;
+        for (int s = 0; s < alphabetSize; s++) {
+            bits += (long) counts[s] * lengths[s];
+        }
+        return bits;
+    }
+
+    /**
+     * Assigns the canonical codes for the given code lengths, reversed so they can be written least significant bit
+     * first.
+     */
+    private static void assignCodes(int[] lengths, int[] codes, int alphabetSize) {
+        int[] nextCodes = new int[MAX_HUFFMAN_CODE_LENGTH + 2];
+        for (int s = 0; s < alphabetSize; s++) {
+            nextCodes[lengths[s] + 1]++;
+        }
+        nextCodes[1] = 0;
+        for (int length = 1; length <= MAX_HUFFMAN_CODE_LENGTH; length++) {
+            nextCodes[length + 1] = (nextCodes[length] + nextCodes[length + 1]) << 1;
+        }
+        for (int s = 0; s < alphabetSize; s++) {
+            int length = lengths[s];
+            codes[s] = length == 0 ? 0 : Integer.reverse(nextCodes[length]++) >>> (32 - length);
+        }
+    }
+
+    /**
+     * Writes the description of the code built before.
+     */
+    void writeTable(BrotliBitWriter writer) {
+        if (numSimpleSymbols != 0) {
+            int alphabetBits = 32 - Integer.numberOfLeadingZeros(alphabetSize - 1);
+            writer.writeBits(1, 2);
+            writer.writeBits(numSimpleSymbols - 1, 2);
+            for (int i = 0; i < numSimpleSymbols; i++) {
+                writer.writeBits(simpleSymbols[i], alphabetBits);
+            }
+            if (numSimpleSymbols == 4) {
+                writer.writeBits(simpleTreeSelect ? 1 : 0, 1);
+            }
+            return;
+        }
+
+        int numTokens = tokenizeLengths();
+        int[] codeLengthCounts = this.codeLengthCounts;
+        Arrays.fill(codeLengthCounts, 0);
+        for (int i = 0; i < numTokens; i++) {
+            codeLengthCounts[tokens[i]]++;
+        }
+        int[] sorted = this.sorted;
+        int numCodes = 0;
+        for (int s = 0; s < NUM_CODE_LENGTH_CODES; s++) {
+            if (codeLengthCounts[s] != 0) {
+                sorted[numCodes++] = codeLengthCounts[s] << 5 | s;
+            }
+        }
+        Arrays.sort(sorted, 0, numCodes);
+        int[] frequencies = new int[numCodes];
+        for (int i = 0; i < numCodes; i++) {
+            frequencies[i] = sorted[i] >>> 5;
+        }
+        Bzip2HuffmanAllocator.allocateHuffmanCodeLengths(frequencies, MAX_CODE_LENGTH_CODE_LENGTH);
+        int[] codeLengthLengths = this.codeLengthLengths;
+        Arrays.fill(codeLengthLengths, 0);
+        for (int i = 0; i < numCodes; i++) {
+            codeLengthLengths[sorted[i] & 0x1F] = frequencies[i];
+        }
+        assignCodes(codeLengthLengths, codeLengthCodes, NUM_CODE_LENGTH_CODES);
+
+        // The code lengths of the code length alphabet which are zero at the start and the end are left out.
+        int numStored = NUM_CODE_LENGTH_CODES;
+        if (numCodes > 1) {
+            while (codeLengthLengths[CODE_LENGTH_CODE_ORDER[numStored - 1]] == 0) {
+                numStored--;
+            }
+        }
+        int skip = 0;
+        if (codeLengthLengths[CODE_LENGTH_CODE_ORDER[0]] == 0 && codeLengthLengths[CODE_LENGTH_CODE_ORDER[1]] == 0) {
+            skip = codeLengthLengths[CODE_LENGTH_CODE_ORDER[2]] == 0 ? 3 : 2;
+        }
+        writer.writeBits(skip, 2);
+        for (int i = skip; i < numStored; i++) {
+            int length = codeLengthLengths[CODE_LENGTH_CODE_ORDER[i]];
+            writer.writeBits(CODE_LENGTH_PREFIX_CODES[length], CODE_LENGTH_PREFIX_LENGTHS[length]);
+        }
+
+        // A single code length symbol takes no bits at all.
+        boolean singleCode = numCodes == 1;
+        for (int i = 0; i < numTokens; i++) {
+            int token = tokens[i];
+            if (!singleCode) {
+                writer.writeBits(codeLengthCodes[token], codeLengthLengths[token]);
+            }
+            if (token == REPEAT_PREVIOUS_CODE_LENGTH) {
+                writer.writeBits(tokenExtraBits[i], 2);
+            } else if (token == REPEAT_ZERO_CODE_LENGTH) {
+                writer.writeBits(tokenExtraBits[i], 3);
+            }
+        }
+    }
+
+    /**
+     * Turns the code lengths into code length symbols, using the repeat codes for runs. Returns the number of
+     * symbols.
+     */
+    private int tokenizeLengths() {
+        int[] lengths = this.lengths;
+        int end = alphabetSize;
+        while (end > 0 && lengths[end - 1] == 0) {
+            end--;
+        }
+        int numTokens = 0;
+        int previousLength = INITIAL_REPEATED_CODE_LENGTH;
+        for (int i = 0; i < end;) {
+            int length = lengths[i];
+            int repetitions = 1;
+            while (i + repetitions < end && lengths[i + repetitions] == length) {
+                repetitions++;
+            }
+            i += repetitions;
+            if (length == 0) {
+                numTokens = addRepetitions(numTokens, 0, repetitions, REPEAT_ZERO_CODE_LENGTH, 3);
+            } else {
+                if (length != previousLength) {
+                    tokens[numTokens] = length;
+                    tokenExtraBits[numTokens++] = 0;
+                    repetitions--;
+                    previousLength = length;
+                }
+                numTokens = addRepetitions(numTokens, length, repetitions, REPEAT_PREVIOUS_CODE_LENGTH, 2);
+            }
+        }
+        return numTokens;
+    }
+
+    private int addRepetitions(int numTokens, int length, int repetitions, int repeatCode, int extraBits) {
+        int[] tokens = this.tokens;
+        int[] tokenExtraBits = this.tokenExtraBits;
+        // A run which would need one more repeat code than a shorter run starts with a plain code length.
+        if (repetitions == (repeatCode == REPEAT_ZERO_CODE_LENGTH ? 11 : 7)) {
+            tokens[numTokens] = length;
+            tokenExtraBits[numTokens++] = 0;
+            repetitions--;
+        }
+        if (repetitions < 3) {
+            for (int i = 0; i < repetitions; i++) {
+                tokens[numTokens] = length;
+                tokenExtraBits[numTokens++] = 0;
+            }
+            return numTokens;
+        }
+        // Repeat codes which follow each other multiply their counts, the most significant part comes first.
+        repetitions -= 3;
+        int start = numTokens;
+        for (;;) {
+            tokens[numTokens] = repeatCode;
+            tokenExtraBits[numTokens++] = repetitions & ((1 << extraBits) - 1);
+            repetitions >>>= extraBits;
+            if (repetitions == 0) {
+                break;
+            }
+            repetitions--;
+        }
+        for (int i = start, j = numTokens - 1; i < j; i++, j--) {
+            int extra = tokenExtraBits[i];
+            tokenExtraBits[i] = tokenExtraBits[j];
+            tokenExtraBits[j] = extra;
+        }
+        return numTokens;
+    }
+
+    void writeSymbol(BrotliBitWriter writer, int symbol) {
+        writer.writeBits(codes[symbol], lengths[symbol]);
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import static io.netty.handler.codec.compression.BrotliConstants.*;
+
+/**
+ * Reads the prefix codes of a Brotli stream and builds the lookup tables which
+ * {@link BrotliBitReader#readSymbol(int[])} decodes their symbols with.
+ * <p>
+ * A table starts with {@code 1 << HUFFMAN_TABLE_BITS} root entries, indexed by the next bits of the input. Each
+ * entry holds the code length in its upper and the symbol in its lower 16 bits. The root entries of codes which are
+ * longer than {@link BrotliConstants#HUFFMAN_TABLE_BITS} hold the length of the longest of these codes and the
+ * offset of a sub-table instead, which is indexed by the bits after the root bits.
+ */
+final class BrotliHuffmanTable {
+    private static final int ROOT_SIZE = 1 << HUFFMAN_TABLE_BITS;
+
+    /**
+     * The fixed code of the code lengths of the code length alphabet, by the next four bits of the input.
+     */
+    private static final int[] CODE_LENGTH_PREFIX_LENGTHS = { 2, 2, 2, 3, 2, 2, 2, 4, 2, 2, 2, 3, 2, 2, 2, 4 };
+    private static final int[] CODE_LENGTH_PREFIX_VALUES = { 0, 4, 3, 2, 0, 4, 3, 1, 0, 4, 3, 2, 0, 4, 3, 5 };
+    private static final int[] CODE_LENGTH_PREFIX_TABLE = new int[ROOT_SIZE];
+
+    static {
+        for (int i = 0; i < ROOT_SIZE; i++) {
+            CODE_LENGTH_PREFIX_TABLE[i] = CODE_LENGTH_PREFIX_LENGTHS[i & 15] << 16 | CODE_LENGTH_PREFIX_VALUES[i & 15];
+        }
+    }
+
+    /**
+     * Reads the description of a prefix code with the given alphabet size and returns its lookup table.
+     */
+    static int[] read(BrotliBitReader reader, int alphabetSize) {
+        int skip = reader.readBits(2);
+        if (skip == 1) {
+            return readSimple(reader, alphabetSize);
+        }
+
+        int[] codeLengthCodeLengths = new int[NUM_CODE_LENGTH_CODES];
+        int space = 32;
+        int numCodes = 0;
+        int lastCode = 0;
+        for (int i = skip; i < NUM_CODE_LENGTH_CODES; i++) {
+            int code = CODE_LENGTH_CODE_ORDER[i];
+            int length = reader.readSymbol(CODE_LENGTH_PREFIX_TABLE);
+            codeLengthCodeLengths[code] = length;
+            if (length != 0) {
+                space -= 32 >>> length;
+                numCodes++;
+                lastCode = code;
+                if (space <= 0) {
+                    break;
+                }
+            }
+        }
+        if (numCodes != 1 && space != 0) {
+            throw new DecompressionException("invalid code lengths of the code length alphabet");
+        }
+        int[] codeLengthTable = numCodes == 1 ? singleSymbol(lastCode) :
+                build(codeLengthCodeLengths, NUM_CODE_LENGTH_CODES);
+
+        int[] lengths = new int[alphabetSize];
+        int symbol = 0;
+        int previousLength = INITIAL_REPEATED_CODE_LENGTH;
+        int repeat = 0;
+        int repeatedLength = 0;
+        space = 1 << MAX_HUFFMAN_CODE_LENGTH;
+        while (symbol < alphabetSize && space > 0) {
+            int code = reader.readSymbol(codeLengthTable);
+            if (code < REPEAT_PREVIOUS_CODE_LENGTH) {
+                repeat = 0;
+                lengths[symbol++] = code;
+                if (code != 0) {
+                    previousLength = code;
+                    space -= (1 << MAX_HUFFMAN_CODE_LENGTH) >>> code;
+                }
+                continue;
+            }
+            // Repeat codes which follow each other multiply their counts.
+            int extraBits = code == REPEAT_PREVIOUS_CODE_LENGTH ? 2 : 3;
+            int length = code == REPEAT_PREVIOUS_CODE_LENGTH ? previousLength : 0;
+            if (repeatedLength != length) {
+                repeat = 0;
+                repeatedLength = length;
+            }
+            int previousRepeat = repeat;
+            if (repeat > 0) {
+                repeat = (repeat - 2) << extraBits;
+            }
+            repeat += reader.readBits(extraBits) + 3;
+            int delta = repeat - previousRepeat;
+            if (symbol + delta > alphabetSize) {
+                throw new DecompressionException("too many code lengths");
+            }
+            for (int i = 0; i < delta; i++) {
+                lengths[symbol++] = length;
+            }
+            if (length != 0) {
+                space -= delta << (MAX_HUFFMAN_CODE_LENGTH - length);
+            }
+        }
+        if (space != 0) {
+            throw new DecompressionException("invalid prefix code");
+        }
+        return build(lengths, alphabetSize);
+    }
+
+    private static int[] readSimple(BrotliBitReader reader, int alphabetSize) {
+        int numSymbols = reader.readBits(2) + 1;
+        int alphabetBits = 32 - Integer.numberOfLeadingZeros(alphabetSize - 1);
+        int[] symbols = new int[numSymbols];
+        for (int i = 0; i < numSymbols; i++) {
+            int symbol = reader.readBits(alphabetBits);
+            if (symbol >= alphabetSize) {
+                throw new DecompressionException("invalid symbol of a simple prefix code: " + symbol);
+            }
+            for (int j = 0; j < i; j++) {
+                if (symbols[j] == symbol) {
+                    throw new DecompressionException("duplicate symbol of a simple prefix code: " + symbol);
+                }
+            }
+            symbols[i] = symbol;
+        }
+        if (numSymbols == 1) {
+            return singleSymbol(symbols[0]);
+        }
+
+        int[] lengths = new int[alphabetSize];
+        switch (numSymbols) {
+            case 2:
+                lengths[symbols[0]] = 1;
+                lengths[symbols[1]] = 1;
+                break;
+            case 3:
+                lengths[symbols[0]] = 1;
+                lengths[symbols[1]] = 2;
+                lengths[symbols[2]] = 2;
+                break;
+            default:
+                if (reader.readBit()) {
+                    lengths[symbols[0]] = 1;
+                    lengths[symbols[1]] = 2;
+                    lengths[symbols[2]] = 3;
+                    lengths[symbols[3]] = 3;
+                } else {
+                    for (int i = 0; i < 4; i++) {
+                        lengths[symbols[i]] = 2;
+                    }
+                }
+                break;
+        }
+        return build(lengths, alphabetSize);
+    }
+
+    /**
+     * Returns the table of a code with a single symbol, which takes no bits at all.
+     */
+    private static int[] singleSymbol(int symbol) {
+        int[] table = new int[ROOT_SIZE];
+        for (int i = 0; i < ROOT_SIZE; i++) {
+            table[i] = symbol;
+        }
+        return table;
+    }
+
+    /**
+     * Builds the table of the canonical prefix code with the given code lengths, which need to describe a complete
+     * code.
+     */
+    static int[] build(int[] lengths, int alphabetSize) {
+        int[] nextCodes = new int[MAX_HUFFMAN_CODE_LENGTH + 2];
+        for (int s = 0; s < alphabetSize; s++) {
+            nextCodes[lengths[s] + 1]++;
+        }
+        nextCodes[1] = 0;
+        for (int length = 1; length <= MAX_HUFFMAN_CODE_LENGTH; length++) {
+            nextCodes[length + 1] = (nextCodes[length] + nextCodes[length + 1]) << 1;
+        }
+
+        // The codes are read starting with their most significant bit, so they are reversed to index the table.
+        int[] codes = new int[alphabetSize];
+        int[] subtableLengths = new int[ROOT_SIZE];
+        for (int s = 0; s < alphabetSize; s++) {
+            int length = lengths[s];
+            if (length != 0) {
+                int code = Integer.reverse(nextCodes[length]++) >>> (32 - length);
+                codes[s] = code;
+                if (length > HUFFMAN_TABLE_BITS) {
+                    int root = code & (ROOT_SIZE - 1);
+                    subtableLengths[root] = Math.max(subtableLengths[root], length);
+                }
+            }
+        }
+
+        int size = ROOT_SIZE;
+        for (int root = 0; root < ROOT_SIZE; root++) {
+            if (subtableLengths[root] != 0) {
+                size += 1 << (subtableLengths[root] - HUFFMAN_TABLE_BITS);
+            }
+        }
+        int[] table = new int[size];
+        int offset = ROOT_SIZE;
+        for (int root = 0; root < ROOT_SIZE; root++) {
+            int length = subtableLengths[root];
+            if (length != 0) {
+                table[root] = length << 16 | offset;
+                subtableLengths[root] = offset;
+                offset += 1 << (length - HUFFMAN_TABLE_BITS);
+            }
+        }
+        for (int s = 0; s < alphabetSize; s++) {
+            int length = lengths[s];
+            if (length == 0) {
+                continue;
+            }
+            int code = codes[s];
+            int entry = length << 16 | s;
+            if (length <= HUFFMAN_TABLE_BITS) {
+                for (int i = code; i < ROOT_SIZE; i += 1 << length) {
+                    table[i] = entry;
+                }
+            } else {
+                int subtable = subtableLengths[code & (ROOT_SIZE - 1)];
+                int subtableSize = 1 << ((table[code & (ROOT_SIZE - 1)] >>> 16) - HUFFMAN_TABLE_BITS);
+                for (int i = code >>> HUFFMAN_TABLE_BITS; i < subtableSize; i += 1 << (length - HUFFMAN_TABLE_BITS)) {
+                    table[subtable + i] = entry;
+                }
+            }
+        }
+        return table;
+    }
+
+    private BrotliHuffmanTable() { }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+/**
+ * {@link CompressionOptions} for the Brotli format, see {@link BrotliEncoder} for the meaning of the parameters.
+ */
+public final class BrotliOptions implements CompressionOptions {
+    private final int quality;
+    private final int windowBits;
+
+    BrotliOptions(int quality, int windowBits) {
+        BrotliEncoder.checkParameters(quality, windowBits);
+        this.quality = quality;
+        this.windowBits = windowBits;
+    }
+
+    public int quality() {
+        return quality;
+    }
+
+    public int windowBits() {
+        return windowBits;
+    }
+
+    /**
+     * Creates a new {@link BrotliEncoder} which uses these options.
+     */
+    public BrotliEncoder newEncoder() {
+        return new BrotliEncoder(quality, windowBits);
+    }
+}
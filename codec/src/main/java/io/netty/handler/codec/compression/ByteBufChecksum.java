@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.zip.Checksum;
+
+/**
+ * A {@link Checksum} which can be updated with the content of a {@link ByteBuf} without copying it to a
+ * {@code byte[]} first.
+ */
+abstract class ByteBufChecksum implements Checksum {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(ByteBufChecksum.class);
+
+    /**
+     * The constructor of {@code java.util.zip.CRC32C}, which uses the CRC32 instructions of the CPU, or {@code null}
+     * if the JDK is older than 9.
+     */
+    private static final Constructor<?> JDK_CRC32C;
+    private static final Method JDK_CRC32C_UPDATE_BYTE_BUFFER;
+
+    static {
+        Constructor<?> constructor;
+        Method update;
+        try {
+            Class<?> crc32c = Class.forName("java.util.zip.CRC32C", false, ByteBufChecksum.class.getClassLoader());
+            constructor = crc32c.getConstructor();
+            update = crc32c.getMethod("update", ByteBuffer.class);
+            ((Checksum) constructor.newInstance()).update(new byte[1], 0, 1);
+        } catch (Throwable ignore) {
+            logger.debug("java.util.zip.CRC32C: unavailable");
+            constructor = null;
+            update = null;
+        }
+        JDK_CRC32C = constructor;
+        JDK_CRC32C_UPDATE_BYTE_BUFFER = update;
+    }
+
+    /**
+     * Returns a new CRC32-C {@link ByteBufChecksum}, which uses {@code java.util.zip.CRC32C} if the JDK provides it
+     * and {@link Crc32c} otherwise.
+     */
+    static ByteBufChecksum newCrc32c() {
+        if (JDK_CRC32C != null) {
+            try {
+                return new JdkCrc32c((Checksum) JDK_CRC32C.newInstance());
+            } catch (Exception e) {
+                // Checked when the class was initialized, so this should never happen.
+                logger.debug("Failed to create java.util.zip.CRC32C", e);
+            }
+        }
+        return new Crc32c();
+    }
+
+    /**
+     * Updates the checksum with the {@code len} bytes of {@code b} from the index {@code off}, without modifying the
+     * indexes of {@code b}.
+     */
+    public void update(ByteBuf b, int off, int len) {
+        if (b.hasArray()) {
+            update(b.array(), b.arrayOffset() + off, len);
+        } else {
+            for (int i = off; i < off + len; i++) {
+                update(b.getByte(i));
+            }
+        }
+    }
+
+    private static final class JdkCrc32c extends ByteBufChecksum {
+        private final Checksum checksum;
+
+        JdkCrc32c(Checksum checksum) {
+            this.checksum = checksum;
+        }
+
+        @Override
+        public void update(int b) {
+            checksum.update(b);
+        }
+
+        @Override
+        public void update(byte[] b, int off, int len) {
+            checksum.update(b, off, len);
+        }
+
+        @Override
+        public void update(ByteBuf b, int off, int len) {
+            if (b.hasArray()) {
+                update(b.array(), b.arrayOffset() + off, len);
+                return;
+            }
+            try {
+                if (b.nioBufferCount() == 1) {
+                    JDK_CRC32C_UPDATE_BYTE_BUFFER.invoke(checksum, b.nioBuffer(off, len));
+                } else {
+                    for (ByteBuffer buffer : b.nioBuffers(off, len)) {
+                        JDK_CRC32C_UPDATE_BYTE_BUFFER.invoke(checksum, buffer);
+                    }
+                }
+            } catch (Exception e) {
+                throw new Error(e);
+            }
+        }
+
+        @Override
+        public long getValue() {
+            return checksum.getValue();
+        }
+
+        @Override
+        public void reset() {
+            checksum.reset();
+        }
+    }
+}
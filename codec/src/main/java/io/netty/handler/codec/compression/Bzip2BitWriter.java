@@ -95,6 +95,30 @@ final class Bzip2BitWriter {
         writeBits(out, 32, value);
     }
 
+    /**
+     * Writes the first bits of the input {@link ByteBuf}, which were written by another {@link Bzip2BitWriter}.
+     * @param in The bits to write, which are read from the input
+     * @param count The number of bits to write
+     */
+    void writeBits(ByteBuf out, ByteBuf in, long count) {
+        for (; count >= 32; count -= 32) {
+            writeInt(out, in.readInt());
+        }
+        for (; count >= 8; count -= 8) {
+            writeBits(out, 8, in.readUnsignedByte());
+        }
+        if (count > 0) {
+            writeBits(out, (int) count, in.readUnsignedByte() >>> 8 - count);
+        }
+    }
+
+    /**
+     * Returns the number of bits which were written but are not yet in the output {@link ByteBuf}.
+     */
+    int pendingBits() {
+        return bitCount;
+    }
+
     /**
      * Writes any remaining bits to the output {@link ByteBuf},
      * zero padding to a whole byte as required.
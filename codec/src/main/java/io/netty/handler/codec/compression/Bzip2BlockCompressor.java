@@ -291,4 +291,12 @@ final class Bzip2BlockCompressor {
     int crc() {
         return crc.getCRC();
     }
+
+    /**
+     * Gets the {@link Bzip2BitWriter} which writes the compressed block.
+     * @return The {@link Bzip2BitWriter} of this block
+     */
+    Bzip2BitWriter writer() {
+        return writer;
+    }
 }
@@ -16,6 +16,7 @@
 package io.netty.handler.codec.compression;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
@@ -25,6 +26,7 @@ import io.netty.channel.ChannelPromiseNotifier;
 import io.netty.handler.codec.MessageToByteEncoder;
 import io.netty.util.concurrent.EventExecutor;
 
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 import static io.netty.handler.codec.compression.Bzip2Constants.*;
@@ -33,6 +35,12 @@ import static io.netty.handler.codec.compression.Bzip2Constants.*;
  * Compresses a {@link ByteBuf} using the Bzip2 algorithm.
  *
  * See <a href="http://en.wikipedia.org/wiki/Bzip2">Bzip2</a>.
+ * <p>
+ * By default the blocks are compressed by the {@link io.netty.channel.EventLoop} of the channel. Compressing a full
+ * block takes a while, so an {@link Executor} can be passed to {@link #Bzip2Encoder(int, Executor, int)} which
+ * compresses the blocks in parallel instead. The compressed blocks are written in order once they are ready, so
+ * the encoder does not write anything while it is waiting for the first pending block. The promise of a write is
+ * completed once the blocks which were filled by its data were written.
  */
 public class Bzip2Encoder extends MessageToByteEncoder<ByteBuf> {
     /**
@@ -67,6 +75,13 @@ public class Bzip2Encoder extends MessageToByteEncoder<ByteBuf> {
      */
     private Bzip2BlockCompressor blockCompressor;
 
+    /**
+     * Compresses the blocks in parallel, or {@code null} if the blocks are compressed by the event loop.
+     */
+    private final Executor executor;
+    private final int maxPendingBlocks;
+    private BlockCompressionQueue queue;
+
     /**
      * (@code true} if the compressed stream has been finished, otherwise {@code false}.
      */
@@ -92,29 +107,63 @@ public class Bzip2Encoder extends MessageToByteEncoder<ByteBuf> {
      *        but give better compression ratios. {@code 9} will usually be the best value to use.
      */
     public Bzip2Encoder(final int blockSizeMultiplier) {
+        this(blockSizeMultiplier, null, 0);
+    }
+
+    /**
+     * Creates a new bzip2 encoder which compresses the blocks in parallel.
+     * @param blockSizeMultiplier
+     *        The Bzip2 block size as a multiple of 100,000 bytes (minimum {@code 1}, maximum {@code 9}).
+     * @param executor
+     *        The {@link Executor} which compresses the blocks, like an
+     *        {@link io.netty.util.concurrent.EventExecutorGroup} or a {@link java.util.concurrent.ForkJoinPool}.
+     *        If it is {@code null}, the blocks are compressed by the event loop of the channel.
+     * @param maxPendingBlocks
+     *        The maximum number of blocks which are compressed or waiting to be written at once. Every block holds
+     *        about five times the block size of memory. If this number is reached, the event loop compresses the
+     *        next block itself.
+     */
+    public Bzip2Encoder(final int blockSizeMultiplier, Executor executor, int maxPendingBlocks) {
         if (blockSizeMultiplier < MIN_BLOCK_SIZE || blockSizeMultiplier > MAX_BLOCK_SIZE) {
             throw new IllegalArgumentException(
                     "blockSizeMultiplier: " + blockSizeMultiplier + " (expected: 1-9)");
         }
+        if (executor != null) {
+            BlockCompressionQueue.checkParameters(executor, maxPendingBlocks);
+        }
         streamBlockSize = blockSizeMultiplier * BASE_BLOCK_SIZE;
+        this.executor = executor;
+        this.maxPendingBlocks = maxPendingBlocks;
     }
 
     @Override
     protected void encode(ChannelHandlerContext ctx, ByteBuf in, ByteBuf out) throws Exception {
+        final BlockCompressionQueue queue = this.queue;
         if (finished) {
-            out.writeBytes(in);
+            if (queue != null && !queue.isEmpty()) {
+                queue.add(in.readRetainedSlice(in.readableBytes()));
+            } else {
+                out.writeBytes(in);
+            }
             return;
         }
 
         for (;;) {
             switch (currentState) {
                 case INIT:
-                    out.ensureWritable(4);
-                    out.writeMedium(MAGIC_NUMBER);
-                    out.writeByte('0' + streamBlockSize / BASE_BLOCK_SIZE);
+                    if (queue != null) {
+                        // Written through the queue, so all output is in the order of the queue.
+                        ByteBuf header = ctx.alloc().buffer(4);
+                        writeStreamHeader(header);
+                        queue.add(header);
+                    } else {
+                        writeStreamHeader(out);
+                    }
                     currentState = State.INIT_BLOCK;
                 case INIT_BLOCK:
-                    blockCompressor = new Bzip2BlockCompressor(writer, streamBlockSize);
+                    // Blocks which are compressed in parallel write their own bits, which are appended in order.
+                    blockCompressor = new Bzip2BlockCompressor(
+                            queue != null ? new Bzip2BitWriter() : writer, streamBlockSize);
                     currentState = State.WRITE_DATA;
                 case WRITE_DATA:
                     if (!in.isReadable()) {
@@ -153,15 +202,82 @@ public class Bzip2Encoder extends MessageToByteEncoder<ByteBuf> {
         }
     }
 
+    private void writeStreamHeader(ByteBuf out) {
+        out.ensureWritable(4);
+        out.writeMedium(MAGIC_NUMBER);
+        out.writeByte('0' + streamBlockSize / BASE_BLOCK_SIZE);
+    }
+
     /**
      * Close current block and update {@link #streamCRC}.
      */
     private void closeBlock(ByteBuf out) {
         final Bzip2BlockCompressor blockCompressor = this.blockCompressor;
         if (!blockCompressor.isEmpty()) {
+            if (queue != null) {
+                queue.submit(new ParallelBlock(blockCompressor));
+                return;
+            }
             blockCompressor.close(out);
-            final int blockCRC = blockCompressor.crc();
-            streamCRC = (streamCRC << 1 | streamCRC >>> 31) ^ blockCRC;
+            updateStreamCRC(blockCompressor.crc());
+        }
+    }
+
+    private void updateStreamCRC(int blockCRC) {
+        streamCRC = (streamCRC << 1 | streamCRC >>> 31) ^ blockCRC;
+    }
+
+    private void writeStreamFooter(ByteBuf footer) {
+        final int streamCRC = this.streamCRC;
+        final Bzip2BitWriter writer = this.writer;
+        writer.writeBits(footer, 24, END_OF_STREAM_MAGIC_1);
+        writer.writeBits(footer, 24, END_OF_STREAM_MAGIC_2);
+        writer.writeInt(footer, streamCRC);
+        writer.flush(footer);
+    }
+
+    /**
+     * A block which is compressed with its own {@link Bzip2BitWriter}, so its bits can be appended to the stream
+     * once all blocks before it were written.
+     */
+    private final class ParallelBlock extends BlockCompressionQueue.Block {
+        private final Bzip2BlockCompressor blockCompressor;
+        private final Bzip2BitWriter blockWriter;
+        private long bitCount;
+
+        ParallelBlock(Bzip2BlockCompressor blockCompressor) {
+            this.blockCompressor = blockCompressor;
+            blockWriter = blockCompressor.writer();
+        }
+
+        @Override
+        ByteBuf compress(ByteBufAllocator alloc) {
+            ByteBuf compressed = alloc.buffer();
+            boolean success = false;
+            try {
+                blockCompressor.close(compressed);
+                bitCount = compressed.readableBytes() * 8L + blockWriter.pendingBits();
+                blockWriter.flush(compressed);
+                success = true;
+                return compressed;
+            } finally {
+                if (!success) {
+                    compressed.release();
+                }
+            }
+        }
+
+        @Override
+        void write(ChannelHandlerContext ctx, ByteBuf compressed) {
+            ByteBuf out;
+            try {
+                out = ctx.alloc().buffer(compressed.readableBytes() + 4);
+                writer.writeBits(out, compressed, bitCount);
+            } finally {
+                compressed.release();
+            }
+            updateStreamCRC(blockCompressor.crc());
+            ctx.write(out);
         }
     }
 
@@ -224,23 +340,38 @@ public class Bzip2Encoder extends MessageToByteEncoder<ByteBuf> {
         }
     }
 
-    private ChannelFuture finishEncode(final ChannelHandlerContext ctx, ChannelPromise promise) {
+    private ChannelFuture finishEncode(final ChannelHandlerContext ctx, final ChannelPromise promise) {
         if (finished) {
             promise.setSuccess();
             return promise;
         }
         finished = true;
 
+        final BlockCompressionQueue queue = this.queue;
+        if (queue != null) {
+            closeBlock(null);
+            blockCompressor = null;
+            // The footer holds the CRC of all blocks, so it is written after them.
+            queue.add(new BlockCompressionQueue.Block(promise) {
+                @Override
+                ByteBuf compress(ByteBufAllocator alloc) {
+                    throw new IllegalStateException();
+                }
+
+                @Override
+                void write(ChannelHandlerContext ctx, ByteBuf compressed) {
+                    ByteBuf footer = ctx.alloc().buffer();
+                    writeStreamFooter(footer);
+                    ctx.writeAndFlush(footer, promise);
+                }
+            });
+            return promise;
+        }
+
         final ByteBuf footer = ctx.alloc().buffer();
         closeBlock(footer);
-
-        final int streamCRC = this.streamCRC;
-        final Bzip2BitWriter writer = this.writer;
         try {
-            writer.writeBits(footer, 24, END_OF_STREAM_MAGIC_1);
-            writer.writeBits(footer, 24, END_OF_STREAM_MAGIC_2);
-            writer.writeInt(footer, streamCRC);
-            writer.flush(footer);
+            writeStreamFooter(footer);
         } finally {
             blockCompressor = null;
         }
@@ -255,8 +386,40 @@ public class Bzip2Encoder extends MessageToByteEncoder<ByteBuf> {
         return ctx;
     }
 
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        final BlockCompressionQueue queue = this.queue;
+        if (queue == null || promise.isVoid() || !acceptOutboundMessage(msg)) {
+            super.write(ctx, msg, promise);
+        } else {
+            // The blocks filled by the message are written later, and the promise completes once they were.
+            super.write(ctx, msg, queue.newOutputPromise(promise));
+            queue.addPromise(promise);
+        }
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        if (queue != null) {
+            queue.flush();
+        } else {
+            ctx.flush();
+        }
+    }
+
     @Override
     public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
         this.ctx = ctx;
+        if (executor != null) {
+            queue = new BlockCompressionQueue(ctx, executor, maxPendingBlocks);
+        }
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        super.handlerRemoved(ctx);
+        if (queue != null) {
+            queue.release();
+        }
     }
 }
@@ -15,17 +15,23 @@
  */
 package io.netty.handler.codec.compression;
 
-import java.util.zip.Checksum;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.internal.PlatformDependent;
 
 /**
  * Implements CRC32-C as defined in:
  * "Optimization of Cyclic Redundancy-CHeck Codes with 24 and 32 Parity Bits",
  * IEEE Transactions on Communications 41(6): 883-892 (1993).
  *
- * The implementation of this class has been sourced from the Appendix of RFC 3309,
- * but with masking due to Java not being able to support unsigned types.
+ * The table of the implementation of this class has been sourced from the Appendix of RFC 3309, but with masking
+ * due to Java not being able to support unsigned types. Eight bytes are processed at once with the slicing-by-8
+ * algorithm, which reads them as a little-endian {@code long} and looks up each byte in its own table.
  */
-class Crc32c implements Checksum {
+class Crc32c extends ByteBufChecksum {
+    private static final boolean UNALIGNED = PlatformDependent.hasUnsafe() && PlatformDependent.isUnaligned();
+    private static final long LONG_MASK = 0xFFFFFFFFL;
+    private static final int BYTE_MASK = 0xFF;
+
     private static final int[] CRC_TABLE = {
             0x00000000, 0xF26B8303, 0xE13B70F7, 0x1350F3F4,
             0xC79A971F, 0x35F1141C, 0x26A1E7E8, 0xD4CA64EB,
@@ -93,8 +99,19 @@ class Crc32c implements Checksum {
             0xBE2DA0A5, 0x4C4623A6, 0x5F16D052, 0xAD7D5351,
     };
 
-    private static final long LONG_MASK = 0xFFFFFFFFL;
-    private static final int BYTE_MASK = 0xFF;
+    /**
+     * {@link #CRC_TABLE} followed by the 7 tables for the bytes which are 1 to 7 positions further from the end of
+     * an 8-byte word.
+     */
+    private static final int[] SLICING_TABLE = new int[8 * 256];
+
+    static {
+        System.arraycopy(CRC_TABLE, 0, SLICING_TABLE, 0, 256);
+        for (int i = 256; i < SLICING_TABLE.length; i++) {
+            int crc = SLICING_TABLE[i - 256];
+            SLICING_TABLE[i] = crc >>> 8 ^ CRC_TABLE[crc & BYTE_MASK];
+        }
+    }
 
     private int crc = ~0;
 
@@ -105,9 +122,47 @@ class Crc32c implements Checksum {
 
     @Override
     public void update(byte[] buffer, int offset, int length) {
-        for (int i = offset; i < offset + length; i++) {
-            crc = crc32c(crc, buffer[i]);
+        int crc = this.crc;
+        final int end = offset + length;
+        for (; offset <= end - 8; offset += 8) {
+            crc = crc32c(crc, UNALIGNED ? getLongLE(buffer, offset) : getLongLESafe(buffer, offset));
+        }
+        for (; offset < end; offset++) {
+            crc = crc32c(crc, buffer[offset]);
         }
+        this.crc = crc;
+    }
+
+    @Override
+    public void update(ByteBuf b, int off, int len) {
+        if (b.hasArray()) {
+            update(b.array(), b.arrayOffset() + off, len);
+        } else if (UNALIGNED && b.hasMemoryAddress()) {
+            update(b.memoryAddress() + off, len);
+        } else {
+            int crc = this.crc;
+            final int end = off + len;
+            for (; off <= end - 8; off += 8) {
+                crc = crc32c(crc, b.getLongLE(off));
+            }
+            for (; off < end; off++) {
+                crc = crc32c(crc, b.getByte(off));
+            }
+            this.crc = crc;
+        }
+    }
+
+    private void update(long address, int length) {
+        int crc = this.crc;
+        final long end = address + length;
+        for (; address <= end - 8; address += 8) {
+            long value = PlatformDependent.getLong(address);
+            crc = crc32c(crc, PlatformDependent.BIG_ENDIAN_NATIVE_ORDER ? Long.reverseBytes(value) : value);
+        }
+        for (; address < end; address++) {
+            crc = crc32c(crc, PlatformDependent.getByte(address));
+        }
+        this.crc = crc;
     }
 
     @Override
@@ -123,4 +178,37 @@ class Crc32c implements Checksum {
     private static int crc32c(int crc, int b) {
         return crc >>> 8 ^ CRC_TABLE[(crc ^ b & BYTE_MASK) & BYTE_MASK];
     }
+
+    /**
+     * Updates the CRC with the 8 bytes of a little-endian {@code long}.
+     */
+    private static int crc32c(int crc, long word) {
+        final int[] table = SLICING_TABLE;
+        final int low = (int) word ^ crc;
+        final int high = (int) (word >>> 32);
+        return table[7 * 256 + (low & BYTE_MASK)] ^
+               table[6 * 256 + (low >>> 8 & BYTE_MASK)] ^
+               table[5 * 256 + (low >>> 16 & BYTE_MASK)] ^
+               table[4 * 256 + (low >>> 24)] ^
+               table[3 * 256 + (high & BYTE_MASK)] ^
+               table[2 * 256 + (high >>> 8 & BYTE_MASK)] ^
+               table[256 + (high >>> 16 & BYTE_MASK)] ^
+               table[high >>> 24];
+    }
+
+    private static long getLongLE(byte[] buffer, int offset) {
+        long value = PlatformDependent.getLong(buffer, offset);
+        return PlatformDependent.BIG_ENDIAN_NATIVE_ORDER ? Long.reverseBytes(value) : value;
+    }
+
+    private static long getLongLESafe(byte[] buffer, int offset) {
+        return (long) buffer[offset] & 0xff |
+               ((long) buffer[offset + 1] & 0xff) << 8 |
+               ((long) buffer[offset + 2] & 0xff) << 16 |
+               ((long) buffer[offset + 3] & 0xff) << 24 |
+               ((long) buffer[offset + 4] & 0xff) << 32 |
+               ((long) buffer[offset + 5] & 0xff) << 40 |
+               ((long) buffer[offset + 6] & 0xff) << 48 |
+               ((long) buffer[offset + 7] & 0xff) << 56;
+    }
 }
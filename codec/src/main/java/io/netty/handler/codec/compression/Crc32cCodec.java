@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.MessageToMessageCodec;
+
+import java.util.List;
+
+/**
+ * Appends the CRC32-C checksum of every outbound frame to the frame, and validates and removes the checksum of
+ * every inbound frame. The checksum is written as a 4-byte big-endian integer.
+ * <p>
+ * For example, the following 12-bytes frame:
+ * <pre>
+ * +----------------+
+ * | "HELLO, WORLD" |
+ * +----------------+
+ * </pre>
+ * is encoded into the following:
+ * <pre>
+ * +----------------+------------+
+ * | "HELLO, WORLD" | 0x6B84C111 |
+ * +----------------+------------+
+ * </pre>
+ * The checksum is calculated with {@code java.util.zip.CRC32C} if the JDK provides it, which uses the CRC32
+ * instructions of the CPU, and directly on the memory of the {@link ByteBuf}s. This handler only works on whole
+ * frames, so it must be placed after the frame decoder and before the frame encoder:
+ * <pre>
+ * ChannelPipeline pipeline = ...;
+ * pipeline.addLast("frameDecoder", new LengthFieldBasedFrameDecoder(1048576, 0, 4, 0, 4));
+ * pipeline.addLast("frameEncoder", new LengthFieldPrepender(4));
+ * pipeline.addLast("checksum", new Crc32cCodec());
+ * </pre>
+ */
+public class Crc32cCodec extends MessageToMessageCodec<ByteBuf, ByteBuf> {
+
+    private static final int CHECKSUM_LENGTH = 4;
+
+    private final ByteBufChecksum checksum = ByteBufChecksum.newCrc32c();
+    private final boolean validateChecksums;
+
+    /**
+     * Creates a new codec which validates the checksums of the inbound frames.
+     */
+    public Crc32cCodec() {
+        this(true);
+    }
+
+    /**
+     * Creates a new codec.
+     *
+     * @param validateChecksums
+     *        If {@code true}, the checksums of the inbound frames are validated, otherwise they are only removed,
+     *        for example because the payload is validated later by the application.
+     */
+    public Crc32cCodec(boolean validateChecksums) {
+        this.validateChecksums = validateChecksums;
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
+        ByteBuf trailer = ctx.alloc().buffer(CHECKSUM_LENGTH);
+        trailer.writeInt(checksum(msg, msg.readerIndex(), msg.readableBytes()));
+        // A single message, so an encoder after this one sees the frame and its checksum as one frame.
+        out.add(ctx.alloc().compositeBuffer(2).addComponents(true, msg.retain(), trailer));
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
+        final int length = msg.readableBytes() - CHECKSUM_LENGTH;
+        if (length < 0) {
+            throw new CorruptedFrameException(
+                    "frame too short: " + msg.readableBytes() + " bytes (expected: >= " + CHECKSUM_LENGTH + ')');
+        }
+        final int offset = msg.readerIndex();
+        if (validateChecksums) {
+            final int expectedChecksum = msg.getInt(offset + length);
+            final int actualChecksum = checksum(msg, offset, length);
+            if (actualChecksum != expectedChecksum) {
+                throw new CorruptedFrameException(
+                        "mismatching checksum: " + Integer.toHexString(actualChecksum) +
+                                " (expected: " + Integer.toHexString(expectedChecksum) + ')');
+            }
+        }
+        out.add(msg.retainedSlice(offset, length));
+    }
+
+    private int checksum(ByteBuf buf, int offset, int length) {
+        final ByteBufChecksum checksum = this.checksum;
+        checksum.reset();
+        checksum.update(buf, offset, length);
+        return (int) checksum.getValue();
+    }
+}
@@ -17,7 +17,10 @@ package io.netty.handler.codec.compression;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.internal.EmptyArrays;
 
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.zip.CRC32;
 import java.util.zip.DataFormatException;
@@ -34,8 +37,26 @@ public class JdkZlibDecoder extends ZlibDecoder {
     private static final int FCOMMENT = 0x10;
     private static final int FRESERVED = 0xE0;
 
+    /**
+     * {@code Inflater.setInput(ByteBuffer)} of Java 11 and later, which decompresses a direct buffer without copying
+     * it to a {@code byte[]} first, or {@code null} if it is not available.
+     */
+    private static final Method SET_INPUT_BYTE_BUFFER;
+
+    static {
+        Method setInput;
+        try {
+            setInput = Inflater.class.getMethod("setInput", ByteBuffer.class);
+        } catch (Throwable ignore) {
+            setInput = null;
+        }
+        SET_INPUT_BYTE_BUFFER = setInput;
+    }
+
     private Inflater inflater;
+    private boolean nowrap;
     private final byte[] dictionary;
+    private final boolean pooled;
 
     // GZIP related
     private final CRC32 crc;
@@ -85,20 +106,28 @@ public class JdkZlibDecoder extends ZlibDecoder {
     }
 
     private JdkZlibDecoder(ZlibWrapper wrapper, byte[] dictionary) {
+        this(wrapper, dictionary, false);
+    }
+
+    /**
+     * Creates a new instance which takes its {@link Inflater} from the {@link JdkZlibPool} of the event loop when
+     * it reads the first data if {@code pooled} is {@code true}, and returns it to the pool once the handler is
+     * removed.
+     */
+    JdkZlibDecoder(ZlibWrapper wrapper, byte[] dictionary, boolean pooled) {
         if (wrapper == null) {
             throw new NullPointerException("wrapper");
         }
         switch (wrapper) {
             case GZIP:
-                inflater = new Inflater(true);
+                nowrap = true;
                 crc = new CRC32();
                 break;
             case NONE:
-                inflater = new Inflater(true);
+                nowrap = true;
                 crc = null;
                 break;
             case ZLIB:
-                inflater = new Inflater();
                 crc = null;
                 break;
             case ZLIB_OR_NONE:
@@ -110,6 +139,10 @@ public class JdkZlibDecoder extends ZlibDecoder {
                 throw new IllegalArgumentException("Only GZIP or ZLIB is supported, but you used " + wrapper);
         }
         this.dictionary = dictionary;
+        this.pooled = pooled;
+        if (!pooled && !decideZlibOrNone) {
+            inflater = new Inflater(nowrap);
+        }
     }
 
     @Override
@@ -136,10 +169,15 @@ public class JdkZlibDecoder extends ZlibDecoder {
                 return;
             }
 
-            boolean nowrap = !looksLikeZlib(in.getShort(in.readerIndex()));
-            inflater = new Inflater(nowrap);
+            nowrap = !looksLikeZlib(in.getShort(in.readerIndex()));
+            if (!pooled) {
+                inflater = new Inflater(nowrap);
+            }
             decideZlibOrNone = false;
         }
+        if (inflater == null) {
+            inflater = JdkZlibPool.acquireInflater(nowrap);
+        }
 
         if (crc != null) {
             switch (gzipState) {
@@ -159,8 +197,12 @@ public class JdkZlibDecoder extends ZlibDecoder {
             readableBytes = in.readableBytes();
         }
 
+        boolean directInput = false;
         if (in.hasArray()) {
             inflater.setInput(in.array(), in.arrayOffset() + in.readerIndex(), readableBytes);
+        } else if (SET_INPUT_BYTE_BUFFER != null && in.nioBufferCount() == 1) {
+            SET_INPUT_BYTE_BUFFER.invoke(inflater, in.nioBuffer(in.readerIndex(), readableBytes));
+            directInput = true;
         } else {
             byte[] array = new byte[readableBytes];
             in.getBytes(in.readerIndex(), array);
@@ -222,6 +264,10 @@ public class JdkZlibDecoder extends ZlibDecoder {
         } catch (DataFormatException e) {
             throw new DecompressionException("decompression failure", e);
         } finally {
+            if (directInput) {
+                // Do not keep a reference to the buffer, which may be released after this method returns.
+                inflater.setInput(EmptyArrays.EMPTY_BYTES);
+            }
 
             if (decompressed.isReadable()) {
                 out.add(decompressed);
@@ -235,7 +281,12 @@ public class JdkZlibDecoder extends ZlibDecoder {
     protected void handlerRemoved0(ChannelHandlerContext ctx) throws Exception {
         super.handlerRemoved0(ctx);
         if (inflater != null) {
-            inflater.end();
+            if (pooled) {
+                JdkZlibPool.releaseInflater(inflater, nowrap);
+                inflater = null;
+            } else {
+                inflater.end();
+            }
         }
     }
 
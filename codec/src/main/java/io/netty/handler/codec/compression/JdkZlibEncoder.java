@@ -22,7 +22,10 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.ChannelPromiseNotifier;
 import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.internal.EmptyArrays;
 
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 import java.util.concurrent.TimeUnit;
 import java.util.zip.CRC32;
 import java.util.zip.Deflater;
@@ -32,8 +35,27 @@ import java.util.zip.Deflater;
  */
 public class JdkZlibEncoder extends ZlibEncoder {
 
+    /**
+     * {@code Deflater.setInput(ByteBuffer)} of Java 11 and later, which compresses a direct buffer without copying it
+     * to a {@code byte[]} first, or {@code null} if it is not available.
+     */
+    private static final Method SET_INPUT_BYTE_BUFFER;
+
+    static {
+        Method setInput;
+        try {
+            setInput = Deflater.class.getMethod("setInput", ByteBuffer.class);
+        } catch (Throwable ignore) {
+            setInput = null;
+        }
+        SET_INPUT_BYTE_BUFFER = setInput;
+    }
+
     private final ZlibWrapper wrapper;
-    private final Deflater deflater;
+    private final int compressionLevel;
+    private final byte[] dictionary;
+    private final boolean pooled;
+    private Deflater deflater;
     private volatile boolean finished;
     private volatile ChannelHandlerContext ctx;
 
@@ -105,6 +127,9 @@ public class JdkZlibEncoder extends ZlibEncoder {
         }
 
         this.wrapper = wrapper;
+        this.compressionLevel = compressionLevel;
+        dictionary = null;
+        pooled = false;
         deflater = new Deflater(compressionLevel, wrapper != ZlibWrapper.ZLIB);
     }
 
@@ -146,10 +171,44 @@ public class JdkZlibEncoder extends ZlibEncoder {
         }
 
         wrapper = ZlibWrapper.ZLIB;
+        this.compressionLevel = compressionLevel;
+        this.dictionary = dictionary;
+        pooled = false;
         deflater = new Deflater(compressionLevel);
         deflater.setDictionary(dictionary);
     }
 
+    /**
+     * Creates a new zlib encoder which takes its {@link Deflater} from the {@link JdkZlibPool} of the event loop
+     * when it writes the first data, and returns it to the pool once the stream is finished.
+     *
+     * @param dictionary  the preset dictionary, or {@code null} if there is none.  Only the
+     *                    {@link ZlibWrapper#ZLIB} wrapper supports a preset dictionary.
+     */
+    JdkZlibEncoder(ZlibWrapper wrapper, int compressionLevel, byte[] dictionary) {
+        if (compressionLevel < 0 || compressionLevel > 9) {
+            throw new IllegalArgumentException(
+                    "compressionLevel: " + compressionLevel + " (expected: 0-9)");
+        }
+        if (wrapper == null) {
+            throw new NullPointerException("wrapper");
+        }
+        if (wrapper == ZlibWrapper.ZLIB_OR_NONE) {
+            throw new IllegalArgumentException(
+                    "wrapper '" + ZlibWrapper.ZLIB_OR_NONE + "' is not " +
+                    "allowed for compression.");
+        }
+        if (dictionary != null && wrapper != ZlibWrapper.ZLIB) {
+            throw new IllegalArgumentException(
+                    "wrapper '" + wrapper + "' does not support a preset dictionary.");
+        }
+
+        this.wrapper = wrapper;
+        this.compressionLevel = compressionLevel;
+        this.dictionary = dictionary;
+        pooled = true;
+    }
+
     @Override
     public ChannelFuture close() {
         return close(ctx().newPromise());
@@ -199,6 +258,27 @@ public class JdkZlibEncoder extends ZlibEncoder {
             return;
         }
 
+        if (writeHeader) {
+            writeHeader = false;
+            if (wrapper == ZlibWrapper.GZIP) {
+                out.writeBytes(gzipHeader);
+            }
+        }
+
+        final Deflater deflater = deflater();
+        if (!uncompressed.hasArray() && SET_INPUT_BYTE_BUFFER != null &&
+                wrapper != ZlibWrapper.GZIP && uncompressed.nioBufferCount() == 1) {
+            // Compress the direct buffer in place, the GZIP checksum still needs the data in a byte[].
+            SET_INPUT_BYTE_BUFFER.invoke(deflater, uncompressed.nioBuffer());
+            while (!deflater.needsInput()) {
+                deflate(out);
+            }
+            uncompressed.skipBytes(len);
+            // Do not keep a reference to the buffer, which is released after this method returns.
+            deflater.setInput(EmptyArrays.EMPTY_BYTES);
+            return;
+        }
+
         int offset;
         byte[] inAry;
         if (uncompressed.hasArray()) {
@@ -213,13 +293,6 @@ public class JdkZlibEncoder extends ZlibEncoder {
             offset = 0;
         }
 
-        if (writeHeader) {
-            writeHeader = false;
-            if (wrapper == ZlibWrapper.GZIP) {
-                out.writeBytes(gzipHeader);
-            }
-        }
-
         if (wrapper == ZlibWrapper.GZIP) {
             crc.update(inAry, offset, len);
         }
@@ -282,6 +355,7 @@ public class JdkZlibEncoder extends ZlibEncoder {
             footer.writeBytes(gzipHeader);
         }
 
+        final Deflater deflater = deflater();
         deflater.finish();
 
         while (!deflater.finished()) {
@@ -304,10 +378,31 @@ public class JdkZlibEncoder extends ZlibEncoder {
             footer.writeByte(uncBytes >>> 16);
             footer.writeByte(uncBytes >>> 24);
         }
-        deflater.end();
+        endDeflater();
         return ctx.writeAndFlush(footer, promise);
     }
 
+    private Deflater deflater() {
+        Deflater deflater = this.deflater;
+        if (deflater == null) {
+            deflater = JdkZlibPool.acquireDeflater(compressionLevel, wrapper != ZlibWrapper.ZLIB);
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+            this.deflater = deflater;
+        }
+        return deflater;
+    }
+
+    private void endDeflater() {
+        if (pooled) {
+            JdkZlibPool.releaseDeflater(deflater, compressionLevel, wrapper != ZlibWrapper.ZLIB);
+            deflater = null;
+        } else {
+            deflater.end();
+        }
+    }
+
     private void deflate(ByteBuf out) {
         int numBytes;
         do {
@@ -322,4 +417,14 @@ public class JdkZlibEncoder extends ZlibEncoder {
     public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
         this.ctx = ctx;
     }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        super.handlerRemoved(ctx);
+        if (pooled && deflater != null) {
+            // Removed before the stream was finished, the pool resets the deflater so it can be reused.
+            finished = true;
+            endDeflater();
+        }
+    }
 }
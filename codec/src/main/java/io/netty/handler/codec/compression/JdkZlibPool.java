@@ -0,0 +1,148 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.util.concurrent.FastThreadLocal;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Pools the {@link Deflater}s and {@link Inflater}s of the encoders and decoders created by
+ * {@link ZlibCodecFactory#newPooledZlibEncoder(ZlibWrapper, int)} and
+ * {@link ZlibCodecFactory#newPooledZlibDecoder(ZlibWrapper)}, as creating them allocates a few hundred kilobytes of
+ * native memory. Every thread, usually an {@link io.netty.channel.EventLoop}, has its own pool which keeps at most
+ * {@code io.netty.jdkZlib.maxPooledPerThread} instances for every compression level and wrapper, so the instances
+ * are shared by all channels of the event loop without any synchronization.
+ */
+final class JdkZlibPool {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(JdkZlibPool.class);
+
+    private static final int MAX_POOLED_PER_THREAD;
+
+    private static final FastThreadLocal<JdkZlibPool> POOLS = new FastThreadLocal<JdkZlibPool>() {
+        @Override
+        protected JdkZlibPool initialValue() {
+            return new JdkZlibPool();
+        }
+
+        @Override
+        protected void onRemoval(JdkZlibPool pool) {
+            pool.destroy();
+        }
+    };
+
+    static {
+        MAX_POOLED_PER_THREAD = Math.max(0, SystemPropertyUtil.getInt("io.netty.jdkZlib.maxPooledPerThread", 4));
+        logger.debug("-Dio.netty.jdkZlib.maxPooledPerThread: {}", MAX_POOLED_PER_THREAD);
+    }
+
+    // Indexed by the compression level and if the zlib header is omitted.
+    @SuppressWarnings("unchecked")
+    private final ArrayDeque<Deflater>[] deflaters = new ArrayDeque[10 * 2];
+    @SuppressWarnings("unchecked")
+    private final ArrayDeque<Inflater>[] inflaters = new ArrayDeque[2];
+
+    private JdkZlibPool() {
+    }
+
+    /**
+     * Returns a pooled {@link Deflater} or a new one if there is none.
+     */
+    static Deflater acquireDeflater(int compressionLevel, boolean nowrap) {
+        Deflater deflater = POOLS.get().deflaters(compressionLevel, nowrap).poll();
+        return deflater != null ? deflater : new Deflater(compressionLevel, nowrap);
+    }
+
+    /**
+     * Resets the {@link Deflater} and pools it, or ends it if the pool is full.
+     */
+    static void releaseDeflater(Deflater deflater, int compressionLevel, boolean nowrap) {
+        ArrayDeque<Deflater> pool = POOLS.get().deflaters(compressionLevel, nowrap);
+        if (pool.size() < MAX_POOLED_PER_THREAD) {
+            deflater.reset();
+            pool.add(deflater);
+        } else {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Returns a pooled {@link Inflater} or a new one if there is none.
+     */
+    static Inflater acquireInflater(boolean nowrap) {
+        Inflater inflater = POOLS.get().inflaters(nowrap).poll();
+        return inflater != null ? inflater : new Inflater(nowrap);
+    }
+
+    /**
+     * Resets the {@link Inflater} and pools it, or ends it if the pool is full.
+     */
+    static void releaseInflater(Inflater inflater, boolean nowrap) {
+        ArrayDeque<Inflater> pool = POOLS.get().inflaters(nowrap);
+        if (pool.size() < MAX_POOLED_PER_THREAD) {
+            inflater.reset();
+            pool.add(inflater);
+        } else {
+            inflater.end();
+        }
+    }
+
+    private ArrayDeque<Deflater> deflaters(int compressionLevel, boolean nowrap) {
+        int index = compressionLevel << 1 | (nowrap ? 1 : 0);
+        ArrayDeque<Deflater> pool = deflaters[index];
+        if (pool == null) {
+            pool = deflaters[index] = new ArrayDeque<Deflater>(MAX_POOLED_PER_THREAD);
+        }
+        return pool;
+    }
+
+    private ArrayDeque<Inflater> inflaters(boolean nowrap) {
+        int index = nowrap ? 1 : 0;
+        ArrayDeque<Inflater> pool = inflaters[index];
+        if (pool == null) {
+            pool = inflaters[index] = new ArrayDeque<Inflater>(MAX_POOLED_PER_THREAD);
+        }
+        return pool;
+    }
+
+    /**
+     * Frees the native memory of the pooled instances when the thread terminates.
+     */
+    private void destroy() {
+        for (ArrayDeque<Deflater> pool : deflaters) {
+            if (pool != null) {
+                for (Deflater deflater : pool) {
+                    deflater.end();
+                }
+                pool.clear();
+            }
+        }
+        for (ArrayDeque<Inflater> pool : inflaters) {
+            if (pool != null) {
+                for (Inflater inflater : pool) {
+                    inflater.end();
+                }
+                pool.clear();
+            }
+        }
+    }
+}
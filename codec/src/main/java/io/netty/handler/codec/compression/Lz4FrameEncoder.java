@@ -17,6 +17,7 @@
 package io.netty.handler.codec.compression;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
@@ -30,6 +31,7 @@ import net.jpountz.lz4.LZ4Exception;
 import net.jpountz.lz4.LZ4Factory;
 import net.jpountz.xxhash.XXHashFactory;
 
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.zip.Checksum;
 
@@ -50,6 +52,11 @@ import static io.netty.handler.codec.compression.Lz4Constants.*;
  *  * Magic * Token *  Compressed *  Decompressed *  Checksum *  +  *  LZ4 compressed *
  *  *       *       *    length   *     length    *           *     *      block      *
  *  * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *     * * * * * * * * * *
+ *
+ * By default the blocks are compressed by the {@link io.netty.channel.EventLoop} of the channel. An {@link Executor}
+ * can be passed to {@link #Lz4FrameEncoder(LZ4Factory, boolean, int, Checksum, Executor, int)} which compresses the
+ * blocks in parallel instead. The compressed blocks are written in order once they are ready. The promise of a
+ * write is completed once the blocks which were filled by its data were written.
  */
 public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
     /**
@@ -82,6 +89,13 @@ public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
      */
     private final int compressedBlockSize;
 
+    /**
+     * Compresses the blocks in parallel, or {@code null} if the blocks are compressed by the event loop.
+     */
+    private final Executor executor;
+    private final int maxPendingBlocks;
+    private BlockCompressionQueue queue;
+
     /**
      * Indicates if the compressed stream has been finished.
      */
@@ -127,6 +141,29 @@ public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
      * @param checksum        the {@link Checksum} instance to use to check data for integrity
      */
     public Lz4FrameEncoder(LZ4Factory factory, boolean highCompressor, int blockSize, Checksum checksum) {
+        this(factory, highCompressor, blockSize, checksum, null, 0);
+    }
+
+    /**
+     * Creates a new customizable LZ4 encoder which compresses the blocks in parallel.
+     *
+     * @param factory          user customizable {@link net.jpountz.lz4.LZ4Factory} instance
+     *                         which may be JNI bindings to the original C implementation, a pure Java implementation
+     *                         or a Java implementation that uses the {@link sun.misc.Unsafe}
+     * @param highCompressor   if {@code true} codec will use compressor which requires more memory
+     *                         and is slower but compresses more efficiently
+     * @param blockSize        the maximum number of bytes to try to compress at once,
+     *                         must be >= 64 and <= 32 M
+     * @param checksum         the {@link Checksum} instance to use to check data for integrity
+     * @param executor         the {@link Executor} which compresses the blocks, like an
+     *                         {@link io.netty.util.concurrent.EventExecutorGroup} or a
+     *                         {@link java.util.concurrent.ForkJoinPool}. If it is {@code null}, the blocks are
+     *                         compressed by the event loop of the channel
+     * @param maxPendingBlocks the maximum number of blocks which are compressed or waiting to be written at once.
+     *                         If this number is reached, the event loop compresses the next block itself
+     */
+    public Lz4FrameEncoder(LZ4Factory factory, boolean highCompressor, int blockSize, Checksum checksum,
+                           Executor executor, int maxPendingBlocks) {
         super(false);
         if (factory == null) {
             throw new NullPointerException("factory");
@@ -134,6 +171,11 @@ public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
         if (checksum == null) {
             throw new NullPointerException("checksum");
         }
+        if (executor != null) {
+            BlockCompressionQueue.checkParameters(executor, maxPendingBlocks);
+        }
+        this.executor = executor;
+        this.maxPendingBlocks = maxPendingBlocks;
 
         compressor = highCompressor ? factory.highCompressor() : factory.fastCompressor();
         this.checksum = checksum;
@@ -162,18 +204,22 @@ public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
     @Override
     protected void encode(ChannelHandlerContext ctx, ByteBuf in, ByteBuf out) throws Exception {
         if (finished) {
-            out.writeBytes(in);
+            if (queue != null && !queue.isEmpty()) {
+                queue.add(in.readRetainedSlice(in.readableBytes()));
+            } else {
+                out.writeBytes(in);
+            }
             return;
         }
 
         int length = in.readableBytes();
 
-        final byte[] buffer = this.buffer;
         final int blockSize = buffer.length;
         while (currentBlockLength + length >= blockSize) {
             final int tail = blockSize - currentBlockLength;
             in.getBytes(in.readerIndex(), buffer, currentBlockLength, tail);
             currentBlockLength = blockSize;
+            // Replaces the buffer when the blocks are compressed in parallel.
             flushBufferedData(out);
             in.skipBytes(tail);
             length -= tail;
@@ -191,7 +237,19 @@ public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
         checksum.update(buffer, 0, currentBlockLength);
         final int check = (int) checksum.getValue();
 
-        out.ensureWritable(compressedBlockSize);
+        if (queue != null) {
+            // The block takes over the buffer, so the next block is buffered in a new one.
+            queue.submit(new ParallelBlock(compressor, buffer, currentBlockLength, check));
+            buffer = new byte[buffer.length];
+        } else {
+            writeBlock(compressor, compressionLevel, buffer, currentBlockLength, check, out);
+        }
+        this.currentBlockLength = 0;
+    }
+
+    private static void writeBlock(LZ4Compressor compressor, int compressionLevel,
+                                   byte[] buffer, int currentBlockLength, int check, ByteBuf out) {
+        out.ensureWritable(HEADER_LENGTH + compressor.maxCompressedLength(currentBlockLength));
         final int idx = out.writerIndex();
         final byte[] dest = out.array();
         final int destOff = out.arrayOffset() + idx;
@@ -216,22 +274,10 @@ public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
         writeIntLE(currentBlockLength, dest, destOff + DECOMPRESSED_LENGTH_OFFSET);
         writeIntLE(check, dest, destOff + CHECKSUM_OFFSET);
         out.writerIndex(idx + HEADER_LENGTH + compressedLength);
-        currentBlockLength = 0;
-
-        this.currentBlockLength = currentBlockLength;
     }
 
-    private ChannelFuture finishEncode(final ChannelHandlerContext ctx, ChannelPromise promise) {
-        if (finished) {
-            promise.setSuccess();
-            return promise;
-        }
-        finished = true;
-
-        final ByteBuf footer = ctx.alloc().heapBuffer(
-                compressor.maxCompressedLength(currentBlockLength) + HEADER_LENGTH);
-        flushBufferedData(footer);
-
+    private void writeEndMark(ByteBuf footer) {
+        footer.ensureWritable(HEADER_LENGTH);
         final int idx = footer.writerIndex();
         final byte[] dest = footer.array();
         final int destOff = footer.arrayOffset() + idx;
@@ -241,11 +287,68 @@ public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
         writeIntLE(0, dest, destOff + DECOMPRESSED_LENGTH_OFFSET);
         writeIntLE(0, dest, destOff + CHECKSUM_OFFSET);
         footer.writerIndex(idx + HEADER_LENGTH);
+    }
+
+    /**
+     * A full block which is compressed by the {@link Executor}. The checksum is calculated by the event loop, as the
+     * {@link Checksum} is shared by all blocks.
+     */
+    private final class ParallelBlock extends BlockCompressionQueue.Block {
+        private final LZ4Compressor compressor;
+        private final byte[] buffer;
+        private final int length;
+        private final int check;
+
+        ParallelBlock(LZ4Compressor compressor, byte[] buffer, int length, int check) {
+            this.compressor = compressor;
+            this.buffer = buffer;
+            this.length = length;
+            this.check = check;
+        }
+
+        @Override
+        ByteBuf compress(ByteBufAllocator alloc) {
+            ByteBuf compressed = alloc.heapBuffer(HEADER_LENGTH + compressor.maxCompressedLength(length));
+            boolean success = false;
+            try {
+                writeBlock(compressor, compressionLevel, buffer, length, check, compressed);
+                success = true;
+                return compressed;
+            } finally {
+                if (!success) {
+                    compressed.release();
+                }
+            }
+        }
+    }
+
+    private ChannelFuture finishEncode(final ChannelHandlerContext ctx, final ChannelPromise promise) {
+        if (finished) {
+            promise.setSuccess();
+            return promise;
+        }
+        finished = true;
+
+        final BlockCompressionQueue queue = this.queue;
+        final ByteBuf footer;
+        if (queue != null) {
+            flushBufferedData(null);
+            footer = ctx.alloc().heapBuffer(HEADER_LENGTH);
+        } else {
+            footer = ctx.alloc().heapBuffer(compressor.maxCompressedLength(currentBlockLength) + HEADER_LENGTH);
+            flushBufferedData(footer);
+        }
+        writeEndMark(footer);
 
         compressor = null;
         checksum = null;
         buffer = null;
 
+        if (queue != null) {
+            // Written after the pending blocks, which end with the end mark.
+            queue.add(footer, promise);
+            return promise;
+        }
         return ctx.writeAndFlush(footer, promise);
     }
 
@@ -326,8 +429,40 @@ public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
         return ctx;
     }
 
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        final BlockCompressionQueue queue = this.queue;
+        if (queue == null || promise.isVoid() || !acceptOutboundMessage(msg)) {
+            super.write(ctx, msg, promise);
+        } else {
+            // The blocks filled by the message are written later, and the promise completes once they were.
+            super.write(ctx, msg, queue.newOutputPromise(promise));
+            queue.addPromise(promise);
+        }
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        if (queue != null) {
+            queue.flush();
+        } else {
+            ctx.flush();
+        }
+    }
+
     @Override
     public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
         this.ctx = ctx;
+        if (executor != null) {
+            queue = new BlockCompressionQueue(ctx, executor, maxPendingBlocks);
+        }
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        super.handlerRemoved(ctx);
+        if (queue != null) {
+            queue.release();
+        }
     }
 }
@@ -16,6 +16,9 @@
 package io.netty.handler.codec.compression;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.util.internal.PlatformDependent;
+
+import java.util.Arrays;
 
 /**
  * Uncompresses an input {@link ByteBuf} encoded with Snappy compression into an
@@ -26,7 +29,15 @@ import io.netty.buffer.ByteBuf;
 public final class Snappy {
 
     private static final int MAX_HT_SIZE = 1 << 14;
+    private static final int MIN_HT_SIZE = 1 << 8;
     private static final int MIN_COMPRESSIBLE_BYTES = 15;
+    // The hash table holds positions as shorts, so longer input is encoded in independent fragments.
+    private static final int MAX_FRAGMENT_LENGTH = Short.MAX_VALUE;
+
+    /**
+     * If {@code true}, words are read and written with single unaligned memory accesses in the native byte order.
+     */
+    private static final boolean UNALIGNED = PlatformDependent.hasUnsafe() && PlatformDependent.isUnaligned();
 
     // used as a return value to indicate that we haven't yet read our full preamble
     private static final int PREAMBLE_NOT_FULL = -1;
@@ -42,6 +53,11 @@ public final class Snappy {
     private byte tag;
     private int written;
 
+    // Reused by all calls of encode(...), so only the first call allocates them.
+    private short[] hashTable;
+    private byte[] inputBuffer;
+    private byte[] outputBuffer;
+
     private enum State {
         READY,
         READING_PREAMBLE,
@@ -68,16 +84,56 @@ public final class Snappy {
             }
         }
 
-        int inIndex = in.readerIndex();
-        final int baseIndex = inIndex;
+        byte[] src;
+        int srcIndex;
+        if (in.hasArray()) {
+            src = in.array();
+            srcIndex = in.arrayOffset() + in.readerIndex();
+        } else {
+            src = inputBuffer(length);
+            srcIndex = 0;
+            in.getBytes(in.readerIndex(), src, 0, length);
+        }
+        int fragments = Math.max(1, (length + MAX_FRAGMENT_LENGTH - 1) / MAX_FRAGMENT_LENGTH);
+        int maxLength = maxCompressedLength(length) + (fragments - 1) * maxCompressedLength(0);
+        out.ensureWritable(maxLength);
+        if (out.hasArray()) {
+            int writerIndex = out.writerIndex();
+            int size = encodeFragments(src, srcIndex, length, out.array(), out.arrayOffset() + writerIndex);
+            out.writerIndex(writerIndex + size);
+        } else {
+            byte[] dst = outputBuffer(maxLength);
+            int size = encodeFragments(src, srcIndex, length, dst, 0);
+            out.writeBytes(dst, 0, size);
+        }
+        in.skipBytes(length);
+    }
 
-        final short[] table = getHashTable(length);
-        final int shift = 32 - (int) Math.floor(Math.log(table.length) / Math.log(2));
+    private int encodeFragments(byte[] src, int srcIndex, int length, byte[] dst, int dstIndex) {
+        int outIndex = dstIndex;
+        for (int i = 0; i < length; i += MAX_FRAGMENT_LENGTH) {
+            outIndex += encode(src, srcIndex + i, Math.min(MAX_FRAGMENT_LENGTH, length - i), dst, outIndex);
+        }
+        return outIndex - dstIndex;
+    }
 
+    /**
+     * Encodes {@code length} bytes of {@code src}, at most {@link #MAX_FRAGMENT_LENGTH}, into {@code dst}, which
+     * must have room for {@link #maxCompressedLength(int)} bytes. Returns the number of bytes written.
+     */
+    private int encode(byte[] src, int srcIndex, int length, byte[] dst, int dstIndex) {
+        final int tableSize = length <= MIN_HT_SIZE ? MIN_HT_SIZE : MAX_HT_SIZE;
+        final short[] table = hashTable(tableSize);
+        final int shift = 32 - Integer.numberOfTrailingZeros(tableSize);
+        final int limit = srcIndex + length;
+
+        // All positions are absolute indexes of src, the hash table holds them relative to srcIndex.
+        int inIndex = srcIndex;
+        int outIndex = dstIndex;
         int nextEmit = inIndex;
 
-        if (length - inIndex >= MIN_COMPRESSIBLE_BYTES) {
-            int nextHash = hash(in, ++inIndex, shift);
+        if (length >= MIN_COMPRESSIBLE_BYTES) {
+            int nextHash = hash(src, ++inIndex, shift);
             outer: while (true) {
                 int skip = 32;
 
@@ -90,110 +146,136 @@ public final class Snappy {
                     nextIndex = inIndex + bytesBetweenHashLookups;
 
                     // We need at least 4 remaining bytes to read the hash
-                    if (nextIndex > length - 4) {
+                    if (nextIndex > limit - 4) {
                         break outer;
                     }
 
-                    nextHash = hash(in, nextIndex, shift);
+                    nextHash = hash(src, nextIndex, shift);
 
-                    candidate = baseIndex + table[hash];
+                    candidate = srcIndex + table[hash];
 
-                    table[hash] = (short) (inIndex - baseIndex);
+                    table[hash] = (short) (inIndex - srcIndex);
                 }
-                while (in.getInt(inIndex) != in.getInt(candidate));
+                while (getInt(src, inIndex) != getInt(src, candidate));
 
-                encodeLiteral(in, out, inIndex - nextEmit);
+                outIndex = encodeLiteral(src, nextEmit, inIndex - nextEmit, dst, outIndex);
 
                 int insertTail;
                 do {
                     int base = inIndex;
-                    int matched = 4 + findMatchingLength(in, candidate + 4, inIndex + 4, length);
+                    int matched = 4 + findMatchingLength(src, candidate + 4, inIndex + 4, limit);
                     inIndex += matched;
                     int offset = base - candidate;
-                    encodeCopy(out, offset, matched);
-                    in.readerIndex(in.readerIndex() + matched);
+                    outIndex = encodeCopy(dst, outIndex, offset, matched);
                     insertTail = inIndex - 1;
                     nextEmit = inIndex;
-                    if (inIndex >= length - 4) {
+                    if (inIndex >= limit - 4) {
                         break outer;
                     }
 
-                    int prevHash = hash(in, insertTail, shift);
-                    table[prevHash] = (short) (inIndex - baseIndex - 1);
-                    int currentHash = hash(in, insertTail + 1, shift);
-                    candidate = baseIndex + table[currentHash];
-                    table[currentHash] = (short) (inIndex - baseIndex);
+                    int prevHash = hash(src, insertTail, shift);
+                    table[prevHash] = (short) (inIndex - srcIndex - 1);
+                    int currentHash = hash(src, insertTail + 1, shift);
+                    candidate = srcIndex + table[currentHash];
+                    table[currentHash] = (short) (inIndex - srcIndex);
                 }
-                while (in.getInt(insertTail + 1) == in.getInt(candidate));
+                while (getInt(src, insertTail + 1) == getInt(src, candidate));
 
-                nextHash = hash(in, insertTail + 2, shift);
+                nextHash = hash(src, insertTail + 2, shift);
                 ++inIndex;
             }
         }
 
         // If there are any remaining characters, write them out as a literal
-        if (nextEmit < length) {
-            encodeLiteral(in, out, length - nextEmit);
+        if (nextEmit < limit) {
+            outIndex = encodeLiteral(src, nextEmit, limit - nextEmit, dst, outIndex);
         }
+        return outIndex - dstIndex;
+    }
+
+    /**
+     * Returns the maximum number of bytes {@code length} bytes are encoded to, without the preamble.
+     */
+    private static int maxCompressedLength(int length) {
+        return 32 + length + length / 6;
     }
 
     /**
      * Hashes the 4 bytes located at index, shifting the resulting hash into
      * the appropriate range for our hash table.
      *
-     * @param in The input buffer to read 4 bytes from
+     * @param src The input array to read 4 bytes from
      * @param index The index to read at
      * @param shift The shift value, for ensuring that the resulting value is
      *     withing the range of our hash table size
      * @return A 32-bit hash of 4 bytes located at index
      */
-    private static int hash(ByteBuf in, int index, int shift) {
-        return in.getInt(index) + 0x1e35a7bd >>> shift;
+    private static int hash(byte[] src, int index, int shift) {
+        return getIntBE(src, index) + 0x1e35a7bd >>> shift;
     }
 
     /**
-     * Creates an appropriately sized hashtable for the given input size
-     *
-     * @param inputSize The size of our input, ie. the number of bytes we need to encode
-     * @return An appropriately sized empty hashtable
+     * Returns the hash table cleared for the given size, which is at most {@link #MAX_HT_SIZE}.
      */
-    private static short[] getHashTable(int inputSize) {
-        int htSize = 256;
-        while (htSize < MAX_HT_SIZE && htSize < inputSize) {
-            htSize <<= 1;
+    private short[] hashTable(int size) {
+        short[] table = hashTable;
+        if (table == null) {
+            table = new short[MAX_HT_SIZE];
+            hashTable = table;
+        } else {
+            Arrays.fill(table, 0, size, (short) 0);
         }
+        return table;
+    }
 
-        short[] table;
-        if (htSize <= 256) {
-            table = new short[256];
-        } else {
-            table = new short[MAX_HT_SIZE];
+    private byte[] inputBuffer(int length) {
+        byte[] buffer = inputBuffer;
+        if (buffer == null || buffer.length < length) {
+            buffer = new byte[length];
+            inputBuffer = buffer;
         }
+        return buffer;
+    }
 
-        return table;
+    private byte[] outputBuffer(int length) {
+        byte[] buffer = outputBuffer;
+        if (buffer == null || buffer.length < length) {
+            buffer = new byte[length];
+            outputBuffer = buffer;
+        }
+        return buffer;
     }
 
     /**
-     * Iterates over the supplied input buffer between the supplied minIndex and
+     * Iterates over the supplied input array between the supplied minIndex and
      * maxIndex to find how long our matched copy overlaps with an already-written
-     * literal value.
+     * literal value. Compares 8 bytes at once if unaligned memory access is available.
      *
-     * @param in The input buffer to scan over
-     * @param minIndex The index in the input buffer to start scanning from
+     * @param src The input array to scan over
+     * @param minIndex The index in the input array to start scanning from
      * @param inIndex The index of the start of our copy
-     * @param maxIndex The length of our input buffer
+     * @param maxIndex The end of our input
      * @return The number of bytes for which our candidate copy is a repeat of
      */
-    private static int findMatchingLength(ByteBuf in, int minIndex, int inIndex, int maxIndex) {
+    private static int findMatchingLength(byte[] src, int minIndex, int inIndex, int maxIndex) {
         int matched = 0;
 
-        while (inIndex <= maxIndex - 4 &&
-                in.getInt(inIndex) == in.getInt(minIndex + matched)) {
-            inIndex += 4;
-            matched += 4;
+        if (UNALIGNED) {
+            while (inIndex <= maxIndex - 8) {
+                long diff = PlatformDependent.getLong(src, inIndex) ^
+                        PlatformDependent.getLong(src, minIndex + matched);
+                if (diff != 0) {
+                    // The first differing byte is the lowest one in little endian order.
+                    int bits = PlatformDependent.BIG_ENDIAN_NATIVE_ORDER ?
+                            Long.numberOfLeadingZeros(diff) : Long.numberOfTrailingZeros(diff);
+                    return matched + (bits >>> 3);
+                }
+                inIndex += 8;
+                matched += 8;
+            }
         }
 
-        while (inIndex < maxIndex && in.getByte(minIndex + matched) == in.getByte(inIndex)) {
+        while (inIndex < maxIndex && src[minIndex + matched] == src[inIndex]) {
             ++inIndex;
             ++matched;
         }
@@ -201,6 +283,22 @@ public final class Snappy {
         return matched;
     }
 
+    /**
+     * Reads 4 bytes in an unspecified byte order, so the result may only be compared.
+     */
+    private static int getInt(byte[] src, int index) {
+        return UNALIGNED ? PlatformDependent.getInt(src, index) : getIntBE(src, index);
+    }
+
+    private static int getIntBE(byte[] src, int index) {
+        if (UNALIGNED) {
+            int value = PlatformDependent.getInt(src, index);
+            return PlatformDependent.BIG_ENDIAN_NATIVE_ORDER ? value : Integer.reverseBytes(value);
+        }
+        return src[index] << 24 | (src[index + 1] & 0xFF) << 16 | (src[index + 2] & 0xFF) << 8 |
+                src[index + 3] & 0xFF;
+    }
+
     /**
      * Calculates the minimum number of bits required to encode a value.  This can
      * then in turn be used to calculate the number of septets or octets (as
@@ -243,36 +341,66 @@ public final class Snappy {
         out.writeBytes(in, length);
     }
 
-    private static void encodeCopyWithOffset(ByteBuf out, int offset, int length) {
-        if (length < 12 && offset < 2048) {
-            out.writeByte(COPY_1_BYTE_OFFSET | length - 4 << 2 | offset >> 8 << 5);
-            out.writeByte(offset & 0x0ff);
+    /**
+     * Writes a literal to the supplied output array by directly copying from
+     * the input array.
+     *
+     * @param src The input array to copy from
+     * @param srcIndex The index of the literal in the input array
+     * @param length The length of the literal to copy
+     * @param dst The output array to copy to
+     * @param dstIndex The index to write the literal at
+     * @return The index after the written literal
+     */
+    private static int encodeLiteral(byte[] src, int srcIndex, int length, byte[] dst, int dstIndex) {
+        if (length < 61) {
+            dst[dstIndex++] = (byte) (length - 1 << 2);
         } else {
-            out.writeByte(COPY_2_BYTE_OFFSET | length - 1 << 2);
-            out.writeByte(offset & 0x0ff);
-            out.writeByte(offset >> 8 & 0x0ff);
+            int bitLength = bitsToEncode(length - 1);
+            int bytesToEncode = 1 + bitLength / 8;
+            dst[dstIndex++] = (byte) (59 + bytesToEncode << 2);
+            for (int i = 0; i < bytesToEncode; i++) {
+                dst[dstIndex++] = (byte) (length - 1 >> i * 8);
+            }
         }
+
+        System.arraycopy(src, srcIndex, dst, dstIndex, length);
+        return dstIndex + length;
+    }
+
+    private static int encodeCopyWithOffset(byte[] dst, int dstIndex, int offset, int length) {
+        if (length < 12 && offset < 2048) {
+            dst[dstIndex] = (byte) (COPY_1_BYTE_OFFSET | length - 4 << 2 | offset >> 8 << 5);
+            dst[dstIndex + 1] = (byte) offset;
+            return dstIndex + 2;
+        }
+        dst[dstIndex] = (byte) (COPY_2_BYTE_OFFSET | length - 1 << 2);
+        dst[dstIndex + 1] = (byte) offset;
+        dst[dstIndex + 2] = (byte) (offset >> 8);
+        return dstIndex + 3;
     }
 
     /**
      * Encodes a series of copies, each at most 64 bytes in length.
      *
-     * @param out The output buffer to write the copy pointer to
+     * @param dst The output array to write the copy pointer to
+     * @param dstIndex The index to write the copy pointer at
      * @param offset The offset at which the original instance lies
      * @param length The length of the original instance
+     * @return The index after the written copies
      */
-    private static void encodeCopy(ByteBuf out, int offset, int length) {
+    private static int encodeCopy(byte[] dst, int dstIndex, int offset, int length) {
         while (length >= 68) {
-            encodeCopyWithOffset(out, offset, 64);
+            dstIndex = encodeCopyWithOffset(dst, dstIndex, offset, 64);
             length -= 64;
         }
 
         if (length > 64) {
-            encodeCopyWithOffset(out, offset, 60);
+            dstIndex = encodeCopyWithOffset(dst, dstIndex, offset, 60);
             length -= 60;
         }
 
-        encodeCopyWithOffset(out, offset, length);
+        return encodeCopyWithOffset(dst, dstIndex, offset, length);
     }
 
     public void decode(ByteBuf in, ByteBuf out) {
@@ -455,28 +583,12 @@ public final class Snappy {
             return NOT_ENOUGH_INPUT;
         }
 
-        int initialIndex = out.writerIndex();
         int length = 4 + ((tag & 0x01c) >> 2);
         int offset = (tag & 0x0e0) << 8 >> 5 | in.readUnsignedByte();
 
         validateOffset(offset, writtenSoFar);
 
-        out.markReaderIndex();
-        if (offset < length) {
-            int copies = length / offset;
-            for (; copies > 0; copies--) {
-                out.readerIndex(initialIndex - offset);
-                out.readBytes(out, offset);
-            }
-            if (length % offset != 0) {
-                out.readerIndex(initialIndex - offset);
-                out.readBytes(out, length % offset);
-            }
-        } else {
-            out.readerIndex(initialIndex - offset);
-            out.readBytes(out, length);
-        }
-        out.resetReaderIndex();
+        copy(out, offset, length);
 
         return length;
     }
@@ -499,28 +611,12 @@ public final class Snappy {
             return NOT_ENOUGH_INPUT;
         }
 
-        int initialIndex = out.writerIndex();
         int length = 1 + (tag >> 2 & 0x03f);
         int offset = in.readShortLE();
 
         validateOffset(offset, writtenSoFar);
 
-        out.markReaderIndex();
-        if (offset < length) {
-            int copies = length / offset;
-            for (; copies > 0; copies--) {
-                out.readerIndex(initialIndex - offset);
-                out.readBytes(out, offset);
-            }
-            if (length % offset != 0) {
-                out.readerIndex(initialIndex - offset);
-                out.readBytes(out, length % offset);
-            }
-        } else {
-            out.readerIndex(initialIndex - offset);
-            out.readBytes(out, length);
-        }
-        out.resetReaderIndex();
+        copy(out, offset, length);
 
         return length;
     }
@@ -543,30 +639,59 @@ public final class Snappy {
             return NOT_ENOUGH_INPUT;
         }
 
-        int initialIndex = out.writerIndex();
         int length = 1 + (tag >> 2 & 0x03F);
         int offset = in.readIntLE();
 
         validateOffset(offset, writtenSoFar);
 
-        out.markReaderIndex();
-        if (offset < length) {
-            int copies = length / offset;
-            for (; copies > 0; copies--) {
-                out.readerIndex(initialIndex - offset);
-                out.readBytes(out, offset);
+        copy(out, offset, length);
+
+        return length;
+    }
+
+    /**
+     * Appends {@code length} bytes to {@code out}, which are copied from {@code offset} bytes before its writer index.
+     * The source and the destination overlap if the offset is smaller than the length, which repeats the bytes
+     * between them.
+     */
+    private static void copy(ByteBuf out, int offset, int length) {
+        out.ensureWritable(length);
+        int writerIndex = out.writerIndex();
+        if (UNALIGNED && offset >= 8 && out.hasArray()) {
+            // Every 8 bytes are written before they are read again, as the offset is at least as large.
+            byte[] array = out.array();
+            int dstIndex = out.arrayOffset() + writerIndex;
+            int srcIndex = dstIndex - offset;
+            int end = dstIndex + length;
+            for (; dstIndex <= end - 8; dstIndex += 8, srcIndex += 8) {
+                PlatformDependent.putLong(array, dstIndex, PlatformDependent.getLong(array, srcIndex));
             }
-            if (length % offset != 0) {
-                out.readerIndex(initialIndex - offset);
-                out.readBytes(out, length % offset);
+            for (; dstIndex < end; dstIndex++, srcIndex++) {
+                array[dstIndex] = array[srcIndex];
+            }
+        } else if (UNALIGNED && offset >= 8 && out.hasMemoryAddress()) {
+            long dstAddress = out.memoryAddress() + writerIndex;
+            long srcAddress = dstAddress - offset;
+            long end = dstAddress + length;
+            for (; dstAddress <= end - 8; dstAddress += 8, srcAddress += 8) {
+                PlatformDependent.putLong(dstAddress, PlatformDependent.getLong(srcAddress));
+            }
+            for (; dstAddress < end; dstAddress++, srcAddress++) {
+                PlatformDependent.putByte(dstAddress, PlatformDependent.getByte(srcAddress));
             }
         } else {
-            out.readerIndex(initialIndex - offset);
-            out.readBytes(out, length);
+            // Copy the bytes between the source and the destination as often as needed, the bytes copied before
+            // are part of the source of the next copy.
+            int srcIndex = writerIndex - offset;
+            int dstIndex = writerIndex;
+            int end = writerIndex + length;
+            while (dstIndex < end) {
+                int n = Math.min(end - dstIndex, dstIndex - srcIndex);
+                out.setBytes(dstIndex, out, srcIndex, n);
+                dstIndex += n;
+            }
         }
-        out.resetReaderIndex();
-
-        return length;
+        out.writerIndex(writerIndex + length);
     }
 
     /**
@@ -609,20 +734,9 @@ public final class Snappy {
      * @param data The input data to calculate the CRC32C checksum of
      */
     static int calculateChecksum(ByteBuf data, int offset, int length) {
-        Crc32c crc32 = new Crc32c();
-        try {
-            if (data.hasArray()) {
-                crc32.update(data.array(), data.arrayOffset() + offset, length);
-            } else {
-                byte[] array = new byte[length];
-                data.getBytes(offset, array);
-                crc32.update(array, 0, length);
-            }
-
-            return maskChecksum((int) crc32.getValue());
-        } finally {
-            crc32.reset();
-        }
+        ByteBufChecksum crc32 = ByteBufChecksum.newCrc32c();
+        crc32.update(data, offset, length);
+        return maskChecksum((int) crc32.getValue());
     }
 
     /**
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+/**
+ * Creates the {@link CompressionOptions} of the supported compression algorithms.
+ */
+public final class StandardCompressionOptions {
+    private static final BrotliOptions DEFAULT_BROTLI = new BrotliOptions(
+            BrotliEncoder.DEFAULT_QUALITY, BrotliEncoder.DEFAULT_WINDOW_BITS);
+    private static final ZstdOptions DEFAULT_ZSTD = new ZstdOptions(
+            ZstdEncoder.DEFAULT_COMPRESSION_LEVEL, ZstdEncoder.DEFAULT_WINDOW_LOG, ZstdConstants.MAX_BLOCK_SIZE);
+
+    /**
+     * Returns the default {@link BrotliOptions}.
+     */
+    public static BrotliOptions brotli() {
+        return DEFAULT_BROTLI;
+    }
+
+    /**
+     * Creates new {@link BrotliOptions}.
+     *
+     * @param quality       {@code 0} yields the fastest compression and {@link BrotliEncoder#MAX_QUALITY} the best
+     *                      compression
+     * @param windowBits    the base two logarithm of the window size
+     */
+    public static BrotliOptions brotli(int quality, int windowBits) {
+        return new BrotliOptions(quality, windowBits);
+    }
+
+    /**
+     * Returns the default {@link ZstdOptions}.
+     */
+    public static ZstdOptions zstd() {
+        return DEFAULT_ZSTD;
+    }
+
+    /**
+     * Creates new {@link ZstdOptions}.
+     *
+     * @param compressionLevel  {@code 1} yields the fastest compression and
+     *                          {@link ZstdEncoder#MAX_COMPRESSION_LEVEL} the best compression
+     * @param windowLog         the base two logarithm of the window size
+     * @param blockSize         the maximum number of bytes compressed as a block
+     */
+    public static ZstdOptions zstd(int compressionLevel, int windowLog, int blockSize) {
+        return new ZstdOptions(compressionLevel, windowLog, blockSize);
+    }
+
+    private StandardCompressionOptions() { }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+/**
+ * Streaming implementation of the 64 bit variant of the
+ * <a href="https://github.com/Cyan4973/xxHash">xxHash</a> algorithm, which is used by the Zstandard format for the
+ * content checksum.
+ */
+final class XxHash64 {
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+    private final long seed;
+    private final byte[] buffer = new byte[32];
+    private int bufferSize;
+    private long totalLength;
+    private long v1;
+    private long v2;
+    private long v3;
+    private long v4;
+
+    XxHash64() {
+        this(0);
+    }
+
+    XxHash64(long seed) {
+        this.seed = seed;
+        reset();
+    }
+
+    void reset() {
+        v1 = seed + PRIME1 + PRIME2;
+        v2 = seed + PRIME2;
+        v3 = seed;
+        v4 = seed - PRIME1;
+        bufferSize = 0;
+        totalLength = 0;
+    }
+
+    void update(byte[] src, int offset, int length) {
+        totalLength += length;
+        int end = offset + length;
+        if (bufferSize > 0) {
+            int n = Math.min(32 - bufferSize, length);
+            System.arraycopy(src, offset, buffer, bufferSize, n);
+            bufferSize += n;
+            offset += n;
+            if (bufferSize < 32) {
+                return;
+            }
+            processStripe(buffer, 0);
+            bufferSize = 0;
+        }
+        for (; offset <= end - 32; offset += 32) {
+            processStripe(src, offset);
+        }
+        if (offset < end) {
+            bufferSize = end - offset;
+            System.arraycopy(src, offset, buffer, 0, bufferSize);
+        }
+    }
+
+    private void processStripe(byte[] src, int offset) {
+        v1 = round(v1, readLongLE(src, offset));
+        v2 = round(v2, readLongLE(src, offset + 8));
+        v3 = round(v3, readLongLE(src, offset + 16));
+        v4 = round(v4, readLongLE(src, offset + 24));
+    }
+
+    long digest() {
+        long hash;
+        if (totalLength >= 32) {
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = mergeRound(hash, v1);
+            hash = mergeRound(hash, v2);
+            hash = mergeRound(hash, v3);
+            hash = mergeRound(hash, v4);
+        } else {
+            hash = seed + PRIME5;
+        }
+        hash += totalLength;
+
+        int offset = 0;
+        for (; offset <= bufferSize - 8; offset += 8) {
+            hash ^= round(0, readLongLE(buffer, offset));
+            hash = Long.rotateLeft(hash, 27) * PRIME1 + PRIME4;
+        }
+        if (offset <= bufferSize - 4) {
+            hash ^= (readIntLE(buffer, offset) & 0xFFFFFFFFL) * PRIME1;
+            hash = Long.rotateLeft(hash, 23) * PRIME2 + PRIME3;
+            offset += 4;
+        }
+        for (; offset < bufferSize; offset++) {
+            hash ^= (buffer[offset] & 0xFF) * PRIME5;
+            hash = Long.rotateLeft(hash, 11) * PRIME1;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= PRIME2;
+        hash ^= hash >>> 29;
+        hash *= PRIME3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * PRIME2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * PRIME1;
+    }
+
+    private static long mergeRound(long acc, long val) {
+        acc ^= round(0, val);
+        return acc * PRIME1 + PRIME4;
+    }
+
+    static long readLongLE(byte[] src, int offset) {
+        return (src[offset] & 0xFFL) |
+               (src[offset + 1] & 0xFFL) << 8 |
+               (src[offset + 2] & 0xFFL) << 16 |
+               (src[offset + 3] & 0xFFL) << 24 |
+               (src[offset + 4] & 0xFFL) << 32 |
+               (src[offset + 5] & 0xFFL) << 40 |
+               (src[offset + 6] & 0xFFL) << 48 |
+               (src[offset + 7] & 0xFFL) << 56;
+    }
+
+    static int readIntLE(byte[] src, int offset) {
+        return src[offset] & 0xFF |
+               (src[offset + 1] & 0xFF) << 8 |
+               (src[offset + 2] & 0xFF) << 16 |
+               (src[offset + 3] & 0xFF) << 24;
+    }
+}
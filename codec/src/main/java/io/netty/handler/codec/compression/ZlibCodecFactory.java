@@ -109,6 +109,37 @@ public final class ZlibCodecFactory {
         }
     }
 
+    /**
+     * Creates a new {@link ZlibEncoder} like {@link #newZlibEncoder(ZlibWrapper, int)} which borrows its deflater from
+     * a pool of the event loop and returns it once the stream is finished. This avoids allocating and initializing
+     * a new zlib stream for every short-lived stream, like a stream for every message or response. At most
+     * {@code io.netty.jdkZlib.maxPooledPerThread} deflaters ({@code 4} by default) are kept for every compression
+     * level and wrapper by each event loop. The encoders which are not based on the JDK are not pooled.
+     */
+    public static ZlibEncoder newPooledZlibEncoder(ZlibWrapper wrapper, int compressionLevel) {
+        if (PlatformDependent.javaVersion() < 7 || noJdkZlibEncoder) {
+            return new JZlibEncoder(wrapper, compressionLevel);
+        } else {
+            return new JdkZlibEncoder(wrapper, compressionLevel, null);
+        }
+    }
+
+    /**
+     * Creates a new {@link ZlibEncoder} like {@link #newZlibEncoder(int, byte[])} which borrows its deflater from a
+     * pool of the event loop like {@link #newPooledZlibEncoder(ZlibWrapper, int)}. The preset dictionary is set
+     * again for every stream, which lets short messages refer to the strings they are likely to contain.
+     */
+    public static ZlibEncoder newPooledZlibEncoder(int compressionLevel, byte[] dictionary) {
+        if (dictionary == null) {
+            throw new NullPointerException("dictionary");
+        }
+        if (PlatformDependent.javaVersion() < 7 || noJdkZlibEncoder) {
+            return new JZlibEncoder(compressionLevel, dictionary);
+        } else {
+            return new JdkZlibEncoder(ZlibWrapper.ZLIB, compressionLevel, dictionary);
+        }
+    }
+
     public static ZlibDecoder newZlibDecoder() {
         if (PlatformDependent.javaVersion() < 7 || noJdkZlibDecoder) {
             return new JZlibDecoder();
@@ -133,6 +164,36 @@ public final class ZlibCodecFactory {
         }
     }
 
+    /**
+     * Creates a new {@link ZlibDecoder} like {@link #newZlibDecoder(ZlibWrapper)} which borrows its inflater from a
+     * pool of the event loop and returns it once the decoder is removed from the pipeline. The decoders which are
+     * not based on the JDK are not pooled.
+     *
+     * @see #newPooledZlibEncoder(ZlibWrapper, int)
+     */
+    public static ZlibDecoder newPooledZlibDecoder(ZlibWrapper wrapper) {
+        if (PlatformDependent.javaVersion() < 7 || noJdkZlibDecoder) {
+            return new JZlibDecoder(wrapper);
+        } else {
+            return new JdkZlibDecoder(wrapper, null, true);
+        }
+    }
+
+    /**
+     * Creates a new {@link ZlibDecoder} like {@link #newZlibDecoder(byte[])} which borrows its inflater from a pool
+     * of the event loop like {@link #newPooledZlibDecoder(ZlibWrapper)}.
+     */
+    public static ZlibDecoder newPooledZlibDecoder(byte[] dictionary) {
+        if (dictionary == null) {
+            throw new NullPointerException("dictionary");
+        }
+        if (PlatformDependent.javaVersion() < 7 || noJdkZlibDecoder) {
+            return new JZlibDecoder(dictionary);
+        } else {
+            return new JdkZlibDecoder(ZlibWrapper.ZLIB, dictionary, true);
+        }
+    }
+
     private ZlibCodecFactory() {
         // Unused
     }
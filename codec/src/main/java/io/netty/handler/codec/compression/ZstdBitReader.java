@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+/**
+ * Reads a Zstandard bitstream backwards, starting at the highest bit below the end mark of the last byte.
+ * Bits which are read beyond the start of the bitstream are {@code 0}, {@link #isOverflow()} can be used to detect
+ * this.
+ */
+final class ZstdBitReader {
+    private byte[] src;
+    private int start;
+    private int end;
+    // Number of bits which were not read yet.
+    private int bitPosition;
+
+    void init(byte[] src, int start, int end) {
+        if (end <= start) {
+            throw new DecompressionException("bitstream is empty");
+        }
+        int lastByte = src[end - 1] & 0xFF;
+        if (lastByte == 0) {
+            throw new DecompressionException("bitstream end mark not found");
+        }
+        this.src = src;
+        this.start = start;
+        this.end = end;
+        bitPosition = (end - 1 - start) * 8 + 31 - Integer.numberOfLeadingZeros(lastByte);
+    }
+
+    /**
+     * Reads the next {@code numBits} bits, at most {@code 31}.
+     */
+    int readBits(int numBits) {
+        int value = peekBits(numBits);
+        bitPosition -= numBits;
+        return value;
+    }
+
+    /**
+     * Returns the next {@code numBits} bits without consuming them.
+     */
+    int peekBits(int numBits) {
+        if (numBits == 0) {
+            return 0;
+        }
+        int position = bitPosition - numBits;
+        if (position >= 0) {
+            return (int) (readLongLE(position >>> 3) >>> (position & 7)) & (int) ((1L << numBits) - 1);
+        }
+        if (bitPosition <= 0) {
+            return 0;
+        }
+        // Reading across the start of the bitstream, the missing bits are 0.
+        return (int) (readLongLE(0) & ((1L << bitPosition) - 1)) << -position;
+    }
+
+    void skipBits(int numBits) {
+        bitPosition -= numBits;
+    }
+
+    /**
+     * Returns {@code true} if more bits were read than the bitstream contains.
+     */
+    boolean isOverflow() {
+        return bitPosition < 0;
+    }
+
+    /**
+     * Returns {@code true} if all bits of the bitstream were read, but not more.
+     */
+    boolean isFinished() {
+        return bitPosition == 0;
+    }
+
+    private long readLongLE(int offset) {
+        int index = start + offset;
+        if (index + 8 <= end) {
+            return XxHash64.readLongLE(src, index);
+        }
+        long value = 0;
+        for (int i = 0; index + i < end; i++) {
+            value |= (src[index + i] & 0xFFL) << (i << 3);
+        }
+        return value;
+    }
+}
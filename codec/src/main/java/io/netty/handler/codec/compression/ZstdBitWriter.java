@@ -0,0 +1,86 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+/**
+ * Writes a Zstandard bitstream, which is read backwards by the {@link ZstdBitReader}. So the fields which are
+ * written last are read first.
+ */
+final class ZstdBitWriter {
+    private byte[] dst;
+    private int position;
+    private int limit;
+    private long container;
+    private int bitCount;
+    private boolean overflow;
+
+    /**
+     * Starts a new bitstream at {@code offset}, which may not grow beyond {@code limit}.
+     */
+    void init(byte[] dst, int offset, int limit) {
+        this.dst = dst;
+        position = offset;
+        this.limit = limit;
+        container = 0;
+        bitCount = 0;
+        overflow = false;
+    }
+
+    /**
+     * Writes the lowest {@code numBits} bits of {@code value}, at most {@code 31}.
+     */
+    void writeBits(int value, int numBits) {
+        container |= (value & ((1L << numBits) - 1)) << bitCount;
+        bitCount += numBits;
+        if (bitCount >= 32) {
+            if (position + 4 > limit) {
+                // Keep on accepting bits, the caller finds out when closing the stream.
+                overflow = true;
+                container >>>= 32;
+                bitCount -= 32;
+                return;
+            }
+            byte[] dst = this.dst;
+            int position = this.position;
+            long container = this.container;
+            dst[position] = (byte) container;
+            dst[position + 1] = (byte) (container >>> 8);
+            dst[position + 2] = (byte) (container >>> 16);
+            dst[position + 3] = (byte) (container >>> 24);
+            this.position = position + 4;
+            this.container = container >>> 32;
+            bitCount -= 32;
+        }
+    }
+
+    /**
+     * Writes the end mark and all pending bits. Returns the position after the last byte written, or {@code -1} if
+     * the bitstream did not fit.
+     */
+    int close() {
+        writeBits(1, 1);
+        if (overflow || position + ((bitCount + 7) >>> 3) > limit) {
+            return -1;
+        }
+        while (bitCount > 0) {
+            dst[position++] = (byte) container;
+            container >>>= 8;
+            bitCount -= 8;
+        }
+        bitCount = 0;
+        return position;
+    }
+}
@@ -0,0 +1,720 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.Arrays;
+
+import static io.netty.handler.codec.compression.ZstdConstants.*;
+
+/**
+ * Compresses the blocks of a Zstandard frame. The input is collected in a window which also holds the history the
+ * matches are searched in, with the help of a hash table and hash chains. Matches are found greedily or, for the
+ * higher compression levels, lazily. The literals are Huffman coded and the sequences use either the predefined or
+ * custom FSE tables, whatever is cheaper for the block.
+ * <p>
+ * An instance keeps all of its buffers and tables, so it is meant to be used for all blocks of a channel.
+ */
+final class ZstdBlockCompressor {
+    // Matches are searched with a hash of 4 bytes, so shorter matches are never found.
+    private static final int MIN_MATCH_LENGTH = 4;
+    private static final int MIN_LITERALS_TO_COMPRESS = 64;
+    private static final int HASH_PRIME = 0x9E3779B1;
+    private static final int MAX_HASH_LOG = 16;
+    private static final int MAX_CHAIN_LOG = 17;
+    // At lower levels, the search skips ahead faster when there were no matches for a while.
+    private static final int SEARCH_SKIP_LOG = 6;
+
+    private static final int LITERALS_LENGTH_TABLE = 0;
+    private static final int OFFSET_TABLE = 1;
+    private static final int MATCH_LENGTH_TABLE = 2;
+
+    private static final ZstdFseEncodingTable DEFAULT_LITERALS_LENGTH_TABLE =
+            new ZstdFseEncodingTable(LITERALS_LENGTH_DEFAULT_LOG, MAX_LITERALS_LENGTH_SYMBOL);
+    private static final ZstdFseEncodingTable DEFAULT_MATCH_LENGTH_TABLE =
+            new ZstdFseEncodingTable(MATCH_LENGTH_DEFAULT_LOG, MAX_MATCH_LENGTH_SYMBOL);
+    private static final ZstdFseEncodingTable DEFAULT_OFFSET_TABLE =
+            new ZstdFseEncodingTable(OFFSET_DEFAULT_LOG, MAX_OFFSET_SYMBOL);
+    private static final byte[] LITERALS_LENGTH_CODES = new byte[64];
+    private static final byte[] MATCH_LENGTH_CODES = new byte[128];
+
+    static {
+        DEFAULT_LITERALS_LENGTH_TABLE.build(LITERALS_LENGTH_DEFAULT_DISTRIBUTION,
+                MAX_LITERALS_LENGTH_SYMBOL, LITERALS_LENGTH_DEFAULT_LOG);
+        DEFAULT_MATCH_LENGTH_TABLE.build(MATCH_LENGTH_DEFAULT_DISTRIBUTION,
+                MAX_MATCH_LENGTH_SYMBOL, MATCH_LENGTH_DEFAULT_LOG);
+        DEFAULT_OFFSET_TABLE.build(OFFSET_DEFAULT_DISTRIBUTION, OFFSET_DEFAULT_DISTRIBUTION.length - 1,
+                OFFSET_DEFAULT_LOG);
+
+        for (int value = 0, code = 0; value < LITERALS_LENGTH_CODES.length; value++) {
+            while (code < MAX_LITERALS_LENGTH_SYMBOL && LITERALS_LENGTH_BASE[code + 1] <= value) {
+                code++;
+            }
+            LITERALS_LENGTH_CODES[value] = (byte) code;
+        }
+        for (int value = 0, code = 0; value < MATCH_LENGTH_CODES.length; value++) {
+            while (code < MAX_MATCH_LENGTH_SYMBOL && MATCH_LENGTH_BASE[code + 1] <= value + MIN_MATCH) {
+                code++;
+            }
+            MATCH_LENGTH_CODES[value] = (byte) code;
+        }
+    }
+
+    private final int windowSize;
+    private final int blockSize;
+    private final int searchDepth;
+    private final int lazyDepth;
+    private final boolean skipAhead;
+    private final ZstdDictionary dictionary;
+
+    private byte[] window;
+    private int position;
+    private int blockStart;
+
+    private final int hashLog;
+    private final int[] hashTable;
+    private final int chainMask;
+    private final int[] chainTable;
+    private int nextToUpdate;
+
+    private final int[] repeatedOffsets = new int[3];
+    private final int[] previousRepeatedOffsets = new int[3];
+
+    // The sequences of the current block.
+    private final int[] literalsLengths;
+    private final int[] matchLengths;
+    private final int[] offsetValues;
+    private final byte[] literalsLengthCodes;
+    private final byte[] matchLengthCodes;
+    private final byte[] offsetCodes;
+    private int numSequences;
+    private final byte[] literals;
+    private int literalsSize;
+
+    // Result of the last match search.
+    private int matchLength;
+    private int matchOffset;
+
+    private final ZstdHuffmanEncoder huffmanEncoder = new ZstdHuffmanEncoder();
+    private final ZstdFseEncodingTable literalsLengthTable =
+            new ZstdFseEncodingTable(MAX_LITERALS_LENGTH_LOG, MAX_LITERALS_LENGTH_SYMBOL);
+    private final ZstdFseEncodingTable matchLengthTable =
+            new ZstdFseEncodingTable(MAX_MATCH_LENGTH_LOG, MAX_MATCH_LENGTH_SYMBOL);
+    private final ZstdFseEncodingTable offsetTable = new ZstdFseEncodingTable(MAX_OFFSET_LOG, MAX_OFFSET_SYMBOL);
+    private final ZstdFseEncodingTable[] currentTables = new ZstdFseEncodingTable[3];
+    private final int[] counts = new int[256];
+    private final short[] normalizedCounts = new short[MAX_MATCH_LENGTH_SYMBOL + 1];
+    private final byte[] tableDescription = new byte[128];
+    private final ZstdBitWriter writer = new ZstdBitWriter();
+    private final byte[] compressed;
+
+    ZstdBlockCompressor(int compressionLevel, int windowLog, int blockSize, ZstdDictionary dictionary) {
+        windowSize = 1 << windowLog;
+        this.blockSize = blockSize;
+        this.dictionary = dictionary;
+        searchDepth = 1 << (compressionLevel - 1);
+        lazyDepth = compressionLevel < 3 ? 0 : compressionLevel < 6 ? 1 : 2;
+        skipAhead = compressionLevel < 3;
+
+        hashLog = Math.min(windowLog, MAX_HASH_LOG);
+        hashTable = new int[1 << hashLog];
+        if (searchDepth > 1) {
+            int chainLog = Math.min(windowLog, MAX_CHAIN_LOG);
+            chainMask = (1 << chainLog) - 1;
+            chainTable = new int[1 << chainLog];
+        } else {
+            chainMask = 0;
+            chainTable = null;
+        }
+
+        int maxSequences = blockSize / MIN_MATCH_LENGTH + 1;
+        literalsLengths = new int[maxSequences];
+        matchLengths = new int[maxSequences];
+        offsetValues = new int[maxSequences];
+        literalsLengthCodes = new byte[maxSequences];
+        matchLengthCodes = new byte[maxSequences];
+        offsetCodes = new byte[maxSequences];
+        literals = new byte[blockSize];
+        // A compressed block is only used if it is smaller than the input, the slack is used for the headers.
+        compressed = new byte[blockSize + 1024];
+
+        window = new byte[Math.min(blockSize * 2, windowSize + blockSize)];
+        if (dictionary != null) {
+            byte[] content = dictionary.content();
+            ensureCapacity(content.length + blockSize);
+            System.arraycopy(content, 0, window, 0, content.length);
+            position = blockStart = content.length;
+            insertHashes(position - MIN_MATCH_LENGTH);
+            dictionary.copyRepeatedOffsets(repeatedOffsets);
+        } else {
+            System.arraycopy(INITIAL_REPEATED_OFFSETS, 0, repeatedOffsets, 0, 3);
+        }
+    }
+
+    /**
+     * Returns the number of bytes which are not compressed yet.
+     */
+    int pending() {
+        return position - blockStart;
+    }
+
+    /**
+     * Appends up to {@code length} bytes to the current block. Returns the number of bytes appended, which is less
+     * if the block is full.
+     */
+    int append(ByteBuf in, int length) {
+        if (position == blockStart) {
+            prepareBlock();
+        }
+        int n = Math.min(length, blockSize - pending());
+        in.readBytes(window, position, n);
+        position += n;
+        return n;
+    }
+
+    /**
+     * Returns the window, which holds the input appended last at {@code position() - length}.
+     */
+    byte[] window() {
+        return window;
+    }
+
+    int position() {
+        return position;
+    }
+
+    boolean isBlockFull() {
+        return pending() == blockSize;
+    }
+
+    private void prepareBlock() {
+        if (position + blockSize <= window.length) {
+            return;
+        }
+        int historySize = windowSize + (dictionary != null ? dictionary.content().length : 0);
+        int limit = 2 * historySize + blockSize;
+        if (window.length < limit) {
+            ensureCapacity(Math.min(limit, Math.max(window.length << 1, position + blockSize)));
+            if (position + blockSize <= window.length) {
+                return;
+            }
+        }
+        // Move the history to the start of the window. The distance it is moved is a multiple of the size of the
+        // chain table, so positions keep their slot in there.
+        int shift = (position - windowSize) & ~chainMask;
+        System.arraycopy(window, shift, window, 0, position - shift);
+        position -= shift;
+        blockStart -= shift;
+        nextToUpdate = Math.max(0, nextToUpdate - shift);
+        rebase(hashTable, shift);
+        if (chainTable != null) {
+            rebase(chainTable, shift);
+        }
+    }
+
+    private static void rebase(int[] table, int shift) {
+        for (int i = 0; i < table.length; i++) {
+            int value = table[i];
+            table[i] = value > shift ? value - shift : 0;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (window.length < capacity) {
+            window = Arrays.copyOf(window, capacity);
+        }
+    }
+
+    /**
+     * Compresses the pending input into a block and writes it to {@code out}.
+     */
+    void compressBlock(ByteBuf out, boolean last) {
+        int start = blockStart;
+        int length = position - start;
+        int lastFlag = last ? 1 : 0;
+        blockStart = position;
+        if (length == 0) {
+            out.writeMediumLE(lastFlag | BLOCK_TYPE_RAW << 1);
+            return;
+        }
+        if (isRle(start, length)) {
+            out.writeMediumLE(lastFlag | BLOCK_TYPE_RLE << 1 | length << 3);
+            out.writeByte(window[start]);
+            insertHashes(position - MIN_MATCH_LENGTH);
+            return;
+        }
+
+        System.arraycopy(repeatedOffsets, 0, previousRepeatedOffsets, 0, 3);
+        findSequences(start, position);
+        int size = writeBlock();
+        if (size < 0 || size >= length) {
+            // The decoder does not see the sequences of a raw block, so it keeps the previous repeated offsets.
+            System.arraycopy(previousRepeatedOffsets, 0, repeatedOffsets, 0, 3);
+            out.writeMediumLE(lastFlag | BLOCK_TYPE_RAW << 1 | length << 3);
+            out.writeBytes(window, start, length);
+        } else {
+            out.writeMediumLE(lastFlag | BLOCK_TYPE_COMPRESSED << 1 | size << 3);
+            out.writeBytes(compressed, 0, size);
+        }
+    }
+
+    private boolean isRle(int start, int length) {
+        byte[] window = this.window;
+        byte value = window[start];
+        for (int i = start + 1, end = start + length; i < end; i++) {
+            if (window[i] != value) {
+                return false;
+            }
+        }
+        return length > 1;
+    }
+
+    private static int hash(byte[] window, int position, int hashLog) {
+        return (XxHash64.readIntLE(window, position) * HASH_PRIME) >>> (32 - hashLog);
+    }
+
+    /**
+     * Inserts all positions up to {@code target} into the hash table and chains.
+     */
+    private void insertHashes(int target) {
+        byte[] window = this.window;
+        int[] hashTable = this.hashTable;
+        int[] chainTable = this.chainTable;
+        int hashLog = this.hashLog;
+        for (int p = nextToUpdate; p < target; p++) {
+            int h = hash(window, p, hashLog);
+            if (chainTable != null) {
+                chainTable[p & chainMask] = hashTable[h];
+            }
+            hashTable[h] = p + 1;
+        }
+        nextToUpdate = Math.max(nextToUpdate, target);
+    }
+
+    private void findSequences(int start, int end) {
+        byte[] window = this.window;
+        numSequences = 0;
+        literalsSize = 0;
+        int anchor = start;
+        int ip = start;
+        int limit = end - MIN_MATCH_LENGTH;
+        while (ip < limit) {
+            if (!findMatch(ip, end, ip - anchor)) {
+                ip += skipAhead ? 1 + ((ip - anchor) >>> SEARCH_SKIP_LOG) : 1;
+                continue;
+            }
+            int length = matchLength;
+            int offset = matchOffset;
+
+            // Check if the next position has a better match.
+            for (int i = 0; i < lazyDepth && ip + 1 < limit; i++) {
+                int gain = gain(length, offset) + 4;
+                if (!findMatch(ip + 1, end, ip + 1 - anchor) || gain(matchLength, matchOffset) <= gain) {
+                    break;
+                }
+                ip++;
+                length = matchLength;
+                offset = matchOffset;
+            }
+
+            // Extend the match backwards.
+            while (ip > anchor && ip - offset > 0 && window[ip - 1] == window[ip - offset - 1]) {
+                ip--;
+                length++;
+            }
+
+            addSequence(anchor, ip - anchor, offset, length);
+            ip += length;
+            anchor = ip;
+        }
+        int remaining = end - anchor;
+        System.arraycopy(window, anchor, literals, literalsSize, remaining);
+        literalsSize += remaining;
+        insertHashes(end - MIN_MATCH_LENGTH);
+    }
+
+    private static int gain(int length, int offset) {
+        return length * 4 - (31 - Integer.numberOfLeadingZeros(offset + 3));
+    }
+
+    /**
+     * Searches the longest match at {@code ip}, checking the repeated offsets first. Returns {@code true} and
+     * stores the match in {@link #matchLength} and {@link #matchOffset} if one was found.
+     */
+    private boolean findMatch(int ip, int end, int literalsLength) {
+        byte[] window = this.window;
+        int maxDistance = Math.min(ip, windowSize);
+        int bestLength = MIN_MATCH_LENGTH - 1;
+        int bestOffset = 0;
+
+        for (int i = literalsLength == 0 ? 1 : 0; i < 3; i++) {
+            int offset = repeatedOffsets[i];
+            if (offset <= maxDistance) {
+                int length = matchLength(window, ip, ip - offset, end);
+                if (length > bestLength) {
+                    bestLength = length;
+                    bestOffset = offset;
+                }
+            }
+        }
+
+        insertHashes(ip);
+        int candidate = hashTable[hash(window, ip, hashLog)];
+        int[] chainTable = this.chainTable;
+        int minPosition = ip - maxDistance;
+        if (chainTable != null) {
+            minPosition = Math.max(minPosition, ip - chainMask);
+        }
+        if (ip + bestLength == end) {
+            candidate = 0;
+        }
+        for (int depth = searchDepth; candidate > 0 && depth > 0; depth--) {
+            int match = candidate - 1;
+            if (match < minPosition) {
+                break;
+            }
+            // Quick check of the byte which would make the match longer than the best one so far.
+            if (window[match + bestLength] == window[ip + bestLength]) {
+                int length = matchLength(window, ip, match, end);
+                if (length > bestLength) {
+                    bestLength = length;
+                    bestOffset = ip - match;
+                    if (ip + length == end) {
+                        break;
+                    }
+                }
+            }
+            if (chainTable == null) {
+                break;
+            }
+            int next = chainTable[match & chainMask];
+            if (next >= candidate) {
+                // The slot was overwritten by a newer position.
+                break;
+            }
+            candidate = next;
+        }
+        if (bestOffset == 0) {
+            return false;
+        }
+        matchLength = bestLength;
+        matchOffset = bestOffset;
+        return true;
+    }
+
+    private static int matchLength(byte[] window, int ip, int match, int end) {
+        int length = 0;
+        int max = end - ip;
+        while (length < max && window[ip + length] == window[match + length]) {
+            length++;
+        }
+        return length;
+    }
+
+    private void addSequence(int anchor, int literalsLength, int offset, int matchLength) {
+        System.arraycopy(window, anchor, literals, literalsSize, literalsLength);
+        literalsSize += literalsLength;
+
+        // Encode the offset and update the repeated offsets the same way the decoder does.
+        int[] repeatedOffsets = this.repeatedOffsets;
+        int offsetValue;
+        if (literalsLength != 0) {
+            offsetValue = offset == repeatedOffsets[0] ? 1 :
+                    offset == repeatedOffsets[1] ? 2 :
+                    offset == repeatedOffsets[2] ? 3 : offset + 3;
+        } else {
+            offsetValue = offset == repeatedOffsets[1] ? 1 :
+                    offset == repeatedOffsets[2] ? 2 :
+                    offset == repeatedOffsets[0] - 1 ? 3 : offset + 3;
+        }
+        int index = offsetValue > 3 ? 3 : offsetValue - (literalsLength == 0 ? 0 : 1);
+        switch (index) {
+            case 0:
+                break;
+            case 1:
+                repeatedOffsets[1] = repeatedOffsets[0];
+                repeatedOffsets[0] = offset;
+                break;
+            default:
+                repeatedOffsets[2] = repeatedOffsets[1];
+                repeatedOffsets[1] = repeatedOffsets[0];
+                repeatedOffsets[0] = offset;
+                break;
+        }
+
+        int n = numSequences++;
+        literalsLengths[n] = literalsLength;
+        matchLengths[n] = matchLength;
+        offsetValues[n] = offsetValue;
+        literalsLengthCodes[n] = (byte) (literalsLength < LITERALS_LENGTH_CODES.length ?
+                LITERALS_LENGTH_CODES[literalsLength] : 31 - Integer.numberOfLeadingZeros(literalsLength) + 19);
+        int matchLengthValue = matchLength - MIN_MATCH;
+        matchLengthCodes[n] = (byte) (matchLengthValue < MATCH_LENGTH_CODES.length ?
+                MATCH_LENGTH_CODES[matchLengthValue] : 31 - Integer.numberOfLeadingZeros(matchLengthValue) + 36);
+        offsetCodes[n] = (byte) (31 - Integer.numberOfLeadingZeros(offsetValue));
+    }
+
+    /**
+     * Writes the literals and sequences sections into {@link #compressed}. Returns the size of the block, or
+     * {@code -1} if it is larger than the input.
+     */
+    private int writeBlock() {
+        int position = writeLiterals(compressed, 0);
+        return position < 0 ? -1 : writeSequences(compressed, position);
+    }
+
+    private int writeLiterals(byte[] dst, int offset) {
+        int size = literalsSize;
+        byte[] literals = this.literals;
+        int[] counts = this.counts;
+        Arrays.fill(counts, 0);
+        int maxSymbol = 0;
+        for (int i = 0; i < size; i++) {
+            int symbol = literals[i] & 0xFF;
+            counts[symbol]++;
+            maxSymbol = Math.max(maxSymbol, symbol);
+        }
+
+        if (size > 0 && counts[literals[0] & 0xFF] == size) {
+            offset = writeLiteralsHeader(dst, offset, LITERALS_BLOCK_RLE, size);
+            dst[offset++] = literals[0];
+            return offset;
+        }
+        if (size >= MIN_LITERALS_TO_COMPRESS) {
+            int compressedSize = writeHuffmanLiterals(dst, offset, maxSymbol);
+            if (compressedSize > 0) {
+                return offset + compressedSize;
+            }
+        }
+        offset = writeLiteralsHeader(dst, offset, LITERALS_BLOCK_RAW, size);
+        System.arraycopy(literals, 0, dst, offset, size);
+        return offset + size;
+    }
+
+    private static int writeLiteralsHeader(byte[] dst, int offset, int type, int size) {
+        if (size < 32) {
+            dst[offset++] = (byte) (type | size << 3);
+        } else if (size < 4096) {
+            dst[offset++] = (byte) (type | 1 << 2 | size << 4);
+            dst[offset++] = (byte) (size >>> 4);
+        } else {
+            dst[offset++] = (byte) (type | 3 << 2 | size << 4);
+            dst[offset++] = (byte) (size >>> 4);
+            dst[offset++] = (byte) (size >>> 12);
+        }
+        return offset;
+    }
+
+    private int writeHuffmanLiterals(byte[] dst, int offset, int maxSymbol) {
+        int size = literalsSize;
+        ZstdHuffmanEncoder encoder = huffmanEncoder;
+        long bits = encoder.build(counts, maxSymbol);
+        boolean fourStreams = size >= 256;
+        int headerSize = size <= 1023 ? 3 : size <= 16383 ? 4 : 5;
+        // Only worth it if it saves at least a bit more than the table takes.
+        int maxSize = size - (size >>> 6) - 2;
+        if ((bits >>> 3) + headerSize >= maxSize) {
+            return -1;
+        }
+        int tableSize = encoder.writeTable(dst, offset + headerSize);
+        if (tableSize < 0) {
+            return -1;
+        }
+        int streamsSize = encoder.encode(literals, 0, size, fourStreams, dst, offset + headerSize + tableSize);
+        if (streamsSize < 0) {
+            return -1;
+        }
+        int compressedSize = tableSize + streamsSize;
+        if (headerSize + compressedSize >= maxSize) {
+            return -1;
+        }
+
+        int format = fourStreams ? headerSize - 2 : 0;
+        long header = LITERALS_BLOCK_COMPRESSED | format << 2 | (long) size << 4;
+        int fieldBits = headerSize == 3 ? 10 : headerSize == 4 ? 14 : 18;
+        header |= (long) compressedSize << (4 + fieldBits);
+        for (int i = 0; i < headerSize; i++) {
+            dst[offset + i] = (byte) (header >>> (i << 3));
+        }
+        return headerSize + compressedSize;
+    }
+
+    private int writeSequences(byte[] dst, int offset) {
+        int numSequences = this.numSequences;
+        if (numSequences < 128) {
+            dst[offset++] = (byte) numSequences;
+        } else if (numSequences < 0x7F00) {
+            dst[offset++] = (byte) ((numSequences >>> 8) + 128);
+            dst[offset++] = (byte) numSequences;
+        } else {
+            dst[offset++] = (byte) 255;
+            dst[offset++] = (byte) (numSequences - 0x7F00);
+            dst[offset++] = (byte) ((numSequences - 0x7F00) >>> 8);
+        }
+        if (numSequences == 0) {
+            return offset;
+        }
+
+        int modesOffset = offset++;
+        int modes = 0;
+        modes |= selectTable(LITERALS_LENGTH_TABLE, dst, offset) << 6;
+        offset += tableDescriptionSize;
+        modes |= selectTable(OFFSET_TABLE, dst, offset) << 4;
+        offset += tableDescriptionSize;
+        modes |= selectTable(MATCH_LENGTH_TABLE, dst, offset) << 2;
+        offset += tableDescriptionSize;
+        dst[modesOffset] = (byte) modes;
+
+        ZstdFseEncodingTable llTable = currentTables[LITERALS_LENGTH_TABLE];
+        ZstdFseEncodingTable ofTable = currentTables[OFFSET_TABLE];
+        ZstdFseEncodingTable mlTable = currentTables[MATCH_LENGTH_TABLE];
+        int[] literalsLengths = this.literalsLengths;
+        int[] matchLengths = this.matchLengths;
+        int[] offsetValues = this.offsetValues;
+        byte[] llCodes = literalsLengthCodes;
+        byte[] mlCodes = matchLengthCodes;
+        byte[] ofCodes = offsetCodes;
+
+        // The sequences are written backwards, so the decoder reads them in order.
+        ZstdBitWriter writer = this.writer;
+        writer.init(dst, offset, dst.length);
+        int last = numSequences - 1;
+        int mlState = mlTable.initState(mlCodes[last]);
+        int ofState = ofTable.initState(ofCodes[last]);
+        int llState = llTable.initState(llCodes[last]);
+        writeExtraBits(writer, last);
+        for (int n = last - 1; n >= 0; n--) {
+            ofState = ofTable.encode(writer, ofState, ofCodes[n]);
+            mlState = mlTable.encode(writer, mlState, mlCodes[n]);
+            llState = llTable.encode(writer, llState, llCodes[n]);
+            writeExtraBits(writer, n);
+        }
+        mlTable.flush(writer, mlState);
+        ofTable.flush(writer, ofState);
+        llTable.flush(writer, llState);
+        return writer.close();
+    }
+
+    private void writeExtraBits(ZstdBitWriter writer, int n) {
+        int llCode = literalsLengthCodes[n];
+        int mlCode = matchLengthCodes[n];
+        int ofCode = offsetCodes[n];
+        writer.writeBits(literalsLengths[n] - LITERALS_LENGTH_BASE[llCode], LITERALS_LENGTH_BITS[llCode]);
+        writer.writeBits(matchLengths[n] - MATCH_LENGTH_BASE[mlCode], MATCH_LENGTH_BITS[mlCode]);
+        writer.writeBits(offsetValues[n] - (1 << ofCode), ofCode);
+    }
+
+    // Number of bytes written by the last call of selectTable.
+    private int tableDescriptionSize;
+
+    /**
+     * Chooses the cheapest table for the codes of the given kind, writes its description and returns its mode.
+     */
+    private int selectTable(int kind, byte[] dst, int offset) {
+        byte[] codes;
+        short[] defaultDistribution;
+        int defaultLog;
+        int maxLog;
+        ZstdFseEncodingTable defaultTable;
+        ZstdFseEncodingTable table;
+        switch (kind) {
+            case LITERALS_LENGTH_TABLE:
+                codes = literalsLengthCodes;
+                defaultDistribution = LITERALS_LENGTH_DEFAULT_DISTRIBUTION;
+                defaultLog = LITERALS_LENGTH_DEFAULT_LOG;
+                maxLog = MAX_LITERALS_LENGTH_LOG;
+                defaultTable = DEFAULT_LITERALS_LENGTH_TABLE;
+                table = literalsLengthTable;
+                break;
+            case OFFSET_TABLE:
+                codes = offsetCodes;
+                defaultDistribution = OFFSET_DEFAULT_DISTRIBUTION;
+                defaultLog = OFFSET_DEFAULT_LOG;
+                maxLog = MAX_OFFSET_LOG;
+                defaultTable = DEFAULT_OFFSET_TABLE;
+                table = offsetTable;
+                break;
+            default:
+                codes = matchLengthCodes;
+                defaultDistribution = MATCH_LENGTH_DEFAULT_DISTRIBUTION;
+                defaultLog = MATCH_LENGTH_DEFAULT_LOG;
+                maxLog = MAX_MATCH_LENGTH_LOG;
+                defaultTable = DEFAULT_MATCH_LENGTH_TABLE;
+                table = matchLengthTable;
+                break;
+        }
+
+        int numSequences = this.numSequences;
+        int[] counts = this.counts;
+        Arrays.fill(counts, 0, MAX_MATCH_LENGTH_SYMBOL + 1, 0);
+        int maxCode = 0;
+        for (int i = 0; i < numSequences; i++) {
+            int code = codes[i];
+            counts[code]++;
+            maxCode = Math.max(maxCode, code);
+        }
+
+        if (counts[maxCode] == numSequences) {
+            dst[offset] = (byte) maxCode;
+            table.buildRle();
+            currentTables[kind] = table;
+            tableDescriptionSize = 1;
+            return SEQUENCE_MODE_RLE;
+        }
+
+        double defaultCost = maxCode < defaultDistribution.length ?
+                cost(counts, maxCode, defaultDistribution, defaultLog) : Double.MAX_VALUE;
+
+        short[] normalized = normalizedCounts;
+        int accuracyLog = ZstdFseEncodingTable.optimalAccuracyLog(maxLog, numSequences, maxCode);
+        ZstdFseEncodingTable.normalizeCounts(counts, numSequences, maxCode, accuracyLog,
+                numSequences >= 2048, normalized);
+        int descriptionSize = ZstdFseEncodingTable.writeCounts(normalized, maxCode, accuracyLog,
+                tableDescription, 0);
+        double customCost = descriptionSize * 8 + cost(counts, maxCode, normalized, accuracyLog);
+
+        if (defaultCost <= customCost) {
+            currentTables[kind] = defaultTable;
+            tableDescriptionSize = 0;
+            return SEQUENCE_MODE_PREDEFINED;
+        }
+        System.arraycopy(tableDescription, 0, dst, offset, descriptionSize);
+        table.build(normalized, maxCode, accuracyLog);
+        currentTables[kind] = table;
+        tableDescriptionSize = descriptionSize;
+        return SEQUENCE_MODE_FSE;
+    }
+
+    /**
+     * Estimates the number of bits the codes with the given counts take with the given distribution.
+     */
+    private static double cost(int[] counts, int maxCode, short[] distribution, int accuracyLog) {
+        double bits = 0;
+        for (int code = 0; code <= maxCode; code++) {
+            int count = counts[code];
+            if (count == 0) {
+                continue;
+            }
+            int probability = distribution[code];
+            if (probability == 0) {
+                return Double.MAX_VALUE;
+            }
+            bits += count * (accuracyLog - Math.log(probability < 0 ? 1 : probability) / Math.log(2));
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,498 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.Arrays;
+
+import static io.netty.handler.codec.compression.ZstdConstants.*;
+
+/**
+ * Decompresses the blocks of a Zstandard frame into a window which also holds the history that is referenced by
+ * the matches of later blocks. An instance keeps all of its buffers and tables between frames, so it can be reused
+ * for all frames of a channel.
+ */
+final class ZstdBlockDecompressor {
+    private static final ZstdFseTable DEFAULT_LITERALS_LENGTH_TABLE = new ZstdFseTable(LITERALS_LENGTH_DEFAULT_LOG);
+    private static final ZstdFseTable DEFAULT_MATCH_LENGTH_TABLE = new ZstdFseTable(MATCH_LENGTH_DEFAULT_LOG);
+    private static final ZstdFseTable DEFAULT_OFFSET_TABLE = new ZstdFseTable(OFFSET_DEFAULT_LOG);
+
+    static {
+        DEFAULT_LITERALS_LENGTH_TABLE.build(LITERALS_LENGTH_DEFAULT_DISTRIBUTION,
+                MAX_LITERALS_LENGTH_SYMBOL, LITERALS_LENGTH_DEFAULT_LOG);
+        DEFAULT_MATCH_LENGTH_TABLE.build(MATCH_LENGTH_DEFAULT_DISTRIBUTION,
+                MAX_MATCH_LENGTH_SYMBOL, MATCH_LENGTH_DEFAULT_LOG);
+        DEFAULT_OFFSET_TABLE.build(OFFSET_DEFAULT_DISTRIBUTION, OFFSET_DEFAULT_DISTRIBUTION.length - 1,
+                OFFSET_DEFAULT_LOG);
+    }
+
+    private static final int LITERALS_LENGTH_TABLE = 0;
+    private static final int OFFSET_TABLE = 1;
+    private static final int MATCH_LENGTH_TABLE = 2;
+
+    private final int maxWindowSize;
+    private final byte[] literals = new byte[MAX_BLOCK_SIZE];
+    private final int[] repeatedOffsets = new int[3];
+    private final ZstdBitReader reader = new ZstdBitReader();
+
+    private final ZstdHuffmanTable huffmanTable = new ZstdHuffmanTable();
+    private final ZstdFseTable literalsLengthTable = new ZstdFseTable(MAX_LITERALS_LENGTH_LOG);
+    private final ZstdFseTable matchLengthTable = new ZstdFseTable(MAX_MATCH_LENGTH_LOG);
+    private final ZstdFseTable offsetTable = new ZstdFseTable(MAX_OFFSET_LOG);
+
+    // The tables used by the current block, either one of the tables above, a predefined table or a table of the
+    // dictionary.
+    private ZstdHuffmanTable currentHuffmanTable;
+    private ZstdFseTable currentLiteralsLengthTable;
+    private ZstdFseTable currentMatchLengthTable;
+    private ZstdFseTable currentOffsetTable;
+
+    private byte[] window = new byte[0];
+    private int position;
+    private int historySize;
+    private int blockMaximumSize;
+    private int literalsSize;
+
+    ZstdBlockDecompressor(int maxWindowSize) {
+        this.maxWindowSize = maxWindowSize;
+    }
+
+    /**
+     * Prepares decompressing a new frame.
+     */
+    void reset(long windowSize, ZstdDictionary dictionary) {
+        if (windowSize > maxWindowSize) {
+            throw new DecompressionException(
+                    "window size too large: " + windowSize + " (expected: <= " + maxWindowSize + ')');
+        }
+        blockMaximumSize = (int) Math.min(windowSize, MAX_BLOCK_SIZE);
+        position = 0;
+        if (dictionary != null) {
+            byte[] content = dictionary.content();
+            historySize = (int) windowSize + content.length;
+            ensureCapacity(content.length);
+            System.arraycopy(content, 0, window, 0, content.length);
+            position = content.length;
+            dictionary.copyRepeatedOffsets(repeatedOffsets);
+            currentHuffmanTable = dictionary.huffmanTable();
+            currentLiteralsLengthTable = dictionary.literalsLengthTable();
+            currentMatchLengthTable = dictionary.matchLengthTable();
+            currentOffsetTable = dictionary.offsetTable();
+        } else {
+            historySize = (int) windowSize;
+            System.arraycopy(INITIAL_REPEATED_OFFSETS, 0, repeatedOffsets, 0, 3);
+            currentHuffmanTable = null;
+            currentLiteralsLengthTable = null;
+            currentMatchLengthTable = null;
+            currentOffsetTable = null;
+        }
+    }
+
+    byte[] window() {
+        return window;
+    }
+
+    /**
+     * Returns the position in the {@link #window()} at which the next block will be written.
+     */
+    int position() {
+        return position;
+    }
+
+    int blockMaximumSize() {
+        return blockMaximumSize;
+    }
+
+    /**
+     * Makes sure there is room for another block in the window, which may move the history to the start of it.
+     */
+    void prepareBlock() {
+        if (position + blockMaximumSize <= window.length) {
+            return;
+        }
+        int limit = 2 * historySize + blockMaximumSize;
+        if (window.length < limit) {
+            ensureCapacity(Math.min(limit, Math.max(window.length << 1, position + blockMaximumSize)));
+            if (position + blockMaximumSize <= window.length) {
+                return;
+            }
+        }
+        int keep = Math.min(position, historySize);
+        System.arraycopy(window, position - keep, window, 0, keep);
+        position = keep;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (window.length < capacity) {
+            window = Arrays.copyOf(window, capacity);
+        }
+    }
+
+    void decompressRaw(ByteBuf in, int size) {
+        checkBlockSize(size);
+        in.readBytes(window, position, size);
+        position += size;
+    }
+
+    void decompressRle(byte value, int size) {
+        checkBlockSize(size);
+        Arrays.fill(window, position, position + size, value);
+        position += size;
+    }
+
+    private void checkBlockSize(int size) {
+        if (size > blockMaximumSize) {
+            throw new DecompressionException(
+                    "block too large: " + size + " (expected: <= " + blockMaximumSize + ')');
+        }
+    }
+
+    void decompressCompressed(byte[] src, int offset, int length) {
+        int end = offset + length;
+        offset = decodeLiterals(src, offset, end);
+        decodeSequences(src, offset, end);
+    }
+
+    private int decodeLiterals(byte[] src, int offset, int end) {
+        int header = src[offset] & 0xFF;
+        int type = header & 3;
+        int sizeFormat = header >>> 2 & 3;
+        int regeneratedSize;
+        int compressedSize;
+        int headerSize;
+        boolean singleStream = false;
+        switch (type) {
+            case LITERALS_BLOCK_RAW:
+            case LITERALS_BLOCK_RLE:
+                switch (sizeFormat) {
+                    case 0:
+                    case 2:
+                        headerSize = 1;
+                        regeneratedSize = header >>> 3;
+                        break;
+                    case 1:
+                        headerSize = 2;
+                        checkAvailable(offset + headerSize, end);
+                        regeneratedSize = (header >>> 4) + ((src[offset + 1] & 0xFF) << 4);
+                        break;
+                    default:
+                        headerSize = 3;
+                        checkAvailable(offset + headerSize, end);
+                        regeneratedSize = (header >>> 4) + ((src[offset + 1] & 0xFF) << 4) +
+                                ((src[offset + 2] & 0xFF) << 12);
+                        break;
+                }
+                compressedSize = type == LITERALS_BLOCK_RAW ? regeneratedSize : 1;
+                break;
+            default:
+                switch (sizeFormat) {
+                    case 0:
+                        singleStream = true;
+                        // Fall through as the size is encoded the same way.
+                    case 1: {
+                        headerSize = 3;
+                        checkAvailable(offset + headerSize, end);
+                        int value = readIntLE(src, offset, 3);
+                        regeneratedSize = value >>> 4 & 0x3FF;
+                        compressedSize = value >>> 14 & 0x3FF;
+                        break;
+                    }
+                    case 2: {
+                        headerSize = 4;
+                        checkAvailable(offset + headerSize, end);
+                        int value = readIntLE(src, offset, 4);
+                        regeneratedSize = value >>> 4 & 0x3FFF;
+                        compressedSize = value >>> 18 & 0x3FFF;
+                        break;
+                    }
+                    default: {
+                        headerSize = 5;
+                        checkAvailable(offset + headerSize, end);
+                        long value = readIntLE(src, offset, 4) & 0xFFFFFFFFL | (src[offset + 4] & 0xFFL) << 32;
+                        regeneratedSize = (int) (value >>> 4 & 0x3FFFF);
+                        compressedSize = (int) (value >>> 22 & 0x3FFFF);
+                        break;
+                    }
+                }
+                break;
+        }
+        if (regeneratedSize > blockMaximumSize) {
+            throw new DecompressionException("too many literals: " + regeneratedSize);
+        }
+        int start = offset + headerSize;
+        checkAvailable(start + compressedSize, end);
+
+        switch (type) {
+            case LITERALS_BLOCK_RAW:
+                System.arraycopy(src, start, literals, 0, regeneratedSize);
+                break;
+            case LITERALS_BLOCK_RLE:
+                Arrays.fill(literals, 0, regeneratedSize, src[start]);
+                break;
+            default:
+                int streamsStart = start;
+                if (type == LITERALS_BLOCK_COMPRESSED) {
+                    streamsStart += huffmanTable.read(src, start, start + compressedSize);
+                    currentHuffmanTable = huffmanTable;
+                } else if (currentHuffmanTable == null) {
+                    throw new DecompressionException("treeless literals block without previous Huffman table");
+                }
+                decodeHuffmanLiterals(src, streamsStart, start + compressedSize, regeneratedSize, singleStream);
+                break;
+        }
+        literalsSize = regeneratedSize;
+        return start + compressedSize;
+    }
+
+    private void decodeHuffmanLiterals(byte[] src, int start, int end, int regeneratedSize, boolean singleStream) {
+        ZstdHuffmanTable table = currentHuffmanTable;
+        ZstdBitReader reader = this.reader;
+        if (singleStream) {
+            table.decodeStream(reader, src, start, end, literals, 0, regeneratedSize);
+            return;
+        }
+        checkAvailable(start + 6, end);
+        int size1 = readIntLE(src, start, 2);
+        int size2 = readIntLE(src, start + 2, 2);
+        int size3 = readIntLE(src, start + 4, 2);
+        int start1 = start + 6;
+        int start2 = start1 + size1;
+        int start3 = start2 + size2;
+        int start4 = start3 + size3;
+        if (start4 > end) {
+            throw new DecompressionException("invalid Huffman jump table");
+        }
+        int segmentSize = (regeneratedSize + 3) >>> 2;
+        int lastSegmentSize = regeneratedSize - 3 * segmentSize;
+        if (lastSegmentSize < 0) {
+            throw new DecompressionException("too few literals for 4 Huffman streams: " + regeneratedSize);
+        }
+        table.decodeStream(reader, src, start1, start2, literals, 0, segmentSize);
+        table.decodeStream(reader, src, start2, start3, literals, segmentSize, segmentSize);
+        table.decodeStream(reader, src, start3, start4, literals, 2 * segmentSize, segmentSize);
+        table.decodeStream(reader, src, start4, end, literals, 3 * segmentSize, lastSegmentSize);
+    }
+
+    private void decodeSequences(byte[] src, int offset, int end) {
+        checkAvailable(offset + 1, end);
+        int numSequences = src[offset++] & 0xFF;
+        if (numSequences >= 128) {
+            if (numSequences < 255) {
+                checkAvailable(offset + 1, end);
+                numSequences = ((numSequences - 128) << 8) + (src[offset++] & 0xFF);
+            } else {
+                checkAvailable(offset + 2, end);
+                numSequences = readIntLE(src, offset, 2) + 0x7F00;
+                offset += 2;
+            }
+        }
+
+        byte[] window = this.window;
+        int blockStart = position;
+        if (numSequences == 0) {
+            if (offset != end) {
+                throw new DecompressionException("unexpected data after the literals section");
+            }
+            System.arraycopy(literals, 0, window, position, literalsSize);
+            position += literalsSize;
+            return;
+        }
+
+        checkAvailable(offset + 1, end);
+        int modes = src[offset++] & 0xFF;
+        if ((modes & 3) != 0) {
+            throw new DecompressionException("reserved bits of the compression modes are set");
+        }
+        offset += readTable(src, offset, end, modes >>> 6, LITERALS_LENGTH_TABLE);
+        offset += readTable(src, offset, end, modes >>> 4 & 3, OFFSET_TABLE);
+        offset += readTable(src, offset, end, modes >>> 2 & 3, MATCH_LENGTH_TABLE);
+
+        ZstdFseTable llTable = currentLiteralsLengthTable;
+        ZstdFseTable ofTable = currentOffsetTable;
+        ZstdFseTable mlTable = currentMatchLengthTable;
+        ZstdBitReader reader = this.reader;
+        reader.init(src, offset, end);
+        int llState = reader.readBits(llTable.accuracyLog);
+        int ofState = reader.readBits(ofTable.accuracyLog);
+        int mlState = reader.readBits(mlTable.accuracyLog);
+
+        int[] repeatedOffsets = this.repeatedOffsets;
+        byte[] literals = this.literals;
+        int literalsPosition = 0;
+        int literalsSize = this.literalsSize;
+        int position = this.position;
+        int blockEnd = blockStart + blockMaximumSize;
+        for (int i = 0; i < numSequences; i++) {
+            int ofCode = ofTable.symbols[ofState];
+            int mlCode = mlTable.symbols[mlState];
+            int llCode = llTable.symbols[llState];
+
+            long offsetValue = (1L << ofCode) + reader.readBits(ofCode);
+            int matchLength = MATCH_LENGTH_BASE[mlCode] + reader.readBits(MATCH_LENGTH_BITS[mlCode]);
+            int literalsLength = LITERALS_LENGTH_BASE[llCode] + reader.readBits(LITERALS_LENGTH_BITS[llCode]);
+
+            long matchOffset;
+            if (offsetValue > 3) {
+                matchOffset = offsetValue - 3;
+                repeatedOffsets[2] = repeatedOffsets[1];
+                repeatedOffsets[1] = repeatedOffsets[0];
+                repeatedOffsets[0] = (int) Math.min(matchOffset, Integer.MAX_VALUE);
+            } else {
+                int index = (int) offsetValue - 1;
+                if (literalsLength == 0) {
+                    index++;
+                }
+                switch (index) {
+                    case 0:
+                        matchOffset = repeatedOffsets[0];
+                        break;
+                    case 1:
+                        matchOffset = repeatedOffsets[1];
+                        repeatedOffsets[1] = repeatedOffsets[0];
+                        repeatedOffsets[0] = (int) matchOffset;
+                        break;
+                    case 2:
+                        matchOffset = repeatedOffsets[2];
+                        repeatedOffsets[2] = repeatedOffsets[1];
+                        repeatedOffsets[1] = repeatedOffsets[0];
+                        repeatedOffsets[0] = (int) matchOffset;
+                        break;
+                    default:
+                        matchOffset = repeatedOffsets[0] - 1;
+                        repeatedOffsets[2] = repeatedOffsets[1];
+                        repeatedOffsets[1] = repeatedOffsets[0];
+                        repeatedOffsets[0] = (int) matchOffset;
+                        break;
+                }
+            }
+
+            if (i != numSequences - 1) {
+                llState = llTable.baselines[llState] + reader.readBits(llTable.numberOfBits[llState]);
+                mlState = mlTable.baselines[mlState] + reader.readBits(mlTable.numberOfBits[mlState]);
+                ofState = ofTable.baselines[ofState] + reader.readBits(ofTable.numberOfBits[ofState]);
+            }
+
+            if (literalsLength > literalsSize - literalsPosition) {
+                throw new DecompressionException("not enough literals for sequence");
+            }
+            if (position + literalsLength + matchLength > blockEnd) {
+                throw new DecompressionException("block regenerates too many bytes");
+            }
+            System.arraycopy(literals, literalsPosition, window, position, literalsLength);
+            literalsPosition += literalsLength;
+            position += literalsLength;
+
+            if (matchOffset <= 0 || matchOffset > position) {
+                throw new DecompressionException("invalid match offset: " + matchOffset);
+            }
+            int matchStart = position - (int) matchOffset;
+            if (matchOffset >= matchLength) {
+                System.arraycopy(window, matchStart, window, position, matchLength);
+                position += matchLength;
+            } else {
+                // Overlapping match, copy byte by byte to repeat the pattern.
+                for (int matchEnd = position + matchLength; position < matchEnd; position++) {
+                    window[position] = window[matchStart++];
+                }
+            }
+        }
+        if (!reader.isFinished()) {
+            throw new DecompressionException("sequences bitstream not fully consumed");
+        }
+
+        int remaining = literalsSize - literalsPosition;
+        if (position + remaining > blockEnd) {
+            throw new DecompressionException("block regenerates too many bytes");
+        }
+        System.arraycopy(literals, literalsPosition, window, position, remaining);
+        this.position = position + remaining;
+    }
+
+    private int readTable(byte[] src, int offset, int end, int mode, int kind) {
+        ZstdFseTable table;
+        switch (kind) {
+            case LITERALS_LENGTH_TABLE:
+                table = literalsLengthTable;
+                break;
+            case OFFSET_TABLE:
+                table = offsetTable;
+                break;
+            default:
+                table = matchLengthTable;
+                break;
+        }
+        int maxSymbol = kind == LITERALS_LENGTH_TABLE ? MAX_LITERALS_LENGTH_SYMBOL :
+                kind == OFFSET_TABLE ? MAX_OFFSET_SYMBOL : MAX_MATCH_LENGTH_SYMBOL;
+        int consumed = 0;
+        ZstdFseTable current;
+        switch (mode) {
+            case SEQUENCE_MODE_PREDEFINED:
+                current = kind == LITERALS_LENGTH_TABLE ? DEFAULT_LITERALS_LENGTH_TABLE :
+                        kind == OFFSET_TABLE ? DEFAULT_OFFSET_TABLE : DEFAULT_MATCH_LENGTH_TABLE;
+                break;
+            case SEQUENCE_MODE_RLE:
+                checkAvailable(offset + 1, end);
+                int symbol = src[offset] & 0xFF;
+                if (symbol > maxSymbol) {
+                    throw new DecompressionException("invalid RLE symbol: " + symbol);
+                }
+                table.buildRle(symbol);
+                current = table;
+                consumed = 1;
+                break;
+            case SEQUENCE_MODE_FSE:
+                int maxLog = kind == LITERALS_LENGTH_TABLE ? MAX_LITERALS_LENGTH_LOG :
+                        kind == OFFSET_TABLE ? MAX_OFFSET_LOG : MAX_MATCH_LENGTH_LOG;
+                consumed = table.read(src, offset, end, maxSymbol, maxLog);
+                current = table;
+                break;
+            default:
+                current = kind == LITERALS_LENGTH_TABLE ? currentLiteralsLengthTable :
+                        kind == OFFSET_TABLE ? currentOffsetTable : currentMatchLengthTable;
+                if (current == null) {
+                    throw new DecompressionException("repeat mode without previous table");
+                }
+                break;
+        }
+        switch (kind) {
+            case LITERALS_LENGTH_TABLE:
+                currentLiteralsLengthTable = current;
+                break;
+            case OFFSET_TABLE:
+                currentOffsetTable = current;
+                break;
+            default:
+                currentMatchLengthTable = current;
+                break;
+        }
+        return consumed;
+    }
+
+    private static void checkAvailable(int required, int end) {
+        if (required > end) {
+            throw new DecompressionException("compressed block is truncated");
+        }
+    }
+
+    private static int readIntLE(byte[] src, int offset, int length) {
+        int value = 0;
+        for (int i = 0; i < length; i++) {
+            value |= (src[offset + i] & 0xFF) << (i << 3);
+        }
+        return value;
+    }
+}
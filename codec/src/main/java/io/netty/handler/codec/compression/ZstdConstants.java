@@ -0,0 +1,133 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+/**
+ * Constants for both the {@link ZstdEncoder} and the {@link ZstdDecoder}, as defined by
+ * <a href="https://tools.ietf.org/html/rfc8878">RFC 8878</a>.
+ */
+final class ZstdConstants {
+
+    /**
+     * Magic number of a Zstandard frame.
+     */
+    static final int MAGIC_NUMBER = 0xFD2FB528;
+
+    /**
+     * Magic number of a skippable frame, the lowest 4 bits may have any value.
+     */
+    static final int SKIPPABLE_MAGIC_NUMBER = 0x184D2A50;
+    static final int SKIPPABLE_MAGIC_MASK = 0xFFFFFFF0;
+
+    /**
+     * Magic number of a dictionary in the Zstandard format.
+     */
+    static final int DICTIONARY_MAGIC_NUMBER = 0xEC30A437;
+
+    /**
+     * Minimum and maximum size of a frame header, including the magic number.
+     */
+    static final int MIN_FRAME_HEADER_SIZE = 6;
+    static final int MAX_FRAME_HEADER_SIZE = 18;
+
+    static final int BLOCK_HEADER_SIZE = 3;
+    static final int CHECKSUM_SIZE = 4;
+
+    static final int BLOCK_TYPE_RAW = 0;
+    static final int BLOCK_TYPE_RLE = 1;
+    static final int BLOCK_TYPE_COMPRESSED = 2;
+
+    /**
+     * Maximum number of bytes a block can regenerate.
+     */
+    static final int MAX_BLOCK_SIZE = 128 * 1024;
+
+    static final int MIN_WINDOW_LOG = 10;
+    static final int MAX_WINDOW_LOG = 31;
+
+    static final int LITERALS_BLOCK_RAW = 0;
+    static final int LITERALS_BLOCK_RLE = 1;
+    static final int LITERALS_BLOCK_COMPRESSED = 2;
+    static final int LITERALS_BLOCK_TREELESS = 3;
+
+    static final int SEQUENCE_MODE_PREDEFINED = 0;
+    static final int SEQUENCE_MODE_RLE = 1;
+    static final int SEQUENCE_MODE_FSE = 2;
+    static final int SEQUENCE_MODE_REPEAT = 3;
+
+    static final int MAX_HUFFMAN_LOG = 11;
+    static final int MAX_HUFFMAN_WEIGHTS_LOG = 6;
+
+    static final int MAX_LITERALS_LENGTH_SYMBOL = 35;
+    static final int MAX_MATCH_LENGTH_SYMBOL = 52;
+    static final int MAX_OFFSET_SYMBOL = 31;
+
+    static final int MAX_LITERALS_LENGTH_LOG = 9;
+    static final int MAX_MATCH_LENGTH_LOG = 9;
+    static final int MAX_OFFSET_LOG = 8;
+
+    static final int MIN_MATCH = 3;
+
+    static final int[] LITERALS_LENGTH_BASE = {
+            0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15,
+            16, 18, 20, 22, 24, 28, 32, 40, 48, 64, 128, 256, 512, 1024, 2048, 4096,
+            8192, 16384, 32768, 65536 };
+
+    static final int[] LITERALS_LENGTH_BITS = {
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+            1, 1, 1, 1, 2, 2, 3, 3, 4, 6, 7, 8, 9, 10, 11, 12,
+            13, 14, 15, 16 };
+
+    static final int[] MATCH_LENGTH_BASE = {
+            3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18,
+            19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 32, 33, 34,
+            35, 37, 39, 41, 43, 47, 51, 59, 67, 83, 99, 131, 259, 515, 1027, 2051,
+            4099, 8195, 16387, 32771, 65539 };
+
+    static final int[] MATCH_LENGTH_BITS = {
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+            1, 1, 1, 1, 2, 2, 3, 3, 4, 4, 5, 7, 8, 9, 10, 11,
+            12, 13, 14, 15, 16 };
+
+    /**
+     * Predefined distributions which are used if the sequences section uses the predefined mode.
+     */
+    static final short[] LITERALS_LENGTH_DEFAULT_DISTRIBUTION = {
+            4, 3, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 1, 1, 1,
+            2, 2, 2, 2, 2, 2, 2, 2, 2, 3, 2, 1, 1, 1, 1, 1,
+            -1, -1, -1, -1 };
+    static final int LITERALS_LENGTH_DEFAULT_LOG = 6;
+
+    static final short[] MATCH_LENGTH_DEFAULT_DISTRIBUTION = {
+            1, 4, 3, 2, 2, 2, 2, 2, 2, 1, 1, 1, 1, 1, 1, 1,
+            1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
+            1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, -1, -1,
+            -1, -1, -1, -1, -1 };
+    static final int MATCH_LENGTH_DEFAULT_LOG = 6;
+
+    static final short[] OFFSET_DEFAULT_DISTRIBUTION = {
+            1, 1, 1, 1, 1, 1, 2, 2, 2, 1, 1, 1, 1, 1, 1, 1,
+            1, 1, 1, 1, 1, 1, 1, 1, -1, -1, -1, -1, -1 };
+    static final int OFFSET_DEFAULT_LOG = 5;
+
+    /**
+     * Initial values of the repeated offsets.
+     */
+    static final int[] INITIAL_REPEATED_OFFSETS = { 1, 4, 8 };
+
+    private ZstdConstants() { }
+}
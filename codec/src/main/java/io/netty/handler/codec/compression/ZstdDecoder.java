@@ -0,0 +1,347 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+
+import java.util.List;
+
+import static io.netty.handler.codec.compression.ZstdConstants.*;
+
+/**
+ * Uncompresses a {@link ByteBuf} encoded with the Zstandard format as described in
+ * <a href="https://tools.ietf.org/html/rfc8878">RFC 8878</a>.
+ * <p>
+ * Any number of frames may follow each other, skippable frames are ignored. The decompressed content of each block
+ * is emitted as soon as the block was received, so the decoder works well for streams which are flushed
+ * frequently. All buffers which are needed to decompress are kept between frames, so the memory they take is bound
+ * by the window size of the frames and the maximum window size given to the constructor.
+ */
+public class ZstdDecoder extends ByteToMessageDecoder {
+    /**
+     * The default maximum window size, which is the size the format recommends every decoder to support.
+     */
+    public static final int DEFAULT_MAX_WINDOW_SIZE = 8 * 1024 * 1024;
+
+    private static final int[] DICTIONARY_ID_SIZES = { 0, 1, 2, 4 };
+    private static final int[] CONTENT_SIZE_SIZES = { 0, 2, 4, 8 };
+
+    /**
+     * Current state of stream.
+     */
+    private enum State {
+        INIT_FRAME,
+        SKIP_FRAME,
+        INIT_BLOCK,
+        DECOMPRESS_BLOCK,
+        CHECK_CHECKSUM,
+        CORRUPTED
+    }
+
+    private State currentState = State.INIT_FRAME;
+
+    private final ZstdDictionary dictionary;
+    private final boolean validateChecksums;
+    private final ZstdBlockDecompressor decompressor;
+    private final XxHash64 checksum = new XxHash64();
+
+    /**
+     * Used to hold compressed blocks when the incoming buffers are not backed by an array.
+     */
+    private byte[] blockBuffer;
+
+    /**
+     * Remaining bytes of the skippable frame which is currently skipped.
+     */
+    private long skipLength;
+
+    /**
+     * Whether the current frame has a content checksum.
+     */
+    private boolean hasChecksum;
+
+    private boolean lastBlock;
+    private int blockType;
+    private int blockSize;
+
+    /**
+     * Creates a new decoder which does not use a dictionary and uses the {@link #DEFAULT_MAX_WINDOW_SIZE}.
+     */
+    public ZstdDecoder() {
+        this(null);
+    }
+
+    /**
+     * Creates a new decoder which uses the {@link #DEFAULT_MAX_WINDOW_SIZE}.
+     *
+     * @param dictionary  the dictionary the frames were compressed with, or {@code null} if none was used
+     */
+    public ZstdDecoder(ZstdDictionary dictionary) {
+        this(dictionary, DEFAULT_MAX_WINDOW_SIZE, true);
+    }
+
+    /**
+     * Creates a new decoder.
+     *
+     * @param dictionary         the dictionary the frames were compressed with, or {@code null} if none was used
+     * @param maxWindowSize      the largest window size accepted, frames which need a larger window are rejected
+     *                           with a {@link DecompressionException} before any memory is allocated for them
+     * @param validateChecksums  if {@code true}, the content checksum of the frames will be validated against the
+     *                           decompressed data, and if the checksums do not match, a suitable
+     *                           {@link DecompressionException} will be thrown
+     */
+    public ZstdDecoder(ZstdDictionary dictionary, int maxWindowSize, boolean validateChecksums) {
+        if (maxWindowSize < 1 << MIN_WINDOW_LOG) {
+            throw new IllegalArgumentException(
+                    "maxWindowSize: " + maxWindowSize + " (expected: >= " + (1 << MIN_WINDOW_LOG) + ')');
+        }
+        this.dictionary = dictionary;
+        this.validateChecksums = validateChecksums;
+        decompressor = new ZstdBlockDecompressor(maxWindowSize);
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        try {
+            for (;;) {
+                switch (currentState) {
+                case INIT_FRAME:
+                    if (!readFrameHeader(in)) {
+                        return;
+                    }
+                    break;
+                case SKIP_FRAME:
+                    int skip = (int) Math.min(skipLength, in.readableBytes());
+                    in.skipBytes(skip);
+                    skipLength -= skip;
+                    if (skipLength > 0) {
+                        return;
+                    }
+                    currentState = State.INIT_FRAME;
+                    break;
+                case INIT_BLOCK:
+                    if (in.readableBytes() < BLOCK_HEADER_SIZE) {
+                        return;
+                    }
+                    int header = in.readUnsignedMediumLE();
+                    lastBlock = (header & 1) != 0;
+                    blockType = header >>> 1 & 3;
+                    blockSize = header >>> 3;
+                    if (blockType > BLOCK_TYPE_COMPRESSED) {
+                        throw new DecompressionException("reserved block type");
+                    }
+                    if (blockSize > decompressor.blockMaximumSize()) {
+                        throw new DecompressionException(String.format(
+                                "block too large: %d (expected: <= %d)", blockSize,
+                                decompressor.blockMaximumSize()));
+                    }
+                    currentState = State.DECOMPRESS_BLOCK;
+                    // fall through
+                case DECOMPRESS_BLOCK:
+                    if (!decompressBlock(ctx, in, out)) {
+                        return;
+                    }
+                    break;
+                case CHECK_CHECKSUM:
+                    if (in.readableBytes() < CHECKSUM_SIZE) {
+                        return;
+                    }
+                    int expected = in.readIntLE();
+                    if (validateChecksums) {
+                        int actual = (int) checksum.digest();
+                        if (actual != expected) {
+                            throw new DecompressionException(String.format(
+                                    "stream corrupted: mismatching checksum: %d (expected: %d)",
+                                    actual, expected));
+                        }
+                    }
+                    currentState = State.INIT_FRAME;
+                    break;
+                case CORRUPTED:
+                    in.skipBytes(in.readableBytes());
+                    return;
+                default:
+                    throw new IllegalStateException();
+                }
+            }
+        } catch (Exception e) {
+            currentState = State.CORRUPTED;
+            throw e;
+        }
+    }
+
+    private boolean readFrameHeader(ByteBuf in) {
+        if (in.readableBytes() < 4) {
+            return false;
+        }
+        int idx = in.readerIndex();
+        int magic = in.getIntLE(idx);
+        if ((magic & SKIPPABLE_MAGIC_MASK) == SKIPPABLE_MAGIC_NUMBER) {
+            if (in.readableBytes() < 8) {
+                return false;
+            }
+            skipLength = in.getUnsignedIntLE(idx + 4);
+            in.skipBytes(8);
+            currentState = State.SKIP_FRAME;
+            return true;
+        }
+        if (magic != MAGIC_NUMBER) {
+            throw new DecompressionException("unexpected frame identifier: 0x" + Integer.toHexString(magic));
+        }
+        if (in.readableBytes() < MIN_FRAME_HEADER_SIZE - 1) {
+            return false;
+        }
+        int descriptor = in.getUnsignedByte(idx + 4);
+        if ((descriptor & 0x08) != 0) {
+            throw new DecompressionException("reserved bit of the frame header descriptor is set");
+        }
+        boolean singleSegment = (descriptor & 0x20) != 0;
+        int dictionaryIdSize = DICTIONARY_ID_SIZES[descriptor & 3];
+        int contentSizeFlag = descriptor >>> 6;
+        int contentSizeSize = contentSizeFlag == 0 && singleSegment ? 1 : CONTENT_SIZE_SIZES[contentSizeFlag];
+        int headerSize = 5 + (singleSegment ? 0 : 1) + dictionaryIdSize + contentSizeSize;
+        if (in.readableBytes() < headerSize) {
+            return false;
+        }
+
+        int offset = idx + 5;
+        long windowSize = 0;
+        if (!singleSegment) {
+            int windowDescriptor = in.getUnsignedByte(offset++);
+            int windowLog = MIN_WINDOW_LOG + (windowDescriptor >>> 3);
+            long windowBase = 1L << windowLog;
+            windowSize = windowBase + (windowBase >>> 3) * (windowDescriptor & 7);
+        }
+        int dictionaryId = 0;
+        switch (dictionaryIdSize) {
+            case 1:
+                dictionaryId = in.getUnsignedByte(offset);
+                break;
+            case 2:
+                dictionaryId = in.getUnsignedShortLE(offset);
+                break;
+            case 4:
+                dictionaryId = in.getIntLE(offset);
+                break;
+            default:
+                break;
+        }
+        offset += dictionaryIdSize;
+        if (singleSegment) {
+            // The window has to hold the whole content, which is the only thing it needs to hold.
+            switch (contentSizeSize) {
+                case 1:
+                    windowSize = in.getUnsignedByte(offset);
+                    break;
+                case 2:
+                    windowSize = in.getUnsignedShortLE(offset) + 256;
+                    break;
+                case 4:
+                    windowSize = in.getUnsignedIntLE(offset);
+                    break;
+                default:
+                    windowSize = in.getLongLE(offset);
+                    if (windowSize < 0) {
+                        windowSize = Long.MAX_VALUE;
+                    }
+                    break;
+            }
+        }
+
+        ZstdDictionary dictionary = this.dictionary;
+        if (dictionaryId != 0 && (dictionary == null || dictionary.id() != dictionaryId)) {
+            throw new DecompressionException("frame requires unknown dictionary: " + (dictionaryId & 0xFFFFFFFFL));
+        }
+        decompressor.reset(windowSize, dictionary);
+        hasChecksum = (descriptor & 0x04) != 0;
+        if (hasChecksum) {
+            checksum.reset();
+        }
+        in.skipBytes(headerSize);
+        currentState = State.INIT_BLOCK;
+        return true;
+    }
+
+    private boolean decompressBlock(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        final int blockSize = this.blockSize;
+        final ZstdBlockDecompressor decompressor = this.decompressor;
+        switch (blockType) {
+            case BLOCK_TYPE_RAW:
+                if (in.readableBytes() < blockSize) {
+                    return false;
+                }
+                decompressor.prepareBlock();
+                decompressor.decompressRaw(in, blockSize);
+                emit(ctx, out, decompressor.position() - blockSize, blockSize);
+                break;
+            case BLOCK_TYPE_RLE:
+                if (in.readableBytes() < 1) {
+                    return false;
+                }
+                decompressor.prepareBlock();
+                decompressor.decompressRle(in.readByte(), blockSize);
+                emit(ctx, out, decompressor.position() - blockSize, blockSize);
+                break;
+            default:
+                if (in.readableBytes() < blockSize) {
+                    return false;
+                }
+                if (blockSize == 0) {
+                    throw new DecompressionException("empty compressed block");
+                }
+                final byte[] src;
+                final int srcOffset;
+                if (in.hasArray()) {
+                    src = in.array();
+                    srcOffset = in.arrayOffset() + in.readerIndex();
+                } else {
+                    if (blockBuffer == null) {
+                        blockBuffer = new byte[MAX_BLOCK_SIZE];
+                    }
+                    src = blockBuffer;
+                    srcOffset = 0;
+                    in.getBytes(in.readerIndex(), src, 0, blockSize);
+                }
+                decompressor.prepareBlock();
+                int start = decompressor.position();
+                decompressor.decompressCompressed(src, srcOffset, blockSize);
+                in.skipBytes(blockSize);
+                emit(ctx, out, start, decompressor.position() - start);
+                break;
+        }
+        if (!lastBlock) {
+            currentState = State.INIT_BLOCK;
+        } else if (hasChecksum) {
+            currentState = State.CHECK_CHECKSUM;
+        } else {
+            currentState = State.INIT_FRAME;
+        }
+        return true;
+    }
+
+    private void emit(ChannelHandlerContext ctx, List<Object> out, int offset, int length) {
+        if (length == 0) {
+            return;
+        }
+        byte[] window = decompressor.window();
+        if (hasChecksum && validateChecksums) {
+            checksum.update(window, offset, length);
+        }
+        out.add(ctx.alloc().heapBuffer(length, length).writeBytes(window, offset, length));
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import java.util.Arrays;
+
+import static io.netty.handler.codec.compression.ZstdConstants.*;
+
+/**
+ * A dictionary which can be used by the {@link ZstdEncoder} and {@link ZstdDecoder} to improve the compression of
+ * small messages which share a lot of content, like the payloads of a protocol.
+ * <p>
+ * Both dictionaries in the format written by {@code zstd --train} and raw content dictionaries, which contain only
+ * the content that is referenced by the compressed data, are supported. A raw content dictionary has the id
+ * {@code 0} and thus is not recorded in the frame header.
+ * <p>
+ * A dictionary is parsed once and immutable afterwards, so a single instance can be shared by all channels.
+ */
+public final class ZstdDictionary {
+    private static final int MIN_RAW_CONTENT_SIZE = 8;
+
+    private final int id;
+    private final byte[] content;
+    private final int[] repeatedOffsets = new int[3];
+    private final ZstdHuffmanTable huffmanTable;
+    private final ZstdFseTable literalsLengthTable;
+    private final ZstdFseTable matchLengthTable;
+    private final ZstdFseTable offsetTable;
+
+    /**
+     * Creates a new dictionary from its serialized form.
+     *
+     * @param dictionary a dictionary as created by {@code zstd --train} or the raw content to use as dictionary
+     */
+    public ZstdDictionary(byte[] dictionary) {
+        if (dictionary == null) {
+            throw new NullPointerException("dictionary");
+        }
+        if (dictionary.length >= 8 && XxHash64.readIntLE(dictionary, 0) == DICTIONARY_MAGIC_NUMBER) {
+            id = XxHash64.readIntLE(dictionary, 4);
+            int end = dictionary.length;
+            int offset = 8;
+            try {
+                huffmanTable = new ZstdHuffmanTable();
+                offset += huffmanTable.read(dictionary, offset, end);
+                offsetTable = new ZstdFseTable(MAX_OFFSET_LOG);
+                offset += offsetTable.read(dictionary, offset, end, MAX_OFFSET_SYMBOL, MAX_OFFSET_LOG);
+                matchLengthTable = new ZstdFseTable(MAX_MATCH_LENGTH_LOG);
+                offset += matchLengthTable.read(
+                        dictionary, offset, end, MAX_MATCH_LENGTH_SYMBOL, MAX_MATCH_LENGTH_LOG);
+                literalsLengthTable = new ZstdFseTable(MAX_LITERALS_LENGTH_LOG);
+                offset += literalsLengthTable.read(
+                        dictionary, offset, end, MAX_LITERALS_LENGTH_SYMBOL, MAX_LITERALS_LENGTH_LOG);
+            } catch (DecompressionException e) {
+                throw new IllegalArgumentException("invalid dictionary entropy tables", e);
+            }
+            if (offset + 12 > end) {
+                throw new IllegalArgumentException("dictionary is truncated");
+            }
+            content = Arrays.copyOfRange(dictionary, offset + 12, end);
+            for (int i = 0; i < 3; i++) {
+                int repeatedOffset = XxHash64.readIntLE(dictionary, offset + (i << 2));
+                if (repeatedOffset <= 0 || repeatedOffset > content.length) {
+                    throw new IllegalArgumentException("invalid repeated offset in dictionary: " + repeatedOffset);
+                }
+                repeatedOffsets[i] = repeatedOffset;
+            }
+        } else {
+            if (dictionary.length < MIN_RAW_CONTENT_SIZE) {
+                throw new IllegalArgumentException("dictionary content too small: " + dictionary.length +
+                        " (expected: >= " + MIN_RAW_CONTENT_SIZE + ')');
+            }
+            id = 0;
+            content = dictionary.clone();
+            System.arraycopy(INITIAL_REPEATED_OFFSETS, 0, repeatedOffsets, 0, 3);
+            huffmanTable = null;
+            literalsLengthTable = null;
+            matchLengthTable = null;
+            offsetTable = null;
+        }
+    }
+
+    /**
+     * Returns the id of this dictionary, or {@code 0} if this is a raw content dictionary.
+     */
+    public int id() {
+        return id;
+    }
+
+    byte[] content() {
+        return content;
+    }
+
+    void copyRepeatedOffsets(int[] dst) {
+        System.arraycopy(repeatedOffsets, 0, dst, 0, 3);
+    }
+
+    ZstdHuffmanTable huffmanTable() {
+        return huffmanTable;
+    }
+
+    ZstdFseTable literalsLengthTable() {
+        return literalsLengthTable;
+    }
+
+    ZstdFseTable matchLengthTable() {
+        return matchLengthTable;
+    }
+
+    ZstdFseTable offsetTable() {
+        return offsetTable;
+    }
+}
@@ -0,0 +1,332 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.ChannelPromiseNotifier;
+import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.util.concurrent.EventExecutor;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.netty.handler.codec.compression.ZstdConstants.*;
+
+/**
+ * Compresses a {@link ByteBuf} using the Zstandard format as described in
+ * <a href="https://tools.ietf.org/html/rfc8878">RFC 8878</a>.
+ * <p>
+ * All data written to a channel is compressed into a single frame, which is finished when the encoder is closed.
+ * The data is buffered until either a block is full or the channel is flushed, so every flush produces a block
+ * which can be decompressed on its own by the receiving {@link ZstdDecoder}. The window, hash tables and entropy
+ * tables are allocated once per encoder and used for all blocks of the frame, so later blocks can refer to the
+ * content of earlier ones.
+ */
+public class ZstdEncoder extends MessageToByteEncoder<ByteBuf> {
+    /**
+     * The compression level used by default, which compresses about as well as {@code gzip} but is faster.
+     */
+    public static final int DEFAULT_COMPRESSION_LEVEL = 3;
+
+    /**
+     * The highest compression level, which searches longest for matches.
+     */
+    public static final int MAX_COMPRESSION_LEVEL = 9;
+
+    /**
+     * The base two logarithm of the window size used by default.
+     */
+    public static final int DEFAULT_WINDOW_LOG = 17;
+
+    private static final int MAX_ENCODER_WINDOW_LOG = 27;
+    private static final int MIN_BLOCK_SIZE = 64;
+
+    private final int compressionLevel;
+    private final int windowLog;
+    private final int blockSize;
+    private final ZstdDictionary dictionary;
+
+    /**
+     * Compresses the blocks of the frame, created when the first data is written.
+     */
+    private ZstdBlockCompressor compressor;
+
+    /**
+     * Calculates the content checksum, or {@code null} if no checksum is written.
+     */
+    private XxHash64 checksum;
+
+    /**
+     * Indicates if the compressed stream has been finished.
+     */
+    private volatile boolean finished;
+
+    /**
+     * Used to interact with its {@link io.netty.channel.ChannelPipeline} and {@link io.netty.channel.EventLoop}.
+     */
+    private volatile ChannelHandlerContext ctx;
+
+    /**
+     * Creates a new encoder with the {@link #DEFAULT_COMPRESSION_LEVEL}.
+     */
+    public ZstdEncoder() {
+        this(DEFAULT_COMPRESSION_LEVEL);
+    }
+
+    /**
+     * Creates a new encoder with the specified compression level.
+     *
+     * @param compressionLevel  {@code 1} yields the fastest compression and {@link #MAX_COMPRESSION_LEVEL} the best
+     *                          compression
+     */
+    public ZstdEncoder(int compressionLevel) {
+        this(compressionLevel, null);
+    }
+
+    /**
+     * Creates a new encoder with the specified compression level and dictionary.
+     *
+     * @param compressionLevel  {@code 1} yields the fastest compression and {@link #MAX_COMPRESSION_LEVEL} the best
+     *                          compression
+     * @param dictionary        the dictionary to compress with, or {@code null} to use none
+     */
+    public ZstdEncoder(int compressionLevel, ZstdDictionary dictionary) {
+        this(compressionLevel, DEFAULT_WINDOW_LOG, MAX_BLOCK_SIZE, true, dictionary);
+    }
+
+    /**
+     * Creates a new customizable encoder.
+     *
+     * @param compressionLevel  {@code 1} yields the fastest compression and {@link #MAX_COMPRESSION_LEVEL} the best
+     *                          compression
+     * @param windowLog         the base two logarithm of the window size, so how far back matches can refer.
+     *                          Larger values result in better compression at the expense of memory usage, of both
+     *                          the encoder and the decoder. Must be in the range {@code 10} to {@code 27}.
+     * @param blockSize         the maximum number of bytes compressed as a block, which must not be larger than
+     *                          the window size or {@code 128 KiB}
+     * @param checksum          if {@code true}, the checksum of the content is appended to the frame
+     * @param dictionary        the dictionary to compress with, or {@code null} to use none
+     */
+    public ZstdEncoder(int compressionLevel, int windowLog, int blockSize, boolean checksum,
+                       ZstdDictionary dictionary) {
+        checkParameters(compressionLevel, windowLog, blockSize);
+        this.compressionLevel = compressionLevel;
+        this.windowLog = windowLog;
+        this.blockSize = blockSize;
+        this.dictionary = dictionary;
+        if (checksum) {
+            this.checksum = new XxHash64();
+        }
+    }
+
+    static void checkParameters(int compressionLevel, int windowLog, int blockSize) {
+        if (compressionLevel < 1 || compressionLevel > MAX_COMPRESSION_LEVEL) {
+            throw new IllegalArgumentException(
+                    "compressionLevel: " + compressionLevel + " (expected: 1-" + MAX_COMPRESSION_LEVEL + ')');
+        }
+        if (windowLog < MIN_WINDOW_LOG || windowLog > MAX_ENCODER_WINDOW_LOG) {
+            throw new IllegalArgumentException(
+                    "windowLog: " + windowLog + " (expected: " + MIN_WINDOW_LOG + '-' + MAX_ENCODER_WINDOW_LOG + ')');
+        }
+        int maxBlockSize = Math.min(MAX_BLOCK_SIZE, 1 << windowLog);
+        if (blockSize < MIN_BLOCK_SIZE || blockSize > maxBlockSize) {
+            throw new IllegalArgumentException(
+                    "blockSize: " + blockSize + " (expected: " + MIN_BLOCK_SIZE + '-' + maxBlockSize + ')');
+        }
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, ByteBuf in, ByteBuf out) throws Exception {
+        if (finished) {
+            out.writeBytes(in);
+            return;
+        }
+        ZstdBlockCompressor compressor = compressor(out);
+        while (in.isReadable()) {
+            int n = compressor.append(in, in.readableBytes());
+            if (checksum != null) {
+                checksum.update(compressor.window(), compressor.position() - n, n);
+            }
+            if (compressor.isBlockFull()) {
+                compressor.compressBlock(out, false);
+            }
+        }
+    }
+
+    @Override
+    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, ByteBuf msg, boolean preferDirect) throws Exception {
+        // Blocks are written once they are full, in the worst case without any compression.
+        int pending = compressor != null ? compressor.pending() : 0;
+        int size = (pending + msg.readableBytes()) / blockSize * (blockSize + BLOCK_HEADER_SIZE) +
+                MAX_FRAME_HEADER_SIZE;
+        return ctx.alloc().heapBuffer(size);
+    }
+
+    /**
+     * Returns the compressor, creating it and writing the frame header first if this is the first data.
+     */
+    private ZstdBlockCompressor compressor(ByteBuf out) {
+        ZstdBlockCompressor compressor = this.compressor;
+        if (compressor == null) {
+            writeFrameHeader(out);
+            compressor = new ZstdBlockCompressor(compressionLevel, windowLog, blockSize, dictionary);
+            this.compressor = compressor;
+        }
+        return compressor;
+    }
+
+    private void writeFrameHeader(ByteBuf out) {
+        int dictionaryId = dictionary != null ? dictionary.id() : 0;
+        int dictionaryIdFlag = dictionaryId == 0 ? 0 : (dictionaryId & 0xFFFFFF00) == 0 ? 1 :
+                (dictionaryId & 0xFFFF0000) == 0 ? 2 : 3;
+        out.writeIntLE(MAGIC_NUMBER);
+        out.writeByte((checksum != null ? 0x04 : 0) | dictionaryIdFlag);
+        out.writeByte((windowLog - MIN_WINDOW_LOG) << 3);
+        switch (dictionaryIdFlag) {
+            case 1:
+                out.writeByte(dictionaryId);
+                break;
+            case 2:
+                out.writeShortLE(dictionaryId);
+                break;
+            case 3:
+                out.writeIntLE(dictionaryId);
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        ZstdBlockCompressor compressor = this.compressor;
+        if (!finished && compressor != null && compressor.pending() > 0) {
+            ByteBuf out = ctx.alloc().heapBuffer(compressor.pending() + BLOCK_HEADER_SIZE);
+            boolean success = false;
+            try {
+                compressor.compressBlock(out, false);
+                success = true;
+            } finally {
+                if (!success) {
+                    out.release();
+                }
+            }
+            ctx.write(out);
+        }
+        ctx.flush();
+    }
+
+    private ChannelFuture finishEncode(final ChannelHandlerContext ctx, ChannelPromise promise) {
+        if (finished) {
+            promise.setSuccess();
+            return promise;
+        }
+        finished = true;
+
+        int pending = compressor != null ? compressor.pending() : 0;
+        final ByteBuf footer = ctx.alloc().heapBuffer(
+                MAX_FRAME_HEADER_SIZE + BLOCK_HEADER_SIZE + pending + CHECKSUM_SIZE);
+        if (compressor != null) {
+            compressor.compressBlock(footer, true);
+        } else {
+            // Nothing was written, so there is no need to set up the compressor for an empty last block.
+            writeFrameHeader(footer);
+            footer.writeMediumLE(1);
+        }
+        if (checksum != null) {
+            footer.writeIntLE((int) checksum.digest());
+        }
+        compressor = null;
+        checksum = null;
+
+        return ctx.writeAndFlush(footer, promise);
+    }
+
+    /**
+     * Returns {@code true} if and only if the compressed stream has been finished.
+     */
+    public boolean isClosed() {
+        return finished;
+    }
+
+    /**
+     * Close this {@link ZstdEncoder} and so finish the encoding.
+     *
+     * The returned {@link ChannelFuture} will be notified once the operation completes.
+     */
+    public ChannelFuture close() {
+        return close(ctx().newPromise());
+    }
+
+    /**
+     * Close this {@link ZstdEncoder} and so finish the encoding.
+     * The given {@link ChannelFuture} will be notified once the operation
+     * completes and will also be returned.
+     */
+    public ChannelFuture close(final ChannelPromise promise) {
+        ChannelHandlerContext ctx = ctx();
+        EventExecutor executor = ctx.executor();
+        if (executor.inEventLoop()) {
+            return finishEncode(ctx, promise);
+        } else {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    ChannelFuture f = finishEncode(ctx(), promise);
+                    f.addListener(new ChannelPromiseNotifier(promise));
+                }
+            });
+            return promise;
+        }
+    }
+
+    @Override
+    public void close(final ChannelHandlerContext ctx, final ChannelPromise promise) throws Exception {
+        ChannelFuture f = finishEncode(ctx, ctx.newPromise());
+        f.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture f) throws Exception {
+                ctx.close(promise);
+            }
+        });
+
+        if (!f.isDone()) {
+            // Ensure the channel is closed even if the write operation completes in time.
+            ctx.executor().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    ctx.close(promise);
+                }
+            }, 10, TimeUnit.SECONDS); // FIXME: Magic number
+        }
+    }
+
+    private ChannelHandlerContext ctx() {
+        ChannelHandlerContext ctx = this.ctx;
+        if (ctx == null) {
+            throw new IllegalStateException("not added to a pipeline");
+        }
+        return ctx;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.ctx = ctx;
+    }
+}
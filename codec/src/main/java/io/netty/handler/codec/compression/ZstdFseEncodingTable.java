@@ -0,0 +1,299 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+/**
+ * Encoding table of the Finite State Entropy codec used by the Zstandard format. It is the counterpart of the
+ * {@link ZstdFseTable}, and also contains the helpers to choose and serialize the normalized distribution a table
+ * is built from.
+ */
+final class ZstdFseEncodingTable {
+    private static final int MIN_ACCURACY_LOG = 5;
+
+    // Thresholds used to round small probabilities, taken from the reference implementation.
+    private static final int[] REST_TO_BEAT = { 0, 473195, 504333, 520860, 550000, 700000, 750000, 830000 };
+
+    int accuracyLog;
+    private boolean rle;
+    private final int[] stateTable;
+    private final int[] deltaNumberOfBits;
+    private final int[] deltaFindState;
+    // Temporary state used while building the table.
+    private final byte[] spreadSymbols;
+    private final int[] cumulative;
+
+    ZstdFseEncodingTable(int maxAccuracyLog, int maxSymbol) {
+        int size = 1 << maxAccuracyLog;
+        stateTable = new int[size];
+        spreadSymbols = new byte[size];
+        deltaNumberOfBits = new int[maxSymbol + 1];
+        deltaFindState = new int[maxSymbol + 1];
+        cumulative = new int[maxSymbol + 2];
+    }
+
+    /**
+     * Builds the table from the given normalized counts.
+     */
+    void build(short[] counts, int maxSymbol, int accuracyLog) {
+        int tableSize = 1 << accuracyLog;
+        int highThreshold = tableSize - 1;
+        byte[] spreadSymbols = this.spreadSymbols;
+        int[] cumulative = this.cumulative;
+
+        cumulative[0] = 0;
+        for (int s = 0; s <= maxSymbol; s++) {
+            if (counts[s] == -1) {
+                cumulative[s + 1] = cumulative[s] + 1;
+                spreadSymbols[highThreshold--] = (byte) s;
+            } else {
+                cumulative[s + 1] = cumulative[s] + counts[s];
+            }
+        }
+
+        int mask = tableSize - 1;
+        int step = (tableSize >>> 1) + (tableSize >>> 3) + 3;
+        int position = 0;
+        for (int s = 0; s <= maxSymbol; s++) {
+            for (int i = 0; i < counts[s]; i++) {
+                spreadSymbols[position] = (byte) s;
+                do {
+                    position = (position + step) & mask;
+                } while (position > highThreshold);
+            }
+        }
+
+        for (int i = 0; i < tableSize; i++) {
+            int symbol = spreadSymbols[i] & 0xFF;
+            stateTable[cumulative[symbol]++] = tableSize + i;
+        }
+
+        int total = 0;
+        for (int s = 0; s <= maxSymbol; s++) {
+            int count = counts[s];
+            switch (count) {
+                case 0:
+                    deltaNumberOfBits[s] = ((accuracyLog + 1) << 16) - tableSize;
+                    break;
+                case -1:
+                case 1:
+                    deltaNumberOfBits[s] = (accuracyLog << 16) - tableSize;
+                    deltaFindState[s] = total - 1;
+                    total++;
+                    break;
+                default:
+                    int maxBitsOut = accuracyLog - (31 - Integer.numberOfLeadingZeros(count - 1));
+                    int minStatePlus = count << maxBitsOut;
+                    deltaNumberOfBits[s] = (maxBitsOut << 16) - minStatePlus;
+                    deltaFindState[s] = total - count;
+                    total += count;
+                    break;
+            }
+        }
+        this.accuracyLog = accuracyLog;
+        rle = false;
+    }
+
+    /**
+     * Builds a table for a single symbol which is encoded without any bits.
+     */
+    void buildRle() {
+        accuracyLog = 0;
+        rle = true;
+    }
+
+    /**
+     * Returns the initial state which is used to encode the last symbol, which is the first symbol decoded.
+     */
+    int initState(int symbol) {
+        if (rle) {
+            return 0;
+        }
+        int deltaNumberOfBits = this.deltaNumberOfBits[symbol];
+        int numBits = (deltaNumberOfBits + (1 << 15)) >>> 16;
+        int value = (numBits << 16) - deltaNumberOfBits;
+        return stateTable[(value >> numBits) + deltaFindState[symbol]];
+    }
+
+    /**
+     * Encodes the given symbol and returns the new state.
+     */
+    int encode(ZstdBitWriter writer, int state, int symbol) {
+        if (rle) {
+            return state;
+        }
+        int numBits = (state + deltaNumberOfBits[symbol]) >>> 16;
+        writer.writeBits(state, numBits);
+        return stateTable[(state >>> numBits) + deltaFindState[symbol]];
+    }
+
+    /**
+     * Writes the final state, which is the initial state of the decoder.
+     */
+    void flush(ZstdBitWriter writer, int state) {
+        writer.writeBits(state, accuracyLog);
+    }
+
+    /**
+     * Returns the accuracy log to use to encode {@code total} symbols of which the largest one is
+     * {@code maxSymbol}.
+     */
+    static int optimalAccuracyLog(int maxAccuracyLog, int total, int maxSymbol) {
+        int maxBitsSource = 31 - Integer.numberOfLeadingZeros(total - 1) - 2;
+        int accuracyLog = Math.min(maxAccuracyLog, maxBitsSource);
+        int minBits = Math.min(32 - Integer.numberOfLeadingZeros(total),
+                31 - Integer.numberOfLeadingZeros(maxSymbol) + 2);
+        accuracyLog = Math.max(accuracyLog, minBits);
+        return Math.max(MIN_ACCURACY_LOG, Math.min(accuracyLog, maxAccuracyLog));
+    }
+
+    /**
+     * Scales the given counts so they sum up to {@code 1 << accuracyLog}. Every symbol which occurs gets a
+     * normalized count which is not {@code 0}. If {@code useLowProbability} is {@code true}, rare symbols get the
+     * count {@code -1}, which gives them less than one state.
+     */
+    static void normalizeCounts(int[] counts, int total, int maxSymbol, int accuracyLog,
+                                boolean useLowProbability, short[] normalized) {
+        int lowProbabilityCount = useLowProbability ? -1 : 1;
+        int scale = 62 - accuracyLog;
+        long step = (1L << 62) / total;
+        long vStep = 1L << (scale - 20);
+        int stillToDistribute = 1 << accuracyLog;
+        int lowThreshold = total >>> accuracyLog;
+        int largest = 0;
+        int largestCount = 0;
+        for (int s = 0; s <= maxSymbol; s++) {
+            int count = counts[s];
+            if (count == total) {
+                // Only a single symbol, which gets all states.
+                for (int i = 0; i <= maxSymbol; i++) {
+                    normalized[i] = 0;
+                }
+                normalized[s] = (short) (1 << accuracyLog);
+                return;
+            }
+            if (count == 0) {
+                normalized[s] = 0;
+            } else if (count <= lowThreshold) {
+                normalized[s] = (short) lowProbabilityCount;
+                stillToDistribute--;
+            } else {
+                long scaled = count * step;
+                int probability = (int) (scaled >>> scale);
+                if (probability < 8) {
+                    long restToBeat = vStep * REST_TO_BEAT[probability];
+                    if (scaled - ((long) probability << scale) > restToBeat) {
+                        probability++;
+                    }
+                }
+                if (probability > largestCount) {
+                    largestCount = probability;
+                    largest = s;
+                }
+                normalized[s] = (short) probability;
+                stillToDistribute -= probability;
+            }
+        }
+        if (-stillToDistribute < normalized[largest] >>> 1) {
+            normalized[largest] += stillToDistribute;
+            return;
+        }
+
+        // Rounding gave too many states to the small symbols, take them back from the largest ones.
+        while (stillToDistribute < 0) {
+            int candidate = -1;
+            for (int s = 0; s <= maxSymbol; s++) {
+                if (normalized[s] > 1 && (candidate < 0 || normalized[s] > normalized[candidate])) {
+                    candidate = s;
+                }
+            }
+            normalized[candidate]--;
+            stillToDistribute++;
+        }
+    }
+
+    /**
+     * Writes the description of the normalized counts as defined by the format. Returns the number of bytes
+     * written.
+     */
+    static int writeCounts(short[] normalized, int maxSymbol, int accuracyLog, byte[] dst, int offset) {
+        int start = offset;
+        int tableSize = 1 << accuracyLog;
+        int numBits = accuracyLog + 1;
+        int remaining = tableSize + 1;
+        int threshold = tableSize;
+        long bitStream = accuracyLog - MIN_ACCURACY_LOG;
+        int bitCount = 4;
+        int symbol = 0;
+        boolean previousZero = false;
+        while (symbol <= maxSymbol && remaining > 1) {
+            if (previousZero) {
+                int zeroStart = symbol;
+                while (normalized[symbol] == 0) {
+                    symbol++;
+                }
+                while (symbol >= zeroStart + 24) {
+                    zeroStart += 24;
+                    bitStream |= 0xFFFFL << bitCount;
+                    dst[offset++] = (byte) bitStream;
+                    dst[offset++] = (byte) (bitStream >>> 8);
+                    bitStream >>>= 16;
+                }
+                while (symbol >= zeroStart + 3) {
+                    zeroStart += 3;
+                    bitStream |= 3L << bitCount;
+                    bitCount += 2;
+                }
+                bitStream |= (long) (symbol - zeroStart) << bitCount;
+                bitCount += 2;
+                if (bitCount > 16) {
+                    dst[offset++] = (byte) bitStream;
+                    dst[offset++] = (byte) (bitStream >>> 8);
+                    bitStream >>>= 16;
+                    bitCount -= 16;
+                }
+            }
+            int count = normalized[symbol++];
+            int max = (2 * threshold - 1) - remaining;
+            remaining -= count < 0 ? -count : count;
+            count++;
+            if (count >= threshold) {
+                count += max;
+            }
+            bitStream |= (long) count << bitCount;
+            bitCount += numBits;
+            if (count < max) {
+                bitCount--;
+            }
+            previousZero = count == 1;
+            while (remaining < threshold) {
+                numBits--;
+                threshold >>>= 1;
+            }
+            if (bitCount > 16) {
+                dst[offset++] = (byte) bitStream;
+                dst[offset++] = (byte) (bitStream >>> 8);
+                bitStream >>>= 16;
+                bitCount -= 16;
+            }
+        }
+        while (bitCount > 0) {
+            dst[offset++] = (byte) bitStream;
+            bitStream >>>= 8;
+            bitCount -= 8;
+        }
+        return offset - start;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+/**
+ * Decoding table of the Finite State Entropy codec used by the Zstandard format.
+ */
+final class ZstdFseTable {
+    private static final int MIN_ACCURACY_LOG = 5;
+
+    int accuracyLog;
+    final byte[] symbols;
+    final byte[] numberOfBits;
+    final int[] baselines;
+    // Temporary state used while building the table.
+    private final short[] normalizedCounts = new short[256];
+    private final int[] nextStates = new int[256];
+
+    ZstdFseTable(int maxAccuracyLog) {
+        int size = 1 << maxAccuracyLog;
+        symbols = new byte[size];
+        numberOfBits = new byte[size];
+        baselines = new int[size];
+    }
+
+    /**
+     * Reads the table description at {@code offset} and builds the table. Returns the number of bytes consumed.
+     */
+    int read(byte[] src, int offset, int end, int maxSymbol, int maxAccuracyLog) {
+        int position = offset << 3;
+        int endPosition = end << 3;
+        if (position + 4 > endPosition) {
+            throw new DecompressionException("FSE table description is truncated");
+        }
+        int accuracyLog = readBits(src, position, 4) + MIN_ACCURACY_LOG;
+        position += 4;
+        if (accuracyLog > maxAccuracyLog) {
+            throw new DecompressionException("FSE accuracy log too large: " + accuracyLog);
+        }
+
+        short[] counts = normalizedCounts;
+        int remaining = (1 << accuracyLog) + 1;
+        int threshold = 1 << accuracyLog;
+        int numBits = accuracyLog + 1;
+        int symbol = 0;
+        boolean previousZero = false;
+        while (remaining > 1 && symbol <= maxSymbol) {
+            if (previousZero) {
+                int zeros = symbol;
+                for (;;) {
+                    checkAvailable(position + 2, endPosition);
+                    int repeat = readBits(src, position, 2);
+                    position += 2;
+                    zeros += repeat;
+                    if (repeat != 3) {
+                        break;
+                    }
+                }
+                if (zeros > maxSymbol + 1) {
+                    throw new DecompressionException("FSE table description has too many symbols");
+                }
+                while (symbol < zeros) {
+                    counts[symbol++] = 0;
+                }
+                if (symbol > maxSymbol) {
+                    break;
+                }
+            }
+
+            int max = (2 * threshold - 1) - remaining;
+            int count;
+            int low = readBits(src, position, numBits - 1);
+            if (low < max) {
+                count = low;
+                position += numBits - 1;
+            } else {
+                count = readBits(src, position, numBits);
+                if (count >= threshold) {
+                    count -= max;
+                }
+                position += numBits;
+            }
+            checkAvailable(position, endPosition);
+            // 0 means a probability of less than 1, which is represented as -1.
+            count--;
+            remaining -= count < 0 ? -count : count;
+            counts[symbol++] = (short) count;
+            previousZero = count == 0;
+            while (remaining < threshold) {
+                numBits--;
+                threshold >>>= 1;
+            }
+        }
+        if (remaining != 1 || symbol > maxSymbol + 1) {
+            throw new DecompressionException("invalid FSE table description");
+        }
+        build(counts, symbol - 1, accuracyLog);
+        return ((position + 7) >>> 3) - offset;
+    }
+
+    private static void checkAvailable(int position, int endPosition) {
+        if (position > endPosition) {
+            throw new DecompressionException("FSE table description is truncated");
+        }
+    }
+
+    private static int readBits(byte[] src, int position, int numBits) {
+        int index = position >>> 3;
+        int value = 0;
+        for (int i = 0; i < 4 && index + i < src.length; i++) {
+            value |= (src[index + i] & 0xFF) << (i << 3);
+        }
+        return (value >>> (position & 7)) & ((1 << numBits) - 1);
+    }
+
+    /**
+     * Builds the table from the given normalized counts, as used for the predefined distributions.
+     */
+    void build(short[] counts, int maxSymbol, int accuracyLog) {
+        int tableSize = 1 << accuracyLog;
+        int highThreshold = tableSize - 1;
+        int[] nextStates = this.nextStates;
+
+        for (int s = 0; s <= maxSymbol; s++) {
+            if (counts[s] == -1) {
+                symbols[highThreshold--] = (byte) s;
+                nextStates[s] = 1;
+            } else {
+                nextStates[s] = counts[s];
+            }
+        }
+
+        int mask = tableSize - 1;
+        int step = (tableSize >>> 1) + (tableSize >>> 3) + 3;
+        int position = 0;
+        for (int s = 0; s <= maxSymbol; s++) {
+            for (int i = 0; i < counts[s]; i++) {
+                symbols[position] = (byte) s;
+                do {
+                    position = (position + step) & mask;
+                } while (position > highThreshold);
+            }
+        }
+        if (position != 0) {
+            throw new DecompressionException("invalid FSE distribution");
+        }
+
+        for (int i = 0; i < tableSize; i++) {
+            int symbol = symbols[i] & 0xFF;
+            int nextState = nextStates[symbol]++;
+            int bits = accuracyLog - (31 - Integer.numberOfLeadingZeros(nextState));
+            numberOfBits[i] = (byte) bits;
+            baselines[i] = (nextState << bits) - tableSize;
+        }
+        this.accuracyLog = accuracyLog;
+    }
+
+    /**
+     * Builds a table that always returns the given symbol without consuming any bits.
+     */
+    void buildRle(int symbol) {
+        symbols[0] = (byte) symbol;
+        numberOfBits[0] = 0;
+        baselines[0] = 0;
+        accuracyLog = 0;
+    }
+}
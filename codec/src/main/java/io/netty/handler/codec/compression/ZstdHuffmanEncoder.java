@@ -0,0 +1,217 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import java.util.Arrays;
+
+import static io.netty.handler.codec.compression.ZstdConstants.*;
+
+/**
+ * Huffman encoder for the literals of the Zstandard format. The code lengths are limited to
+ * {@link ZstdConstants#MAX_HUFFMAN_LOG} bits by the {@link Bzip2HuffmanAllocator}, the codes itself are assigned
+ * in the order the decoder expects them.
+ */
+final class ZstdHuffmanEncoder {
+    private static final int MAX_DIRECT_WEIGHTS = 128;
+
+    private final int[] codes = new int[256];
+    private final byte[] lengths = new byte[256];
+    private final byte[] weights = new byte[256];
+    private final int[] sorted = new int[256];
+    private final int[] rankStarts = new int[MAX_HUFFMAN_LOG + 2];
+    private final int[] weightCounts = new int[MAX_HUFFMAN_LOG + 1];
+    private final short[] normalizedWeightCounts = new short[MAX_HUFFMAN_LOG + 1];
+    private final ZstdFseEncodingTable weightsTable =
+            new ZstdFseEncodingTable(MAX_HUFFMAN_WEIGHTS_LOG, MAX_HUFFMAN_LOG);
+    private final ZstdBitWriter writer = new ZstdBitWriter();
+
+    private int maxSymbol;
+    private int maxLength;
+
+    /**
+     * Builds the codes for the given symbol counts, at least two symbols need to occur. Returns the number of bits
+     * the literals will take once encoded.
+     */
+    long build(int[] counts, int maxSymbol) {
+        int[] sorted = this.sorted;
+        int numSymbols = 0;
+        for (int s = 0; s <= maxSymbol; s++) {
+            if (counts[s] != 0) {
+                sorted[numSymbols++] = counts[s] << 8 | s;
+            }
+        }
+        Arrays.sort(sorted, 0, numSymbols);
+        int[] frequencies = new int[numSymbols];
+        for (int i = 0; i < numSymbols; i++) {
+            frequencies[i] = sorted[i] >>> 8;
+        }
+        Bzip2HuffmanAllocator.allocateHuffmanCodeLengths(frequencies, MAX_HUFFMAN_LOG);
+
+        byte[] lengths = this.lengths;
+        Arrays.fill(lengths, 0, maxSymbol + 1, (byte) 0);
+        int maxLength = 0;
+        for (int i = 0; i < numSymbols; i++) {
+            int length = frequencies[i];
+            lengths[sorted[i] & 0xFF] = (byte) length;
+            maxLength = Math.max(maxLength, length);
+        }
+
+        long bits = 0;
+        byte[] weights = this.weights;
+        int[] rankStarts = this.rankStarts;
+        Arrays.fill(rankStarts, 0);
+        for (int s = 0; s <= maxSymbol; s++) {
+            int length = lengths[s];
+            int weight = length == 0 ? 0 : maxLength + 1 - length;
+            weights[s] = (byte) weight;
+            rankStarts[weight]++;
+            bits += (long) counts[s] * length;
+        }
+        // Assign the codes in the same order the decoder fills its table, by increasing weight and then by symbol.
+        int next = 0;
+        for (int w = 1; w <= maxLength; w++) {
+            int current = next;
+            next += rankStarts[w] << (w - 1);
+            rankStarts[w] = current;
+        }
+        for (int s = 0; s <= maxSymbol; s++) {
+            int weight = weights[s];
+            if (weight != 0) {
+                codes[s] = rankStarts[weight] >>> (weight - 1);
+                rankStarts[weight] += 1 << (weight - 1);
+            }
+        }
+        this.maxSymbol = maxSymbol;
+        this.maxLength = maxLength;
+        return bits;
+    }
+
+    /**
+     * Writes the description of the codes built before. Returns the number of bytes written, or {@code -1} if the
+     * codes can not be described.
+     */
+    int writeTable(byte[] dst, int offset) {
+        int numWeights = maxSymbol;
+        int size = writeCompressedWeights(dst, offset, numWeights);
+        if (size > 0 && (size < (numWeights + 1) >>> 1 || numWeights > MAX_DIRECT_WEIGHTS)) {
+            return size;
+        }
+        if (numWeights > MAX_DIRECT_WEIGHTS) {
+            return -1;
+        }
+        dst[offset] = (byte) (127 + numWeights);
+        byte[] weights = this.weights;
+        for (int i = 0; i < numWeights; i += 2) {
+            int low = i + 1 < numWeights ? weights[i + 1] : 0;
+            dst[offset + 1 + (i >>> 1)] = (byte) (weights[i] << 4 | low);
+        }
+        return 1 + ((numWeights + 1) >>> 1);
+    }
+
+    private int writeCompressedWeights(byte[] dst, int offset, int numWeights) {
+        if (numWeights < 2) {
+            return -1;
+        }
+        int[] weightCounts = this.weightCounts;
+        Arrays.fill(weightCounts, 0);
+        byte[] weights = this.weights;
+        int maxWeight = 0;
+        for (int i = 0; i < numWeights; i++) {
+            int weight = weights[i];
+            weightCounts[weight]++;
+            maxWeight = Math.max(maxWeight, weight);
+        }
+        if (weightCounts[maxWeight] == numWeights) {
+            // The decoder would never see the end of a stream of a single symbol.
+            return -1;
+        }
+        int accuracyLog = ZstdFseEncodingTable.optimalAccuracyLog(MAX_HUFFMAN_WEIGHTS_LOG, numWeights, maxWeight);
+        short[] normalized = normalizedWeightCounts;
+        ZstdFseEncodingTable.normalizeCounts(weightCounts, numWeights, maxWeight, accuracyLog, false, normalized);
+        int position = offset + 1;
+        position += ZstdFseEncodingTable.writeCounts(normalized, maxWeight, accuracyLog, dst, position);
+        ZstdFseEncodingTable table = weightsTable;
+        table.build(normalized, maxWeight, accuracyLog);
+
+        // Two interleaved states, the same way the decoder reads them.
+        ZstdBitWriter writer = this.writer;
+        writer.init(dst, position, dst.length);
+        int index = numWeights;
+        int state1;
+        int state2;
+        if ((numWeights & 1) != 0) {
+            state1 = table.initState(weights[--index]);
+            state2 = table.initState(weights[--index]);
+            state1 = table.encode(writer, state1, weights[--index]);
+        } else {
+            state2 = table.initState(weights[--index]);
+            state1 = table.initState(weights[--index]);
+        }
+        while (index > 0) {
+            state2 = table.encode(writer, state2, weights[--index]);
+            state1 = table.encode(writer, state1, weights[--index]);
+        }
+        table.flush(writer, state2);
+        table.flush(writer, state1);
+        int end = writer.close();
+        int size = end - offset - 1;
+        if (end < 0 || size >= 128) {
+            return -1;
+        }
+        dst[offset] = (byte) size;
+        return 1 + size;
+    }
+
+    /**
+     * Encodes the literals in either one or four streams. Returns the number of bytes written, or {@code -1} if
+     * there was not enough room in {@code dst}.
+     */
+    int encode(byte[] src, int offset, int length, boolean fourStreams, byte[] dst, int dstOffset) {
+        if (!fourStreams) {
+            return encodeStream(src, offset, length, dst, dstOffset);
+        }
+        int segmentSize = (length + 3) >>> 2;
+        int position = dstOffset + 6;
+        for (int i = 0; i < 4; i++) {
+            int start = offset + i * segmentSize;
+            int segmentLength = i < 3 ? segmentSize : length - 3 * segmentSize;
+            int size = encodeStream(src, start, segmentLength, dst, position);
+            if (size < 0 || i < 3 && size > 0xFFFF) {
+                return -1;
+            }
+            if (i < 3) {
+                dst[dstOffset + 2 * i] = (byte) size;
+                dst[dstOffset + 2 * i + 1] = (byte) (size >>> 8);
+            }
+            position += size;
+        }
+        return position - dstOffset;
+    }
+
+    private int encodeStream(byte[] src, int offset, int length, byte[] dst, int dstOffset) {
+        ZstdBitWriter writer = this.writer;
+        writer.init(dst, dstOffset, dst.length);
+        int[] codes = this.codes;
+        byte[] lengths = this.lengths;
+        // The decoder reads the stream backwards, so the last literal is written first.
+        for (int i = offset + length - 1; i >= offset; i--) {
+            int symbol = src[i] & 0xFF;
+            writer.writeBits(codes[symbol], lengths[symbol]);
+        }
+        int end = writer.close();
+        return end < 0 ? -1 : end - dstOffset;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import static io.netty.handler.codec.compression.ZstdConstants.*;
+
+/**
+ * Decoding table for the Huffman coded literals of the Zstandard format.
+ */
+final class ZstdHuffmanTable {
+    int tableLog;
+    final byte[] symbols = new byte[1 << MAX_HUFFMAN_LOG];
+    final byte[] numberOfBits = new byte[1 << MAX_HUFFMAN_LOG];
+    private final byte[] weights = new byte[256];
+    private final int[] rankStarts = new int[MAX_HUFFMAN_LOG + 2];
+    private final ZstdFseTable weightsTable = new ZstdFseTable(MAX_HUFFMAN_WEIGHTS_LOG);
+    private final ZstdBitReader reader = new ZstdBitReader();
+
+    /**
+     * Reads the Huffman tree description at {@code offset} and builds the table. Returns the number of bytes
+     * consumed.
+     */
+    int read(byte[] src, int offset, int end) {
+        if (offset >= end) {
+            throw new DecompressionException("Huffman tree description is truncated");
+        }
+        int header = src[offset] & 0xFF;
+        int numWeights;
+        int consumed;
+        if (header < 128) {
+            // The weights are compressed with FSE.
+            int compressedEnd = offset + 1 + header;
+            if (compressedEnd > end) {
+                throw new DecompressionException("Huffman tree description is truncated");
+            }
+            int tableSize = weightsTable.read(src, offset + 1, compressedEnd, 255, MAX_HUFFMAN_WEIGHTS_LOG);
+            numWeights = decodeWeights(src, offset + 1 + tableSize, compressedEnd);
+            consumed = 1 + header;
+        } else {
+            numWeights = header - 127;
+            int size = (numWeights + 1) >>> 1;
+            if (offset + 1 + size > end) {
+                throw new DecompressionException("Huffman tree description is truncated");
+            }
+            for (int i = 0; i < numWeights; i += 2) {
+                int b = src[offset + 1 + (i >>> 1)] & 0xFF;
+                weights[i] = (byte) (b >>> 4);
+                weights[i + 1] = (byte) (b & 0xF);
+            }
+            consumed = 1 + size;
+        }
+        build(numWeights);
+        return consumed;
+    }
+
+    private int decodeWeights(byte[] src, int start, int end) {
+        ZstdFseTable table = weightsTable;
+        ZstdBitReader reader = this.reader;
+        reader.init(src, start, end);
+        int log = table.accuracyLog;
+        int state1 = reader.readBits(log);
+        int state2 = reader.readBits(log);
+        int count = 0;
+        byte[] weights = this.weights;
+        for (;;) {
+            if (count > 253) {
+                throw new DecompressionException("too many Huffman weights");
+            }
+            weights[count++] = table.symbols[state1];
+            state1 = table.baselines[state1] + reader.readBits(table.numberOfBits[state1]);
+            if (reader.isOverflow()) {
+                weights[count++] = table.symbols[state2];
+                break;
+            }
+            weights[count++] = table.symbols[state2];
+            state2 = table.baselines[state2] + reader.readBits(table.numberOfBits[state2]);
+            if (reader.isOverflow()) {
+                weights[count++] = table.symbols[state1];
+                break;
+            }
+        }
+        return count;
+    }
+
+    private void build(int numWeights) {
+        byte[] weights = this.weights;
+        int[] rankStarts = this.rankStarts;
+        int total = 0;
+        for (int i = 0; i < numWeights; i++) {
+            int weight = weights[i];
+            if (weight > MAX_HUFFMAN_LOG) {
+                throw new DecompressionException("invalid Huffman weight: " + weight);
+            }
+            if (weight > 0) {
+                total += 1 << (weight - 1);
+            }
+        }
+        if (total == 0) {
+            throw new DecompressionException("invalid Huffman weights");
+        }
+        // The weight of the last symbol is implicit, it completes the total to the next power of two.
+        int tableLog = 32 - Integer.numberOfLeadingZeros(total);
+        if (tableLog > MAX_HUFFMAN_LOG) {
+            throw new DecompressionException("Huffman table log too large: " + tableLog);
+        }
+        int rest = (1 << tableLog) - total;
+        if ((rest & (rest - 1)) != 0) {
+            throw new DecompressionException("invalid Huffman weights");
+        }
+        int numSymbols = numWeights + 1;
+        weights[numWeights] = (byte) (32 - Integer.numberOfLeadingZeros(rest));
+
+        for (int i = 0; i <= tableLog; i++) {
+            rankStarts[i] = 0;
+        }
+        for (int i = 0; i < numSymbols; i++) {
+            rankStarts[weights[i]]++;
+        }
+        int next = 0;
+        for (int w = 1; w <= tableLog; w++) {
+            int current = next;
+            next += rankStarts[w] << (w - 1);
+            rankStarts[w] = current;
+        }
+        for (int i = 0; i < numSymbols; i++) {
+            int weight = weights[i];
+            if (weight == 0) {
+                continue;
+            }
+            int length = 1 << (weight - 1);
+            int startIndex = rankStarts[weight];
+            byte bits = (byte) (tableLog + 1 - weight);
+            for (int u = startIndex; u < startIndex + length; u++) {
+                symbols[u] = (byte) i;
+                numberOfBits[u] = bits;
+            }
+            rankStarts[weight] = startIndex + length;
+        }
+        this.tableLog = tableLog;
+    }
+
+    /**
+     * Decodes {@code length} literals from the Huffman coded stream between {@code start} and {@code end} into
+     * {@code dst}. The {@code reader} is passed in as a table may be shared by several decoders.
+     */
+    void decodeStream(ZstdBitReader reader, byte[] src, int start, int end, byte[] dst, int dstOffset, int length) {
+        reader.init(src, start, end);
+        int tableLog = this.tableLog;
+        byte[] symbols = this.symbols;
+        byte[] numberOfBits = this.numberOfBits;
+        for (int i = dstOffset, dstEnd = dstOffset + length; i < dstEnd; i++) {
+            int index = reader.peekBits(tableLog);
+            dst[i] = symbols[index];
+            reader.skipBits(numberOfBits[index]);
+        }
+        if (!reader.isFinished()) {
+            throw new DecompressionException("Huffman stream not fully consumed");
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+/**
+ * {@link CompressionOptions} for the Zstandard format, see {@link ZstdEncoder} for the meaning of the parameters.
+ */
+public final class ZstdOptions implements CompressionOptions {
+    private final int compressionLevel;
+    private final int windowLog;
+    private final int blockSize;
+
+    ZstdOptions(int compressionLevel, int windowLog, int blockSize) {
+        ZstdEncoder.checkParameters(compressionLevel, windowLog, blockSize);
+        this.compressionLevel = compressionLevel;
+        this.windowLog = windowLog;
+        this.blockSize = blockSize;
+    }
+
+    public int compressionLevel() {
+        return compressionLevel;
+    }
+
+    public int windowLog() {
+        return windowLog;
+    }
+
+    public int blockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Creates a new {@link ZstdEncoder} which uses these options.
+     */
+    public ZstdEncoder newEncoder() {
+        return new ZstdEncoder(compressionLevel, windowLog, blockSize, false, null);
+    }
+}
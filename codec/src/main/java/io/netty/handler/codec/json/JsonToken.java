@@ -0,0 +1,63 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.json;
+
+/**
+ * The tokens returned by a {@link JsonTokenizer}.
+ */
+public enum JsonToken {
+    /**
+     * <tt>&#123;</tt>, the start of an object.
+     */
+    START_OBJECT,
+    /**
+     * <tt>&#125;</tt>, the end of an object.
+     */
+    END_OBJECT,
+    /**
+     * {@code [}, the start of an array.
+     */
+    START_ARRAY,
+    /**
+     * {@code ]}, the end of an array.
+     */
+    END_ARRAY,
+    /**
+     * The name of a field of an object, available via {@link JsonTokenizer#text()}.
+     */
+    FIELD_NAME,
+    /**
+     * A string value, available via {@link JsonTokenizer#text()}.
+     */
+    STRING,
+    /**
+     * A number value, available via {@link JsonTokenizer#longValue()}, {@link JsonTokenizer#doubleValue()} and
+     * {@link JsonTokenizer#text()}.
+     */
+    NUMBER,
+    /**
+     * {@code true}.
+     */
+    TRUE,
+    /**
+     * {@code false}.
+     */
+    FALSE,
+    /**
+     * {@code null}.
+     */
+    NULL
+}
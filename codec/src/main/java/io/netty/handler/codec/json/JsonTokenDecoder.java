@@ -0,0 +1,95 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.json;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+
+import java.util.List;
+
+/**
+ * Decodes a stream of JSON values by passing every token to {@link #decode(ChannelHandlerContext, JsonToken,
+ * JsonTokenizer, List)} as soon as it was received, so a sub-class can build its objects incrementally and pass
+ * each one on once it is complete, without waiting for the end of the enclosing value. Unlike
+ * {@link JsonObjectDecoder}, the JSON text is only parsed once, and elements of large arrays are passed on while the
+ * array is still being received.
+ * <p>
+ * For example, the following passes on the {@code "name"} of every object in a top-level array:
+ * <pre>
+ * public class NameDecoder extends {@link JsonTokenDecoder} {
+ *     private boolean nameField;
+ *
+ *     {@code @Override}
+ *     protected void decode({@link ChannelHandlerContext} ctx, {@link JsonToken} token,
+ *                           {@link JsonTokenizer} tokenizer, List&lt;Object&gt; out) {
+ *         if (token == {@link JsonToken#FIELD_NAME}) {
+ *             nameField = tokenizer.depth() == 2 &amp;&amp; tokenizer.text().contentEquals("name");
+ *         } else if (token == {@link JsonToken#STRING} &amp;&amp; nameField) {
+ *             out.add(tokenizer.stringValue());
+ *             nameField = false;
+ *         }
+ *     }
+ * }
+ * </pre>
+ */
+public abstract class JsonTokenDecoder extends ByteToMessageDecoder {
+
+    private final JsonTokenizer tokenizer;
+
+    /**
+     * Creates a new instance which accepts tokens of at most 1 MiB and values nested at most 1024 levels deep.
+     */
+    protected JsonTokenDecoder() {
+        this(new JsonTokenizer());
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxTokenLength    the maximum number of bytes of a field name, string or number
+     * @param maxDepth          the maximum number of nested objects and arrays
+     */
+    protected JsonTokenDecoder(int maxTokenLength, int maxDepth) {
+        this(new JsonTokenizer(maxTokenLength, maxDepth));
+    }
+
+    private JsonTokenDecoder(JsonTokenizer tokenizer) {
+        this.tokenizer = tokenizer;
+    }
+
+    @Override
+    protected final void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        JsonTokenizer tokenizer = this.tokenizer;
+        JsonToken token;
+        while ((token = tokenizer.next(in)) != null) {
+            decode(ctx, token, tokenizer, out);
+        }
+    }
+
+    /**
+     * Is called for every token of the JSON stream.
+     *
+     * @param ctx           the {@link ChannelHandlerContext} which this decoder belongs to
+     * @param token         the token
+     * @param tokenizer     the {@link JsonTokenizer} which provides the text and value of the token, which must not
+     *                      be used after this method returns
+     * @param out           the {@link List} to which decoded messages should be added
+     * @throws Exception    is thrown if an error occurs
+     */
+    protected abstract void decode(ChannelHandlerContext ctx, JsonToken token, JsonTokenizer tokenizer,
+                                   List<Object> out) throws Exception;
+}
@@ -0,0 +1,612 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.json;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.util.AsciiString;
+import io.netty.util.ByteProcessor;
+import io.netty.util.CharsetUtil;
+import io.netty.util.internal.EmptyArrays;
+
+/**
+ * An incremental JSON tokenizer, which reads the tokens of a stream of JSON values directly from {@link ByteBuf}s as
+ * the bytes arrive, without building any tree.
+ * <p>
+ * {@link #next(ByteBuf)} returns the next complete token and consumes its bytes, or returns {@code null} if the
+ * buffer does not contain a complete token yet. It must then be called again with the same buffer once more bytes
+ * were appended to it, which is what a {@link io.netty.handler.codec.ByteToMessageDecoder} does with its cumulation.
+ * The structure of the values is validated, so for example a {@link JsonToken#FIELD_NAME} is always followed by a
+ * value. Multiple values may follow each other at the top level, separated by whitespace if necessary. As a number
+ * is only complete once the byte after it was received, a number at the top level is only returned once it is
+ * followed by whitespace.
+ * <p>
+ * For example, the following reads the {@code "id"} of every object of an array, which may be arbitrarily large:
+ * <pre>
+ * JsonToken token;
+ * while ((token = tokenizer.next(in)) != null) {
+ *     if (token == JsonToken.FIELD_NAME) {
+ *         idField = tokenizer.depth() == 2 &amp;&amp; tokenizer.text().contentEquals("id");
+ *     } else if (token == JsonToken.NUMBER &amp;&amp; idField) {
+ *         ids.add(tokenizer.longValue());
+ *         idField = false;
+ *     }
+ * }
+ * </pre>
+ * Field names, strings and numbers are not converted into {@link String}s unless requested.
+ * {@link #text()} returns an {@link AsciiString} which is a view on the bytes of the buffer if it is backed by an
+ * array and the text did not contain escape sequences, and a view on an internal array otherwise.
+ * <p>
+ * A {@link JsonTokenizer} keeps the state of the stream, so a new instance must be used for every stream. After an
+ * invalid token was found, every following call discards all the bytes of the buffer.
+ */
+public final class JsonTokenizer {
+
+    private static final int DEFAULT_MAX_TOKEN_LENGTH = 1024 * 1024;
+    private static final int DEFAULT_MAX_DEPTH = 1024;
+
+    // What is expected next.
+    private static final int ST_VALUE = 0;
+    private static final int ST_VALUE_OR_END_ARRAY = 1;
+    private static final int ST_NAME = 2;
+    private static final int ST_NAME_OR_END_OBJECT = 3;
+    private static final int ST_COLON = 4;
+    private static final int ST_COMMA_OR_END = 5;
+    private static final int ST_CORRUPTED = 6;
+
+    private static final byte[] TRUE_BYTES = { 't', 'r', 'u', 'e' };
+    private static final byte[] FALSE_BYTES = { 'f', 'a', 'l', 's', 'e' };
+    private static final byte[] NULL_BYTES = { 'n', 'u', 'l', 'l' };
+
+    private static final ByteProcessor FIND_NON_WHITESPACE = new ByteProcessor() {
+        @Override
+        public boolean process(byte value) {
+            return value == ' ' || value == '\n' || value == '\r' || value == '\t';
+        }
+    };
+
+    private static final ByteProcessor FIND_QUOTE_OR_BACKSLASH_OR_CONTROL = new ByteProcessor() {
+        @Override
+        public boolean process(byte value) {
+            // Negative values are bytes of multi-byte UTF-8 sequences.
+            return value != '"' && value != '\\' && (value < 0 || value >= 0x20);
+        }
+    };
+
+    private final int maxTokenLength;
+    private final int maxDepth;
+
+    // If the open containers are objects (true) or arrays (false).
+    private boolean[] containers = new boolean[16];
+    private int depth;
+    private int state = ST_VALUE;
+
+    // The number of bytes after the opening quote of a string which is not complete yet, which were already scanned.
+    private int stringScanned;
+    private boolean stringEscaped;
+
+    private byte[] textArray = EmptyArrays.EMPTY_BYTES;
+    private int textOffset;
+    private int textLength;
+    private AsciiString text;
+    private byte[] scratch = EmptyArrays.EMPTY_BYTES;
+
+    private boolean longNumber;
+    private long longValue;
+
+    /**
+     * Creates a new instance which accepts tokens of at most 1 MiB and values nested at most 1024 levels deep.
+     */
+    public JsonTokenizer() {
+        this(DEFAULT_MAX_TOKEN_LENGTH, DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxTokenLength    the maximum number of bytes of a field name, string or number. If a longer token is
+     *                          found, a {@link TooLongFrameException} is thrown.
+     * @param maxDepth          the maximum number of nested objects and arrays. If the values are nested deeper, a
+     *                          {@link CorruptedFrameException} is thrown.
+     */
+    public JsonTokenizer(int maxTokenLength, int maxDepth) {
+        if (maxTokenLength <= 0) {
+            throw new IllegalArgumentException("maxTokenLength: " + maxTokenLength + " (expected: > 0)");
+        }
+        if (maxDepth <= 0) {
+            throw new IllegalArgumentException("maxDepth: " + maxDepth + " (expected: > 0)");
+        }
+        this.maxTokenLength = maxTokenLength;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Reads the next token from {@code in}.
+     *
+     * @return the next token, or {@code null} if {@code in} does not contain a complete token. In this case every
+     *         byte which was processed already was consumed, or the reader index was left at the start of the
+     *         incomplete token, and this method must be called again with the same buffer once more bytes are
+     *         appended to it.
+     * @throws CorruptedFrameException if the input is not valid JSON
+     * @throws TooLongFrameException if a token is longer than the maximum token length
+     */
+    public JsonToken next(ByteBuf in) {
+        if (state == ST_CORRUPTED) {
+            in.skipBytes(in.readableBytes());
+            return null;
+        }
+        for (;;) {
+            int start = in.forEachByte(FIND_NON_WHITESPACE);
+            if (start < 0) {
+                in.readerIndex(in.writerIndex());
+                return null;
+            }
+            in.readerIndex(start);
+            byte c = in.getByte(start);
+            switch (state) {
+            case ST_COLON:
+                if (c != ':') {
+                    throw invalid(in, start, "':'");
+                }
+                in.readerIndex(start + 1);
+                state = ST_VALUE;
+                continue;
+            case ST_COMMA_OR_END:
+                if (c == ',') {
+                    in.readerIndex(start + 1);
+                    state = containers[depth - 1] ? ST_NAME : ST_VALUE;
+                    continue;
+                }
+                return endContainer(in, start, c);
+            case ST_NAME_OR_END_OBJECT:
+                if (c == '}') {
+                    return endContainer(in, start, c);
+                }
+                // fall through
+            case ST_NAME:
+                if (c != '"') {
+                    throw invalid(in, start, "field name");
+                }
+                if (!readString(in, start)) {
+                    return null;
+                }
+                state = ST_COLON;
+                return JsonToken.FIELD_NAME;
+            case ST_VALUE_OR_END_ARRAY:
+                if (c == ']') {
+                    return endContainer(in, start, c);
+                }
+                // fall through
+            case ST_VALUE:
+                return readValue(in, start, c);
+            default:
+                throw new Error("should not reach here");
+            }
+        }
+    }
+
+    /**
+     * Returns the number of objects and arrays which were started but not ended yet. The depth of a
+     * {@link JsonToken#START_OBJECT} or {@link JsonToken#START_ARRAY} includes the started object or array, while
+     * the depth of a {@link JsonToken#END_OBJECT} or {@link JsonToken#END_ARRAY} does not include the ended one.
+     */
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * Returns the bytes of the last {@link JsonToken#FIELD_NAME}, {@link JsonToken#STRING} or
+     * {@link JsonToken#NUMBER}. The escape sequences of field names and strings are replaced by the UTF-8 encoding
+     * of the escaped characters, so this is the raw UTF-8 encoding of the text. The returned {@link AsciiString}
+     * may refer to the content of the buffer, so it must not be used after the next call of
+     * {@link #next(ByteBuf)} or after the buffer was modified. Use {@link #stringValue()} if non ASCII characters
+     * are expected.
+     */
+    public AsciiString text() {
+        AsciiString text = this.text;
+        if (text == null) {
+            text = this.text = new AsciiString(textArray, textOffset, textLength, false);
+        }
+        return text;
+    }
+
+    /**
+     * Returns the text of the last {@link JsonToken#FIELD_NAME}, {@link JsonToken#STRING} or
+     * {@link JsonToken#NUMBER}, decoded as UTF-8.
+     */
+    public String stringValue() {
+        return new String(textArray, textOffset, textLength, CharsetUtil.UTF_8);
+    }
+
+    /**
+     * Returns {@code true} if the last {@link JsonToken#NUMBER} is an integer which fits into a {@code long}.
+     */
+    public boolean isLongValue() {
+        return longNumber;
+    }
+
+    /**
+     * Returns the value of the last {@link JsonToken#NUMBER}.
+     *
+     * @throws NumberFormatException if the number is not an integer which fits into a {@code long}
+     */
+    public long longValue() {
+        if (!longNumber) {
+            throw new NumberFormatException("not a 64-bit integer: " + text());
+        }
+        return longValue;
+    }
+
+    /**
+     * Returns the value of the last {@link JsonToken#NUMBER}.
+     */
+    public double doubleValue() {
+        if (longNumber) {
+            return longValue;
+        }
+        return Double.parseDouble(text().toString());
+    }
+
+    private JsonToken readValue(ByteBuf in, int start, byte c) {
+        switch (c) {
+        case '{':
+            startContainer(in, start, true);
+            state = ST_NAME_OR_END_OBJECT;
+            return JsonToken.START_OBJECT;
+        case '[':
+            startContainer(in, start, false);
+            state = ST_VALUE_OR_END_ARRAY;
+            return JsonToken.START_ARRAY;
+        case '"':
+            if (!readString(in, start)) {
+                return null;
+            }
+            return valueRead(JsonToken.STRING);
+        case 't':
+            return readLiteral(in, start, TRUE_BYTES, JsonToken.TRUE);
+        case 'f':
+            return readLiteral(in, start, FALSE_BYTES, JsonToken.FALSE);
+        case 'n':
+            return readLiteral(in, start, NULL_BYTES, JsonToken.NULL);
+        default:
+            if (c == '-' || c >= '0' && c <= '9') {
+                if (!readNumber(in, start)) {
+                    return null;
+                }
+                return valueRead(JsonToken.NUMBER);
+            }
+            throw invalid(in, start, "value");
+        }
+    }
+
+    private JsonToken valueRead(JsonToken token) {
+        state = depth == 0 ? ST_VALUE : ST_COMMA_OR_END;
+        return token;
+    }
+
+    private void startContainer(ByteBuf in, int start, boolean object) {
+        if (depth == maxDepth) {
+            throw corrupted(in, new CorruptedFrameException("JSON nesting depth exceeds " + maxDepth));
+        }
+        if (depth == containers.length) {
+            boolean[] newContainers = new boolean[depth << 1];
+            System.arraycopy(containers, 0, newContainers, 0, depth);
+            containers = newContainers;
+        }
+        containers[depth++] = object;
+        in.readerIndex(start + 1);
+    }
+
+    private JsonToken endContainer(ByteBuf in, int start, byte c) {
+        boolean object = containers[depth - 1];
+        if (c != (object ? '}' : ']')) {
+            throw invalid(in, start, object ? "',' or '}'" : "',' or ']'");
+        }
+        depth--;
+        in.readerIndex(start + 1);
+        return valueRead(object ? JsonToken.END_OBJECT : JsonToken.END_ARRAY);
+    }
+
+    private JsonToken readLiteral(ByteBuf in, int start, byte[] literal, JsonToken token) {
+        int length = Math.min(literal.length, in.writerIndex() - start);
+        for (int i = 1; i < length; i++) {
+            if (in.getByte(start + i) != literal[i]) {
+                throw invalid(in, start + i, "'" + (char) literal[i] + '\'');
+            }
+        }
+        if (length < literal.length) {
+            return null;
+        }
+        in.readerIndex(start + length);
+        return valueRead(token);
+    }
+
+    /**
+     * Reads the string starting with the quote at {@code start} and returns {@code true} if it is complete.
+     */
+    private boolean readString(ByteBuf in, int start) {
+        int end = in.writerIndex();
+        int index = start + 1 + stringScanned;
+        for (;;) {
+            index = index < end ? in.forEachByte(index, end - index, FIND_QUOTE_OR_BACKSLASH_OR_CONTROL) : -1;
+            if (index < 0) {
+                return incomplete(in, start, end);
+            }
+            byte c = in.getByte(index);
+            if (c == '"') {
+                break;
+            }
+            if (c != '\\') {
+                throw invalid(in, index, "string character");
+            }
+            if (index + 1 == end) {
+                // Scan the escape sequence again once the escaped character was received.
+                return incomplete(in, start, index);
+            }
+            stringEscaped = true;
+            index += 2;
+        }
+
+        int length = index - start - 1;
+        checkTokenLength(in, length);
+        if (stringEscaped) {
+            unescape(in, start + 1, index);
+        } else {
+            setText(in, start + 1, length);
+        }
+        stringScanned = 0;
+        stringEscaped = false;
+        in.readerIndex(index + 1);
+        return true;
+    }
+
+    private boolean incomplete(ByteBuf in, int start, int scanned) {
+        checkTokenLength(in, in.writerIndex() - start);
+        stringScanned = scanned - start - 1;
+        return false;
+    }
+
+    private void unescape(ByteBuf in, int from, int to) {
+        // The decoded string is never longer than the escaped one.
+        byte[] dst = scratch(to - from);
+        int length = 0;
+        for (int i = from; i < to; i++) {
+            byte c = in.getByte(i);
+            if (c != '\\') {
+                dst[length++] = c;
+                continue;
+            }
+            c = in.getByte(++i);
+            switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                dst[length++] = c;
+                break;
+            case 'b':
+                dst[length++] = '\b';
+                break;
+            case 'f':
+                dst[length++] = '\f';
+                break;
+            case 'n':
+                dst[length++] = '\n';
+                break;
+            case 'r':
+                dst[length++] = '\r';
+                break;
+            case 't':
+                dst[length++] = '\t';
+                break;
+            case 'u':
+                int codePoint = hex(in, i + 1, to);
+                i += 4;
+                if (Character.isHighSurrogate((char) codePoint) && i + 6 < to &&
+                    in.getByte(i + 1) == '\\' && in.getByte(i + 2) == 'u') {
+                    int low = hex(in, i + 3, to);
+                    if (Character.isLowSurrogate((char) low)) {
+                        codePoint = Character.toCodePoint((char) codePoint, (char) low);
+                        i += 6;
+                    }
+                }
+                length = writeUtf8(dst, length, codePoint);
+                break;
+            default:
+                throw invalid(in, i, "escape sequence");
+            }
+        }
+        textArray = dst;
+        textOffset = 0;
+        textLength = length;
+        text = null;
+    }
+
+    private int hex(ByteBuf in, int index, int end) {
+        if (index + 4 > end) {
+            throw invalid(in, index, "4 hexadecimal digits");
+        }
+        int value = 0;
+        for (int i = index; i < index + 4; i++) {
+            int digit = Character.digit(in.getByte(i), 16);
+            if (digit < 0) {
+                throw invalid(in, i, "hexadecimal digit");
+            }
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+
+    private static int writeUtf8(byte[] dst, int index, int codePoint) {
+        if (codePoint < 0x80) {
+            dst[index++] = (byte) codePoint;
+        } else if (codePoint < 0x800) {
+            dst[index++] = (byte) (0xc0 | codePoint >> 6);
+            dst[index++] = (byte) (0x80 | codePoint & 0x3f);
+        } else if (codePoint < 0x10000) {
+            dst[index++] = (byte) (0xe0 | codePoint >> 12);
+            dst[index++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+            dst[index++] = (byte) (0x80 | codePoint & 0x3f);
+        } else {
+            dst[index++] = (byte) (0xf0 | codePoint >> 18);
+            dst[index++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+            dst[index++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+            dst[index++] = (byte) (0x80 | codePoint & 0x3f);
+        }
+        return index;
+    }
+
+    /**
+     * Reads the number starting at {@code start} and returns {@code true} if it is complete.
+     */
+    private boolean readNumber(ByteBuf in, int start) {
+        final int end = in.writerIndex();
+        int index = start;
+        boolean negative = in.getByte(index) == '-';
+        if (negative) {
+            index++;
+        }
+
+        // Accumulated negatively, as Long.MIN_VALUE can not be negated.
+        long value = 0;
+        boolean fitsLong = true;
+        int digits = 0;
+        byte c = 0;
+        for (; index < end; index++) {
+            c = in.getByte(index);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            if (digits++ == 1 && value == 0) {
+                throw invalid(in, index, "'.', 'e' or end of number after leading zero");
+            }
+            int digit = c - '0';
+            if (value < Long.MIN_VALUE / 10 || value * 10 < Long.MIN_VALUE + digit) {
+                fitsLong = false;
+            }
+            value = value * 10 - digit;
+        }
+        if (index == end) {
+            return incompleteNumber(in, start, end);
+        }
+        if (digits == 0) {
+            throw invalid(in, index, "digit");
+        }
+
+        if (c == '.') {
+            fitsLong = false;
+            index = skipDigits(in, index + 1, end);
+            if (index < 0) {
+                return incompleteNumber(in, start, end);
+            }
+            c = in.getByte(index);
+        }
+        if (c == 'e' || c == 'E') {
+            fitsLong = false;
+            index++;
+            if (index == end) {
+                return incompleteNumber(in, start, end);
+            }
+            c = in.getByte(index);
+            if (c == '+' || c == '-') {
+                index++;
+            }
+            index = skipDigits(in, index, end);
+            if (index < 0) {
+                return incompleteNumber(in, start, end);
+            }
+        }
+
+        if (!negative) {
+            if (value == Long.MIN_VALUE) {
+                fitsLong = false;
+            }
+            value = -value;
+        }
+        int length = index - start;
+        checkTokenLength(in, length);
+        setText(in, start, length);
+        longNumber = fitsLong;
+        longValue = fitsLong ? value : 0;
+        in.readerIndex(index);
+        return true;
+    }
+
+    /**
+     * Returns the index after the digits starting at {@code index}, or {@code -1} if the input ends before a byte
+     * which is not a digit.
+     */
+    private int skipDigits(ByteBuf in, int index, int end) {
+        int start = index;
+        for (; index < end; index++) {
+            byte c = in.getByte(index);
+            if (c < '0' || c > '9') {
+                if (index == start) {
+                    throw invalid(in, index, "digit");
+                }
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private boolean incompleteNumber(ByteBuf in, int start, int end) {
+        checkTokenLength(in, end - start);
+        return false;
+    }
+
+    private void setText(ByteBuf in, int index, int length) {
+        if (in.hasArray()) {
+            textArray = in.array();
+            textOffset = in.arrayOffset() + index;
+        } else {
+            byte[] dst = scratch(length);
+            in.getBytes(index, dst, 0, length);
+            textArray = dst;
+            textOffset = 0;
+        }
+        textLength = length;
+        text = null;
+    }
+
+    private byte[] scratch(int length) {
+        byte[] scratch = this.scratch;
+        if (scratch.length < length) {
+            scratch = this.scratch = new byte[Math.max(length, Math.min(scratch.length << 1, maxTokenLength))];
+        }
+        return scratch;
+    }
+
+    private void checkTokenLength(ByteBuf in, int length) {
+        if (length > maxTokenLength) {
+            throw corrupted(in, new TooLongFrameException(
+                    "JSON token length exceeds " + maxTokenLength + ": " + length));
+        }
+    }
+
+    private CorruptedFrameException invalid(ByteBuf in, int index, String expected) {
+        int c = in.getByte(index) & 0xff;
+        String found = c >= 0x20 && c < 0x7f ? "'" + (char) c + '\'' : "0x" + Integer.toHexString(c);
+        return corrupted(in, new CorruptedFrameException(
+                "invalid JSON at byte position " + index + ": expected " + expected + ", found " + found));
+    }
+
+    private <T extends RuntimeException> T corrupted(ByteBuf in, T cause) {
+        state = ST_CORRUPTED;
+        in.skipBytes(in.readableBytes());
+        return cause;
+    }
+}
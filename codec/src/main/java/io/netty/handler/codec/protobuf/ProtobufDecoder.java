@@ -15,11 +15,13 @@
  */
 package io.netty.handler.codec.protobuf;
 
+import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.ExtensionRegistry;
 import com.google.protobuf.ExtensionRegistryLite;
 import com.google.protobuf.Message;
 import com.google.protobuf.MessageLite;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
 import io.netty.channel.ChannelHandler.Sharable;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPipeline;
@@ -28,6 +30,9 @@ import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import io.netty.handler.codec.LengthFieldPrepender;
 import io.netty.handler.codec.MessageToMessageDecoder;
 
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -60,11 +65,16 @@ import java.util.List;
  *     ch.write(res);
  * }
  * </pre>
+ * A received {@link ByteBuf} which is not backed by an array, such as a pooled direct buffer, is read through a
+ * {@link CodedInputStream} over its {@link ByteBuf#nioBuffers() NIO buffers} with protobuf 3, which decodes directly
+ * from {@link ByteBuffer}s. Older versions copy such a {@link ByteBuffer} into a {@code byte[]} as a whole, so it is
+ * streamed through the small buffer of the {@link CodedInputStream} instead.
  */
 @Sharable
 public class ProtobufDecoder extends MessageToMessageDecoder<ByteBuf> {
 
     private static final boolean HAS_PARSER;
+    private static final Method NEW_ITERABLE_INPUT;
 
     static {
         boolean hasParser = false;
@@ -77,6 +87,16 @@ public class ProtobufDecoder extends MessageToMessageDecoder<ByteBuf> {
         }
 
         HAS_PARSER = hasParser;
+
+        Method newInstance = null;
+        try {
+            // CodedInputStream.newInstance(Iterable<ByteBuffer>) is not available until protobuf 3.
+            newInstance = CodedInputStream.class.getMethod("newInstance", Iterable.class);
+        } catch (Throwable t) {
+            // Ignore
+        }
+
+        NEW_ITERABLE_INPUT = newInstance;
     }
 
     private final MessageLite prototype;
@@ -104,18 +124,14 @@ public class ProtobufDecoder extends MessageToMessageDecoder<ByteBuf> {
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out)
             throws Exception {
-        final byte[] array;
-        final int offset;
-        final int length = msg.readableBytes();
-        if (msg.hasArray()) {
-            array = msg.array();
-            offset = msg.arrayOffset() + msg.readerIndex();
-        } else {
-            array = new byte[length];
-            msg.getBytes(msg.readerIndex(), array, 0, length);
-            offset = 0;
+        if (!msg.hasArray()) {
+            out.add(decode(newCodedInputStream(msg)));
+            return;
         }
 
+        final byte[] array = msg.array();
+        final int offset = msg.arrayOffset() + msg.readerIndex();
+        final int length = msg.readableBytes();
         if (extensionRegistry == null) {
             if (HAS_PARSER) {
                 out.add(prototype.getParserForType().parseFrom(array, offset, length));
@@ -132,4 +148,34 @@ public class ProtobufDecoder extends MessageToMessageDecoder<ByteBuf> {
             }
         }
     }
+
+    private MessageLite decode(CodedInputStream input) throws Exception {
+        if (extensionRegistry == null) {
+            if (HAS_PARSER) {
+                return prototype.getParserForType().parseFrom(input);
+            } else {
+                return prototype.newBuilderForType().mergeFrom(input).build();
+            }
+        } else {
+            if (HAS_PARSER) {
+                return prototype.getParserForType().parseFrom(input, extensionRegistry);
+            } else {
+                return prototype.newBuilderForType().mergeFrom(input, extensionRegistry).build();
+            }
+        }
+    }
+
+    private static CodedInputStream newCodedInputStream(ByteBuf msg) throws Exception {
+        // Before protobuf 3 CodedInputStream.newInstance(ByteBuffer) copies a direct buffer into a new byte[].
+        if (NEW_ITERABLE_INPUT != null) {
+            if (msg.nioBufferCount() == 1) {
+                return CodedInputStream.newInstance(msg.nioBuffer());
+            }
+            if (msg.nioBufferCount() > 1) {
+                return (CodedInputStream) NEW_ITERABLE_INPUT.invoke(null, Arrays.asList(msg.nioBuffers()));
+            }
+        }
+        // Stream the content through the small buffer of the CodedInputStream rather than copying it as a whole.
+        return CodedInputStream.newInstance(new ByteBufInputStream(msg));
+    }
 }
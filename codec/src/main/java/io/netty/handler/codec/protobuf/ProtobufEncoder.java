@@ -15,6 +15,7 @@
  */
 package io.netty.handler.codec.protobuf;
 
+import com.google.protobuf.CodedOutputStream;
 import com.google.protobuf.Message;
 import com.google.protobuf.MessageLite;
 import com.google.protobuf.MessageLiteOrBuilder;
@@ -28,8 +29,6 @@ import io.netty.handler.codec.MessageToMessageEncoder;
 
 import java.util.List;
 
-import static io.netty.buffer.Unpooled.*;
-
 /**
  * Encodes the requested <a href="http://code.google.com/p/protobuf/">Google
  * Protocol Buffers</a> {@link Message} and {@link MessageLite} into a
@@ -57,18 +56,82 @@ import static io.netty.buffer.Unpooled.*;
  *     ch.write(res);
  * }
  * </pre>
+ * The message is serialized by a {@link CodedOutputStream} directly into a buffer of the exact size, allocated by
+ * the {@link io.netty.buffer.ByteBufAllocator} of the channel, instead of into a {@code byte[]} which is then
+ * wrapped. If the messages are framed by a
+ * <a href="http://code.google.com/apis/protocolbuffers/docs/encoding.html#varints">Base 128 Varints</a> length
+ * field, use {@link #ProtobufEncoder(boolean) new ProtobufEncoder(true)} instead of a
+ * {@link ProtobufVarint32LengthFieldPrepender}, so that the length field and the message are written into the same
+ * buffer in one pass:
+ * <pre>
+ * pipeline.addLast("frameDecoder", new {@link ProtobufVarint32FrameDecoder}());
+ * pipeline.addLast("protobufDecoder",
+ *                  new {@link ProtobufDecoder}(MyMessage.getDefaultInstance()));
+ *
+ * pipeline.addLast("protobufEncoder", new {@link ProtobufEncoder}(true));
+ * </pre>
  */
 @Sharable
 public class ProtobufEncoder extends MessageToMessageEncoder<MessageLiteOrBuilder> {
+
+    private final boolean prependVarint32Length;
+
+    /**
+     * Creates a new instance which encodes only the message itself.
+     */
+    public ProtobufEncoder() {
+        this(false);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param prependVarint32Length {@code true} if the message should be prefixed with its length encoded as a
+     *                              Base 128 Varint, like {@link ProtobufVarint32LengthFieldPrepender} does
+     */
+    public ProtobufEncoder(boolean prependVarint32Length) {
+        this.prependVarint32Length = prependVarint32Length;
+    }
+
     @Override
     protected void encode(ChannelHandlerContext ctx, MessageLiteOrBuilder msg, List<Object> out)
             throws Exception {
         if (msg instanceof MessageLite) {
-            out.add(wrappedBuffer(((MessageLite) msg).toByteArray()));
+            out.add(encode(ctx, (MessageLite) msg));
             return;
         }
         if (msg instanceof MessageLite.Builder) {
-            out.add(wrappedBuffer(((MessageLite.Builder) msg).build().toByteArray()));
+            out.add(encode(ctx, ((MessageLite.Builder) msg).build()));
+        }
+    }
+
+    private ByteBuf encode(ChannelHandlerContext ctx, MessageLite msg) throws Exception {
+        final int bodyLen = msg.getSerializedSize();
+        final int headerLen = prependVarint32Length ?
+                ProtobufVarint32LengthFieldPrepender.computeRawVarint32Size(bodyLen) : 0;
+        ByteBuf buf = ctx.alloc().ioBuffer(headerLen + bodyLen);
+        boolean release = true;
+        try {
+            if (prependVarint32Length) {
+                ProtobufVarint32LengthFieldPrepender.writeRawVarint32(buf, bodyLen);
+            }
+
+            final int writerIndex = buf.writerIndex();
+            final CodedOutputStream output;
+            if (buf.hasArray()) {
+                output = CodedOutputStream.newInstance(buf.array(), buf.arrayOffset() + writerIndex, bodyLen);
+            } else {
+                output = CodedOutputStream.newInstance(buf.nioBuffer(writerIndex, bodyLen));
+            }
+            msg.writeTo(output);
+            output.flush();
+            buf.writerIndex(writerIndex + bodyLen);
+            release = false;
+            return buf;
+        } finally {
+            if (release) {
+                buf.release();
+            }
         }
     }
 }
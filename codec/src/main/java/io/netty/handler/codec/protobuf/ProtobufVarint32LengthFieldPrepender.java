@@ -39,6 +39,12 @@ import io.netty.handler.codec.MessageToByteEncoder;
 @Sharable
 public class ProtobufVarint32LengthFieldPrepender extends MessageToByteEncoder<ByteBuf> {
 
+    @Override
+    protected int estimateEncodedSize(ByteBuf msg) {
+        int bodyLen = msg.readableBytes();
+        return computeRawVarint32Size(bodyLen) + bodyLen;
+    }
+
     @Override
     protected void encode(
             ChannelHandlerContext ctx, ByteBuf msg, ByteBuf out) throws Exception {
@@ -21,14 +21,29 @@ import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectStreamClass;
 import java.io.StreamCorruptedException;
+import java.util.List;
 
 class CompactObjectInputStream extends ObjectInputStream {
 
     private final ClassResolver classResolver;
+    private final List<ClassDescriptor> descriptors;
+    // The cached descriptor returned by the last readClassDescriptor(), whose class is resolved next.
+    private ClassDescriptor lastDescriptor;
 
     CompactObjectInputStream(InputStream in, ClassResolver classResolver) throws IOException {
+        this(in, classResolver, null);
+    }
+
+    /**
+     * @param descriptors the class descriptors which were read from the same peer before, indexed by their ids,
+     *                    which is updated with new descriptors, or {@code null} if the peer always writes
+     *                    descriptors
+     */
+    CompactObjectInputStream(InputStream in, ClassResolver classResolver, List<ClassDescriptor> descriptors)
+            throws IOException {
         super(in);
         this.classResolver = classResolver;
+        this.descriptors = descriptors;
     }
 
     @Override
@@ -47,21 +62,68 @@ class CompactObjectInputStream extends ObjectInputStream {
         if (type < 0) {
             throw new EOFException();
         }
+        ObjectStreamClass desc;
         switch (type) {
         case CompactObjectOutputStream.TYPE_FAT_DESCRIPTOR:
-            return super.readClassDescriptor();
+            desc = super.readClassDescriptor();
+            cache(desc, null);
+            return desc;
         case CompactObjectOutputStream.TYPE_THIN_DESCRIPTOR:
             String className = readUTF();
             Class<?> clazz = classResolver.resolve(className);
-            return ObjectStreamClass.lookupAny(clazz);
+            desc = ObjectStreamClass.lookupAny(clazz);
+            cache(desc, clazz);
+            return desc;
+        case CompactObjectOutputStream.TYPE_CACHED_DESCRIPTOR:
+            if (descriptors != null) {
+                int id = readDescriptorId();
+                if (id < 0 || id >= descriptors.size()) {
+                    throw new StreamCorruptedException("Unknown class descriptor id: " + id);
+                }
+                // ObjectInputStream only uses the descriptor as a template, so it can be reused for every
+                // object of the class together with its resolved class.
+                ClassDescriptor cached = descriptors.get(id);
+                lastDescriptor = cached;
+                return cached.descriptor;
+            }
+            // fall through
         default:
             throw new StreamCorruptedException(
                     "Unexpected class descriptor type: " + type);
         }
     }
 
+    private void cache(ObjectStreamClass desc, Class<?> clazz) {
+        if (descriptors != null) {
+            ClassDescriptor cached = new ClassDescriptor(desc, clazz);
+            descriptors.add(cached);
+            lastDescriptor = cached;
+        }
+    }
+
+    private int readDescriptorId() throws IOException {
+        int id = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            id |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return id;
+            }
+        }
+        throw new StreamCorruptedException("Malformed class descriptor id");
+    }
+
     @Override
     protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+        ClassDescriptor cached = lastDescriptor;
+        lastDescriptor = null;
+        if (cached != null && cached.descriptor == desc && cached.clazz != null) {
+            return cached.clazz;
+        }
+
         Class<?> clazz;
         try {
             clazz = classResolver.resolve(desc.getName());
@@ -69,7 +131,22 @@ class CompactObjectInputStream extends ObjectInputStream {
             clazz = super.resolveClass(desc);
         }
 
+        if (cached != null && cached.descriptor == desc) {
+            cached.clazz = clazz;
+        }
         return clazz;
     }
 
+    /**
+     * A class descriptor which was read from the peer before, and the class it was resolved to.
+     */
+    static final class ClassDescriptor {
+        final ObjectStreamClass descriptor;
+        Class<?> clazz;
+
+        ClassDescriptor(ObjectStreamClass descriptor, Class<?> clazz) {
+            this.descriptor = descriptor;
+            this.clazz = clazz;
+        }
+    }
 }
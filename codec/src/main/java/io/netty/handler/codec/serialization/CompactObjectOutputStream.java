@@ -19,14 +19,27 @@ import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.io.ObjectStreamClass;
 import java.io.OutputStream;
+import java.util.Map;
 
 class CompactObjectOutputStream extends ObjectOutputStream {
 
     static final int TYPE_FAT_DESCRIPTOR = 0;
     static final int TYPE_THIN_DESCRIPTOR = 1;
+    static final int TYPE_CACHED_DESCRIPTOR = 2;
+
+    private final Map<Class<?>, Integer> descriptorIds;
 
     CompactObjectOutputStream(OutputStream out) throws IOException {
+        this(out, null);
+    }
+
+    /**
+     * @param descriptorIds the ids of the class descriptors which were written to the same peer before, which is
+     *                      updated with the ids of new descriptors, or {@code null} to always write descriptors
+     */
+    CompactObjectOutputStream(OutputStream out, Map<Class<?>, Integer> descriptorIds) throws IOException {
         super(out);
+        this.descriptorIds = descriptorIds;
     }
 
     @Override
@@ -37,6 +50,17 @@ class CompactObjectOutputStream extends ObjectOutputStream {
     @Override
     protected void writeClassDescriptor(ObjectStreamClass desc) throws IOException {
         Class<?> clazz = desc.forClass();
+        if (descriptorIds != null) {
+            Integer id = descriptorIds.get(clazz);
+            if (id != null) {
+                write(TYPE_CACHED_DESCRIPTOR);
+                writeDescriptorId(id);
+                return;
+            }
+            // The peer assigns the same id when it reads the descriptor.
+            descriptorIds.put(clazz, descriptorIds.size());
+        }
+
         if (clazz.isPrimitive() || clazz.isArray() || clazz.isInterface() ||
             desc.getSerialVersionUID() == 0) {
             write(TYPE_FAT_DESCRIPTOR);
@@ -46,4 +70,12 @@ class CompactObjectOutputStream extends ObjectOutputStream {
             writeUTF(desc.getName());
         }
     }
+
+    private void writeDescriptorId(int id) throws IOException {
+        while ((id & ~0x7F) != 0) {
+            write(id & 0x7F | 0x80);
+            id >>>= 7;
+        }
+        write(id);
+    }
 }
@@ -16,7 +16,6 @@
 package io.netty.handler.codec.serialization;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.ByteBufOutputStream;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
 import io.netty.util.Attribute;
@@ -36,7 +35,7 @@ import java.io.Serializable;
  */
 public class CompatibleObjectEncoder extends MessageToByteEncoder<Serializable> {
 
-    private static final AttributeKey<ObjectOutputStream> OOS =
+    private static final AttributeKey<ObjectStream> OOS =
             AttributeKey.valueOf(CompatibleObjectEncoder.class, "OOS");
 
     private final int resetInterval;
@@ -77,27 +76,53 @@ public class CompatibleObjectEncoder extends MessageToByteEncoder<Serializable>
 
     @Override
     protected void encode(ChannelHandlerContext ctx, Serializable msg, ByteBuf out) throws Exception {
-        Attribute<ObjectOutputStream> oosAttr = ctx.attr(OOS);
-        ObjectOutputStream oos = oosAttr.get();
-        if (oos == null) {
-            oos = newObjectOutputStream(new ByteBufOutputStream(out));
-            ObjectOutputStream newOos = oosAttr.setIfAbsent(oos);
-            if (newOos != null) {
-                oos = newOos;
+        Attribute<ObjectStream> oosAttr = ctx.attr(OOS);
+        ObjectStream stream = oosAttr.get();
+        if (stream == null) {
+            stream = new ObjectStream();
+            ObjectStream newStream = oosAttr.setIfAbsent(stream);
+            if (newStream != null) {
+                stream = newStream;
             }
         }
 
-        synchronized (oos) {
-            if (resetInterval != 0) {
-                // Resetting will prevent OOM on the receiving side.
-                writtenObjects ++;
-                if (writtenObjects % resetInterval == 0) {
-                    oos.reset();
+        synchronized (stream) {
+            // The stream is kept for the whole channel, but writes into the buffer of the current message.
+            stream.out = out;
+            try {
+                ObjectOutputStream oos = stream.oos;
+                if (oos == null) {
+                    stream.oos = oos = newObjectOutputStream(stream);
                 }
+
+                if (resetInterval != 0) {
+                    // Resetting will prevent OOM on the receiving side.
+                    writtenObjects ++;
+                    if (writtenObjects % resetInterval == 0) {
+                        oos.reset();
+                    }
+                }
+
+                oos.writeObject(msg);
+                oos.flush();
+            } finally {
+                stream.out = null;
             }
+        }
+    }
+
+    private static final class ObjectStream extends OutputStream {
+        ObjectOutputStream oos;
+        ByteBuf out;
+
+        @Override
+        public void write(int b) {
+            out.writeByte(b);
+        }
 
-            oos.writeObject(msg);
-            oos.flush();
+        @Override
+        public void write(byte[] b, int off, int len) {
+            out.writeBytes(b, off, len);
         }
     }
 }
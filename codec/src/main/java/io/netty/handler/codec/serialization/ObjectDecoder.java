@@ -23,6 +23,8 @@ import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * A decoder which deserializes the received {@link ByteBuf}s into Java
@@ -32,10 +34,16 @@ import java.io.StreamCorruptedException;
  * compatible with the standard {@link ObjectOutputStream}.  Please use
  * {@link ObjectEncoder} or {@link ObjectEncoderOutputStream} to ensure the
  * interoperability with this decoder.
+ * <p>
+ * Use {@link #ObjectDecoder(int, ClassResolver, boolean)} to decode the objects of an {@link ObjectEncoder} which
+ * writes every class descriptor only once per channel. The descriptors of an object which failed to decode may not
+ * have been read, so all objects after it are rejected with a {@link StreamCorruptedException}.
  */
 public class ObjectDecoder extends LengthFieldBasedFrameDecoder {
 
     private final ClassResolver classResolver;
+    private final List<CompactObjectInputStream.ClassDescriptor> classDescriptors;
+    private boolean classDescriptorsCorrupted;
 
     /**
      * Creates a new decoder whose maximum object size is {@code 1048576}
@@ -60,8 +68,26 @@ public class ObjectDecoder extends LengthFieldBasedFrameDecoder {
      *                       of the serialized object
      */
     public ObjectDecoder(int maxObjectSize, ClassResolver classResolver) {
+        this(maxObjectSize, classResolver, false);
+    }
+
+    /**
+     * Creates a new decoder with the specified maximum object size.
+     *
+     * @param maxObjectSize  the maximum byte length of the serialized object.
+     *                       if the length of the received object is greater
+     *                       than this value, {@link StreamCorruptedException}
+     *                       will be raised.
+     * @param classResolver    the {@link ClassResolver} which will load the class
+     *                       of the serialized object
+     * @param cacheClassDescriptors {@code true} if the objects were encoded by an
+     *                       {@link ObjectEncoder} which writes every class descriptor
+     *                       only once per channel
+     */
+    public ObjectDecoder(int maxObjectSize, ClassResolver classResolver, boolean cacheClassDescriptors) {
         super(maxObjectSize, 0, 4, 0, 4);
         this.classResolver = classResolver;
+        classDescriptors = cacheClassDescriptors ? new ArrayList<CompactObjectInputStream.ClassDescriptor>() : null;
     }
 
     @Override
@@ -71,10 +97,21 @@ public class ObjectDecoder extends LengthFieldBasedFrameDecoder {
             return null;
         }
 
-        ObjectInputStream is = new CompactObjectInputStream(new ByteBufInputStream(frame), classResolver);
-        Object result = is.readObject();
-        is.close();
-        return result;
+        if (classDescriptorsCorrupted) {
+            throw new StreamCorruptedException("class descriptors unknown after a failed object");
+        }
+        ObjectInputStream is = new CompactObjectInputStream(
+                new ByteBufInputStream(frame), classResolver, classDescriptors);
+        boolean success = false;
+        try {
+            Object result = is.readObject();
+            success = true;
+            return result;
+        } finally {
+            // The encoder assigned ids to the descriptors which were not read, so the later ids are unknown.
+            classDescriptorsCorrupted = !success && classDescriptors != null;
+            is.close();
+        }
     }
 
     @Override
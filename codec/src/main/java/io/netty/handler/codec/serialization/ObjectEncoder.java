@@ -20,10 +20,15 @@ import io.netty.buffer.ByteBufOutputStream;
 import io.netty.channel.ChannelHandler.Sharable;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
 
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
 
 /**
  * An encoder which serializes a Java object into a {@link ByteBuf}.
@@ -32,24 +37,76 @@ import java.io.Serializable;
  * compatible with the standard {@link ObjectInputStream}.  Please use
  * {@link ObjectDecoder} or {@link ObjectDecoderInputStream} to ensure the
  * interoperability with this encoder.
+ * <p>
+ * Every serialized object contains the descriptors of its classes, unless the encoder was created with
+ * {@link #ObjectEncoder(boolean) new ObjectEncoder(true)}. Then every class descriptor is only written with the
+ * first object which uses it on a channel and is referred to by a small id afterwards, which requires the
+ * {@link ObjectDecoder} to be created with the same option.
  */
 @Sharable
 public class ObjectEncoder extends MessageToByteEncoder<Serializable> {
     private static final byte[] LENGTH_PLACEHOLDER = new byte[4];
+    private static final AttributeKey<Map<Class<?>, Integer>> DESCRIPTOR_IDS =
+            AttributeKey.valueOf(ObjectEncoder.class, "DESCRIPTOR_IDS");
+
+    private final boolean cacheClassDescriptors;
+
+    /**
+     * Creates a new instance which writes the class descriptors with every object.
+     */
+    public ObjectEncoder() {
+        this(false);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param cacheClassDescriptors {@code true} if every class descriptor should only be written once per channel,
+     *                              which is only understood by an {@link ObjectDecoder} created with the same option
+     */
+    public ObjectEncoder(boolean cacheClassDescriptors) {
+        this.cacheClassDescriptors = cacheClassDescriptors;
+    }
 
     @Override
     protected void encode(ChannelHandlerContext ctx, Serializable msg, ByteBuf out) throws Exception {
-        int startIdx = out.writerIndex();
+        Map<Class<?>, Integer> descriptorIds = cacheClassDescriptors ? descriptorIds(ctx) : null;
+        int knownDescriptors = descriptorIds != null ? descriptorIds.size() : 0;
+        boolean success = false;
+        try {
+            int startIdx = out.writerIndex();
 
-        ByteBufOutputStream bout = new ByteBufOutputStream(out);
-        bout.write(LENGTH_PLACEHOLDER);
-        ObjectOutputStream oout = new CompactObjectOutputStream(bout);
-        oout.writeObject(msg);
-        oout.flush();
-        oout.close();
+            ByteBufOutputStream bout = new ByteBufOutputStream(out);
+            bout.write(LENGTH_PLACEHOLDER);
+            ObjectOutputStream oout = new CompactObjectOutputStream(bout, descriptorIds);
+            oout.writeObject(msg);
+            oout.flush();
+            oout.close();
 
-        int endIdx = out.writerIndex();
+            int endIdx = out.writerIndex();
+
+            out.setInt(startIdx, endIdx - startIdx - 4);
+            success = true;
+        } finally {
+            if (!success && descriptorIds != null) {
+                // The object is not written, so the peer will not know about the descriptors written for it.
+                for (Iterator<Integer> i = descriptorIds.values().iterator(); i.hasNext();) {
+                    if (i.next() >= knownDescriptors) {
+                        i.remove();
+                    }
+                }
+            }
+        }
+    }
 
-        out.setInt(startIdx, endIdx - startIdx - 4);
+    private static Map<Class<?>, Integer> descriptorIds(ChannelHandlerContext ctx) {
+        Attribute<Map<Class<?>, Integer>> attr = ctx.channel().attr(DESCRIPTOR_IDS);
+        Map<Class<?>, Integer> descriptorIds = attr.get();
+        if (descriptorIds == null) {
+            // Only accessed from the event loop of the channel.
+            descriptorIds = new HashMap<Class<?>, Integer>();
+            attr.set(descriptorIds);
+        }
+        return descriptorIds;
     }
 }
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveCumulatorTest {
+    private static final ByteBufAllocator ALLOC = UnpooledByteBufAllocator.DEFAULT;
+
+    @Test
+    public void testSmallFragmentsAreCopied() {
+        AdaptiveCumulator cumulator = new AdaptiveCumulator(16, 4, 0.5f);
+        ByteBuf cumulation = Unpooled.buffer(4).writeBytes(new byte[] { 1, 2, 3, 4 });
+        ByteBuf in = Unpooled.buffer(4).writeBytes(new byte[] { 5, 6, 7, 8 });
+
+        ByteBuf result = cumulator.cumulate(ALLOC, cumulation, in);
+        assertFalse(result instanceof CompositeByteBuf);
+        assertEquals(0, cumulation.refCnt());
+        assertEquals(0, in.refCnt());
+        assertEquals(Unpooled.wrappedBuffer(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }), result);
+        result.release();
+    }
+
+    @Test
+    public void testNewCumulationIsSizedByEstimate() {
+        AdaptiveCumulator cumulator = new AdaptiveCumulator(1024, 4, 0.5f);
+        ByteBuf result = cumulator.cumulate(ALLOC, Unpooled.buffer(0), Unpooled.wrappedBuffer(new byte[512]));
+        result.skipBytes(512);
+
+        // The next cumulation should have room for about as many bytes as were cumulated before.
+        ByteBuf next = cumulator.cumulate(ALLOC, Unpooled.buffer(0), Unpooled.wrappedBuffer(new byte[8]));
+        assertTrue(next.capacity() >= 264);
+        ByteBuf last = cumulator.cumulate(ALLOC, next, Unpooled.wrappedBuffer(new byte[256]));
+        assertSame(next, last);
+        assertEquals(264, last.readableBytes());
+        result.release();
+        last.release();
+    }
+
+    @Test
+    public void testLargeFragmentsAreComposed() {
+        AdaptiveCumulator cumulator = new AdaptiveCumulator(16, 3, 0.5f);
+        ByteBuf cumulation = Unpooled.wrappedBuffer(new byte[4]);
+        ByteBuf in = Unpooled.wrappedBuffer(new byte[16]);
+
+        ByteBuf result = cumulator.cumulate(ALLOC, cumulation, in);
+        assertTrue(result instanceof CompositeByteBuf);
+        assertEquals(2, ((CompositeByteBuf) result).numComponents());
+        assertEquals(20, result.readableBytes());
+        assertEquals(1, in.refCnt());
+
+        result = cumulator.cumulate(ALLOC, result, Unpooled.wrappedBuffer(new byte[16]));
+        assertEquals(3, ((CompositeByteBuf) result).numComponents());
+
+        // Maximal number of components reached, copy everything.
+        ByteBuf composite = result;
+        result = cumulator.cumulate(ALLOC, result, Unpooled.wrappedBuffer(new byte[16]));
+        assertFalse(result instanceof CompositeByteBuf);
+        assertEquals(0, composite.refCnt());
+        assertEquals(52, result.readableBytes());
+        result.release();
+    }
+
+    @Test
+    public void testRetainedCumulationIsCopied() {
+        AdaptiveCumulator cumulator = new AdaptiveCumulator();
+        ByteBuf cumulation = Unpooled.buffer(16).writeBytes(new byte[4]);
+        cumulation.retain();
+
+        ByteBuf result = cumulator.cumulate(ALLOC, cumulation, Unpooled.wrappedBuffer(new byte[4]));
+        assertNotSame(cumulation, result);
+        assertEquals(1, cumulation.refCnt());
+        assertEquals(8, result.readableBytes());
+        cumulation.release();
+        result.release();
+    }
+
+    @Test
+    public void testReadBytesAreDiscarded() {
+        AdaptiveCumulator cumulator = new AdaptiveCumulator(1024, 4, 0.5f);
+        ByteBuf cumulation = Unpooled.buffer(16).writeBytes(new byte[12]);
+        cumulation.skipBytes(10);
+
+        ByteBuf result = cumulator.cumulate(ALLOC, cumulation, Unpooled.wrappedBuffer(new byte[4]));
+        assertSame(cumulation, result);
+        assertEquals(0, result.readerIndex());
+        assertEquals(6, result.readableBytes());
+        result.release();
+    }
+
+    @Test
+    public void testDecodeFragmented() {
+        final byte[] bytes = new byte[64 * 1024];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        ByteToMessageDecoder decoder = new FixedLengthFrameDecoder(8192);
+        decoder.setCumulator(new AdaptiveCumulator());
+        EmbeddedChannel channel = new EmbeddedChannel(decoder);
+
+        // Mix small and large fragments.
+        int[] sizes = { 1, 100, 5000, 7, 20000, 3, 1500 };
+        for (int i = 0, offset = 0; offset < bytes.length; i++) {
+            int size = Math.min(sizes[i % sizes.length], bytes.length - offset);
+            channel.writeInbound(Unpooled.copiedBuffer(bytes, offset, size));
+            offset += size;
+        }
+        assertTrue(channel.finish());
+
+        ByteBuf expected = Unpooled.wrappedBuffer(bytes);
+        for (int i = 0; i < 8; i++) {
+            ByteBuf frame = channel.readInbound();
+            assertEquals(expected.readSlice(8192), frame);
+            frame.release();
+        }
+        assertNull(channel.readInbound());
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec;
+
+import io.netty.util.AsciiString;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static io.netty.util.AsciiString.of;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link ArrayHeaders}.
+ */
+public class ArrayHeadersTest {
+
+    private static final class TestArrayHeaders extends ArrayHeaders<CharSequence, CharSequence, TestArrayHeaders> {
+        TestArrayHeaders() {
+            super(AsciiString.CASE_INSENSITIVE_HASHER, CharSequenceValueConverter.INSTANCE,
+                  DefaultHeaders.NameValidator.NOT_NULL, 2);
+        }
+    }
+
+    private static final class TestDefaultHeaders extends
+            DefaultHeaders<CharSequence, CharSequence, TestDefaultHeaders> {
+        TestDefaultHeaders() {
+            super(AsciiString.CASE_INSENSITIVE_HASHER, CharSequenceValueConverter.INSTANCE);
+        }
+    }
+
+    @Test
+    public void testBehavesLikeDefaultHeaders() {
+        Random random = new Random(7);
+        CharSequence[] names = { of("a"), of("B"), of("b"), of("c"), of("d"), of("e") };
+        TestArrayHeaders headers = new TestArrayHeaders();
+        TestDefaultHeaders expected = new TestDefaultHeaders();
+        for (int i = 0; i < 10000; i++) {
+            CharSequence name = names[random.nextInt(names.length)];
+            CharSequence value = of(String.valueOf(random.nextInt(4)));
+            switch (random.nextInt(8)) {
+            case 0:
+            case 1:
+            case 2:
+                headers.add(name, value);
+                expected.add(name, value);
+                break;
+            case 3:
+                headers.set(name, value);
+                expected.set(name, value);
+                break;
+            case 4:
+                assertEquals(expected.remove(name), headers.remove(name));
+                break;
+            case 5:
+                assertEquals(expected.getAndRemove(name), headers.getAndRemove(name));
+                break;
+            case 6:
+                assertEquals(expected.contains(name, value), headers.contains(name, value));
+                break;
+            default:
+                if (random.nextInt(50) == 0) {
+                    headers.clear();
+                    expected.clear();
+                }
+            }
+
+            assertEquals(expected.size(), headers.size());
+            assertEquals(expected.get(name), headers.get(name));
+            assertEquals(expected.getAll(name), headers.getAll(name));
+            assertEquals(expected.names(), headers.names());
+            assertEquals(entries(expected), entries(headers));
+            assertEquals(expected, headers);
+            assertEquals(headers, expected);
+            assertEquals(expected.hashCode(), headers.hashCode());
+        }
+    }
+
+    @Test
+    public void testConvertedValues() {
+        TestArrayHeaders headers = new TestArrayHeaders();
+        headers.addInt(of("int"), 42);
+        headers.setLong(of("long"), 1L << 40);
+        headers.addBoolean(of("boolean"), true);
+        assertEquals(42, (int) headers.getInt(of("INT")));
+        assertEquals(1L << 40, headers.getLong(of("long"), 0));
+        assertTrue(headers.containsBoolean(of("boolean"), true));
+        assertEquals(42, (int) headers.getIntAndRemove(of("int")));
+        assertNull(headers.getInt(of("int")));
+        assertEquals(2, headers.size());
+    }
+
+    @Test
+    public void testCopy() {
+        TestArrayHeaders headers = new TestArrayHeaders();
+        headers.add(of("name1"), of("value1"));
+        headers.add(of("name2"), of("value2"), of("value3"));
+
+        TestArrayHeaders copy = new TestArrayHeaders();
+        copy.add(of("name0"), of("value0"));
+        copy.add(headers);
+        assertEquals(Arrays.asList("name0=value0", "name1=value1", "name2=value2", "name2=value3"), entries(copy));
+
+        TestDefaultHeaders defaultCopy = new TestDefaultHeaders();
+        defaultCopy.add(headers);
+        assertEquals(headers, defaultCopy);
+
+        copy.set(defaultCopy);
+        assertEquals(headers, copy);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddSelf() {
+        TestArrayHeaders headers = new TestArrayHeaders();
+        headers.add(headers);
+    }
+
+    @Test
+    public void testIteratorSetValue() {
+        TestArrayHeaders headers = new TestArrayHeaders();
+        headers.add(of("name1"), of("value1"));
+        headers.add(of("name2"), of("value2"));
+        Iterator<Entry<CharSequence, CharSequence>> iter = headers.iterator();
+        iter.next();
+        assertEquals(of("value2"), iter.next().setValue(of("updated")));
+        assertFalse(iter.hasNext());
+        try {
+            iter.next();
+            fail();
+        } catch (NoSuchElementException expected) {
+            // Expected
+        }
+        assertEquals(of("updated"), headers.get(of("name2")));
+        assertEquals("TestArrayHeaders[name1: value1, name2: updated]", headers.toString());
+    }
+
+    private static List<String> entries(Headers<CharSequence, CharSequence, ?> headers) {
+        List<String> entries = new ArrayList<String>();
+        for (Entry<CharSequence, CharSequence> entry : headers) {
+            entries.add(entry.getKey() + "=" + entry.getValue());
+        }
+        return entries;
+    }
+}
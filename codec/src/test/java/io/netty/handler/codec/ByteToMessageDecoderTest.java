@@ -20,6 +20,7 @@ import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.internal.ThreadLocalRandom;
 import org.junit.Test;
@@ -259,6 +260,43 @@ public class ByteToMessageDecoderTest {
         assertNull(channel.readInbound());
     }
 
+    @Test
+    public void testZeroCopyCumulator() {
+        EmbeddedChannel channel = new EmbeddedChannel(new FixedLengthFrameDecoder(3, true));
+        byte[] first = { 'a', 'b' };
+        byte[] second = { 'c', 'd', 'e', 'f', 'g' };
+        byte[] third = { 'h', 'i' };
+        ByteBuf firstBuf = Unpooled.wrappedBuffer(first);
+        ByteBuf secondBuf = Unpooled.wrappedBuffer(second);
+        ByteBuf thirdBuf = Unpooled.wrappedBuffer(third);
+
+        assertFalse(channel.writeInbound(firstBuf));
+        assertTrue(channel.writeInbound(secondBuf));
+        ByteBuf abc = channel.readInbound();
+        ByteBuf def = channel.readInbound();
+        assertNull(channel.readInbound());
+
+        // The cumulation is still referenced by the frames, but must not be copied.
+        assertTrue(channel.writeInbound(thirdBuf));
+        ByteBuf ghi = channel.readInbound();
+        assertFalse(channel.finish());
+
+        // The frames share the memory of the received buffers.
+        first[0] = 'A';
+        second[3] = 'F';
+        third[1] = 'I';
+        assertEquals("Abc", abc.toString(CharsetUtil.US_ASCII));
+        assertEquals("deF", def.toString(CharsetUtil.US_ASCII));
+        assertEquals("ghI", ghi.toString(CharsetUtil.US_ASCII));
+
+        abc.release();
+        def.release();
+        ghi.release();
+        assertEquals(0, firstBuf.refCnt());
+        assertEquals(0, secondBuf.refCnt());
+        assertEquals(0, thirdBuf.refCnt());
+    }
+
     private static void assertBuffer(ByteBuf expected, ByteBuf buffer) {
         try {
             assertEquals(expected, buffer);
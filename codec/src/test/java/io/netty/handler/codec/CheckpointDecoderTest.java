@@ -0,0 +1,200 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import java.util.List;
+
+import static io.netty.util.ReferenceCountUtil.*;
+import static org.junit.Assert.*;
+
+public class CheckpointDecoderTest {
+
+    @Test
+    public void testLineProtocol() {
+        EmbeddedChannel ch = new EmbeddedChannel(new LineDecoder());
+
+        // Ordinary input
+        ch.writeInbound(Unpooled.wrappedBuffer(new byte[] { 'A' }));
+        assertNull(ch.readInbound());
+        ch.writeInbound(Unpooled.wrappedBuffer(new byte[] { 'B' }));
+        assertNull(ch.readInbound());
+        ch.writeInbound(Unpooled.wrappedBuffer(new byte[] { 'C' }));
+        assertNull(ch.readInbound());
+        ch.writeInbound(Unpooled.wrappedBuffer(new byte[] { '\n' }));
+        assertEquals(Unpooled.wrappedBuffer(new byte[] { 'A', 'B', 'C' }), releaseLater(ch.readInbound()));
+
+        // Truncated input
+        ch.writeInbound(Unpooled.wrappedBuffer(new byte[] { 'A' }));
+        assertNull(ch.readInbound());
+
+        assertFalse(ch.finish());
+    }
+
+    private static final class LineDecoder extends CheckpointDecoder<Void> {
+
+        @Override
+        protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+            int length = in.bytesBefore((byte) '\n');
+            if (length >= 0) {
+                out.add(in.readRetainedSlice(length));
+                in.skipBytes(1);
+            }
+        }
+    }
+
+    @Test
+    public void testResumeFromCheckpoint() {
+        EmbeddedChannel ch = new EmbeddedChannel(new LengthPrefixedDecoder());
+        ByteBuf input = Unpooled.buffer();
+        for (String msg : new String[] { "Netty", "", "is", "fast" }) {
+            input.writeInt(msg.length()).writeBytes(msg.getBytes(CharsetUtil.US_ASCII));
+        }
+
+        // Every byte in its own buffer, so decode() runs out of data in every state.
+        while (input.isReadable()) {
+            ch.writeInbound(input.readRetainedSlice(1));
+        }
+        input.release();
+
+        for (String msg : new String[] { "Netty", "", "is", "fast" }) {
+            ByteBuf buf = ch.readInbound();
+            assertEquals(msg, buf.toString(CharsetUtil.US_ASCII));
+            buf.release();
+        }
+        assertFalse(ch.finish());
+    }
+
+    @Test
+    public void testSingleDecode() {
+        LengthPrefixedDecoder decoder = new LengthPrefixedDecoder();
+        decoder.setSingleDecode(true);
+        EmbeddedChannel ch = new EmbeddedChannel(decoder);
+
+        ch.writeInbound(Unpooled.wrappedBuffer(new byte[] { 0, 0, 0, 1, 'A', 0, 0, 0, 1, 'B' }));
+        assertEquals(releaseLater(Unpooled.wrappedBuffer(new byte[] { 'A' })), releaseLater(ch.readInbound()));
+        assertNull("Must be null as it must only decode one frame", ch.readInbound());
+
+        ch.read();
+        ch.finish();
+        assertEquals(releaseLater(Unpooled.wrappedBuffer(new byte[] { 'B' })), releaseLater(ch.readInbound()));
+        assertNull(ch.readInbound());
+    }
+
+    private enum State {
+        READ_LENGTH,
+        READ_CONTENT
+    }
+
+    private static final class LengthPrefixedDecoder extends CheckpointDecoder<State> {
+        private int length;
+
+        LengthPrefixedDecoder() {
+            super(State.READ_LENGTH);
+        }
+
+        @Override
+        protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+            switch (state()) {
+            case READ_LENGTH:
+                // Read the length in two steps, to check that the first one is unread if the second one fails.
+                if (!in.isReadable(2)) {
+                    return;
+                }
+                length = in.readUnsignedShort() << 16;
+                if (!in.isReadable(2)) {
+                    return;
+                }
+                length |= in.readUnsignedShort();
+                checkpoint(State.READ_CONTENT);
+                // Fall through
+            case READ_CONTENT:
+                if (!in.isReadable(length)) {
+                    return;
+                }
+                out.add(in.readRetainedSlice(length));
+                checkpoint(State.READ_LENGTH);
+                break;
+            default:
+                throw new Error();
+            }
+        }
+    }
+
+    @Test
+    public void testDecodedMessageWithoutCheckpointKeepsReadBytes() {
+        EmbeddedChannel ch = new EmbeddedChannel(new CheckpointDecoder<Void>() {
+            @Override
+            protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+                if (in.isReadable(2)) {
+                    out.add(in.readRetainedSlice(2));
+                }
+            }
+        });
+
+        assertTrue(ch.writeInbound(Unpooled.wrappedBuffer(new byte[] { 'A', 'B', 'C' })));
+        assertEquals(releaseLater(Unpooled.wrappedBuffer(new byte[] { 'A', 'B' })), releaseLater(ch.readInbound()));
+        assertNull(ch.readInbound());
+        assertTrue(ch.writeInbound(Unpooled.wrappedBuffer(new byte[] { 'D' })));
+        assertEquals(releaseLater(Unpooled.wrappedBuffer(new byte[] { 'C', 'D' })), releaseLater(ch.readInbound()));
+        assertFalse(ch.finish());
+    }
+
+    @Test(expected = DecoderException.class)
+    public void testDecodeWithoutConsuming() {
+        EmbeddedChannel ch = new EmbeddedChannel(new CheckpointDecoder<Void>() {
+            @Override
+            protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+                out.add("message");
+            }
+        });
+        try {
+            ch.writeInbound(Unpooled.wrappedBuffer(new byte[] { 'A' }));
+        } finally {
+            ch.finishAndReleaseAll();
+        }
+    }
+
+    @Test
+    public void testRemoveItself() {
+        EmbeddedChannel channel = new EmbeddedChannel(new CheckpointDecoder<Void>() {
+            private boolean removed;
+
+            @Override
+            protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+                assertFalse(removed);
+                in.readByte();
+                checkpoint();
+                ctx.pipeline().remove(this);
+                removed = true;
+            }
+        });
+
+        ByteBuf buf = Unpooled.wrappedBuffer(new byte[] { 'a', 'b', 'c' });
+        channel.writeInbound(buf.copy());
+        ByteBuf b = channel.readInbound();
+        assertEquals(b, buf.skipBytes(1));
+        b.release();
+        buf.release();
+        assertFalse(channel.finish());
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import java.nio.channels.ClosedChannelException;
+
+import static org.junit.Assert.*;
+
+public class MessageToByteEncoderTest {
+
+    @Test
+    public void testAllocateEstimatedSize() {
+        EmbeddedChannel channel = new EmbeddedChannel(new RepeatingEncoder() {
+            @Override
+            protected int estimateEncodedSize(Integer msg) {
+                return msg;
+            }
+        });
+
+        assertTrue(channel.writeOutbound(10000));
+        ByteBuf buf = channel.readOutbound();
+        assertEquals(10000, buf.readableBytes());
+        assertEquals(10000, buf.capacity());
+        buf.release();
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testPredictEncodedSize() {
+        RepeatingEncoder encoder = new RepeatingEncoder();
+        EmbeddedChannel channel = new EmbeddedChannel(encoder);
+
+        for (int i = 0; i < 2; i++) {
+            assertTrue(channel.writeOutbound(10000));
+            ByteBuf buf = channel.readOutbound();
+            assertEquals(10000, buf.readableBytes());
+            buf.release();
+        }
+        // The first message did not fit, the buffer for the second one was large enough.
+        assertTrue(encoder.initialCapacities[0] < 10000);
+        assertTrue(encoder.initialCapacities[1] >= 10000);
+
+        // Shrinks again if the messages are smaller.
+        for (int i = 0; i < 100; i++) {
+            assertTrue(channel.writeOutbound(10));
+            ByteBuf buf = channel.readOutbound();
+            buf.release();
+        }
+        assertEquals(EncodedSizePredictor.DEFAULT_MINIMUM, encoder.initialCapacities[1]);
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testBatching() {
+        RepeatingEncoder encoder = new RepeatingEncoder();
+        encoder.setMaxBatchBytes(16);
+        EmbeddedChannel channel = new EmbeddedChannel(encoder);
+
+        ChannelFuture first = channel.write(3);
+        ChannelFuture second = channel.write(4);
+        assertNull(channel.readOutbound());
+        assertFalse(first.isDone());
+
+        // Passed on once flushed.
+        channel.flush();
+        assertTrue(first.isSuccess());
+        assertTrue(second.isSuccess());
+        assertOutbound(channel, "aaabbbb");
+
+        // Passed on once full, so the following message is encoded into a new buffer.
+        channel.write(10);
+        channel.write(10);
+        channel.write(1);
+        channel.flush();
+        assertOutbound(channel, "ccccccccccdddddddddd");
+        assertOutbound(channel, "e");
+        assertNull(channel.readOutbound());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testBatchingPassesOnBatchBeforeOtherMessages() {
+        RepeatingEncoder encoder = new RepeatingEncoder();
+        encoder.setMaxBatchBytes(1024);
+        EmbeddedChannel channel = new EmbeddedChannel(encoder);
+
+        channel.write(2);
+        channel.write("other");
+        channel.write(3);
+        channel.flush();
+        assertOutbound(channel, "aa");
+        assertEquals("other", channel.readOutbound());
+        assertOutbound(channel, "bbb");
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testBatchingDropsFailedMessage() {
+        RepeatingEncoder encoder = new RepeatingEncoder();
+        encoder.setMaxBatchBytes(1024);
+        EmbeddedChannel channel = new EmbeddedChannel(encoder);
+
+        ChannelFuture first = channel.write(2);
+        ChannelFuture failed = channel.write(-3);
+        ChannelFuture third = channel.write(1);
+        assertTrue(failed.cause() instanceof EncoderException);
+        channel.flush();
+        assertTrue(first.isSuccess());
+        assertTrue(third.isSuccess());
+        assertOutbound(channel, "aac");
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testBatchingPassesOnBatchBeforeClose() {
+        RepeatingEncoder encoder = new RepeatingEncoder();
+        encoder.setMaxBatchBytes(1024);
+        EmbeddedChannel channel = new EmbeddedChannel(encoder);
+
+        // Without passing on the batch the promise would never complete and the buffer would leak.
+        ChannelFuture write = channel.write(2);
+        assertFalse(write.isDone());
+        channel.close();
+        assertTrue(write.cause() instanceof ClosedChannelException);
+        assertNull(channel.readOutbound());
+    }
+
+    @Test
+    public void testDoesNotInterceptFlushAndCloseWithoutBatching() throws Exception {
+        // Keeps flush() and close() skippable in the pipeline for the encoders which do not batch.
+        assertEquals(ChannelOutboundHandlerAdapter.class,
+                IntegerEncoder.class.getMethod("flush", ChannelHandlerContext.class).getDeclaringClass());
+        assertEquals(ChannelOutboundHandlerAdapter.class,
+                IntegerEncoder.class.getMethod("close", ChannelHandlerContext.class, ChannelPromise.class)
+                        .getDeclaringClass());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testBatchingNotSupportedWhenSharable() {
+        new SharableEncoder().setMaxBatchBytes(1024);
+    }
+
+    private static void assertOutbound(EmbeddedChannel channel, String expected) {
+        ByteBuf buf = channel.readOutbound();
+        assertEquals(expected, buf.toString(CharsetUtil.US_ASCII));
+        buf.release();
+    }
+
+    /**
+     * Encodes an {@link Integer} by repeating a letter, which is different for every message, as often as the
+     * value. Writes the message partially before failing if the value is negative.
+     */
+    private static class RepeatingEncoder extends BatchingMessageToByteEncoder<Integer> {
+        // The initial capacities of the last two allocated buffers.
+        final int[] initialCapacities = new int[2];
+        private int messages;
+
+        @Override
+        protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, Integer msg, boolean preferDirect)
+                throws Exception {
+            ByteBuf buf = super.allocateBuffer(ctx, msg, preferDirect);
+            initialCapacities[0] = initialCapacities[1];
+            initialCapacities[1] = buf.capacity();
+            return buf;
+        }
+
+        @Override
+        protected void encode(ChannelHandlerContext ctx, Integer msg, ByteBuf out) {
+            char c = (char) ('a' + messages++);
+            for (int i = 0; i < Math.abs(msg); i++) {
+                out.writeByte(c);
+            }
+            if (msg < 0) {
+                throw new IllegalArgumentException("negative: " + msg);
+            }
+        }
+    }
+
+    private static final class IntegerEncoder extends MessageToByteEncoder<Integer> {
+        @Override
+        protected void encode(ChannelHandlerContext ctx, Integer msg, ByteBuf out) {
+            out.writeInt(msg);
+        }
+    }
+
+    @Sharable
+    private static final class SharableEncoder extends BatchingMessageToByteEncoder<Integer> {
+        @Override
+        protected void encode(ChannelHandlerContext ctx, Integer msg, ByteBuf out) {
+            out.writeInt(msg);
+        }
+    }
+}
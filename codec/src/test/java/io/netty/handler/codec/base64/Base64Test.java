@@ -16,18 +16,23 @@
 package io.netty.handler.codec.base64;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.util.CharsetUtil;
 import org.junit.Test;
 
 
+import javax.xml.bind.DatatypeConverter;
 import java.io.ByteArrayInputStream;
 import java.nio.charset.Charset;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
+import java.util.Random;
 
 import static io.netty.buffer.Unpooled.copiedBuffer;
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 public class Base64Test {
 
@@ -97,6 +102,174 @@ public class Base64Test {
         testEncode(src, expectedEncoded);
     }
 
+    @Test
+    public void testEncodeDecodeAllLengths() {
+        Random random = new Random(42);
+        for (int len = 0; len < 300; len++) {
+            byte[] bytes = new byte[len];
+            random.nextBytes(bytes);
+            String expected = DatatypeConverter.printBase64Binary(bytes);
+            for (boolean direct : new boolean[] { false, true }) {
+                ByteBuf src = direct ? Unpooled.directBuffer(len).writeBytes(bytes) : Unpooled.wrappedBuffer(bytes);
+                ByteBuf encoded = Base64.encode(src.duplicate(), false);
+                assertEquals(expected, encoded.toString(CharsetUtil.US_ASCII));
+                ByteBuf decoded = Base64.decode(encoded);
+                assertEquals(src, decoded);
+
+                ByteBuf encodedLines = Base64.encode(src.duplicate(), true);
+                assertEquals(expected, encodedLines.toString(CharsetUtil.US_ASCII).replace("\n", ""));
+                assertEquals(encodedLines.readableBytes(), encodedLines.capacity());
+                ByteBuf decodedLines = Base64.decode(encodedLines);
+                assertEquals(src, decodedLines);
+
+                src.release();
+                encoded.release();
+                decoded.release();
+                encodedLines.release();
+                decodedLines.release();
+            }
+        }
+    }
+
+    @Test
+    public void testEncodeDecodeLargeDirectBuffer() {
+        byte[] bytes = new byte[100000];
+        new Random(42).nextBytes(bytes);
+        ByteBuf src = Unpooled.directBuffer(bytes.length).writeBytes(bytes);
+        ByteBuf encoded = encode(src.duplicate(), true, Base64Dialect.STANDARD, UnpooledByteBufAllocator.DEFAULT);
+        String[] lines = encoded.toString(CharsetUtil.US_ASCII).split("\n");
+        assertEquals(DatatypeConverter.printBase64Binary(bytes), join(lines));
+        for (int i = 0; i < lines.length - 1; i++) {
+            assertEquals(76, lines[i].length());
+        }
+
+        ByteBuf directEncoded = Unpooled.directBuffer(encoded.readableBytes()).writeBytes(encoded);
+        ByteBuf decoded = Base64.decode(directEncoded);
+        assertEquals(src, decoded);
+        src.release();
+        encoded.release();
+        directEncoded.release();
+        decoded.release();
+    }
+
+    private static ByteBuf encode(ByteBuf src, boolean breakLines, Base64Dialect dialect, ByteBufAllocator alloc) {
+        return Base64.encode(src, src.readerIndex(), src.readableBytes(), breakLines, dialect, alloc);
+    }
+
+    @Test
+    public void testDecodeIgnoresWhiteSpaceAndStopsAtPadding() {
+        ByteBuf src = copiedBuffer(" YW Jj\r\nZA ==\tignored", CharsetUtil.US_ASCII);
+        ByteBuf decoded = Base64.decode(src);
+        assertEquals("abcd", decoded.toString(CharsetUtil.US_ASCII));
+        src.release();
+        decoded.release();
+    }
+
+    @Test
+    public void testDecodeBadCharacter() {
+        assertBadCharacter("YWJj*ZA==", "bad Base64 input character at 4: 42 (decimal)");
+        assertBadCharacter("YWJj\u007f", "bad Base64 input character at 4: 127 (decimal)");
+    }
+
+    private static void assertBadCharacter(String encoded, String message) {
+        ByteBuf src = copiedBuffer(encoded, CharsetUtil.ISO_8859_1);
+        try {
+            Base64.decode(src);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals(message, e.getMessage());
+        } finally {
+            src.release();
+        }
+    }
+
+    @Test
+    public void testStreamEncoder() {
+        byte[] bytes = new byte[1000];
+        new Random(42).nextBytes(bytes);
+        ByteBuf expected = Base64.encode(Unpooled.wrappedBuffer(bytes), true);
+
+        EmbeddedChannel channel = new EmbeddedChannel(new Base64StreamEncoder());
+        Random random = new Random(42);
+        for (int i = 0; i < bytes.length;) {
+            int n = Math.min(random.nextInt(100), bytes.length - i);
+            channel.write(Unpooled.wrappedBuffer(bytes, i, n));
+            i += n;
+        }
+        assertTrue(channel.finish());
+        assertEquals(expected, readAll(channel, false));
+        expected.release();
+    }
+
+    @Test
+    public void testStreamEncoderFinish() {
+        Base64StreamEncoder encoder = new Base64StreamEncoder(false);
+        EmbeddedChannel channel = new EmbeddedChannel(encoder);
+        channel.writeAndFlush(copiedBuffer("ab", CharsetUtil.US_ASCII));
+        assertNull(channel.readOutbound());
+        assertTrue(encoder.finish().isSuccess());
+        channel.writeAndFlush(copiedBuffer("cde", CharsetUtil.US_ASCII));
+        assertEquals("YWI=Y2Rl", readAll(channel, false).toString(CharsetUtil.US_ASCII));
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testStreamEncoderBreaksLinesAfterFinish() {
+        byte[] bytes = new byte[87];
+        new Random(42).nextBytes(bytes);
+        // The second text fills exactly one line, so it must not be broken.
+        ByteBuf first = Unpooled.wrappedBuffer(bytes, 0, 30);
+        ByteBuf second = Unpooled.wrappedBuffer(bytes, 30, 57);
+        ByteBuf expected = Unpooled.wrappedBuffer(Base64.encode(first, true), Base64.encode(second, true));
+
+        Base64StreamEncoder encoder = new Base64StreamEncoder();
+        EmbeddedChannel channel = new EmbeddedChannel(encoder);
+        channel.write(Unpooled.wrappedBuffer(bytes, 0, 30));
+        assertTrue(encoder.finish().isSuccess());
+        channel.write(Unpooled.wrappedBuffer(bytes, 30, 57));
+        assertTrue(channel.finish());
+        assertEquals(expected, readAll(channel, false));
+        expected.release();
+    }
+
+    @Test
+    public void testStreamDecoder() {
+        byte[] bytes = new byte[1000];
+        new Random(42).nextBytes(bytes);
+        // Padded twice, once in the middle.
+        ByteBuf encoded = Unpooled.wrappedBuffer(Base64.encode(Unpooled.wrappedBuffer(bytes, 0, 500), true),
+                                                 Base64.encode(Unpooled.wrappedBuffer(bytes, 500, 500), true));
+
+        EmbeddedChannel channel = new EmbeddedChannel(new Base64StreamDecoder());
+        Random random = new Random(42);
+        while (encoded.isReadable()) {
+            channel.writeInbound(encoded.readRetainedSlice(Math.min(random.nextInt(10), encoded.readableBytes())));
+        }
+        encoded.release();
+        assertEquals(Unpooled.wrappedBuffer(bytes), readAll(channel, true));
+        assertFalse(channel.finish());
+    }
+
+    private static ByteBuf readAll(EmbeddedChannel channel, boolean inbound) {
+        ByteBuf all = Unpooled.buffer();
+        for (;;) {
+            ByteBuf buf = inbound ? (ByteBuf) channel.readInbound() : (ByteBuf) channel.readOutbound();
+            if (buf == null) {
+                return all;
+            }
+            all.writeBytes(buf);
+            buf.release();
+        }
+    }
+
+    private static String join(String[] lines) {
+        StringBuilder builder = new StringBuilder();
+        for (String line : lines) {
+            builder.append(line);
+        }
+        return builder.toString();
+    }
+
     private static X509Certificate certFromString(String string) throws Exception {
         CertificateFactory factory = CertificateFactory.getInstance("X.509");
         ByteArrayInputStream bin = new ByteArrayInputStream(string.getBytes(CharsetUtil.US_ASCII));
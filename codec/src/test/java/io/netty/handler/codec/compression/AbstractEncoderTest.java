@@ -15,9 +15,12 @@
  */
 package io.netty.handler.codec.compression;
 
+import io.netty.buffer.AbstractByteBufAllocator;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.embedded.EmbeddedChannel;
 import org.junit.Before;
 import org.junit.experimental.theories.DataPoints;
@@ -26,8 +29,13 @@ import org.junit.experimental.theories.Theories;
 import org.junit.experimental.theories.Theory;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 @RunWith(Theories.class)
 public abstract class AbstractEncoderTest extends AbstractCompressionTest {
@@ -105,6 +113,107 @@ public abstract class AbstractEncoderTest extends AbstractCompressionTest {
         data.release();
     }
 
+    /**
+     * Compresses the data with an encoder which hands its blocks to the {@code executor}, which compresses the
+     * blocks in the reverse order so the encoder must reorder them.
+     */
+    protected void testParallelCompression(final ByteBuf data, ReversingExecutor executor) throws Exception {
+        final int dataLength = data.readableBytes();
+        int written = 0;
+        while (written < dataLength) {
+            int length = Math.min(rand.nextInt(10000), dataLength - written);
+            // The flush is delayed until the pending blocks are written, so the channel may not have output yet.
+            channel.writeOutbound(data.retainedSlice(written, length));
+            written += length;
+        }
+        ChannelFuture closeFuture = channel.close();
+        while (!closeFuture.isDone()) {
+            executor.runTasks();
+            channel.runPendingTasks();
+        }
+        channel.checkException();
+
+        ByteBuf decompressed = readDecompressed(dataLength);
+        assertEquals(data, decompressed);
+
+        decompressed.release();
+        data.release();
+    }
+
+    /**
+     * Checks that the promise of a message which filled blocks is only completed once they were written.
+     */
+    protected void testParallelWritePromise(ReversingExecutor executor) throws Exception {
+        ChannelFuture future = channel.writeAndFlush(Unpooled.wrappedBuffer(BYTES_LARGE));
+        assertFalse(future.isDone());
+        executor.runTasks();
+        channel.runPendingTasks();
+        assertTrue(future.isSuccess());
+
+        ChannelFuture closeFuture = channel.close();
+        while (!closeFuture.isDone()) {
+            executor.runTasks();
+            channel.runPendingTasks();
+        }
+        channel.finishAndReleaseAll();
+    }
+
+    /**
+     * Checks that the promise of a message fails and the channel is closed if one of its blocks fails to compress,
+     * instead of writing the stream without the block.
+     */
+    protected void testParallelCompressionFailure(ReversingExecutor executor) throws Exception {
+        ChannelFuture future = channel.writeAndFlush(Unpooled.wrappedBuffer(BYTES_LARGE));
+        assertFalse(future.isDone());
+        // The blocks are compressed with the allocator of the channel.
+        channel.config().setAllocator(new AbstractByteBufAllocator() {
+            @Override
+            public boolean isDirectBufferPooled() {
+                return false;
+            }
+
+            @Override
+            protected ByteBuf newHeapBuffer(int initialCapacity, int maxCapacity) {
+                throw new OutOfMemoryError();
+            }
+
+            @Override
+            protected ByteBuf newDirectBuffer(int initialCapacity, int maxCapacity) {
+                throw new OutOfMemoryError();
+            }
+        });
+        executor.runTasks();
+        channel.runPendingTasks();
+        assertTrue(future.cause() instanceof CompressionException);
+        assertFalse(channel.isOpen());
+        try {
+            channel.checkException();
+            fail();
+        } catch (CompressionException expected) {
+            // Expected
+        }
+
+        channel.config().setAllocator(UnpooledByteBufAllocator.DEFAULT);
+        executor.runTasks();
+        channel.finishAndReleaseAll();
+    }
+
+    protected static final class ReversingExecutor implements Executor {
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<Runnable>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.push(task);
+        }
+
+        void runTasks() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+
     protected ByteBuf readDecompressed(final int dataLength) throws Exception {
         CompositeByteBuf compressed = Unpooled.compositeBuffer();
         ByteBuf msg;
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.base64.Base64;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BrotliDecoderTest extends AbstractDecoderTest {
+
+    // Streams produced by the reference implementation at quality 1 with a 64 KiB window and at quality 11 with
+    // a 4 MiB window.
+    private static final String STREAM_QUALITY_1 =
+            "gzwOAICqqqrq/+6Xkx4u7uCybH45+OGuYK4ObmDuqgZq6mZgqMI5jjV4ITwAFnWyGnFBEPtzf6RnGeNM85ZyTXk76/Tprbb/lspe6ri+" +
+            "+ryXmmoZR+tLyuv6nac85lbTu+dfOVpfbhe4tYf2yB7bE3tqz+y5vbAHUReArwISWYOuA0DYAaDsAJB2AGg7AMQdAOoOgAKgACgACoAC" +
+            "oAAoAAqAAqAAJAAJQAKQACQACUACkAAkAAnAArAALAALwAKwACwAC8ACsAAigAggAogAIoAIIAKIACKACKACqAAqgAqgAqgAKoAKoAKo" +
+            "ACaACWACmAAmgAlgApgAJoAJ4AK4AC6AC+ACuAAugAvgArgAIUAIEAKEACFACBAChAAhQAgY";
+    private static final String STREAM_QUALITY_11 =
+            "G3kcMB0HjttcnH6F2B2n4qa0LL+kglMZ1MlSvVDUoFHeBgEF7ZoLQFYxaEJKcn9gecwDrmwL7axJ1b6+n959cnARckSX6ga+zLK1BTeZ" +
+            "7zgveIIjzrjijife+OLXE++Df3nkmVfe+eSbX/z6BRp75JFHHnnkkUceeeSZZ5555plnnnnmmWdeeeWVV1555ZVXXnnlnXfeeeedd955" +
+            "5513Pvnkk08++eSTTz755Jtvvvnmm2+++eabb3755Zdffvnll19++eUvf/nLX/7yl7/85S9+Aw==";
+    // A sentence compressed by the reference implementation at quality 11, mostly as static dictionary words.
+    private static final String STREAM_DICTIONARY_WORDS =
+            "G0wAkJwJdixkMoqwQ15ThaG9STIztnY5w9OTIHN5jnHgsK3DPsGtwwYcUjg/rxMt+oYwYjoGR+h9Vr3Fk0UA";
+    private static final String DICTIONARY_WORDS =
+            "The quick brown fox jumps over the lazy dog and the information is available.";
+
+    public BrotliDecoderTest() throws Exception {
+    }
+
+    @Override
+    public void initChannel() {
+        channel = new EmbeddedChannel(new BrotliDecoder());
+    }
+
+    @Override
+    protected byte[] compress(byte[] data) throws Exception {
+        EmbeddedChannel encoder = new EmbeddedChannel(new BrotliEncoder());
+        assertTrue(encoder.writeOutbound(Unpooled.wrappedBuffer(data)));
+        assertTrue(encoder.finish());
+
+        ByteBuf compressed = Unpooled.buffer();
+        ByteBuf msg;
+        while ((msg = encoder.readOutbound()) != null) {
+            compressed.writeBytes(msg);
+            msg.release();
+        }
+        byte[] bytes = ByteBufUtil.getBytes(compressed);
+        compressed.release();
+        return bytes;
+    }
+
+    private static ByteBuf stream(String base64) {
+        ByteBuf encoded = Unpooled.copiedBuffer(base64, CharsetUtil.US_ASCII);
+        ByteBuf decoded = Base64.decode(encoded);
+        encoded.release();
+        return decoded;
+    }
+
+    private static ByteBuf expectedContent() {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            content.append(i).append(": Netty is an asynchronous event-driven network application framework.\n");
+        }
+        return Unpooled.copiedBuffer(content, CharsetUtil.US_ASCII);
+    }
+
+    @Test
+    public void testDecompressionOfReferenceStreams() throws Exception {
+        ByteBuf content = expectedContent();
+        testDecompression(content, stream(STREAM_QUALITY_1));
+        initChannel();
+        testDecompression(content, stream(STREAM_QUALITY_11));
+        assertFalse(channel.finish());
+        content.release();
+    }
+
+    @Test
+    public void testDecompressionOfReferenceStreamInChunks() throws Exception {
+        ByteBuf content = expectedContent();
+        testDecompressionOfBatchedFlow(content, stream(STREAM_QUALITY_11));
+        content.release();
+    }
+
+    @Test
+    public void testDecompressionOfDictionaryWords() throws Exception {
+        ByteBuf content = Unpooled.copiedBuffer(DICTIONARY_WORDS, CharsetUtil.US_ASCII);
+        testDecompression(content, stream(STREAM_DICTIONARY_WORDS));
+        content.release();
+    }
+
+    @Test
+    public void testMetadataIsSkipped() throws Exception {
+        // A 64 KiB window, a meta-block with 3 bytes of metadata and an empty last meta-block.
+        ByteBuf data = Unpooled.wrappedBuffer(new byte[] { 0x2C, 0x01, 0x01, 0x02, 0x03, 0x03 });
+        assertFalse(channel.writeInbound(data));
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testLastMetaBlockWithMetadata() throws Exception {
+        expected.expect(DecompressionException.class);
+        expected.expectMessage("last meta-block holds metadata");
+
+        tryDecodeAndCatchBufLeaks(channel, Unpooled.wrappedBuffer(new byte[] { 0x1A, 0x00 }));
+    }
+
+    @Test
+    public void testLargeWindowNotSupported() throws Exception {
+        expected.expect(DecompressionException.class);
+        expected.expectMessage("large window streams are not supported");
+
+        tryDecodeAndCatchBufLeaks(channel, Unpooled.wrappedBuffer(new byte[] { 0x11, 0x00 }));
+    }
+
+    @Test
+    public void testDataAfterLastMetaBlock() throws Exception {
+        ByteBuf content = expectedContent();
+        ByteBuf data = stream(STREAM_QUALITY_1);
+        ByteBuf trailing = Unpooled.buffer().writeBytes(data).writeByte(0x42);
+        data.release();
+
+        testDecompression(content, trailing);
+        content.release();
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BrotliEncoderTest extends AbstractEncoderTest {
+
+    @Override
+    public void initChannel() {
+        channel = new EmbeddedChannel(new BrotliEncoder());
+    }
+
+    @Override
+    protected ByteBuf decompress(ByteBuf compressed, int originalLength) throws Exception {
+        EmbeddedChannel decoder = new EmbeddedChannel(new BrotliDecoder());
+        decoder.writeInbound(compressed.retain());
+        ByteBuf decompressed = AbstractDecoderTest.readDecompressed(decoder);
+        assertEquals(originalLength, decompressed.readableBytes());
+        assertFalse(decoder.finish());
+        return decompressed;
+    }
+
+    @Test
+    public void testQualities() throws Exception {
+        for (int quality = 0; quality <= BrotliEncoder.MAX_QUALITY; quality++) {
+            channel = new EmbeddedChannel(new BrotliEncoder(quality));
+            testCompression(Unpooled.wrappedBuffer(BYTES_LARGE));
+        }
+    }
+
+    @Test
+    public void testWindowSizes() throws Exception {
+        for (int windowBits : new int[] { 10, 16, 17, 18, 24 }) {
+            channel = new EmbeddedChannel(new BrotliEncoder(BrotliEncoder.DEFAULT_QUALITY, windowBits));
+            testCompressionOfBatchedFlow(Unpooled.wrappedBuffer(BYTES_LARGE));
+        }
+    }
+
+    @Test
+    public void testFlushEmitsDecodableMetaBlock() throws Exception {
+        EmbeddedChannel decoder = new EmbeddedChannel(new BrotliDecoder());
+        ByteBuf data = Unpooled.copiedBuffer("Netty, Netty, Netty", CharsetUtil.US_ASCII);
+
+        assertTrue(channel.writeOutbound(data.retain()));
+        ByteBuf msg;
+        while ((msg = channel.readOutbound()) != null) {
+            decoder.writeInbound(msg);
+        }
+        ByteBuf decompressed = AbstractDecoderTest.readDecompressed(decoder);
+        assertEquals(data.resetReaderIndex(), decompressed);
+
+        decompressed.release();
+        data.release();
+        assertTrue(channel.finish());
+        while ((msg = channel.readOutbound()) != null) {
+            decoder.writeInbound(msg);
+        }
+        assertFalse(decoder.finish());
+    }
+
+    @Test
+    public void testEmptyStream() throws Exception {
+        assertTrue(channel.finish());
+        ByteBuf compressed = channel.readOutbound();
+        ByteBuf decompressed = decompress(compressed, 0);
+        decompressed.release();
+        compressed.release();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidQuality() {
+        new BrotliEncoder(BrotliEncoder.MAX_QUALITY + 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidWindowBits() {
+        new BrotliEncoder(BrotliEncoder.DEFAULT_QUALITY, 25);
+    }
+}
@@ -20,6 +20,7 @@ import io.netty.buffer.ByteBufInputStream;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.embedded.EmbeddedChannel;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.junit.Test;
 
 import java.io.InputStream;
 
@@ -33,6 +34,27 @@ public class Bzip2EncoderTest extends AbstractEncoderTest {
         channel = new EmbeddedChannel(new Bzip2Encoder(MIN_BLOCK_SIZE));
     }
 
+    @Test
+    public void testParallelCompression() throws Exception {
+        ReversingExecutor executor = new ReversingExecutor();
+        channel = new EmbeddedChannel(new Bzip2Encoder(MIN_BLOCK_SIZE, executor, 2));
+        testParallelCompression(Unpooled.wrappedBuffer(BYTES_LARGE), executor);
+    }
+
+    @Test
+    public void testParallelWritePromise() throws Exception {
+        ReversingExecutor executor = new ReversingExecutor();
+        channel = new EmbeddedChannel(new Bzip2Encoder(MIN_BLOCK_SIZE, executor, 2));
+        testParallelWritePromise(executor);
+    }
+
+    @Test
+    public void testParallelCompressionFailure() throws Exception {
+        ReversingExecutor executor = new ReversingExecutor();
+        channel = new EmbeddedChannel(new Bzip2Encoder(MIN_BLOCK_SIZE, executor, 2));
+        testParallelCompressionFailure(executor);
+    }
+
     @Override
     protected ByteBuf decompress(ByteBuf compressed, int originalLength) throws Exception {
         InputStream is = new ByteBufInputStream(compressed);
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.LengthFieldPrepender;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class Crc32cCodecTest {
+
+    @Test
+    public void testEncode() {
+        EmbeddedChannel channel = new EmbeddedChannel(new Crc32cCodec());
+        assertTrue(channel.writeOutbound(Unpooled.copiedBuffer("HELLO, WORLD", CharsetUtil.US_ASCII)));
+        assertTrue(channel.finish());
+
+        ByteBuf encoded = channel.readOutbound();
+        assertEquals(16, encoded.readableBytes());
+        assertEquals("HELLO, WORLD", encoded.toString(0, 12, CharsetUtil.US_ASCII));
+        assertEquals(0x6B84C111, encoded.getInt(12));
+        encoded.release();
+        assertNull(channel.readOutbound());
+    }
+
+    @Test
+    public void testRoundTripWithFraming() {
+        EmbeddedChannel encoder = new EmbeddedChannel(new LengthFieldPrepender(4), new Crc32cCodec());
+        EmbeddedChannel decoder = new EmbeddedChannel(
+                new LengthFieldBasedFrameDecoder(1024, 0, 4, 0, 4), new Crc32cCodec());
+        for (int i = 0; i < 10; i++) {
+            ByteBuf frame = Unpooled.directBuffer();
+            for (int j = 0; j < i * 10; j++) {
+                frame.writeByte(i + j);
+            }
+            assertTrue(encoder.writeOutbound(frame.retain()));
+            ByteBuf encoded;
+            while ((encoded = encoder.readOutbound()) != null) {
+                decoder.writeInbound(encoded);
+            }
+            ByteBuf decoded = decoder.readInbound();
+            assertEquals(frame, decoded);
+            decoded.release();
+            frame.release();
+        }
+        assertFalse(encoder.finish());
+        assertFalse(decoder.finish());
+    }
+
+    @Test
+    public void testMismatchingChecksum() {
+        EmbeddedChannel channel = new EmbeddedChannel(new Crc32cCodec());
+        ByteBuf frame = Unpooled.copiedBuffer("HELLO, WORLD", CharsetUtil.US_ASCII).writeInt(0x6B84C110);
+        try {
+            channel.writeInbound(frame);
+            fail();
+        } catch (CorruptedFrameException e) {
+            assertEquals("mismatching checksum: 6b84c111 (expected: 6b84c110)", e.getMessage());
+        }
+        assertEquals(0, frame.refCnt());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testIgnoredChecksum() {
+        EmbeddedChannel channel = new EmbeddedChannel(new Crc32cCodec(false));
+        assertTrue(channel.writeInbound(Unpooled.copiedBuffer("HELLO, WORLD", CharsetUtil.US_ASCII).writeInt(0)));
+
+        ByteBuf decoded = channel.readInbound();
+        assertEquals("HELLO, WORLD", decoded.toString(CharsetUtil.US_ASCII));
+        decoded.release();
+        assertFalse(channel.finish());
+    }
+
+    @Test(expected = CorruptedFrameException.class)
+    public void testFrameTooShort() {
+        EmbeddedChannel channel = new EmbeddedChannel(new Crc32cCodec());
+        channel.writeInbound(Unpooled.wrappedBuffer(new byte[3]));
+    }
+}
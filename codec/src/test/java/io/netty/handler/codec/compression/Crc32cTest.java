@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class Crc32cTest {
+
+    @Test
+    public void testKnownValues() {
+        // Test vectors of RFC 3720, Appendix B.4.
+        byte[] data = new byte[32];
+        assertEquals(0x8A9136AAL, crc32c(new Crc32c(), data));
+        Arrays.fill(data, (byte) 0xFF);
+        assertEquals(0x62A8AB43L, crc32c(new Crc32c(), data));
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        assertEquals(0x46DD794EL, crc32c(new Crc32c(), data));
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (31 - i);
+        }
+        assertEquals(0x113FDB5CL, crc32c(new Crc32c(), data));
+
+        assertEquals(0xE3069283L, crc32c(new Crc32c(), "123456789".getBytes(CharsetUtil.US_ASCII)));
+        assertEquals(0xE3069283L, crc32c(ByteBufChecksum.newCrc32c(), "123456789".getBytes(CharsetUtil.US_ASCII)));
+    }
+
+    @Test
+    public void testUpdateWithByteBuf() {
+        Random random = new Random(42);
+        byte[] data = new byte[1024];
+        random.nextBytes(data);
+        ByteBuf heap = Unpooled.wrappedBuffer(data);
+        ByteBuf direct = Unpooled.directBuffer(data.length).writeBytes(data);
+        ByteBuf composite = Unpooled.wrappedBuffer(
+                Unpooled.wrappedBuffer(data, 0, 100), Unpooled.directBuffer().writeBytes(data, 100, 924));
+        try {
+            for (int i = 0; i < 500; i++) {
+                int offset = random.nextInt(data.length);
+                int length = random.nextInt(data.length - offset + 1);
+                long expected = bitwiseCrc32c(data, offset, length);
+
+                Crc32c crc = new Crc32c();
+                crc.update(data, offset, length);
+                assertEquals(expected, crc.getValue());
+                assertEquals(expected, crc32c(new Crc32c(), heap, offset, length));
+                assertEquals(expected, crc32c(new Crc32c(), direct, offset, length));
+                assertEquals(expected, crc32c(new Crc32c(), composite, offset, length));
+                assertEquals(expected, crc32c(ByteBufChecksum.newCrc32c(), heap, offset, length));
+                assertEquals(expected, crc32c(ByteBufChecksum.newCrc32c(), direct, offset, length));
+                assertEquals(expected, crc32c(ByteBufChecksum.newCrc32c(), composite, offset, length));
+            }
+        } finally {
+            heap.release();
+            direct.release();
+            composite.release();
+        }
+    }
+
+    @Test
+    public void testIncrementalUpdate() {
+        byte[] data = new byte[100];
+        new Random(7).nextBytes(data);
+        Crc32c crc = new Crc32c();
+        crc.update(data, 0, 13);
+        crc.update(data[13]);
+        crc.update(data, 14, 86);
+        assertEquals(bitwiseCrc32c(data, 0, data.length), crc.getValue());
+
+        crc.reset();
+        assertEquals(0, crc.getValue());
+    }
+
+    private static long crc32c(ByteBufChecksum checksum, byte[] data) {
+        checksum.update(data, 0, data.length);
+        return checksum.getValue();
+    }
+
+    private static long crc32c(ByteBufChecksum checksum, ByteBuf data, int offset, int length) {
+        int readerIndex = data.readerIndex();
+        checksum.update(data, offset, length);
+        assertEquals(readerIndex, data.readerIndex());
+        return checksum.getValue();
+    }
+
+    private static long bitwiseCrc32c(byte[] data, int offset, int length) {
+        int crc = ~0;
+        for (int i = offset; i < offset + length; i++) {
+            crc ^= data[i] & 0xFF;
+            for (int j = 0; j < 8; j++) {
+                crc = (crc & 1) != 0 ? crc >>> 1 ^ 0x82F63B78 : crc >>> 1;
+            }
+        }
+        return ~crc & 0xFFFFFFFFL;
+    }
+}
@@ -20,9 +20,13 @@ import io.netty.buffer.ByteBufInputStream;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.embedded.EmbeddedChannel;
 import net.jpountz.lz4.LZ4BlockInputStream;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.xxhash.XXHashFactory;
+import org.junit.Test;
 
 import java.io.InputStream;
 
+import static io.netty.handler.codec.compression.Lz4Constants.*;
 import static org.junit.Assert.*;
 
 public class Lz4FrameEncoderTest extends AbstractEncoderTest {
@@ -32,6 +36,30 @@ public class Lz4FrameEncoderTest extends AbstractEncoderTest {
         channel = new EmbeddedChannel(new Lz4FrameEncoder());
     }
 
+    @Test
+    public void testParallelCompression() throws Exception {
+        ReversingExecutor executor = new ReversingExecutor();
+        channel = new EmbeddedChannel(new Lz4FrameEncoder(LZ4Factory.fastestInstance(), false, 4096,
+                XXHashFactory.fastestInstance().newStreamingHash32(DEFAULT_SEED).asChecksum(), executor, 4));
+        testParallelCompression(Unpooled.wrappedBuffer(BYTES_LARGE), executor);
+    }
+
+    @Test
+    public void testParallelWritePromise() throws Exception {
+        ReversingExecutor executor = new ReversingExecutor();
+        channel = new EmbeddedChannel(new Lz4FrameEncoder(LZ4Factory.fastestInstance(), false, 4096,
+                XXHashFactory.fastestInstance().newStreamingHash32(DEFAULT_SEED).asChecksum(), executor, 4));
+        testParallelWritePromise(executor);
+    }
+
+    @Test
+    public void testParallelCompressionFailure() throws Exception {
+        ReversingExecutor executor = new ReversingExecutor();
+        channel = new EmbeddedChannel(new Lz4FrameEncoder(LZ4Factory.fastestInstance(), false, 4096,
+                XXHashFactory.fastestInstance().newStreamingHash32(DEFAULT_SEED).asChecksum(), executor, 4));
+        testParallelCompressionFailure(executor);
+    }
+
     @Override
     protected ByteBuf decompress(ByteBuf compressed, int originalLength) throws Exception {
         InputStream is = new ByteBufInputStream(compressed);
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PooledJdkZlibTest extends ZlibTest {
+
+    private static final byte[] DICTIONARY =
+            "{\"id\":,\"name\":\"user\",\"email\":\"@example.com\",\"active\":truefalse}"
+                    .getBytes(CharsetUtil.US_ASCII);
+
+    @Override
+    protected ZlibEncoder createEncoder(ZlibWrapper wrapper) {
+        return new JdkZlibEncoder(wrapper, 6, null);
+    }
+
+    @Override
+    protected ZlibDecoder createDecoder(ZlibWrapper wrapper) {
+        return new JdkZlibDecoder(wrapper, null, true);
+    }
+
+    @Test(expected = DecompressionException.class)
+    @Override
+    public void testZLIB_OR_NONE3() throws Exception {
+        super.testZLIB_OR_NONE3();
+    }
+
+    @Test
+    public void testPooledStreamsWithDictionary() {
+        int withoutDictionary = compress(new JdkZlibEncoder(ZlibWrapper.ZLIB, 6, null), message(0), null);
+        // Every stream reuses the deflater and inflater of the previous one, so the dictionary must be set again.
+        for (int i = 0; i < 10; i++) {
+            int withDictionary = compress(new JdkZlibEncoder(ZlibWrapper.ZLIB, 6, DICTIONARY), message(i), DICTIONARY);
+            assertTrue(withDictionary < withoutDictionary);
+        }
+    }
+
+    @Test
+    public void testDirectInput() {
+        for (int i = 0; i < 3; i++) {
+            ByteBuf message = Unpooled.directBuffer().writeBytes(message(i).getBytes(CharsetUtil.US_ASCII));
+            EmbeddedChannel encoder = new EmbeddedChannel(new JdkZlibEncoder(ZlibWrapper.NONE, 6, null));
+            EmbeddedChannel decoder = new EmbeddedChannel(new JdkZlibDecoder(ZlibWrapper.NONE, null, true));
+            assertTrue(encoder.writeOutbound(message.retainedDuplicate()));
+            assertTrue(encoder.finish());
+            ByteBuf compressed = Unpooled.directBuffer();
+            for (ByteBuf buf; (buf = encoder.readOutbound()) != null;) {
+                compressed.writeBytes(buf);
+                buf.release();
+            }
+            assertTrue(decoder.writeInbound(compressed));
+            assertEquals(message, readAll(decoder));
+            message.release();
+            decoder.finishAndReleaseAll();
+        }
+    }
+
+    private static String message(int id) {
+        return "{\"id\":" + id + ",\"name\":\"user" + id + "\",\"email\":\"user" + id +
+               "@example.com\",\"active\":" + (id % 2 == 0) + '}';
+    }
+
+    private static int compress(ZlibEncoder zlibEncoder, String message, byte[] dictionary) {
+        EmbeddedChannel encoder = new EmbeddedChannel(zlibEncoder);
+        EmbeddedChannel decoder = new EmbeddedChannel(new JdkZlibDecoder(ZlibWrapper.ZLIB, dictionary, true));
+        assertTrue(encoder.writeOutbound(Unpooled.copiedBuffer(message, CharsetUtil.US_ASCII)));
+        assertTrue(encoder.finish());
+        ByteBuf compressed = Unpooled.buffer();
+        for (ByteBuf buf; (buf = encoder.readOutbound()) != null;) {
+            compressed.writeBytes(buf);
+            buf.release();
+        }
+        int length = compressed.readableBytes();
+
+        assertTrue(decoder.writeInbound(compressed));
+        ByteBuf decompressed = readAll(decoder);
+        assertEquals(message, decompressed.toString(CharsetUtil.US_ASCII));
+        decompressed.release();
+        decoder.finishAndReleaseAll();
+        return length;
+    }
+
+    private static ByteBuf readAll(EmbeddedChannel decoder) {
+        ByteBuf decompressed = Unpooled.buffer();
+        for (ByteBuf buf; (buf = decoder.readInbound()) != null;) {
+            decompressed.writeBytes(buf);
+            buf.release();
+        }
+        return decompressed;
+    }
+}
@@ -20,6 +20,8 @@ import io.netty.buffer.Unpooled;
 import org.junit.After;
 import org.junit.Test;
 
+import java.util.Random;
+
 import static io.netty.handler.codec.compression.Snappy.*;
 import static org.junit.Assert.*;
 
@@ -196,6 +198,36 @@ public class SnappyTest {
         validateChecksum(maskChecksum(0xd6cb8b55), input);
     }
 
+    @Test
+    public void testEncodeAndDecodeLongerThanFragment() throws Exception {
+        // Repeats which are further apart than a fragment, and ones within it.
+        byte[] bytes = new byte[100000];
+        Random random = new Random(42);
+        byte[] pattern = new byte[1000];
+        random.nextBytes(pattern);
+        for (int i = 0; i < bytes.length; i += pattern.length) {
+            System.arraycopy(pattern, 0, bytes, i, Math.min(pattern.length, bytes.length - i));
+            bytes[i] = (byte) random.nextInt();
+        }
+
+        for (boolean direct : new boolean[] { false, true }) {
+            ByteBuf in = direct ? Unpooled.directBuffer(bytes.length).writeBytes(bytes) : Unpooled.wrappedBuffer(bytes);
+            ByteBuf encoded = direct ? Unpooled.directBuffer() : Unpooled.buffer();
+            ByteBuf decoded = Unpooled.buffer();
+            try {
+                snappy.encode(in, encoded, bytes.length);
+                assertTrue(encoded.readableBytes() < bytes.length);
+                snappy.decode(encoded, decoded);
+                assertEquals(Unpooled.wrappedBuffer(bytes), decoded);
+            } finally {
+                in.release();
+                encoded.release();
+                decoded.release();
+                snappy.reset();
+            }
+        }
+    }
+
     @Test
     public void testEncodeLiteralAndDecodeLiteral() {
         int[] lengths = new int[] {
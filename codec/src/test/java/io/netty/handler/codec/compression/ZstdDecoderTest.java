@@ -0,0 +1,183 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.base64.Base64;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ZstdDecoderTest extends AbstractDecoderTest {
+
+    // Frames produced by the reference implementation at level 3 and 19, both with a content checksum.
+    private static final String FRAME_LEVEL_3 =
+            "KLUv/WR6GyUHAILKHxxwSdoBAKYbMWMDSgmNjZ5VlZBkN9mtGo7/cw0v///////u7u7u7t3d3d3dzMzMzMy7u7u7u6qqqqqqmZmZmZmI" +
+            "iIiIiHd3d3dH3HvzauIVDuagqAFD6axSHAPDKFagUsIyyJBBjhIwLGQQYwdCQkkRFCg5iqFix7FkLRNgAERkqBHg0/7fAcCjQnUSQBD4" +
+            "///vH1VVq6pWVa2qqqpqVdWqqlVVVVWtqlpVtaqqqqpVVauqVlWtqmpV1aqqVVWnuqW4bW1LadvKlsK2dS1lbataNGI0EVEiIozRQoqq" +
+            "kIBWBUu2RRc=";
+    private static final String FRAME_LEVEL_19 =
+            "KLUv/WR6Gy0IANIPKhaAzwFQzgxJ652hGYhPSUlJuTAhMzAd//79/Pv6+fj37d/d29nX1dPRz5t/e3dzb2tnY1+3fnZuZl5WTkY+bvzr" +
+            "28u7q5uLe9v21bWVdVU1FfW06adnJ+emZibmZctHx0bGRcVExGv459fHt6eXh3fvzauJBwzJY0xKAEVMZRyMI0lG0EwRViVQACUXMyFC" +
+            "BSVXElBWBEXTckAZZQSQEVBMkFVVUgREC2SoEYD09v8O4KVhDRJAEPj//+8fRESIiCQiSkQoEVEiQomIEiFKRJQIUSKihIgSESVElIhI" +
+            "IqKJiCQiSkQoEagoESJEIuhipI2ayWQyMZlMpmXRIouqkIBdBUu2RRc=";
+    // A dictionary with the id 42 created by the reference implementation from JSON samples.
+    private static final String DICTIONARY =
+            "N6Qw7CoAAAAWEOgpHQAAANHpyoRDwDRSSinl3g4ED3MAAAAAAEuyBQAABAAAADMHAAAAAABHKzFKCQAAAACYAAAATBgGAAAAAAAEAAAA" +
+            "ADRoTPULAAAAAAAAAAAAAAAAAAABAAAABAAAAAgAAAB7ImlkIjowLCJuYW1lIjoidXNlcjAiLCJlbWFpbCI6InVzZXIwQGV4YW1wbGUu" +
+            "Y29tIiwiYWN0aXZlIjpmYWxzZX17ImlkIjoxLCJuYW1lIjoidXNlcjEiLCJlbWFpbCI6InVzZXIxQGV4YW1wbGUuY29tIiwiYWN0aXZl" +
+            "Ijp0cnVlfXsiaWQiOjIsIm5hbWUiOiJ1c2VyMiIsImVtYWlsIjoidXNlcjJAZXhhbXBsZS5jb20iLCJhY3RpdmUiOmZhbHNlfXsiaWQi" +
+            "OjMsIm5hbWUiOiJ1c2VyMyIsImVtYWlsIjoidXNlcjNAZXhhbXBsZS5jb20iLCJhY3RpdmUiOnRydWV9";
+    // The sample {"id":150,...} compressed with the DICTIONARY.
+    private static final String FRAME_WITH_DICTIONARY = "KLUv/SUqSJUAAGPAAPl8PgT8D37DKQuXIOk4Izkpupk=";
+
+    public ZstdDecoderTest() throws Exception {
+    }
+
+    @Override
+    public void initChannel() {
+        channel = new EmbeddedChannel(new ZstdDecoder());
+    }
+
+    @Override
+    protected byte[] compress(byte[] data) throws Exception {
+        EmbeddedChannel encoder = new EmbeddedChannel(new ZstdEncoder());
+        assertTrue(encoder.writeOutbound(Unpooled.wrappedBuffer(data)));
+        assertTrue(encoder.finish());
+
+        ByteBuf compressed = Unpooled.buffer();
+        ByteBuf msg;
+        while ((msg = encoder.readOutbound()) != null) {
+            compressed.writeBytes(msg);
+            msg.release();
+        }
+        byte[] bytes = ByteBufUtil.getBytes(compressed);
+        compressed.release();
+        return bytes;
+    }
+
+    private static ByteBuf frame(String base64) {
+        ByteBuf encoded = Unpooled.copiedBuffer(base64, CharsetUtil.US_ASCII);
+        ByteBuf decoded = Base64.decode(encoded);
+        encoded.release();
+        return decoded;
+    }
+
+    private static ByteBuf expectedContent() {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            content.append(i).append(": Netty is an asynchronous event-driven network application framework.\n");
+        }
+        return Unpooled.copiedBuffer(content, CharsetUtil.US_ASCII);
+    }
+
+    @Test
+    public void testDecompressionOfReferenceFrames() throws Exception {
+        ByteBuf content = expectedContent();
+        testDecompression(content, frame(FRAME_LEVEL_3));
+        testDecompression(content, frame(FRAME_LEVEL_19));
+        assertFalse(channel.finish());
+        content.release();
+    }
+
+    @Test
+    public void testDecompressionOfConcatenatedAndSkippableFrames() throws Exception {
+        ByteBuf content = expectedContent();
+        ByteBuf twice = Unpooled.wrappedBuffer(content.retainedDuplicate(), content);
+        // A skippable frame with 3 bytes of user data, followed by two regular frames.
+        ByteBuf data = Unpooled.buffer();
+        data.writeIntLE(0x184D2A53).writeIntLE(3).writeMedium(0x010203);
+        data.writeBytes(frame(FRAME_LEVEL_3));
+        data.writeBytes(frame(FRAME_LEVEL_19));
+
+        testDecompression(twice, data);
+        twice.release();
+    }
+
+    @Test
+    public void testUnexpectedFrameIdentifier() throws Exception {
+        expected.expect(DecompressionException.class);
+        expected.expectMessage("unexpected frame identifier");
+
+        ByteBuf data = frame(FRAME_LEVEL_3);
+        data.setByte(0, 0);
+        tryDecodeAndCatchBufLeaks(channel, data);
+    }
+
+    @Test
+    public void testMismatchingChecksum() throws Exception {
+        expected.expect(DecompressionException.class);
+        expected.expectMessage("mismatching checksum");
+
+        ByteBuf data = frame(FRAME_LEVEL_3);
+        int last = data.writerIndex() - 1;
+        data.setByte(last, data.getByte(last) ^ 1);
+        tryDecodeAndCatchBufLeaks(channel, data);
+    }
+
+    @Test
+    public void testIgnoredChecksum() throws Exception {
+        channel = new EmbeddedChannel(new ZstdDecoder(null, ZstdDecoder.DEFAULT_MAX_WINDOW_SIZE, false));
+        ByteBuf content = expectedContent();
+        ByteBuf data = frame(FRAME_LEVEL_3);
+        int last = data.writerIndex() - 1;
+        data.setByte(last, data.getByte(last) ^ 1);
+
+        testDecompression(content, data);
+        content.release();
+    }
+
+    @Test
+    public void testWindowSizeTooLarge() throws Exception {
+        expected.expect(DecompressionException.class);
+        expected.expectMessage("window size too large");
+
+        channel = new EmbeddedChannel(new ZstdDecoder(null, 1024, true));
+        tryDecodeAndCatchBufLeaks(channel, frame(FRAME_LEVEL_3));
+    }
+
+    @Test
+    public void testDecompressionWithDictionary() throws Exception {
+        channel = new EmbeddedChannel(new ZstdDecoder(dictionary()));
+        ByteBuf content = Unpooled.copiedBuffer(
+                "{\"id\":150,\"name\":\"user150\",\"email\":\"user150@example.com\",\"active\":false}",
+                CharsetUtil.US_ASCII);
+
+        testDecompression(content, frame(FRAME_WITH_DICTIONARY));
+        content.release();
+    }
+
+    @Test
+    public void testUnknownDictionary() throws Exception {
+        expected.expect(DecompressionException.class);
+        expected.expectMessage("frame requires unknown dictionary: 42");
+
+        tryDecodeAndCatchBufLeaks(channel, frame(FRAME_WITH_DICTIONARY));
+    }
+
+    static ZstdDictionary dictionary() {
+        ByteBuf dictionary = frame(DICTIONARY);
+        try {
+            return new ZstdDictionary(ByteBufUtil.getBytes(dictionary));
+        } finally {
+            dictionary.release();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ZstdEncoderTest extends AbstractEncoderTest {
+
+    @Override
+    public void initChannel() {
+        channel = new EmbeddedChannel(new ZstdEncoder());
+    }
+
+    @Override
+    protected ByteBuf decompress(ByteBuf compressed, int originalLength) throws Exception {
+        EmbeddedChannel decoder = new EmbeddedChannel(new ZstdDecoder());
+        decoder.writeInbound(compressed.retain());
+        ByteBuf decompressed = AbstractDecoderTest.readDecompressed(decoder);
+        assertEquals(originalLength, decompressed.readableBytes());
+        assertFalse(decoder.finish());
+        return decompressed;
+    }
+
+    @Test
+    public void testCompressionLevels() throws Exception {
+        for (int level = 1; level <= ZstdEncoder.MAX_COMPRESSION_LEVEL; level++) {
+            channel = new EmbeddedChannel(new ZstdEncoder(level));
+            testCompression(Unpooled.wrappedBuffer(BYTES_LARGE));
+        }
+    }
+
+    @Test
+    public void testSmallWindowAndBlocks() throws Exception {
+        channel = new EmbeddedChannel(new ZstdEncoder(ZstdEncoder.DEFAULT_COMPRESSION_LEVEL, 10, 512, true, null));
+        testCompressionOfBatchedFlow(Unpooled.wrappedBuffer(BYTES_LARGE));
+    }
+
+    @Test
+    public void testFlushEmitsDecodableBlock() throws Exception {
+        EmbeddedChannel decoder = new EmbeddedChannel(new ZstdDecoder());
+        ByteBuf data = Unpooled.copiedBuffer("Netty, Netty, Netty", CharsetUtil.US_ASCII);
+
+        assertTrue(channel.writeOutbound(data.retain()));
+        ByteBuf msg;
+        while ((msg = channel.readOutbound()) != null) {
+            decoder.writeInbound(msg);
+        }
+        ByteBuf decompressed = AbstractDecoderTest.readDecompressed(decoder);
+        assertEquals(data.resetReaderIndex(), decompressed);
+
+        decompressed.release();
+        data.release();
+        assertTrue(channel.finish());
+        while ((msg = channel.readOutbound()) != null) {
+            decoder.writeInbound(msg);
+        }
+        assertFalse(decoder.finish());
+    }
+
+    @Test
+    public void testCompressionWithDictionary() throws Exception {
+        ZstdDictionary dictionary = ZstdDecoderTest.dictionary();
+        ByteBuf data = Unpooled.copiedBuffer(
+                "{\"id\":150,\"name\":\"user150\",\"email\":\"user150@example.com\",\"active\":false}",
+                CharsetUtil.US_ASCII);
+        ByteBuf compressed = compress(new ZstdEncoder(ZstdEncoder.DEFAULT_COMPRESSION_LEVEL, dictionary), data);
+        ByteBuf compressedWithoutDictionary = compress(new ZstdEncoder(), data);
+        // The dictionary content lets the encoder replace most of the sample by matches.
+        assertTrue(compressed.readableBytes() < compressedWithoutDictionary.readableBytes() / 2);
+        compressedWithoutDictionary.release();
+
+        EmbeddedChannel decoder = new EmbeddedChannel(new ZstdDecoder(dictionary));
+        decoder.writeInbound(compressed);
+        ByteBuf decompressed = AbstractDecoderTest.readDecompressed(decoder);
+        assertEquals(data, decompressed);
+
+        decompressed.release();
+        data.release();
+    }
+
+    private static ByteBuf compress(ZstdEncoder encoder, ByteBuf data) {
+        EmbeddedChannel channel = new EmbeddedChannel(encoder);
+        assertTrue(channel.writeOutbound(data.retainedDuplicate()));
+        assertTrue(channel.finish());
+
+        CompositeByteBuf compressed = Unpooled.compositeBuffer();
+        ByteBuf msg;
+        while ((msg = channel.readOutbound()) != null) {
+            compressed.addComponent(true, msg);
+        }
+        return compressed;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCompressionLevel() {
+        new ZstdEncoder(ZstdEncoder.MAX_COMPRESSION_LEVEL + 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBlockSizeLargerThanWindow() {
+        new ZstdEncoder(ZstdEncoder.DEFAULT_COMPRESSION_LEVEL, 10, 2048, true, null);
+    }
+}
@@ -24,6 +24,8 @@ import io.netty.handler.codec.TooLongFrameException;
 import io.netty.util.CharsetUtil;
 import org.junit.Test;
 
+import java.nio.ByteOrder;
+
 import static io.netty.util.ReferenceCountUtil.releaseLater;
 import static org.junit.Assert.*;
 
@@ -68,4 +70,43 @@ public class LengthFieldBasedFrameDecoderTest {
             buf.release();
         }
     }
+
+    @Test
+    public void testZeroCopyFramesSpanningReads() throws Exception {
+        EmbeddedChannel ch = new EmbeddedChannel(
+                new LengthFieldBasedFrameDecoder(ByteOrder.BIG_ENDIAN, 1024, 0, 2, 0, 2, true, true));
+        byte[] first = { 0, 3, 'A', 'B' };
+        byte[] second = { 'C', 0, 2, 'D' };
+        byte[] third = { 'E', 0, 1 };
+        byte[] fourth = { 'F' };
+        ByteBuf[] received = {
+                Unpooled.wrappedBuffer(first), Unpooled.wrappedBuffer(second),
+                Unpooled.wrappedBuffer(third), Unpooled.wrappedBuffer(fourth)
+        };
+
+        assertFalse(ch.writeInbound(received[0]));
+        assertTrue(ch.writeInbound(received[1]));
+        ByteBuf abc = ch.readInbound();
+        assertTrue(ch.writeInbound(received[2]));
+        ByteBuf de = ch.readInbound();
+        assertTrue(ch.writeInbound(received[3]));
+        ByteBuf f = ch.readInbound();
+        assertNull(ch.readInbound());
+        assertFalse(ch.finish());
+
+        // No bytes were copied, so the frames see changes of the received buffers.
+        first[3] = 'b';
+        second[3] = 'd';
+        fourth[0] = 'f';
+        assertEquals("AbC", abc.toString(CharsetUtil.ISO_8859_1));
+        assertEquals("dE", de.toString(CharsetUtil.ISO_8859_1));
+        assertEquals("f", f.toString(CharsetUtil.ISO_8859_1));
+
+        abc.release();
+        de.release();
+        f.release();
+        for (ByteBuf buf : received) {
+            assertEquals(0, buf.refCnt());
+        }
+    }
 }
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.json;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class JsonTokenizerTest {
+
+    private static final String DOCUMENT =
+            "{\"id\": 42, \"tags\": [true, false, null, -2.5e3, \"a\\\"b\"],\n\t\"empty\": {}, \"list\": []}";
+    private static final List<String> DOCUMENT_TOKENS = Arrays.asList(
+            "START_OBJECT", "FIELD_NAME id", "NUMBER 42", "FIELD_NAME tags", "START_ARRAY", "TRUE", "FALSE", "NULL",
+            "NUMBER -2.5e3", "STRING a\"b", "END_ARRAY", "FIELD_NAME empty", "START_OBJECT", "END_OBJECT",
+            "FIELD_NAME list", "START_ARRAY", "END_ARRAY", "END_OBJECT");
+
+    @Test
+    public void testTokens() {
+        ByteBuf in = Unpooled.copiedBuffer(DOCUMENT, CharsetUtil.UTF_8);
+        assertEquals(DOCUMENT_TOKENS, tokenize(new JsonTokenizer(), in));
+        assertFalse(in.isReadable());
+        in.release();
+    }
+
+    @Test
+    public void testTokensOfDirectBuffer() {
+        ByteBuf in = Unpooled.directBuffer().writeBytes(DOCUMENT.getBytes(CharsetUtil.UTF_8));
+        assertEquals(DOCUMENT_TOKENS, tokenize(new JsonTokenizer(), in));
+        in.release();
+    }
+
+    @Test
+    public void testTokensReceivedByteByByte() {
+        byte[] bytes = DOCUMENT.getBytes(CharsetUtil.UTF_8);
+        JsonTokenizer tokenizer = new JsonTokenizer();
+        ByteBuf in = Unpooled.buffer();
+        List<String> tokens = new ArrayList<String>();
+        for (byte b : bytes) {
+            in.writeByte(b);
+            tokens.addAll(tokenize(tokenizer, in));
+        }
+        assertEquals(DOCUMENT_TOKENS, tokens);
+        in.release();
+    }
+
+    @Test
+    public void testDepth() {
+        JsonTokenizer tokenizer = new JsonTokenizer();
+        ByteBuf in = Unpooled.copiedBuffer("[{\"a\": [1]}]", CharsetUtil.US_ASCII);
+        int[] depths = { 1, 2, 2, 3, 3, 2, 1, 0 };
+        for (int depth : depths) {
+            assertNotNull(tokenizer.next(in));
+            assertEquals(depth, tokenizer.depth());
+        }
+        assertNull(tokenizer.next(in));
+        in.release();
+    }
+
+    @Test
+    public void testTopLevelValues() {
+        ByteBuf in = Unpooled.copiedBuffer("{}[]\"s\"true 12 ", CharsetUtil.US_ASCII);
+        assertEquals(Arrays.asList("START_OBJECT", "END_OBJECT", "START_ARRAY", "END_ARRAY", "STRING s", "TRUE",
+                                   "NUMBER 12"), tokenize(new JsonTokenizer(), in));
+        in.release();
+    }
+
+    @Test
+    public void testNumberIsOnlyCompleteWhenFollowedByDelimiter() {
+        JsonTokenizer tokenizer = new JsonTokenizer();
+        ByteBuf in = Unpooled.copiedBuffer("12", CharsetUtil.US_ASCII);
+        assertNull(tokenizer.next(in));
+        assertEquals(0, in.readerIndex());
+        in.writeByte('3').writeByte('\n');
+        assertEquals(JsonToken.NUMBER, tokenizer.next(in));
+        assertEquals(123, tokenizer.longValue());
+        in.release();
+    }
+
+    @Test
+    public void testNumbers() {
+        assertLongNumber(0, "0");
+        assertLongNumber(0, "-0");
+        assertLongNumber(-17, "-17");
+        assertLongNumber(Long.MAX_VALUE, "9223372036854775807");
+        assertLongNumber(Long.MIN_VALUE, "-9223372036854775808");
+        assertDoubleNumber(9223372036854775808.0, "9223372036854775808");
+        assertDoubleNumber(-9223372036854775809.0, "-9223372036854775809");
+        assertDoubleNumber(0.5, "0.5");
+        assertDoubleNumber(-150, "-1.5E+2");
+        assertDoubleNumber(0.01, "1e-2");
+    }
+
+    private static void assertLongNumber(long expected, String number) {
+        JsonTokenizer tokenizer = tokenizeNumber(number);
+        assertTrue(tokenizer.isLongValue());
+        assertEquals(expected, tokenizer.longValue());
+        assertEquals(expected, tokenizer.doubleValue(), 0);
+    }
+
+    private static void assertDoubleNumber(double expected, String number) {
+        JsonTokenizer tokenizer = tokenizeNumber(number);
+        assertFalse(tokenizer.isLongValue());
+        assertEquals(expected, tokenizer.doubleValue(), 0);
+        try {
+            tokenizer.longValue();
+            fail();
+        } catch (NumberFormatException expectedException) {
+            // Expected
+        }
+    }
+
+    private static JsonTokenizer tokenizeNumber(String number) {
+        JsonTokenizer tokenizer = new JsonTokenizer();
+        ByteBuf in = Unpooled.copiedBuffer('[' + number + ']', CharsetUtil.US_ASCII);
+        assertEquals(JsonToken.START_ARRAY, tokenizer.next(in));
+        assertEquals(JsonToken.NUMBER, tokenizer.next(in));
+        assertEquals(number, tokenizer.text().toString());
+        in.release();
+        return tokenizer;
+    }
+
+    @Test
+    public void testEscapes() {
+        JsonTokenizer tokenizer = new JsonTokenizer();
+        ByteBuf in = Unpooled.copiedBuffer(
+                "[\"\\\"\\\\\\/\\b\\f\\n\\r\\t\", \"\\u0041\\u00e9\\u20AC\\ud83d\\ude00\", \"\u00e9\"]",
+                CharsetUtil.UTF_8);
+        assertEquals(JsonToken.START_ARRAY, tokenizer.next(in));
+        assertEquals(JsonToken.STRING, tokenizer.next(in));
+        assertEquals("\"\\/\b\f\n\r\t", tokenizer.stringValue());
+        assertEquals(JsonToken.STRING, tokenizer.next(in));
+        assertEquals("A\u00e9\u20ac\ud83d\ude00", tokenizer.stringValue());
+        assertEquals(JsonToken.STRING, tokenizer.next(in));
+        assertEquals("\u00e9", tokenizer.stringValue());
+        assertEquals(2, tokenizer.text().length());
+        assertEquals(JsonToken.END_ARRAY, tokenizer.next(in));
+        in.release();
+    }
+
+    @Test
+    public void testInvalidJson() {
+        assertInvalid("{\"a\" 1}");
+        assertInvalid("{\"a\": 1,}");
+        assertInvalid("[1 2]");
+        assertInvalid("[1}");
+        assertInvalid("{1: 2}");
+        assertInvalid("[tru]");
+        assertInvalid("[01]");
+        assertInvalid("[-]");
+        assertInvalid("[1.]");
+        assertInvalid("[\"\\x\"]");
+        assertInvalid("[\"\\u12g4\"]");
+        assertInvalid("[\"a\nb\"]");
+        assertInvalid("]");
+    }
+
+    private static void assertInvalid(String json) {
+        JsonTokenizer tokenizer = new JsonTokenizer();
+        ByteBuf in = Unpooled.copiedBuffer(json, CharsetUtil.UTF_8);
+        try {
+            tokenize(tokenizer, in);
+            fail(json);
+        } catch (CorruptedFrameException expected) {
+            // Expected
+        }
+        // Everything which follows is discarded.
+        assertFalse(in.isReadable());
+        in.writeBytes(new byte[] { '[', ']' });
+        assertNull(tokenizer.next(in));
+        assertFalse(in.isReadable());
+        in.release();
+    }
+
+    @Test(expected = TooLongFrameException.class)
+    public void testTooLongString() {
+        JsonTokenizer tokenizer = new JsonTokenizer(4, 16);
+        ByteBuf in = Unpooled.copiedBuffer("[\"abcd", CharsetUtil.US_ASCII);
+        try {
+            assertEquals(JsonToken.START_ARRAY, tokenizer.next(in));
+            // Not complete yet, but already too long.
+            tokenizer.next(in);
+        } finally {
+            in.release();
+        }
+    }
+
+    @Test(expected = CorruptedFrameException.class)
+    public void testTooDeep() {
+        JsonTokenizer tokenizer = new JsonTokenizer(16, 2);
+        ByteBuf in = Unpooled.copiedBuffer("[[[]]]", CharsetUtil.US_ASCII);
+        try {
+            tokenize(tokenizer, in);
+        } finally {
+            in.release();
+        }
+    }
+
+    @Test
+    public void testDecoderPassesOnArrayElementsIncrementally() {
+        EmbeddedChannel ch = new EmbeddedChannel(new JsonTokenDecoder() {
+            private boolean nameField;
+
+            @Override
+            protected void decode(ChannelHandlerContext ctx, JsonToken token, JsonTokenizer tokenizer,
+                                  List<Object> out) {
+                if (token == JsonToken.FIELD_NAME) {
+                    nameField = tokenizer.depth() == 2 && tokenizer.text().contentEquals("name");
+                } else if (token == JsonToken.STRING && nameField) {
+                    out.add(tokenizer.stringValue());
+                    nameField = false;
+                }
+            }
+        });
+
+        assertTrue(ch.writeInbound(Unpooled.copiedBuffer("[{\"name\": \"a\", \"x\": {\"name\": \"nested\"}}, {\"na",
+                                                         CharsetUtil.UTF_8)));
+        assertEquals("a", ch.readInbound());
+        assertNull(ch.readInbound());
+        assertTrue(ch.writeInbound(Unpooled.copiedBuffer("me\": \"\u00e9\"}", CharsetUtil.UTF_8)));
+        assertEquals("\u00e9", ch.readInbound());
+        assertFalse(ch.writeInbound(Unpooled.copiedBuffer("]", CharsetUtil.UTF_8)));
+        assertFalse(ch.finish());
+    }
+
+    private static List<String> tokenize(JsonTokenizer tokenizer, ByteBuf in) {
+        List<String> tokens = new ArrayList<String>();
+        JsonToken token;
+        while ((token = tokenizer.next(in)) != null) {
+            switch (token) {
+            case FIELD_NAME:
+            case STRING:
+            case NUMBER:
+                tokens.add(token + " " + tokenizer.stringValue());
+                break;
+            default:
+                tokens.add(token.toString());
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.protobuf;
+
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ProtobufEncoderDecoderTest {
+
+    private static final FileDescriptorProto MESSAGE = FileDescriptorProto.newBuilder()
+            .setName("test.proto")
+            .setPackage("io.netty.test")
+            .addDependency("a.proto")
+            .addDependency("b.proto")
+            .build();
+
+    @Test
+    public void testEncode() {
+        EmbeddedChannel ch = new EmbeddedChannel(new ProtobufEncoder());
+        assertTrue(ch.writeOutbound(MESSAGE));
+        ByteBuf buf = ch.readOutbound();
+        assertEquals(Unpooled.wrappedBuffer(MESSAGE.toByteArray()), buf);
+        buf.release();
+
+        // A builder is built before it is encoded.
+        assertTrue(ch.writeOutbound(MESSAGE.toBuilder()));
+        buf = ch.readOutbound();
+        assertEquals(Unpooled.wrappedBuffer(MESSAGE.toByteArray()), buf);
+        buf.release();
+        assertFalse(ch.finish());
+    }
+
+    @Test
+    public void testEncodeWithLengthField() {
+        EmbeddedChannel expectedCh = new EmbeddedChannel(
+                new ProtobufVarint32LengthFieldPrepender(), new ProtobufEncoder());
+        EmbeddedChannel ch = new EmbeddedChannel(new ProtobufEncoder(true));
+        assertTrue(expectedCh.writeOutbound(MESSAGE));
+        assertTrue(ch.writeOutbound(MESSAGE));
+        ByteBuf expected = expectedCh.readOutbound();
+        ByteBuf buf = ch.readOutbound();
+        assertEquals(expected, buf);
+        assertEquals(buf.readableBytes(), buf.capacity());
+        expected.release();
+        buf.release();
+        assertFalse(expectedCh.finish());
+        assertFalse(ch.finish());
+    }
+
+    @Test
+    public void testRoundTrip() {
+        EmbeddedChannel ch = new EmbeddedChannel(
+                new ProtobufVarint32FrameDecoder(),
+                new ProtobufDecoder(FileDescriptorProto.getDefaultInstance()),
+                new ProtobufEncoder(true));
+        assertTrue(ch.writeOutbound(MESSAGE));
+        ByteBuf buf = ch.readOutbound();
+        assertTrue(ch.writeInbound(buf));
+        assertEquals(MESSAGE, ch.readInbound());
+        assertFalse(ch.finish());
+    }
+
+    @Test
+    public void testDecodeHeapBuffer() {
+        assertDecoded(Unpooled.wrappedBuffer(MESSAGE.toByteArray()));
+    }
+
+    @Test
+    public void testDecodeDirectBuffer() {
+        byte[] bytes = MESSAGE.toByteArray();
+        assertDecoded(Unpooled.directBuffer(bytes.length).writeBytes(bytes));
+    }
+
+    @Test
+    public void testDecodeCompositeBuffer() {
+        byte[] bytes = MESSAGE.toByteArray();
+        int half = bytes.length / 2;
+        CompositeByteBuf buf = Unpooled.compositeBuffer();
+        buf.addComponent(Unpooled.directBuffer(half).writeBytes(bytes, 0, half));
+        buf.addComponent(Unpooled.wrappedBuffer(bytes, half, bytes.length - half));
+        buf.writerIndex(bytes.length);
+        assertDecoded(buf);
+    }
+
+    private static void assertDecoded(ByteBuf buf) {
+        EmbeddedChannel ch = new EmbeddedChannel(new ProtobufDecoder(FileDescriptorProto.getDefaultInstance()));
+        assertTrue(ch.writeInbound(buf));
+        assertEquals(MESSAGE, ch.readInbound());
+        assertEquals(0, buf.refCnt());
+        assertFalse(ch.finish());
+    }
+}
@@ -15,13 +15,24 @@
  */
 package io.netty.handler.codec.serialization;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.DecoderException;
+import io.netty.handler.codec.EncoderException;
+
+import java.io.InvalidClassException;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
 import java.util.List;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import static org.junit.Assert.*;
+
 public class CompactObjectSerializationTest {
 
     @Test
@@ -33,4 +44,186 @@ public class CompactObjectSerializationTest {
         out.writeObject(List.class);
         Assert.assertSame(List.class, in.readObject());
     }
+
+    @Test
+    public void testCachedClassDescriptors() {
+        EmbeddedChannel encoder = new EmbeddedChannel(new ObjectEncoder(true));
+        EmbeddedChannel decoder = new EmbeddedChannel(
+                new ObjectDecoder(1048576, ClassResolvers.cacheDisabled(null), true));
+
+        Point point = new Point(1, "a");
+        Holder holder = new Holder(point);
+        ByteBuf first = encode(encoder, point);
+        ByteBuf second = encode(encoder, point);
+        assertTrue(second.readableBytes() < first.readableBytes());
+        // The descriptor of Holder is written, as it has no serialVersionUID, but the one of Point is not.
+        ByteBuf third = encode(encoder, holder);
+        ByteBuf fourth = encode(encoder, holder);
+        assertTrue(fourth.readableBytes() < third.readableBytes());
+        assertTrue(fourth.readableBytes() < first.readableBytes());
+
+        assertDecoded(decoder, point, first);
+        assertDecoded(decoder, point, second);
+        assertDecoded(decoder, holder, third);
+        assertDecoded(decoder, holder, fourth);
+        assertFalse(encoder.finish());
+        assertFalse(decoder.finish());
+    }
+
+    @Test
+    public void testCachedClassDescriptorsAfterFailure() {
+        EmbeddedChannel encoder = new EmbeddedChannel(new ObjectEncoder(true));
+        EmbeddedChannel decoder = new EmbeddedChannel(
+                new ObjectDecoder(1048576, ClassResolvers.cacheDisabled(null), true));
+
+        // The descriptor of Holder is written before the value fails, but never sent.
+        ChannelFuture future = encoder.writeAndFlush(new Holder(new Object()));
+        assertTrue(future.cause() instanceof EncoderException);
+
+        Point point = new Point(2, "b");
+        assertDecoded(decoder, point, encode(encoder, point));
+        assertDecoded(decoder, point, encode(encoder, point));
+        Holder holder = new Holder(point);
+        assertDecoded(decoder, holder, encode(encoder, holder));
+        assertDecoded(decoder, holder, encode(encoder, holder));
+        assertFalse(encoder.finish());
+        assertFalse(decoder.finish());
+    }
+
+    @Test
+    public void testCachedClassDescriptorsAreNotResolvedAgain() {
+        CountingClassResolver resolver = new CountingClassResolver();
+        EmbeddedChannel encoder = new EmbeddedChannel(new ObjectEncoder(true));
+        EmbeddedChannel decoder = new EmbeddedChannel(new ObjectDecoder(1048576, resolver, true));
+
+        Holder holder = new Holder(new Point(4, "d"));
+        assertDecoded(decoder, holder, encode(encoder, holder));
+        int resolved = resolver.resolved;
+        assertTrue(resolved > 0);
+        assertDecoded(decoder, holder, encode(encoder, holder));
+        assertEquals(resolved, resolver.resolved);
+        assertFalse(encoder.finish());
+        assertFalse(decoder.finish());
+    }
+
+    @Test
+    public void testCachedClassDescriptorsAfterResolveFailure() {
+        CountingClassResolver resolver = new CountingClassResolver();
+        resolver.notFound = Point.class.getName();
+        testCachedClassDescriptorsAfterFailure(resolver, new Point(5, "e"));
+    }
+
+    @Test
+    public void testCachedClassDescriptorsAfterNestedResolveFailure() {
+        // The descriptor of Point is never read, as Holder fails first.
+        CountingClassResolver resolver = new CountingClassResolver();
+        resolver.notFound = Holder.class.getName();
+        testCachedClassDescriptorsAfterFailure(resolver, new Holder(new Point(6, "f")));
+    }
+
+    private static void testCachedClassDescriptorsAfterFailure(CountingClassResolver resolver, Serializable failed) {
+        EmbeddedChannel encoder = new EmbeddedChannel(new ObjectEncoder(true));
+        EmbeddedChannel decoder = new EmbeddedChannel(new ObjectDecoder(1048576, resolver, true));
+        assertDecodeFails(decoder, encode(encoder, failed), InvalidClassException.class);
+
+        // The ids which the encoder assigned to the descriptors of the failed object are unknown, so the later
+        // objects are rejected even if they could be resolved.
+        resolver.notFound = null;
+        Point point = new Point(7, "g");
+        assertDecodeFails(decoder, encode(encoder, point), StreamCorruptedException.class);
+        assertDecodeFails(decoder, encode(encoder, new Holder(point)), StreamCorruptedException.class);
+        assertFalse(encoder.finish());
+        assertFalse(decoder.finish());
+    }
+
+    private static void assertDecodeFails(EmbeddedChannel decoder, ByteBuf encoded, Class<?> causeType) {
+        try {
+            decoder.writeInbound(encoded);
+            fail();
+        } catch (DecoderException e) {
+            assertTrue(String.valueOf(e.getCause()), causeType.isInstance(e.getCause()));
+        }
+    }
+
+    @Test
+    public void testUncachedDecoderRejectsCachedClassDescriptors() {
+        EmbeddedChannel encoder = new EmbeddedChannel(new ObjectEncoder(true));
+        EmbeddedChannel decoder = new EmbeddedChannel(new ObjectDecoder(ClassResolvers.cacheDisabled(null)));
+        Point point = new Point(3, "c");
+        assertDecoded(decoder, point, encode(encoder, point));
+        try {
+            decoder.writeInbound(encode(encoder, point));
+            fail();
+        } catch (Exception expected) {
+            // Expected
+        }
+        assertFalse(encoder.finish());
+        decoder.finishAndReleaseAll();
+    }
+
+    private static ByteBuf encode(EmbeddedChannel encoder, Serializable msg) {
+        assertTrue(encoder.writeOutbound(msg));
+        return encoder.readOutbound();
+    }
+
+    private static void assertDecoded(EmbeddedChannel decoder, Object expected, ByteBuf encoded) {
+        assertTrue(decoder.writeInbound(encoded));
+        assertEquals(expected, decoder.readInbound());
+    }
+
+    private static final class CountingClassResolver implements ClassResolver {
+        private final ClassResolver resolver = ClassResolvers.cacheDisabled(null);
+        String notFound;
+        int resolved;
+
+        @Override
+        public Class<?> resolve(String className) throws ClassNotFoundException {
+            if (className.equals(notFound)) {
+                throw new ClassNotFoundException(className);
+            }
+            resolved++;
+            return resolver.resolve(className);
+        }
+    }
+
+    private static final class Point implements Serializable {
+        private static final long serialVersionUID = 4276564412133617236L;
+
+        private final int x;
+        private final String name;
+
+        Point(int x, String name) {
+            this.x = x;
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Point && ((Point) o).x == x && ((Point) o).name.equals(name);
+        }
+
+        @Override
+        public int hashCode() {
+            return x;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class Holder implements Serializable {
+        private final Object value;
+
+        Holder(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Holder && ((Holder) o).value.equals(value);
+        }
+
+        @Override
+        public int hashCode() {
+            return value.hashCode();
+        }
+    }
 }
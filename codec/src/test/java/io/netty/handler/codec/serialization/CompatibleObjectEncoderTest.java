@@ -0,0 +1,53 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.serialization;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import java.io.ObjectInputStream;
+
+import static org.junit.Assert.*;
+
+public class CompatibleObjectEncoderTest {
+
+    @Test
+    public void testMessagesFormOneStream() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(new CompatibleObjectEncoder(2));
+        // Every message is written into a new buffer which is not recycled.
+        channel.config().setAllocator(UnpooledByteBufAllocator.DEFAULT);
+
+        ByteBuf stream = Unpooled.buffer();
+        for (int i = 0; i < 5; i++) {
+            assertTrue(channel.writeOutbound("message " + i));
+            ByteBuf buf = channel.readOutbound();
+            stream.writeBytes(buf);
+            buf.release();
+        }
+        assertFalse(channel.finish());
+
+        ObjectInputStream in = new ObjectInputStream(new ByteBufInputStream(stream));
+        for (int i = 0; i < 5; i++) {
+            assertEquals("message " + i, in.readObject());
+        }
+        in.close();
+        stream.release();
+    }
+}
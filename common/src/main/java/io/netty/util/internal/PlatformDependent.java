@@ -23,9 +23,11 @@ import io.netty.util.internal.logging.InternalLoggerFactory;
 import org.jctools.queues.MpscArrayQueue;
 import org.jctools.queues.MpscChunkedArrayQueue;
 import org.jctools.queues.SpscLinkedQueue;
+import org.jctools.queues.SpscUnboundedArrayQueue;
 import org.jctools.queues.atomic.MpscAtomicArrayQueue;
 import org.jctools.queues.atomic.MpscLinkedAtomicQueue;
 import org.jctools.queues.atomic.SpscLinkedAtomicQueue;
+import org.jctools.queues.atomic.SpscUnboundedAtomicArrayQueue;
 
 import java.io.BufferedReader;
 import java.io.File;
@@ -739,6 +741,16 @@ public final class PlatformDependent {
         return hasUnsafe() ? new SpscLinkedQueue<T>() : new SpscLinkedAtomicQueue<T>();
     }
 
+    /**
+     * Create a new unbounded {@link Queue} which is safe to use for single producer (one thread!) and a single
+     * consumer (one thread!). In contrast to {@link #newSpscQueue()} the elements are stored in linked array chunks
+     * of the given {@code chunkSize}, so no node needs to be allocated per element.
+     */
+    public static <T> Queue<T> newChunkedSpscQueue(int chunkSize) {
+        return hasUnsafe() ? new SpscUnboundedArrayQueue<T>(chunkSize)
+                : new SpscUnboundedAtomicArrayQueue<T>(chunkSize);
+    }
+
     /**
      * Create a new {@link Queue} which is safe to use for multiple producers (different threads) and a single
      * consumer (one thread!) with the given fixes {@code capacity}.
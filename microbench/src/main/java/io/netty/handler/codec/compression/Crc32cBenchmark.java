@@ -0,0 +1,73 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+
+/**
+ * Compares {@link Crc32c} with the checksum returned by {@link ByteBufChecksum#newCrc32c()}, which is
+ * {@code java.util.zip.CRC32C} when running on Java 9 or later.
+ */
+@State(Scope.Benchmark)
+public class Crc32cBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "64", "1024", "65536" })
+    public int size;
+
+    @Param({ "true", "false" })
+    public boolean direct;
+
+    private ByteBuf data;
+    private final Crc32c crc32c = new Crc32c();
+    private final ByteBufChecksum fastestCrc32c = ByteBufChecksum.newCrc32c();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        byte[] bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        data = (direct ? Unpooled.directBuffer(size) : Unpooled.buffer(size)).writeBytes(bytes);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        data.release();
+    }
+
+    @Benchmark
+    public long crc32c() {
+        crc32c.reset();
+        crc32c.update(data, data.readerIndex(), data.readableBytes());
+        return crc32c.getValue();
+    }
+
+    @Benchmark
+    public long fastestCrc32c() {
+        fastestCrc32c.reset();
+        fastestCrc32c.update(data, data.readerIndex(), data.readableBytes());
+        return fastestCrc32c.getValue();
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.ChannelPool;
+import io.netty.channel.pool.EventLoopAffineChannelPool;
+import io.netty.channel.pool.FixedChannelPool;
+import io.netty.channel.pool.SimpleChannelPool;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.Promise;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks acquiring a {@link Channel} from a {@link ChannelPool} on an {@link EventLoop}, using it and releasing
+ * it again. Every time the acquired {@link Channel} is registered to another {@link EventLoop} than the caller the
+ * work needs to be handed over to another thread, which is counted by {@link Handoffs}.
+ */
+@State(Scope.Benchmark)
+public class ChannelPoolBenchmark extends AbstractMicrobenchmark {
+
+    public enum PoolType {
+        SIMPLE, FIXED, EVENT_LOOP_AFFINE
+    }
+
+    /**
+     * Counts the number of times the work was handed over to the {@link EventLoop} of the acquired {@link Channel}.
+     */
+    @AuxCounters
+    @State(Scope.Thread)
+    public static class Handoffs {
+        public long handoffs;
+    }
+
+    @Param
+    public PoolType poolType;
+
+    @Param({ "4" })
+    public int eventLoops;
+
+    private EventLoopGroup group;
+    private Channel serverChannel;
+    private ChannelPool pool;
+    private EventLoop[] loops;
+    private int nextLoop;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        group = new DefaultEventLoopGroup(eventLoops);
+        LocalAddress address = new LocalAddress("channel-pool-benchmark");
+        serverChannel = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInboundHandlerAdapter())
+                .bind(address).sync().channel();
+
+        Bootstrap bootstrap = new Bootstrap()
+                .group(group)
+                .channel(LocalChannel.class)
+                .remoteAddress(address);
+        AbstractChannelPoolHandler handler = new AbstractChannelPoolHandler() {
+            @Override
+            public void channelCreated(Channel ch) {
+                // NOOP
+            }
+        };
+        switch (poolType) {
+            case SIMPLE:
+                pool = new SimpleChannelPool(bootstrap, handler);
+                break;
+            case FIXED:
+                pool = new FixedChannelPool(bootstrap, handler, Integer.MAX_VALUE);
+                break;
+            case EVENT_LOOP_AFFINE:
+                pool = new EventLoopAffineChannelPool(bootstrap, handler);
+                break;
+            default:
+                throw new Error();
+        }
+
+        loops = new EventLoop[eventLoops];
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = group.next();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        pool.close();
+        serverChannel.close().sync();
+        group.shutdownGracefully().sync();
+    }
+
+    @Benchmark
+    public void acquireUseAndRelease(Handoffs handoffs) throws Exception {
+        final EventLoop loop = loops[nextLoop++ % loops.length];
+        final Promise<Boolean> done = loop.newPromise();
+        loop.execute(new Runnable() {
+            @Override
+            public void run() {
+                pool.acquire().addListener(new FutureListener<Channel>() {
+                    @Override
+                    public void operationComplete(Future<Channel> future) throws Exception {
+                        if (!future.isSuccess()) {
+                            done.setFailure(future.cause());
+                            return;
+                        }
+                        final Channel ch = future.getNow();
+                        final boolean handoff = ch.eventLoop() != loop;
+                        Runnable useAndRelease = new Runnable() {
+                            @Override
+                            public void run() {
+                                pool.release(ch).addListener(new FutureListener<Void>() {
+                                    @Override
+                                    public void operationComplete(Future<Void> future) throws Exception {
+                                        done.setSuccess(handoff);
+                                    }
+                                });
+                            }
+                        };
+                        if (handoff) {
+                            ch.eventLoop().execute(useAndRelease);
+                        } else {
+                            useAndRelease.run();
+                        }
+                    }
+                });
+            }
+        });
+        if (done.sync().getNow()) {
+            handoffs.handoffs++;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks the propagation of events through a {@link ChannelPipeline} of the given depth. Each handler only
+ * forwards the event, either by inheriting the adapter method ({@code skippable}) or by overriding it with a
+ * method that calls the next handler explicitly.
+ */
+@State(Scope.Benchmark)
+public class DefaultChannelPipelineBenchmark extends AbstractMicrobenchmark {
+
+    @ChannelHandler.Sharable
+    private static final class InboundPassThroughHandler extends ChannelInboundHandlerAdapter {
+        static final InboundPassThroughHandler INSTANCE = new InboundPassThroughHandler();
+    }
+
+    @ChannelHandler.Sharable
+    private static final class OutboundPassThroughHandler extends ChannelOutboundHandlerAdapter {
+        static final OutboundPassThroughHandler INSTANCE = new OutboundPassThroughHandler();
+    }
+
+    @ChannelHandler.Sharable
+    private static final class DuplexPassThroughHandler extends ChannelDuplexHandler {
+        static final DuplexPassThroughHandler INSTANCE = new DuplexPassThroughHandler();
+    }
+
+    @ChannelHandler.Sharable
+    private static final class DuplexForwardingHandler extends ChannelDuplexHandler {
+        static final DuplexForwardingHandler INSTANCE = new DuplexForwardingHandler();
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ctx.fireChannelRead(msg);
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) {
+            ctx.fireChannelReadComplete();
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            ctx.write(msg, promise);
+        }
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) {
+            ctx.flush();
+        }
+    }
+
+    @ChannelHandler.Sharable
+    private static final class ConsumingHandler extends ChannelDuplexHandler {
+        static final ConsumingHandler INSTANCE = new ConsumingHandler();
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            // NOOP
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) {
+            // NOOP
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            // NOOP
+        }
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) {
+            // NOOP
+        }
+    }
+
+    private static final Object MESSAGE = new Object();
+
+    @Param({ "4", "16", "64" })
+    public int depth;
+
+    @Param({ "true", "false" })
+    public boolean skippable;
+
+    private ChannelPipeline pipeline;
+    private ChannelPromise promise;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        pipeline = channel.pipeline();
+        for (int i = 0; i < depth; i++) {
+            if (skippable) {
+                switch (i % 3) {
+                    case 0:
+                        pipeline.addLast(InboundPassThroughHandler.INSTANCE);
+                        break;
+                    case 1:
+                        pipeline.addLast(OutboundPassThroughHandler.INSTANCE);
+                        break;
+                    default:
+                        pipeline.addLast(DuplexPassThroughHandler.INSTANCE);
+                        break;
+                }
+            } else {
+                pipeline.addLast(DuplexForwardingHandler.INSTANCE);
+            }
+        }
+        // Consume the events at both ends so they never reach the tail or the EmbeddedChannel itself.
+        pipeline.addFirst(ConsumingHandler.INSTANCE);
+        pipeline.addLast(ConsumingHandler.INSTANCE);
+        promise = channel.voidPromise();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        pipeline.channel().close();
+    }
+
+    @Benchmark
+    public void propagateChannelRead() {
+        pipeline.fireChannelRead(MESSAGE);
+    }
+
+    @Benchmark
+    public void propagateChannelReadComplete() {
+        pipeline.fireChannelReadComplete();
+    }
+
+    @Benchmark
+    public void propagateWrite() {
+        pipeline.lastContext().write(MESSAGE, promise);
+    }
+
+    @Benchmark
+    public void propagateFlush() {
+        pipeline.lastContext().flush();
+    }
+}
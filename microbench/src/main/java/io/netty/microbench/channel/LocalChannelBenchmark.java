@@ -0,0 +1,121 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.concurrent.DefaultPromise;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the throughput of writing and flushing messages from a {@link LocalChannel} to its peer, either if both
+ * are registered to the same {@link EventLoop} or to different ones.
+ */
+@State(Scope.Benchmark)
+public class LocalChannelBenchmark extends AbstractMicrobenchmark {
+    private static final Object MESSAGE = new Object();
+
+    @Param({ "true", "false" })
+    public boolean sameEventLoop;
+
+    @Param({ "1", "64" })
+    public int messages;
+
+    private EventLoopGroup group;
+    private Channel serverChannel;
+    private Channel clientChannel;
+    private ReadCounter counter;
+    private Runnable writeTask;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        group = new DefaultEventLoopGroup(2);
+        EventLoop serverLoop = group.next();
+        EventLoop clientLoop = sameEventLoop ? serverLoop : group.next();
+        LocalAddress address = new LocalAddress("local-channel-benchmark");
+        counter = new ReadCounter();
+        serverChannel = new ServerBootstrap()
+                .group(serverLoop)
+                .channel(LocalServerChannel.class)
+                .childHandler(counter)
+                .bind(address).sync().channel();
+        clientChannel = new Bootstrap()
+                .group(clientLoop)
+                .channel(LocalChannel.class)
+                .handler(new ChannelInboundHandlerAdapter())
+                .connect(address).sync().channel();
+        writeTask = new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < messages; i++) {
+                    clientChannel.writeAndFlush(MESSAGE, clientChannel.voidPromise());
+                }
+            }
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        clientChannel.close().sync();
+        serverChannel.close().sync();
+        group.shutdownGracefully().sync();
+    }
+
+    @Benchmark
+    public void writeAndFlush() throws Exception {
+        Promise<Void> done = new DefaultPromise<Void>(ImmediateEventExecutor.INSTANCE);
+        counter.expect(messages, done);
+        clientChannel.eventLoop().execute(writeTask);
+        done.sync();
+    }
+
+    @ChannelHandler.Sharable
+    private static final class ReadCounter extends ChannelInboundHandlerAdapter {
+        private volatile int remaining;
+        private volatile Promise<Void> done;
+
+        void expect(int messages, Promise<Void> done) {
+            this.done = done;
+            remaining = messages;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            if (--remaining == 0) {
+                done.setSuccess(null);
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.handler.codec.base64.Base64;
+import io.netty.handler.codec.base64.Base64Dialect;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+
+/**
+ * Measures {@link Base64} encoding and decoding of heap and direct buffers, from the size of a HTTP authorization
+ * header up to bulk data.
+ */
+@State(Scope.Benchmark)
+public class Base64Benchmark extends AbstractMicrobenchmark {
+
+    @Param({ "48", "1024", "65536" })
+    public int size;
+
+    @Param({ "true", "false" })
+    public boolean direct;
+
+    @Param({ "true", "false" })
+    public boolean breakLines;
+
+    private ByteBufAllocator alloc;
+    private ByteBuf decoded;
+    private ByteBuf encoded;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        alloc = new PooledByteBufAllocator(direct);
+        byte[] bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        decoded = alloc.buffer(size).writeBytes(bytes);
+        encoded = Base64.encode(decoded, decoded.readerIndex(), decoded.readableBytes(), breakLines,
+                                Base64Dialect.STANDARD, alloc);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        decoded.release();
+        encoded.release();
+    }
+
+    @Benchmark
+    public ByteBuf encode() {
+        ByteBuf buf = Base64.encode(decoded, decoded.readerIndex(), decoded.readableBytes(), breakLines,
+                                    Base64Dialect.STANDARD, alloc);
+        buf.release();
+        return buf;
+    }
+
+    @Benchmark
+    public ByteBuf decode() {
+        ByteBuf buf = Base64.decode(encoded, encoded.readerIndex(), encoded.readableBytes(),
+                                    Base64Dialect.STANDARD, alloc);
+        buf.release();
+        return buf;
+    }
+}
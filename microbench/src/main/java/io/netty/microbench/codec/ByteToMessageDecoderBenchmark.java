@@ -0,0 +1,127 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.AdaptiveCumulator;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures how fast a {@link ByteToMessageDecoder} decodes length prefixed frames using the different
+ * {@link ByteToMessageDecoder.Cumulator}s if the frames are fragmented like they would be when received via TCP,
+ * which means split at segment boundaries with multiple segments sometimes being read at once.
+ */
+@State(Scope.Benchmark)
+public class ByteToMessageDecoderBenchmark extends AbstractMicrobenchmark {
+    private static final int MSS = 1460;
+    private static final int FRAMES = 64;
+
+    public enum CumulatorType {
+        MERGE, COMPOSITE, ADAPTIVE, ZERO_COPY
+    }
+
+    @Param
+    public CumulatorType cumulator;
+
+    @Param({ "128", "2048", "32768", "65536" })
+    public int frameSize;
+
+    private final ByteBufAllocator alloc = PooledByteBufAllocator.DEFAULT;
+    private final List<byte[]> reads = new ArrayList<byte[]>();
+    private EmbeddedChannel channel;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        byte[] stream = new byte[FRAMES * (frameSize + 4)];
+        for (int i = 0, offset = 0; i < FRAMES; i++, offset += frameSize + 4) {
+            stream[offset] = (byte) (frameSize >>> 24);
+            stream[offset + 1] = (byte) (frameSize >>> 16);
+            stream[offset + 2] = (byte) (frameSize >>> 8);
+            stream[offset + 3] = (byte) frameSize;
+        }
+        // Each read contains between one and eight segments. The last one of the stream may be shorter.
+        Random random = new Random(42);
+        for (int offset = 0; offset < stream.length;) {
+            int length = Math.min((random.nextInt(8) + 1) * MSS, stream.length - offset);
+            byte[] read = new byte[length];
+            System.arraycopy(stream, offset, read, 0, length);
+            reads.add(read);
+            offset += length;
+        }
+
+        ByteToMessageDecoder decoder = new LengthFieldBasedFrameDecoder(Integer.MAX_VALUE, 0, 4, 0, 4);
+        switch (cumulator) {
+            case MERGE:
+                decoder.setCumulator(ByteToMessageDecoder.MERGE_CUMULATOR);
+                break;
+            case COMPOSITE:
+                decoder.setCumulator(ByteToMessageDecoder.COMPOSITE_CUMULATOR);
+                break;
+            case ADAPTIVE:
+                decoder.setCumulator(new AdaptiveCumulator());
+                break;
+            case ZERO_COPY:
+                decoder.setCumulator(ByteToMessageDecoder.ZERO_COPY_CUMULATOR);
+                break;
+            default:
+                throw new Error();
+        }
+        channel = new EmbeddedChannel(decoder, new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                ByteBuf frame = (ByteBuf) msg;
+                // Touch the content like a real consumer would.
+                frame.getByte(frame.readerIndex());
+                ReferenceCountUtil.release(frame);
+            }
+        });
+        channel.config().setAllocator(alloc);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public void decode() {
+        for (int i = 0; i < reads.size(); i++) {
+            byte[] read = reads.get(i);
+            // Simulate a read from the socket into a pooled buffer like the transports do.
+            ByteBuf buf = alloc.directBuffer(Math.max(read.length, 2048)).writeBytes(read);
+            channel.writeInbound(buf);
+        }
+    }
+}
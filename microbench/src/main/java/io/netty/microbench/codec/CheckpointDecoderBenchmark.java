@@ -0,0 +1,176 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.CheckpointDecoder;
+import io.netty.handler.codec.ReplayingDecoder;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+
+/**
+ * Compares {@link ReplayingDecoder} and {@link CheckpointDecoder} decoding messages which consist of a header with
+ * a type and a length followed by the content, if the messages are received in small fragments.
+ */
+@State(Scope.Benchmark)
+public class CheckpointDecoderBenchmark extends AbstractMicrobenchmark {
+    private static final int MESSAGES = 64;
+
+    public enum DecoderType {
+        REPLAYING, CHECKPOINT
+    }
+
+    @Param
+    public DecoderType decoder;
+
+    @Param({ "16", "256", "1460" })
+    public int fragmentSize;
+
+    @Param({ "128", "4096" })
+    public int messageSize;
+
+    private final ByteBufAllocator alloc = PooledByteBufAllocator.DEFAULT;
+    private byte[] stream;
+    private EmbeddedChannel channel;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        stream = new byte[MESSAGES * (messageSize + 6)];
+        for (int i = 0, offset = 0; i < MESSAGES; i++, offset += messageSize + 6) {
+            stream[offset] = 0;
+            stream[offset + 1] = (byte) i;
+            stream[offset + 2] = (byte) (messageSize >>> 24);
+            stream[offset + 3] = (byte) (messageSize >>> 16);
+            stream[offset + 4] = (byte) (messageSize >>> 8);
+            stream[offset + 5] = (byte) messageSize;
+        }
+        ByteToMessageDecoder handler;
+        switch (decoder) {
+            case REPLAYING:
+                handler = new ReplayingMessageDecoder();
+                break;
+            case CHECKPOINT:
+                handler = new CheckpointMessageDecoder();
+                break;
+            default:
+                throw new Error();
+        }
+        channel = new EmbeddedChannel(handler, new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                ReferenceCountUtil.release(msg);
+            }
+        });
+        channel.config().setAllocator(alloc);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public void decode() {
+        for (int offset = 0; offset < stream.length; offset += fragmentSize) {
+            int length = Math.min(fragmentSize, stream.length - offset);
+            channel.writeInbound(alloc.directBuffer(length).writeBytes(stream, offset, length));
+        }
+    }
+
+    private enum MessageState {
+        READ_TYPE, READ_LENGTH, READ_CONTENT
+    }
+
+    private static final class ReplayingMessageDecoder extends ReplayingDecoder<MessageState> {
+        private int length;
+
+        ReplayingMessageDecoder() {
+            super(MessageState.READ_TYPE);
+        }
+
+        @Override
+        protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+            switch (state()) {
+                case READ_TYPE:
+                    in.readShort();
+                    checkpoint(MessageState.READ_LENGTH);
+                    // Fall through
+                case READ_LENGTH:
+                    length = in.readInt();
+                    checkpoint(MessageState.READ_CONTENT);
+                    // Fall through
+                case READ_CONTENT:
+                    out.add(in.readRetainedSlice(length));
+                    checkpoint(MessageState.READ_TYPE);
+                    break;
+                default:
+                    throw new Error();
+            }
+        }
+    }
+
+    private static final class CheckpointMessageDecoder extends CheckpointDecoder<MessageState> {
+        private int length;
+
+        CheckpointMessageDecoder() {
+            super(MessageState.READ_TYPE);
+        }
+
+        @Override
+        protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+            switch (state()) {
+                case READ_TYPE:
+                    if (!in.isReadable(2)) {
+                        return;
+                    }
+                    in.readShort();
+                    checkpoint(MessageState.READ_LENGTH);
+                    // Fall through
+                case READ_LENGTH:
+                    if (!in.isReadable(4)) {
+                        return;
+                    }
+                    length = in.readInt();
+                    checkpoint(MessageState.READ_CONTENT);
+                    // Fall through
+                case READ_CONTENT:
+                    if (!in.isReadable(length)) {
+                        return;
+                    }
+                    out.add(in.readRetainedSlice(length));
+                    checkpoint(MessageState.READ_TYPE);
+                    break;
+                default:
+                    throw new Error();
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.BrotliEncoder;
+import io.netty.handler.codec.compression.JdkZlibEncoder;
+import io.netty.handler.codec.compression.ZlibWrapper;
+import io.netty.handler.codec.compression.ZstdEncoder;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.CharsetUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Compares the {@link BrotliEncoder} and {@link ZstdEncoder} with the {@code gzip} encoding of the
+ * {@link JdkZlibEncoder} by compressing a JSON like payload the way the {@code HttpContentCompressor} compresses a
+ * response, so with a new encoder for every payload.
+ */
+@State(Scope.Benchmark)
+public class CompressionEncoderBenchmark extends AbstractMicrobenchmark {
+
+    public enum EncoderType {
+        BROTLI_1, BROTLI_4, BROTLI_9, ZSTD_1, ZSTD_3, ZSTD_9, GZIP_1, GZIP_6
+    }
+
+    @Param
+    public EncoderType encoder;
+
+    @Param({ "1024", "16384", "262144" })
+    public int size;
+
+    private final ByteBufAllocator alloc = PooledByteBufAllocator.DEFAULT;
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        StringBuilder json = new StringBuilder(size + 128);
+        Random random = new Random(42);
+        for (int i = 0; json.length() < size; i++) {
+            json.append("{\"id\":").append(i)
+                .append(",\"name\":\"user").append(random.nextInt(1000))
+                .append("\",\"score\":").append(random.nextInt(100000))
+                .append(",\"active\":").append(random.nextBoolean()).append("},");
+        }
+        json.setLength(size);
+        payload = json.toString().getBytes(CharsetUtil.US_ASCII);
+    }
+
+    @Benchmark
+    public int compress() {
+        EmbeddedChannel channel = new EmbeddedChannel(newEncoder());
+        channel.config().setAllocator(alloc);
+        channel.writeOutbound(alloc.heapBuffer(payload.length).writeBytes(payload));
+        channel.finish();
+
+        int compressedSize = 0;
+        ByteBuf buf;
+        while ((buf = channel.readOutbound()) != null) {
+            compressedSize += buf.readableBytes();
+            buf.release();
+        }
+        return compressedSize;
+    }
+
+    private ChannelHandler newEncoder() {
+        switch (encoder) {
+            case BROTLI_1:
+                return new BrotliEncoder(1);
+            case BROTLI_4:
+                return new BrotliEncoder(4);
+            case BROTLI_9:
+                return new BrotliEncoder(9);
+            case ZSTD_1:
+                return new ZstdEncoder(1);
+            case ZSTD_3:
+                return new ZstdEncoder(3);
+            case ZSTD_9:
+                return new ZstdEncoder(9);
+            case GZIP_1:
+                return new JdkZlibEncoder(ZlibWrapper.GZIP, 1);
+            case GZIP_6:
+                return new JdkZlibEncoder(ZlibWrapper.GZIP, 6);
+            default:
+                throw new Error();
+        }
+    }
+}
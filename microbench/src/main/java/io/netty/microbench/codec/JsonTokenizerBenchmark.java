@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.json.JsonObjectDecoder;
+import io.netty.handler.codec.json.JsonToken;
+import io.netty.handler.codec.json.JsonTokenizer;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.CharsetUtil;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+
+/**
+ * Measures the throughput of {@link JsonTokenizer} on a large array of small objects, compared to only splitting
+ * the array into its elements with {@link JsonObjectDecoder}.
+ */
+@State(Scope.Benchmark)
+public class JsonTokenizerBenchmark extends AbstractMicrobenchmark {
+    private static final int ELEMENTS = 4096;
+
+    @Param({ "true", "false" })
+    public boolean direct;
+
+    private ByteBuf json;
+    private EmbeddedChannel splitter;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        StringBuilder builder = new StringBuilder("[");
+        Random random = new Random(42);
+        for (int i = 0; i < ELEMENTS; i++) {
+            if (i > 0) {
+                builder.append(",\n");
+            }
+            builder.append("{\"id\": ").append(random.nextInt())
+                   .append(", \"name\": \"user ").append(random.nextInt(1000))
+                   .append("\", \"score\": ").append(random.nextInt(100000) / 100.0)
+                   .append(", \"active\": ").append(random.nextBoolean())
+                   .append(", \"tags\": [\"a\", \"b\\\"c\"], \"parent\": null}");
+        }
+        builder.append("]\n");
+        byte[] bytes = builder.toString().getBytes(CharsetUtil.UTF_8);
+        json = direct ? Unpooled.directBuffer(bytes.length).writeBytes(bytes) : Unpooled.wrappedBuffer(bytes);
+
+        splitter = new EmbeddedChannel(new JsonObjectDecoder(bytes.length, true), new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                ReferenceCountUtil.release(msg);
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        json.release();
+        splitter.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public long tokenize() {
+        JsonTokenizer tokenizer = new JsonTokenizer();
+        ByteBuf in = json.duplicate();
+        long sum = 0;
+        JsonToken token;
+        while ((token = tokenizer.next(in)) != null) {
+            if (token == JsonToken.NUMBER) {
+                sum += tokenizer.isLongValue() ? tokenizer.longValue() : (long) tokenizer.doubleValue();
+            } else if (token == JsonToken.FIELD_NAME || token == JsonToken.STRING) {
+                sum += tokenizer.text().length();
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public void splitArrayElements() {
+        splitter.writeInbound(json.retainedDuplicate());
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.BatchingMessageToByteEncoder;
+import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures how the capacity of the buffers allocated by a {@link MessageToByteEncoder} and batching messages into
+ * one buffer affect encoding messages of different sizes, which are flushed in groups.
+ */
+@State(Scope.Benchmark)
+public class MessageToByteEncoderBenchmark extends AbstractMicrobenchmark {
+    private static final int MESSAGES_PER_FLUSH = 16;
+
+    public enum Mode {
+        /**
+         * Allocates buffers with the default capacity of the allocator.
+         */
+        DEFAULT_CAPACITY,
+        /**
+         * Allocates buffers with the predicted capacity.
+         */
+        PREDICTED,
+        /**
+         * Allocates buffers with the capacity returned by {@code estimateEncodedSize(...)}.
+         */
+        ESTIMATED,
+        /**
+         * Encodes the messages of one flush into one buffer.
+         */
+        BATCHED
+    }
+
+    @Param
+    public Mode mode;
+
+    @Param({ "64", "1024", "16384" })
+    public int messageSize;
+
+    private final ByteBufAllocator alloc = PooledByteBufAllocator.DEFAULT;
+    private byte[] content;
+    private EmbeddedChannel channel;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        content = new byte[messageSize];
+        MessageToByteEncoder<byte[]> encoder;
+        switch (mode) {
+            case DEFAULT_CAPACITY:
+                encoder = new ByteArrayEncoder() {
+                    @Override
+                    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, byte[] msg, boolean preferDirect) {
+                        return ctx.alloc().ioBuffer();
+                    }
+                };
+                break;
+            case PREDICTED:
+                encoder = new ByteArrayEncoder();
+                break;
+            case ESTIMATED:
+                encoder = new ByteArrayEncoder() {
+                    @Override
+                    protected int estimateEncodedSize(byte[] msg) {
+                        return msg.length;
+                    }
+                };
+                break;
+            case BATCHED:
+                BatchingByteArrayEncoder batchingEncoder = new BatchingByteArrayEncoder();
+                batchingEncoder.setMaxBatchBytes(65536);
+                encoder = batchingEncoder;
+                break;
+            default:
+                throw new Error();
+        }
+        channel = new EmbeddedChannel(new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                // Stand-in for the transport, which would write and release the buffer.
+                ReferenceCountUtil.release(msg);
+                promise.setSuccess();
+            }
+        }, encoder);
+        channel.config().setAllocator(alloc);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public void encode() {
+        for (int i = 0; i < MESSAGES_PER_FLUSH; i++) {
+            channel.write(content, channel.voidPromise());
+        }
+        channel.flush();
+    }
+
+    private static void encodeByteArray(byte[] msg, ByteBuf out) {
+        // Write in small pieces like most encoders do, so the buffer is expanded step by step if too small.
+        for (int offset = 0; offset < msg.length; offset += 32) {
+            out.writeBytes(msg, offset, Math.min(32, msg.length - offset));
+        }
+    }
+
+    private static class ByteArrayEncoder extends MessageToByteEncoder<byte[]> {
+        @Override
+        protected void encode(ChannelHandlerContext ctx, byte[] msg, ByteBuf out) {
+            encodeByteArray(msg, out);
+        }
+    }
+
+    private static final class BatchingByteArrayEncoder extends BatchingMessageToByteEncoder<byte[]> {
+        @Override
+        protected void encode(ChannelHandlerContext ctx, byte[] msg, ByteBuf out) {
+            encodeByteArray(msg, out);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.serialization.ClassResolvers;
+import io.netty.handler.codec.serialization.CompatibleObjectEncoder;
+import io.netty.handler.codec.serialization.ObjectDecoder;
+import io.netty.handler.codec.serialization.ObjectEncoder;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares encoding small objects with {@link CompatibleObjectEncoder}, which keeps one object stream per channel,
+ * and {@link ObjectEncoder} with and without caching class descriptors, as well as decoding the objects of the
+ * latter two with {@link ObjectDecoder}.
+ */
+@State(Scope.Benchmark)
+public class ObjectEncoderBenchmark extends AbstractMicrobenchmark {
+
+    public enum Encoding {
+        COMPATIBLE, COMPACT, COMPACT_CACHED
+    }
+
+    @Param
+    public Encoding encoding;
+
+    private Order order;
+    private EmbeddedChannel encoder;
+    private EmbeddedChannel decoder;
+    private ByteBuf encoded;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<Item> items = new ArrayList<Item>();
+        for (int i = 0; i < 4; i++) {
+            items.add(new Item("item " + i, i * 100L, i + 1));
+        }
+        order = new Order(42, "customer", items);
+
+        boolean cached = encoding == Encoding.COMPACT_CACHED;
+        ChannelHandler handler = encoding == Encoding.COMPATIBLE ? new CompatibleObjectEncoder()
+                                                                  : new ObjectEncoder(cached);
+        encoder = newChannel(handler);
+
+        if (encoding != Encoding.COMPATIBLE) {
+            EmbeddedChannel channel = new EmbeddedChannel(new ObjectEncoder(cached));
+            channel.writeOutbound(order);
+            ByteBuf first = channel.readOutbound();
+            channel.writeOutbound(order);
+            // Decoded repeatedly, so refers to cached descriptors if enabled.
+            encoded = channel.readOutbound();
+            channel.finishAndReleaseAll();
+
+            decoder = new EmbeddedChannel(
+                    new ObjectDecoder(1048576, ClassResolvers.softCachingResolver(null), cached));
+            decoder.writeInbound(first);
+            decoder.readInbound();
+        }
+    }
+
+    private static EmbeddedChannel newChannel(ChannelHandler encoder) {
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                ReferenceCountUtil.release(msg);
+                promise.setSuccess();
+            }
+        });
+        channel.config().setAllocator(PooledByteBufAllocator.DEFAULT);
+        channel.pipeline().addLast(encoder);
+        return channel;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        encoder.finishAndReleaseAll();
+        if (decoder != null) {
+            decoder.finishAndReleaseAll();
+            encoded.release();
+        }
+    }
+
+    @Benchmark
+    public void encode() {
+        encoder.writeOutbound(order);
+    }
+
+    @Benchmark
+    public Object decode() {
+        if (decoder == null) {
+            // CompatibleObjectEncoder writes a stream for ObjectInputStream, which has no decoder counterpart.
+            return null;
+        }
+        decoder.writeInbound(encoded.retainedDuplicate());
+        return decoder.readInbound();
+    }
+
+    private static final class Order implements Serializable {
+        private static final long serialVersionUID = -2468143707342178353L;
+
+        private final long id;
+        private final String customer;
+        private final List<Item> items;
+
+        Order(long id, String customer, List<Item> items) {
+            this.id = id;
+            this.customer = customer;
+            this.items = items;
+        }
+    }
+
+    private static final class Item implements Serializable {
+        private static final long serialVersionUID = 5519735418366829862L;
+
+        private final String name;
+        private final long price;
+        private final int quantity;
+
+        Item(String name, long price, int quantity) {
+            this.name = name;
+            this.price = price;
+            this.quantity = quantity;
+        }
+    }
+}
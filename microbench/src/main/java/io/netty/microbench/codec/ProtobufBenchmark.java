@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.codec;
+
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.protobuf.ProtobufDecoder;
+import io.netty.handler.codec.protobuf.ProtobufEncoder;
+import io.netty.handler.codec.protobuf.ProtobufVarint32LengthFieldPrepender;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures encoding a protobuf message with a length field, either by {@link ProtobufEncoder} and
+ * {@link ProtobufVarint32LengthFieldPrepender} or by a single {@code new ProtobufEncoder(true)}, and decoding it
+ * from a pooled heap or direct buffer.
+ */
+@State(Scope.Benchmark)
+public class ProtobufBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "4", "64" })
+    public int dependencies;
+
+    @Param({ "true", "false" })
+    public boolean direct;
+
+    private FileDescriptorProto message;
+    private ByteBuf serialized;
+    private EmbeddedChannel separateEncoders;
+    private EmbeddedChannel fusedEncoder;
+    private EmbeddedChannel decoder;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        FileDescriptorProto.Builder builder = FileDescriptorProto.newBuilder()
+                .setName("benchmark.proto")
+                .setPackage("io.netty.microbench");
+        for (int i = 0; i < dependencies; i++) {
+            builder.addDependency("dependency/number/" + i + ".proto");
+        }
+        message = builder.build();
+
+        byte[] bytes = message.toByteArray();
+        PooledByteBufAllocator alloc = PooledByteBufAllocator.DEFAULT;
+        serialized = direct ? alloc.directBuffer(bytes.length) : alloc.heapBuffer(bytes.length);
+        serialized.writeBytes(bytes);
+
+        separateEncoders = newChannel(new ProtobufVarint32LengthFieldPrepender(), new ProtobufEncoder());
+        fusedEncoder = newChannel(new ProtobufEncoder(true));
+        decoder = new EmbeddedChannel(new ProtobufDecoder(FileDescriptorProto.getDefaultInstance()));
+    }
+
+    private static EmbeddedChannel newChannel(ChannelHandler... encoders) {
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                ReferenceCountUtil.release(msg);
+                promise.setSuccess();
+            }
+        });
+        channel.config().setAllocator(PooledByteBufAllocator.DEFAULT);
+        channel.pipeline().addLast(encoders);
+        return channel;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        serialized.release();
+        separateEncoders.finishAndReleaseAll();
+        fusedEncoder.finishAndReleaseAll();
+        decoder.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public void encodeSeparately() {
+        separateEncoders.writeOutbound(message);
+    }
+
+    @Benchmark
+    public void encodeFused() {
+        fusedEncoder.writeOutbound(message);
+    }
+
+    @Benchmark
+    public Object decode() {
+        decoder.writeInbound(serialized.retainedDuplicate());
+        return decoder.readInbound();
+    }
+}
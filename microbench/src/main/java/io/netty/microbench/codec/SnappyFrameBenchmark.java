@@ -0,0 +1,124 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.SnappyFrameDecoder;
+import io.netty.handler.codec.compression.SnappyFrameEncoder;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.CharsetUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+
+/**
+ * Measures the throughput of the {@link SnappyFrameEncoder} and the {@link SnappyFrameDecoder} for a JSON like
+ * payload. The same channels are used for all invocations, so the stream identifier is only written and read once.
+ */
+@State(Scope.Benchmark)
+public class SnappyFrameBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "1024", "16384", "65536" })
+    public int size;
+
+    @Param({ "true", "false" })
+    public boolean direct;
+
+    private final ByteBufAllocator alloc = PooledByteBufAllocator.DEFAULT;
+    private ByteBuf payload;
+    private ByteBuf compressed;
+    private EmbeddedChannel encoder;
+    private EmbeddedChannel decoder;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        StringBuilder json = new StringBuilder(size + 128);
+        Random random = new Random(42);
+        for (int i = 0; json.length() < size; i++) {
+            json.append("{\"id\":").append(i)
+                .append(",\"name\":\"user").append(random.nextInt(1000))
+                .append("\",\"score\":").append(random.nextInt(100000))
+                .append(",\"active\":").append(random.nextBoolean()).append("},");
+        }
+        json.setLength(size);
+        byte[] bytes = json.toString().getBytes(CharsetUtil.US_ASCII);
+        payload = (direct ? alloc.directBuffer(size) : alloc.heapBuffer(size)).writeBytes(bytes);
+
+        encoder = new EmbeddedChannel(new SnappyFrameEncoder());
+        encoder.config().setAllocator(alloc);
+        decoder = new EmbeddedChannel(new SnappyFrameDecoder());
+        decoder.config().setAllocator(alloc);
+
+        // Pass the stream identifier to the decoder, so every invocation only decodes the chunks of the payload.
+        encoder.writeOutbound(payload.retainedDuplicate());
+        ByteBuf stream = alloc.buffer();
+        ByteBuf buf;
+        while ((buf = encoder.readOutbound()) != null) {
+            stream.writeBytes(buf);
+            buf.release();
+        }
+        decoder.writeInbound(stream.readRetainedSlice(10));
+        compressed = (direct ? alloc.directBuffer(stream.readableBytes()) : alloc.heapBuffer(stream.readableBytes()))
+                .writeBytes(stream);
+        stream.release();
+        readAll(decoder);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        encoder.finishAndReleaseAll();
+        decoder.finishAndReleaseAll();
+        payload.release();
+        compressed.release();
+    }
+
+    @Benchmark
+    public int encode() {
+        encoder.writeOutbound(payload.retainedDuplicate());
+        int compressedSize = 0;
+        ByteBuf buf;
+        while ((buf = encoder.readOutbound()) != null) {
+            compressedSize += buf.readableBytes();
+            buf.release();
+        }
+        return compressedSize;
+    }
+
+    @Benchmark
+    public int decode() {
+        decoder.writeInbound(compressed.retainedDuplicate());
+        return readAll(decoder);
+    }
+
+    private static int readAll(EmbeddedChannel channel) {
+        int decompressedSize = 0;
+        ByteBuf buf;
+        while ((buf = channel.readInbound()) != null) {
+            decompressedSize += buf.readableBytes();
+            buf.release();
+        }
+        return decompressedSize;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.compression.ZlibDecoder;
+import io.netty.handler.codec.compression.ZlibEncoder;
+import io.netty.handler.codec.compression.ZlibWrapper;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.CharsetUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+
+/**
+ * Measures compressing and decompressing every JSON like message as its own zlib stream, like a compressed HTTP
+ * response or a message of a protocol which compresses every message. Such short streams spend most of the time
+ * with the setup of the deflater or inflater, unless it is pooled.
+ */
+@State(Scope.Benchmark)
+public class ZlibMessageBenchmark extends AbstractMicrobenchmark {
+
+    private static final byte[] DICTIONARY =
+            "{\"id\":,\"name\":\"user\",\"score\":,\"active\":truefalse},".getBytes(CharsetUtil.US_ASCII);
+
+    @Param({ "200", "1024", "4096" })
+    public int size;
+
+    @Param({ "true", "false" })
+    public boolean pooled;
+
+    @Param({ "true", "false" })
+    public boolean dictionary;
+
+    private ByteBuf message;
+    private ByteBuf compressed;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        StringBuilder json = new StringBuilder(size + 128);
+        Random random = new Random(42);
+        for (int i = 0; json.length() < size; i++) {
+            json.append("{\"id\":").append(i)
+                .append(",\"name\":\"user").append(random.nextInt(1000))
+                .append("\",\"score\":").append(random.nextInt(100000))
+                .append(",\"active\":").append(random.nextBoolean()).append("},");
+        }
+        json.setLength(size);
+        message = Unpooled.copiedBuffer(json, CharsetUtil.US_ASCII);
+
+        EmbeddedChannel encoder = new EmbeddedChannel(newEncoder());
+        encoder.writeOutbound(message.retainedDuplicate());
+        encoder.finish();
+        compressed = Unpooled.buffer();
+        ByteBuf buf;
+        while ((buf = encoder.readOutbound()) != null) {
+            compressed.writeBytes(buf);
+            buf.release();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        message.release();
+        compressed.release();
+    }
+
+    @Benchmark
+    public int encode() {
+        EmbeddedChannel encoder = new EmbeddedChannel(newEncoder());
+        encoder.writeOutbound(message.retainedDuplicate());
+        encoder.finish();
+        int compressedSize = 0;
+        ByteBuf buf;
+        while ((buf = encoder.readOutbound()) != null) {
+            compressedSize += buf.readableBytes();
+            buf.release();
+        }
+        return compressedSize;
+    }
+
+    @Benchmark
+    public int decode() {
+        EmbeddedChannel decoder = new EmbeddedChannel(newDecoder());
+        decoder.writeInbound(compressed.retainedDuplicate());
+        int decompressedSize = 0;
+        ByteBuf buf;
+        while ((buf = decoder.readInbound()) != null) {
+            decompressedSize += buf.readableBytes();
+            buf.release();
+        }
+        decoder.finish();
+        return decompressedSize;
+    }
+
+    private ZlibEncoder newEncoder() {
+        if (pooled) {
+            return dictionary ? ZlibCodecFactory.newPooledZlibEncoder(6, DICTIONARY)
+                              : ZlibCodecFactory.newPooledZlibEncoder(ZlibWrapper.ZLIB, 6);
+        }
+        return dictionary ? ZlibCodecFactory.newZlibEncoder(6, DICTIONARY)
+                          : ZlibCodecFactory.newZlibEncoder(ZlibWrapper.ZLIB, 6);
+    }
+
+    private ZlibDecoder newDecoder() {
+        if (pooled) {
+            return dictionary ? ZlibCodecFactory.newPooledZlibDecoder(DICTIONARY)
+                              : ZlibCodecFactory.newPooledZlibDecoder(ZlibWrapper.ZLIB);
+        }
+        return dictionary ? ZlibCodecFactory.newZlibDecoder(DICTIONARY)
+                          : ZlibCodecFactory.newZlibDecoder(ZlibWrapper.ZLIB);
+    }
+}
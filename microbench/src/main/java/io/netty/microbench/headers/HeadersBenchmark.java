@@ -15,6 +15,9 @@
  */
 package io.netty.microbench.headers;
 
+import io.netty.handler.codec.ArrayHeaders;
+import io.netty.handler.codec.CharSequenceValueConverter;
+import io.netty.handler.codec.DefaultHeaders.NameValidator;
 import io.netty.handler.codec.Headers;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http2.DefaultHttp2Headers;
@@ -73,6 +76,8 @@ public class HeadersBenchmark extends AbstractMicrobenchmark {
     DefaultHttpHeaders emptyHttpHeadersNoValidate;
     DefaultHttp2Headers emptyHttp2HeadersNoValidate;
     SlowHeaders slowHttp2Headers;
+    CharSequenceArrayHeaders arrayHeaders;
+    CharSequenceArrayHeaders emptyArrayHeaders;
 
     @Setup(Level.Trial)
     public void setup() {
@@ -82,6 +87,7 @@ public class HeadersBenchmark extends AbstractMicrobenchmark {
         httpValues = new AsciiString[headers.size()];
         httpHeaders = new DefaultHttpHeaders(false);
         http2Headers = new DefaultHttp2Headers(false);
+        arrayHeaders = new CharSequenceArrayHeaders();
         int idx = 0;
         for (Map.Entry<String, String> header : headers.entrySet()) {
             String name = header.getKey();
@@ -93,6 +99,7 @@ public class HeadersBenchmark extends AbstractMicrobenchmark {
             httpValues[idx] = new AsciiString(value);
             httpHeaders.add(httpNames[idx], httpValues[idx]);
             http2Headers.add(http2Names[idx], httpValues[idx]);
+            arrayHeaders.add(httpNames[idx], httpValues[idx]);
             idx++;
         }
         slowHttp2Headers = new SlowHeaders(http2Headers);
@@ -100,6 +107,7 @@ public class HeadersBenchmark extends AbstractMicrobenchmark {
         emptyHttp2Headers = new DefaultHttp2Headers(true);
         emptyHttpHeadersNoValidate = new DefaultHttpHeaders(false);
         emptyHttp2HeadersNoValidate = new DefaultHttp2Headers(false);
+        emptyArrayHeaders = new CharSequenceArrayHeaders();
     }
 
     @Setup(Level.Invocation)
@@ -108,6 +116,7 @@ public class HeadersBenchmark extends AbstractMicrobenchmark {
         emptyHttp2Headers .clear();
         emptyHttpHeadersNoValidate.clear();
         emptyHttp2HeadersNoValidate.clear();
+        emptyArrayHeaders.clear();
     }
 
     @Benchmark
@@ -209,6 +218,58 @@ public class HeadersBenchmark extends AbstractMicrobenchmark {
         bh.consume(emptyHttp2Headers.add(slowHttp2Headers));
     }
 
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public void arrayRemove(Blackhole bh) {
+        for (AsciiString name : httpNames) {
+            bh.consume(arrayHeaders.remove(name));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public void arrayGet(Blackhole bh) {
+        for (AsciiString name : httpNames) {
+            bh.consume(arrayHeaders.get(name));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public CharSequenceArrayHeaders arrayPut() {
+        CharSequenceArrayHeaders headers = new CharSequenceArrayHeaders();
+        for (int i = 0; i < httpNames.length; i++) {
+            headers.add(httpNames[i], httpValues[i]);
+        }
+        return headers;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public void arrayIterate(Blackhole bh) {
+        for (Entry<CharSequence, CharSequence> entry : arrayHeaders) {
+            bh.consume(entry);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public void arrayAddAllFastest(Blackhole bh) {
+        bh.consume(emptyArrayHeaders.add(arrayHeaders));
+    }
+
+    /**
+     * {@link ArrayHeaders} with the same name hashing and value conversion as {@link DefaultHttpHeaders} without
+     * validation, to compare both implementations.
+     */
+    static final class CharSequenceArrayHeaders
+            extends ArrayHeaders<CharSequence, CharSequence, CharSequenceArrayHeaders> {
+        @SuppressWarnings("unchecked")
+        CharSequenceArrayHeaders() {
+            super(AsciiString.CASE_INSENSITIVE_HASHER, CharSequenceValueConverter.INSTANCE, NameValidator.NOT_NULL);
+        }
+    }
+
     private static final class SlowHeaders implements Headers<CharSequence, CharSequence, SlowHeaders> {
         private final Headers<CharSequence, CharSequence, ? extends Headers> delegate;
         private SlowHeaders(Headers<CharSequence, CharSequence, ? extends Headers> delegate) {
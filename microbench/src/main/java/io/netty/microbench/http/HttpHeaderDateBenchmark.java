@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.http;
+
+import io.netty.handler.codec.http.HttpHeaderDate;
+import io.netty.handler.codec.http.HttpHeaderDateFormat;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.text.ParseException;
+import java.util.Date;
+
+/**
+ * Compares formatting and parsing the dates of HTTP headers with {@link HttpHeaderDateFormat} and
+ * {@link HttpHeaderDate}.
+ */
+@State(Scope.Benchmark)
+public class HttpHeaderDateBenchmark extends AbstractMicrobenchmark {
+
+    private static final String DATE = "Sun, 06 Nov 1994 08:49:37 GMT";
+
+    @Benchmark
+    public String formatNowWithDateFormat() {
+        return HttpHeaderDateFormat.get().format(new Date());
+    }
+
+    @Benchmark
+    public CharSequence formatNowCached() {
+        return HttpHeaderDate.now();
+    }
+
+    @Benchmark
+    public CharSequence format() {
+        return HttpHeaderDate.format(System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public long parseWithDateFormat() throws ParseException {
+        return HttpHeaderDateFormat.get().parse(DATE).getTime();
+    }
+
+    @Benchmark
+    public long parse() {
+        return HttpHeaderDate.parse(DATE);
+    }
+}
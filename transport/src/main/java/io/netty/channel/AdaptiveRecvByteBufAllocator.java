@@ -15,8 +15,7 @@
  */
 package io.netty.channel;
 
-import java.util.ArrayList;
-import java.util.List;
+import io.netty.util.internal.AdaptiveSizeTable;
 
 /**
  * The {@link RecvByteBufAllocator} that automatically increases and
@@ -37,54 +36,12 @@ public class AdaptiveRecvByteBufAllocator extends DefaultMaxMessagesRecvByteBufA
     private static final int INDEX_INCREMENT = 4;
     private static final int INDEX_DECREMENT = 1;
 
-    private static final int[] SIZE_TABLE;
-
-    static {
-        List<Integer> sizeTable = new ArrayList<Integer>();
-        for (int i = 16; i < 512; i += 16) {
-            sizeTable.add(i);
-        }
-
-        for (int i = 512; i > 0; i <<= 1) {
-            sizeTable.add(i);
-        }
-
-        SIZE_TABLE = new int[sizeTable.size()];
-        for (int i = 0; i < SIZE_TABLE.length; i ++) {
-            SIZE_TABLE[i] = sizeTable.get(i);
-        }
-    }
-
     /**
      * @deprecated There is state for {@link #maxMessagesPerRead()} which is typically based upon channel type.
      */
     @Deprecated
     public static final AdaptiveRecvByteBufAllocator DEFAULT = new AdaptiveRecvByteBufAllocator();
 
-    private static int getSizeTableIndex(final int size) {
-        for (int low = 0, high = SIZE_TABLE.length - 1;;) {
-            if (high < low) {
-                return low;
-            }
-            if (high == low) {
-                return high;
-            }
-
-            int mid = low + high >>> 1;
-            int a = SIZE_TABLE[mid];
-            int b = SIZE_TABLE[mid + 1];
-            if (size > b) {
-                low = mid + 1;
-            } else if (size < a) {
-                high = mid - 1;
-            } else if (size == a) {
-                return mid;
-            } else {
-                return mid + 1;
-            }
-        }
-    }
-
     private final class HandleImpl extends MaxMessageHandle {
         private final int minIndex;
         private final int maxIndex;
@@ -96,8 +53,8 @@ public class AdaptiveRecvByteBufAllocator extends DefaultMaxMessagesRecvByteBufA
             this.minIndex = minIndex;
             this.maxIndex = maxIndex;
 
-            index = getSizeTableIndex(initial);
-            nextReceiveBufferSize = SIZE_TABLE[index];
+            index = AdaptiveSizeTable.index(initial);
+            nextReceiveBufferSize = AdaptiveSizeTable.size(index);
         }
 
         @Override
@@ -106,17 +63,17 @@ public class AdaptiveRecvByteBufAllocator extends DefaultMaxMessagesRecvByteBufA
         }
 
         private void record(int actualReadBytes) {
-            if (actualReadBytes <= SIZE_TABLE[Math.max(0, index - INDEX_DECREMENT - 1)]) {
+            if (actualReadBytes <= AdaptiveSizeTable.size(Math.max(0, index - INDEX_DECREMENT - 1))) {
                 if (decreaseNow) {
                     index = Math.max(index - INDEX_DECREMENT, minIndex);
-                    nextReceiveBufferSize = SIZE_TABLE[index];
+                    nextReceiveBufferSize = AdaptiveSizeTable.size(index);
                     decreaseNow = false;
                 } else {
                     decreaseNow = true;
                 }
             } else if (actualReadBytes >= nextReceiveBufferSize) {
                 index = Math.min(index + INDEX_INCREMENT, maxIndex);
-                nextReceiveBufferSize = SIZE_TABLE[index];
+                nextReceiveBufferSize = AdaptiveSizeTable.size(index);
                 decreaseNow = false;
             }
         }
@@ -158,15 +115,15 @@ public class AdaptiveRecvByteBufAllocator extends DefaultMaxMessagesRecvByteBufA
             throw new IllegalArgumentException("maximum: " + maximum);
         }
 
-        int minIndex = getSizeTableIndex(minimum);
-        if (SIZE_TABLE[minIndex] < minimum) {
+        int minIndex = AdaptiveSizeTable.index(minimum);
+        if (AdaptiveSizeTable.size(minIndex) < minimum) {
             this.minIndex = minIndex + 1;
         } else {
             this.minIndex = minIndex;
         }
 
-        int maxIndex = getSizeTableIndex(maximum);
-        if (SIZE_TABLE[maxIndex] > maximum) {
+        int maxIndex = AdaptiveSizeTable.index(maximum);
+        if (AdaptiveSizeTable.size(maxIndex) > maximum) {
             this.maxIndex = maxIndex - 1;
         } else {
             this.maxIndex = maxIndex;
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.group;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.util.concurrent.BlockingOperationException;
+import io.netty.util.concurrent.DefaultPromise;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GenericFutureListener;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link ChannelGroupFuture} which is returned by {@link DefaultChannelGroup#broadcast(Object, ChannelMatcher)}.
+ *
+ * In contrast to {@link DefaultChannelGroupFuture} it does not keep a reference to every {@link ChannelFuture} but
+ * only counts the completed writes and remembers the failed ones. Because of this {@link #find(Channel)} and
+ * {@link #iterator()} only return the {@link ChannelFuture}s of the failed writes.
+ */
+final class BroadcastChannelGroupFuture extends DefaultPromise<Void>
+        implements ChannelGroupFuture, ChannelFutureListener {
+
+    private final ChannelGroup group;
+    private final int expectedCount;
+    private int successCount;
+    private int failureCount;
+    // Lazy created as failures are expected to be rare.
+    private List<ChannelFuture> failed;
+
+    BroadcastChannelGroupFuture(ChannelGroup group, int expectedCount, EventExecutor executor) {
+        super(executor);
+        this.group = group;
+        this.expectedCount = expectedCount;
+
+        // Done on arrival?
+        if (expectedCount == 0) {
+            super.setSuccess(null);
+        }
+    }
+
+    @Override
+    public void operationComplete(ChannelFuture future) throws Exception {
+        boolean success = future.isSuccess();
+        List<ChannelFuture> failed;
+        synchronized (this) {
+            if (success) {
+                successCount ++;
+            } else {
+                failureCount ++;
+                if (this.failed == null) {
+                    this.failed = new ArrayList<ChannelFuture>(4);
+                }
+                this.failed.add(future);
+            }
+
+            assert successCount + failureCount <= expectedCount;
+            if (successCount + failureCount != expectedCount) {
+                return;
+            }
+            failed = this.failed;
+        }
+
+        if (failed == null) {
+            super.setSuccess(null);
+        } else {
+            List<Map.Entry<Channel, Throwable>> entries = new ArrayList<Map.Entry<Channel, Throwable>>(failed.size());
+            for (ChannelFuture f: failed) {
+                entries.add(new AbstractMap.SimpleImmutableEntry<Channel, Throwable>(f.channel(), f.cause()));
+            }
+            super.setFailure(new ChannelGroupException(entries));
+        }
+    }
+
+    @Override
+    public ChannelGroup group() {
+        return group;
+    }
+
+    /**
+     * Returns the {@link ChannelFuture} of the write to the given {@link Channel} if it failed, {@code null}
+     * otherwise.
+     */
+    @Override
+    public synchronized ChannelFuture find(Channel channel) {
+        if (failed != null) {
+            for (ChannelFuture f: failed) {
+                if (f.channel() == channel) {
+                    return f;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns an {@link Iterator} over the {@link ChannelFuture}s of the failed writes.
+     */
+    @Override
+    public synchronized Iterator<ChannelFuture> iterator() {
+        if (failed == null) {
+            return Collections.<ChannelFuture>emptyList().iterator();
+        }
+        return Collections.unmodifiableList(new ArrayList<ChannelFuture>(failed)).iterator();
+    }
+
+    @Override
+    public synchronized boolean isPartialSuccess() {
+        return successCount != 0 && successCount != expectedCount;
+    }
+
+    @Override
+    public synchronized boolean isPartialFailure() {
+        return failureCount != 0 && failureCount != expectedCount;
+    }
+
+    @Override
+    public BroadcastChannelGroupFuture addListener(GenericFutureListener<? extends Future<? super Void>> listener) {
+        super.addListener(listener);
+        return this;
+    }
+
+    @Override
+    public BroadcastChannelGroupFuture addListeners(
+            GenericFutureListener<? extends Future<? super Void>>... listeners) {
+        super.addListeners(listeners);
+        return this;
+    }
+
+    @Override
+    public BroadcastChannelGroupFuture removeListener(
+            GenericFutureListener<? extends Future<? super Void>> listener) {
+        super.removeListener(listener);
+        return this;
+    }
+
+    @Override
+    public BroadcastChannelGroupFuture removeListeners(
+            GenericFutureListener<? extends Future<? super Void>>... listeners) {
+        super.removeListeners(listeners);
+        return this;
+    }
+
+    @Override
+    public BroadcastChannelGroupFuture await() throws InterruptedException {
+        super.await();
+        return this;
+    }
+
+    @Override
+    public BroadcastChannelGroupFuture awaitUninterruptibly() {
+        super.awaitUninterruptibly();
+        return this;
+    }
+
+    @Override
+    public BroadcastChannelGroupFuture syncUninterruptibly() {
+        super.syncUninterruptibly();
+        return this;
+    }
+
+    @Override
+    public BroadcastChannelGroupFuture sync() throws InterruptedException {
+        super.sync();
+        return this;
+    }
+
+    @Override
+    public ChannelGroupException cause() {
+        return (ChannelGroupException) super.cause();
+    }
+
+    @Override
+    public BroadcastChannelGroupFuture setSuccess(Void result) {
+        throw new IllegalStateException();
+    }
+
+    @Override
+    public boolean trySuccess(Void result) {
+        throw new IllegalStateException();
+    }
+
+    @Override
+    public BroadcastChannelGroupFuture setFailure(Throwable cause) {
+        throw new IllegalStateException();
+    }
+
+    @Override
+    public boolean tryFailure(Throwable cause) {
+        throw new IllegalStateException();
+    }
+
+    @Override
+    protected void checkDeadLock() {
+        EventExecutor e = executor();
+        if (e != null && e != ImmediateEventExecutor.INSTANCE && e.inEventLoop()) {
+            throw new BlockingOperationException();
+        }
+    }
+}
@@ -21,6 +21,7 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelId;
+import io.netty.channel.EventLoop;
 import io.netty.channel.ServerChannel;
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.concurrent.EventExecutor;
@@ -30,8 +31,10 @@ import io.netty.util.internal.StringUtil;
 import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -429,6 +432,149 @@ public class DefaultChannelGroup extends AbstractSet<Channel> implements Channel
         return future;
     }
 
+    /**
+     * Writes and flushes the given {@code message} to all {@link Channel}s of this group, the same way as
+     * {@link #writeAndFlush(Object)} does.
+     *
+     * @see #broadcast(Object, ChannelMatcher, boolean)
+     */
+    public ChannelGroupFuture broadcast(Object message) {
+        return broadcast(message, ChannelMatchers.all());
+    }
+
+    /**
+     * Writes and flushes the given {@code message} to all {@link Channel}s of this group that are matched by the
+     * given {@link ChannelMatcher}, the same way as {@link #writeAndFlush(Object, ChannelMatcher)} does.
+     *
+     * @see #broadcast(Object, ChannelMatcher, boolean)
+     */
+    public ChannelGroupFuture broadcast(Object message, ChannelMatcher matcher) {
+        return broadcast(message, matcher, false);
+    }
+
+    /**
+     * Writes and flushes the given {@code message} to all {@link Channel}s of this group that are matched by the
+     * given {@link ChannelMatcher}. This is meant to be used for fan-out to a large number of {@link Channel}s:
+     *
+     * <ul>
+     *     <li>The {@link Channel}s are grouped by their {@link EventLoop} and only one task is submitted to each
+     *     {@link EventLoop}, which then writes to all of its {@link Channel}s.</li>
+     *     <li>If the {@code message} is a {@link ByteBuf} all {@link Channel}s share one read-only view of it. Every
+     *     {@link Channel} still holds one reference, which is released once its write completed, but the reference
+     *     count is incremented for all {@link Channel}s of an {@link EventLoop} by a single
+     *     {@link ReferenceCountUtil#retain(Object, int)} call instead of creating a retained duplicate for every
+     *     {@link Channel}.</li>
+     *     <li>The returned {@link ChannelGroupFuture} does not keep track of the {@link ChannelFuture} of every
+     *     write. {@link ChannelGroupFuture#find(Channel)} and {@link ChannelGroupFuture#iterator()} only return the
+     *     {@link ChannelFuture}s of the failed writes.</li>
+     * </ul>
+     *
+     * If {@code voidPromise} is {@code true} {@link Channel#voidPromise()} is used for the writes and the returned
+     * {@link ChannelGroupFuture} can not be used to check for completion.
+     */
+    public ChannelGroupFuture broadcast(Object message, ChannelMatcher matcher, boolean voidPromise) {
+        if (message == null) {
+            throw new NullPointerException("message");
+        }
+        if (matcher == null) {
+            throw new NullPointerException("matcher");
+        }
+
+        Map<EventLoop, List<Channel>> channelsByLoop = new IdentityHashMap<EventLoop, List<Channel>>();
+        int count = 0;
+        for (Channel c: nonServerChannels.values()) {
+            if (matcher.matches(c)) {
+                EventLoop loop = c.eventLoop();
+                List<Channel> channels = channelsByLoop.get(loop);
+                if (channels == null) {
+                    channels = new ArrayList<Channel>();
+                    channelsByLoop.put(loop, channels);
+                }
+                channels.add(c);
+                count ++;
+            }
+        }
+
+        final ChannelGroupFuture future;
+        final ChannelFutureListener listener;
+        if (voidPromise) {
+            future = voidFuture;
+            listener = null;
+        } else {
+            BroadcastChannelGroupFuture broadcastFuture = new BroadcastChannelGroupFuture(this, count, executor);
+            future = broadcastFuture;
+            listener = broadcastFuture;
+        }
+
+        if (count > 0) {
+            // Use a read-only view so a handler of one Channel can not change what is written to the others.
+            Object shared = message instanceof ByteBuf ? ((ByteBuf) message).asReadOnly() : message;
+            for (Map.Entry<EventLoop, List<Channel>> entry: channelsByLoop.entrySet()) {
+                EventLoop loop = entry.getKey();
+                List<Channel> channels = entry.getValue();
+                // One reference per Channel, added by a single call, as each Channel releases its duplicate.
+                ReferenceCountUtil.retain(message, channels.size());
+                BroadcastTask task = new BroadcastTask(shared, channels, listener);
+                if (loop.inEventLoop()) {
+                    task.run();
+                } else {
+                    try {
+                        loop.execute(task);
+                    } catch (Throwable cause) {
+                        task.fail(cause);
+                    }
+                }
+            }
+        }
+        ReferenceCountUtil.release(message);
+        return future;
+    }
+
+    // Create a duplicate of the message that shares the reference count with the original message, which was
+    // already retained for all Channels.
+    private static Object sharedDuplicate(Object message) {
+        if (message instanceof ByteBuf) {
+            return ((ByteBuf) message).duplicate();
+        } else if (message instanceof ByteBufHolder) {
+            return ((ByteBufHolder) message).duplicate();
+        } else {
+            return message;
+        }
+    }
+
+    private static final class BroadcastTask implements Runnable {
+        private final Object message;
+        private final List<Channel> channels;
+        private final ChannelFutureListener listener;
+
+        BroadcastTask(Object message, List<Channel> channels, ChannelFutureListener listener) {
+            this.message = message;
+            this.channels = channels;
+            this.listener = listener;
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < channels.size(); i++) {
+                Channel c = channels.get(i);
+                if (listener == null) {
+                    c.writeAndFlush(sharedDuplicate(message), c.voidPromise());
+                } else {
+                    c.writeAndFlush(sharedDuplicate(message)).addListener(listener);
+                }
+            }
+        }
+
+        void fail(Throwable cause) {
+            ReferenceCountUtil.safeRelease(message, channels.size());
+            if (listener != null) {
+                for (int i = 0; i < channels.size(); i++) {
+                    channels.get(i).newFailedFuture(cause).addListener(listener);
+                }
+            }
+        }
+    }
+
     @Override
     public ChannelGroupFuture newCloseFuture() {
         return newCloseFuture(ChannelMatchers.all());
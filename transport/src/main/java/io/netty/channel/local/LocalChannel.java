@@ -39,6 +39,7 @@ import java.nio.channels.ClosedChannelException;
 import java.nio.channels.ConnectionPendingException;
 import java.nio.channels.NotYetConnectedException;
 import java.util.Queue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
@@ -51,15 +52,17 @@ public class LocalChannel extends AbstractChannel {
     @SuppressWarnings({ "rawtypes" })
     private static final AtomicReferenceFieldUpdater<LocalChannel, Future> FINISH_READ_FUTURE_UPDATER;
     private static final ChannelMetadata METADATA = new ChannelMetadata(false);
+    private static final AtomicIntegerFieldUpdater<LocalChannel> READ_TASK_PENDING_UPDATER;
     private static final int MAX_READER_STACK_DEPTH = 8;
+    private static final int INBOUND_BUFFER_CHUNK_SIZE = 128;
     private static final ClosedChannelException DO_WRITE_CLOSED_CHANNEL_EXCEPTION = ThrowableUtil.unknownStackTrace(
             new ClosedChannelException(), LocalChannel.class, "doWrite(...)");
     private static final ClosedChannelException DO_CLOSE_CLOSED_CHANNEL_EXCEPTION = ThrowableUtil.unknownStackTrace(
             new ClosedChannelException(), LocalChannel.class, "doClose()");
 
     private final ChannelConfig config = new DefaultChannelConfig(this);
-    // To further optimize this we could write our own SPSC queue.
-    private final Queue<Object> inboundBuffer = PlatformDependent.newSpscQueue();
+    // Array based so writing a message to the peer does not need to allocate a node.
+    private final Queue<Object> inboundBuffer = PlatformDependent.newChunkedSpscQueue(INBOUND_BUFFER_CHUNK_SIZE);
     private final Runnable readTask = new Runnable() {
         @Override
         public void run() {
@@ -74,6 +77,16 @@ public class LocalChannel extends AbstractChannel {
             pipeline.fireChannelReadComplete();
         }
     };
+    // Used by the peer to notify this Channel about new messages if it runs on another EventLoop. Only one of these
+    // is scheduled at a time, as it will read all messages that were written before it runs.
+    private final Runnable finishReadTask = new Runnable() {
+        @Override
+        public void run() {
+            // Reset before reading to not miss messages that are added after the inboundBuffer was drained.
+            readTaskPending = 0;
+            finishPeerRead0(LocalChannel.this);
+        }
+    };
     private final Runnable shutdownHook = new Runnable() {
         @Override
         public void run() {
@@ -90,6 +103,7 @@ public class LocalChannel extends AbstractChannel {
     private volatile boolean registerInProgress;
     private volatile boolean writeInProgress;
     private volatile Future<?> finishReadFuture;
+    private volatile int readTaskPending;
 
     static {
         @SuppressWarnings({ "rawtypes" })
@@ -100,6 +114,13 @@ public class LocalChannel extends AbstractChannel {
                 AtomicReferenceFieldUpdater.newUpdater(LocalChannel.class, Future.class, "finishReadFuture");
         }
         FINISH_READ_FUTURE_UPDATER = finishReadFutureUpdater;
+
+        AtomicIntegerFieldUpdater<LocalChannel> readTaskPendingUpdater =
+                PlatformDependent.newAtomicIntegerFieldUpdater(LocalChannel.class, "readTaskPending");
+        if (readTaskPendingUpdater == null) {
+            readTaskPendingUpdater = AtomicIntegerFieldUpdater.newUpdater(LocalChannel.class, "readTaskPending");
+        }
+        READ_TASK_PENDING_UPDATER = readTaskPendingUpdater;
     }
 
     public LocalChannel() {
@@ -386,19 +407,26 @@ public class LocalChannel extends AbstractChannel {
     }
 
     private void runFinishPeerReadTask(final LocalChannel peer) {
-        // If the peer is writing, we must wait until after reads are completed for that peer before we can read. So
-        // we keep track of the task, and coordinate later that our read can't happen until the peer is done.
-        final Runnable finishPeerReadTask = new Runnable() {
-            @Override
-            public void run() {
-                finishPeerRead0(peer);
-            }
-        };
         try {
             if (peer.writeInProgress) {
-                peer.finishReadFuture = peer.eventLoop().submit(finishPeerReadTask);
-            } else {
-                peer.eventLoop().execute(finishPeerReadTask);
+                // If the peer is writing, we must wait until after reads are completed for that peer before we can
+                // read. So we keep track of the task, and coordinate later that our read can't happen until the peer
+                // is done.
+                peer.finishReadFuture = peer.eventLoop().submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        finishPeerRead0(peer);
+                    }
+                });
+            } else if (READ_TASK_PENDING_UPDATER.compareAndSet(peer, 0, 1)) {
+                // Only schedule the task if there is not one pending already. The pending task will also read the
+                // messages we just added to the inboundBuffer, so we save a task hop per write.
+                try {
+                    peer.eventLoop().execute(peer.finishReadTask);
+                } catch (RuntimeException e) {
+                    peer.readTaskPending = 0;
+                    throw e;
+                }
             }
         } catch (RuntimeException e) {
             peer.releaseInboundBuffers();
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.pool;
+
+import io.netty.channel.Channel;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expose metrics for a {@link ChannelPool}.
+ */
+public interface ChannelPoolMetric {
+
+    /**
+     * Return the number of successful acquire operations.
+     */
+    long acquireCount();
+
+    /**
+     * Return the number of acquire operations that were served by a {@link Channel} which was idle in the pool.
+     */
+    long hitCount();
+
+    /**
+     * Return the number of acquire operations that found no idle {@link Channel} in the pool and so needed to
+     * create a new one.
+     */
+    long missCount();
+
+    /**
+     * Return the number of {@link Channel}s that were created by the pool, including the ones that were created to
+     * keep the minimum number of idle {@link Channel}s.
+     */
+    long createCount();
+
+    /**
+     * Return the number of idle {@link Channel}s that were closed by the pool because they were idle for too long,
+     * exceeded their maximal lifetime or were not healthy anymore.
+     */
+    long evictionCount();
+
+    /**
+     * Return the accumulated time the successful acquire operations needed to complete.
+     */
+    long totalAcquireTime(TimeUnit unit);
+
+    /**
+     * Return the number of acquire operations that are not complete yet.
+     */
+    long pendingAcquireCount();
+
+    /**
+     * Return the number of {@link Channel}s that are acquired and not released yet.
+     */
+    long acquiredChannelCount();
+
+    /**
+     * Return the number of {@link Channel}s that are idle in the pool.
+     */
+    int idleChannelCount();
+}
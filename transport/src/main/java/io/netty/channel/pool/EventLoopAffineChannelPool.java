@@ -0,0 +1,208 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.pool;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.internal.PlatformDependent;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
+/**
+ * {@link ChannelPool} implementation which keeps a separate pool of {@link Channel}s for each {@link EventLoop} of
+ * the {@link Bootstrap}'s {@link EventLoopGroup}.
+ *
+ * If {@link #acquire()} is called from one of these {@link EventLoop}s a {@link Channel} that is registered to the
+ * same {@link EventLoop} is preferred, so the caller and the {@link Channel} do not need to hand over work between
+ * threads. Only if no such {@link Channel} is idle, an idle {@link Channel} of another {@link EventLoop} is used
+ * before a new {@link Channel} is created on the caller's {@link EventLoop}. If called from any other thread the
+ * {@link EventLoop}s are used in turn.
+ *
+ * Released {@link Channel}s are always returned to the pool of the {@link EventLoop} they are registered to. No limit
+ * on the maximal concurrent {@link Channel}s is enforced.
+ */
+public class EventLoopAffineChannelPool implements ChannelPool {
+    // Only set if the Channel was acquired via the pool of another EventLoop.
+    private static final AttributeKey<EventLoopChannelPool> ACQUIRED_FROM_KEY =
+            AttributeKey.newInstance("eventLoopAffineChannelPool");
+
+    private final EventLoopGroup group;
+    private final EventLoopChannelPool[] pools;
+    // Only modified in the constructor so no need to be thread-safe.
+    private final Map<EventLoop, EventLoopChannelPool> poolsByLoop =
+            new IdentityHashMap<EventLoop, EventLoopChannelPool>();
+
+    /**
+     * Creates a new instance using the {@link ChannelHealthChecker#ACTIVE}.
+     *
+     * @param bootstrap         the {@link Bootstrap} that is used for connections
+     * @param handler           the {@link ChannelPoolHandler} that will be notified for the different pool actions
+     */
+    public EventLoopAffineChannelPool(Bootstrap bootstrap, ChannelPoolHandler handler) {
+        this(bootstrap, handler, ChannelHealthChecker.ACTIVE);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param bootstrap         the {@link Bootstrap} that is used for connections
+     * @param handler           the {@link ChannelPoolHandler} that will be notified for the different pool actions
+     * @param healthCheck       the {@link ChannelHealthChecker} that will be used to check if a {@link Channel} is
+     *                          still healthy when obtain from the {@link ChannelPool}
+     */
+    public EventLoopAffineChannelPool(Bootstrap bootstrap, ChannelPoolHandler handler,
+                                      ChannelHealthChecker healthCheck) {
+        this(bootstrap, handler, healthCheck, true);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param bootstrap          the {@link Bootstrap} that is used for connections
+     * @param handler            the {@link ChannelPoolHandler} that will be notified for the different pool actions
+     * @param healthCheck        the {@link ChannelHealthChecker} that will be used to check if a {@link Channel} is
+     *                           still healthy when obtain from the {@link ChannelPool}
+     * @param releaseHealthCheck will check channel health before offering back if this parameter set to
+     *                           {@code true}.
+     */
+    public EventLoopAffineChannelPool(Bootstrap bootstrap, ChannelPoolHandler handler,
+                                      ChannelHealthChecker healthCheck, boolean releaseHealthCheck) {
+        checkNotNull(bootstrap, "bootstrap");
+        checkNotNull(handler, "handler");
+        checkNotNull(healthCheck, "healthCheck");
+        group = checkNotNull(bootstrap.config().group(), "bootstrap.config().group()");
+
+        List<EventLoopChannelPool> pools = new ArrayList<EventLoopChannelPool>();
+        for (EventExecutor executor: group) {
+            if (!(executor instanceof EventLoop)) {
+                throw new IllegalArgumentException("group contains a non EventLoop: " + executor);
+            }
+            EventLoop loop = (EventLoop) executor;
+            EventLoopChannelPool pool = new EventLoopChannelPool(
+                    bootstrap.clone(loop), loop, pools.size(), handler, healthCheck, releaseHealthCheck);
+            pools.add(pool);
+            poolsByLoop.put(loop, pool);
+        }
+        if (pools.isEmpty()) {
+            throw new IllegalArgumentException("group does not contain any EventLoop: " + group);
+        }
+        this.pools = pools.toArray(new EventLoopChannelPool[pools.size()]);
+    }
+
+    @Override
+    public final Future<Channel> acquire() {
+        EventLoopChannelPool pool = pool();
+        return pool.acquire(pool.loop.<Channel>newPromise());
+    }
+
+    @Override
+    public Future<Channel> acquire(Promise<Channel> promise) {
+        return pool().acquire(checkNotNull(promise, "promise"));
+    }
+
+    @Override
+    public final Future<Void> release(Channel channel) {
+        return release(channel, checkNotNull(channel, "channel").eventLoop().<Void>newPromise());
+    }
+
+    @Override
+    public Future<Void> release(Channel channel, Promise<Void> promise) {
+        checkNotNull(channel, "channel");
+        checkNotNull(promise, "promise");
+        EventLoopChannelPool pool = channel.attr(ACQUIRED_FROM_KEY).getAndSet(null);
+        if (pool == null) {
+            pool = poolsByLoop.get(channel.eventLoop());
+            if (pool == null) {
+                channel.close();
+                promise.setFailure(new IllegalArgumentException(
+                        "Channel " + channel + " was not acquired from this ChannelPool"));
+                return promise;
+            }
+        }
+        return pool.release(channel, promise);
+    }
+
+    /**
+     * Returns the pool of the {@link EventLoop} the caller runs in or the pool of the next {@link EventLoop} if the
+     * caller does not run in any of them.
+     */
+    private EventLoopChannelPool pool() {
+        for (EventLoopChannelPool pool: pools) {
+            if (pool.loop.inEventLoop()) {
+                return pool;
+            }
+        }
+        EventLoopChannelPool pool = poolsByLoop.get(group.next());
+        return pool != null ? pool : pools[0];
+    }
+
+    @Override
+    public void close() {
+        for (EventLoopChannelPool pool: pools) {
+            pool.close();
+        }
+    }
+
+    private final class EventLoopChannelPool extends SimpleChannelPool {
+        private final Deque<Channel> deque = PlatformDependent.newConcurrentDeque();
+        private final EventLoop loop;
+        private final int index;
+
+        EventLoopChannelPool(Bootstrap bootstrap, EventLoop loop, int index, ChannelPoolHandler handler,
+                             ChannelHealthChecker healthCheck, boolean releaseHealthCheck) {
+            super(bootstrap, handler, healthCheck, releaseHealthCheck);
+            this.loop = loop;
+            this.index = index;
+        }
+
+        @Override
+        protected Channel pollChannel() {
+            Channel ch = deque.pollLast();
+            if (ch != null) {
+                return ch;
+            }
+            // Nothing left for this EventLoop, try to steal an idle Channel from the other EventLoops before
+            // a new Channel is created.
+            for (int i = 1; i < pools.length; i++) {
+                ch = pools[(index + i) % pools.length].deque.pollLast();
+                if (ch != null) {
+                    // Remember the pool so the Channel will be released to the pool that acquired it.
+                    ch.attr(ACQUIRED_FROM_KEY).set(this);
+                    return ch;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        protected boolean offerChannel(Channel channel) {
+            EventLoopChannelPool pool = poolsByLoop.get(channel.eventLoop());
+            return (pool != null ? pool : this).deque.offer(channel);
+        }
+    }
+}
@@ -30,6 +30,8 @@ import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
 /**
  * {@link ChannelPool} implementation that takes another {@link ChannelPool} implementation and enforce a maximum
  * number of concurrent connections.
@@ -145,7 +147,45 @@ public final class FixedChannelPool extends SimpleChannelPool {
                             ChannelHealthChecker healthCheck, AcquireTimeoutAction action,
                             final long acquireTimeoutMillis,
                             int maxConnections, int maxPendingAcquires, final boolean releaseHealthCheck) {
-        super(bootstrap, handler, healthCheck, releaseHealthCheck);
+        this(bootstrap, handler, healthCheck, action, acquireTimeoutMillis, maxConnections, maxPendingAcquires,
+             releaseHealthCheck, true, -1, -1, 0);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param bootstrap             the {@link Bootstrap} that is used for connections
+     * @param handler               the {@link ChannelPoolHandler} that will be notified for the different pool actions
+     * @param healthCheck           the {@link ChannelHealthChecker} that will be used to check if a {@link Channel} is
+     *                              still healty when obtain from the {@link ChannelPool}
+     * @param action                the {@link AcquireTimeoutAction} to use or {@code null} if non should be used.
+     *                              In this case {@param acquireTimeoutMillis} must be {@code -1}.
+     * @param acquireTimeoutMillis  the time (in milliseconds) after which an pending acquire must complete or
+     *                              the {@link AcquireTimeoutAction} takes place.
+     * @param maxConnections        the numnber of maximal active connections, once this is reached new tries to
+     *                              acquire a {@link Channel} will be delayed until a connection is returned to the
+     *                              pool again.
+     * @param maxPendingAcquires    the maximum number of pending acquires. Once this is exceed acquire tries will
+     *                              be failed.
+     * @param releaseHealthCheck    will check channel health before offering back if this parameter set to
+     *                              {@code true}.
+     * @param lastRecentUsed        {@code true} if {@link Channel} selection will be LIFO, if {@code false} FIFO.
+     * @param maxIdleTimeMillis     the time (in milliseconds) after which an idle {@link Channel} is closed or
+     *                              {@code -1} if idle {@link Channel}s should never be closed.
+     * @param maxLifetimeMillis     the time (in milliseconds) after its creation at which a {@link Channel} is closed
+     *                              instead of being reused or {@code -1} if there is no limit.
+     * @param minIdle               the minimum number of idle {@link Channel}s the pool tries to keep by creating
+     *                              new {@link Channel}s in the background. Idle {@link Channel}s do not count
+     *                              against {@code maxConnections}.
+     */
+    public FixedChannelPool(Bootstrap bootstrap,
+                            ChannelPoolHandler handler,
+                            ChannelHealthChecker healthCheck, AcquireTimeoutAction action,
+                            final long acquireTimeoutMillis,
+                            int maxConnections, int maxPendingAcquires, boolean releaseHealthCheck,
+                            boolean lastRecentUsed, long maxIdleTimeMillis, long maxLifetimeMillis, int minIdle) {
+        super(bootstrap, handler, healthCheck, releaseHealthCheck, lastRecentUsed,
+              maxIdleTimeMillis, maxLifetimeMillis, minIdle);
         if (maxConnections < 1) {
             throw new IllegalArgumentException("maxConnections: " + maxConnections + " (expected: >= 1)");
         }
@@ -179,7 +219,7 @@ public final class FixedChannelPool extends SimpleChannelPool {
                         // create a new connetion.
                         task.acquired();
 
-                        FixedChannelPool.super.acquire(task.promise);
+                        acquireHealthyFromPoolOrNew(task.promise);
                     }
                 };
                 break;
@@ -193,20 +233,21 @@ public final class FixedChannelPool extends SimpleChannelPool {
     }
 
     @Override
-    public Future<Channel> acquire(final Promise<Channel> promise) {
+    public Future<Channel> acquire(Promise<Channel> promise) {
+        final Promise<Channel> p = trackAcquire(checkNotNull(promise, "promise"));
         try {
             if (executor.inEventLoop()) {
-                acquire0(promise);
+                acquire0(p);
             } else {
                 executor.execute(new Runnable() {
                     @Override
                     public void run() {
-                        acquire0(promise);
+                        acquire0(p);
                     }
                 });
             }
         } catch (Throwable cause) {
-            promise.setFailure(cause);
+            p.setFailure(cause);
         }
         return promise;
     }
@@ -227,7 +268,7 @@ public final class FixedChannelPool extends SimpleChannelPool {
             AcquireListener l = new AcquireListener(promise);
             l.acquired();
             p.addListener(l);
-            super.acquire(p);
+            acquireHealthyFromPoolOrNew(p);
         } else {
             if (pendingAcquireCount >= maxPendingAcquires) {
                 promise.setFailure(FULL_EXCEPTION);
@@ -307,7 +348,7 @@ public final class FixedChannelPool extends SimpleChannelPool {
             --pendingAcquireCount;
             task.acquired();
 
-            super.acquire(task.promise);
+            acquireHealthyFromPoolOrNew(task.promise);
         }
 
         // We should never have a negative value.
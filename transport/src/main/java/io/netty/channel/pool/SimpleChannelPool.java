@@ -22,13 +22,21 @@ import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.EventLoop;
 import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.ImmediateEventExecutor;
 import io.netty.util.concurrent.Promise;
+import io.netty.util.internal.LongCounter;
 import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.StringUtil;
 import io.netty.util.internal.ThrowableUtil;
 
 import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static io.netty.util.internal.ObjectUtil.*;
 
@@ -36,11 +44,21 @@ import static io.netty.util.internal.ObjectUtil.*;
  * Simple {@link ChannelPool} implementation which will create new {@link Channel}s if someone tries to acquire
  * a {@link Channel} but none is in the pool atm. No limit on the maximal concurrent {@link Channel}s is enforced.
  *
- * This implementation uses LIFO order for {@link Channel}s in the {@link ChannelPool}.
+ * This implementation uses LIFO order for {@link Channel}s in the {@link ChannelPool} by default, FIFO order
+ * can be used by setting {@code lastRecentUsed} to {@code false}.
  *
+ * Idle {@link Channel}s can be closed once they were idle for too long or exceeded their maximal lifetime. This is
+ * done by a task that runs periodically on an {@link EventLoop} of the {@link Bootstrap}'s group, which will also
+ * create new {@link Channel}s if less than the configured minimum are idle in the pool. Be aware that this only
+ * works on the internal storage and so is not supported if {@link #pollChannel()} and
+ * {@link #offerChannel(Channel)} are overridden.
  */
 public class SimpleChannelPool implements ChannelPool {
     private static final AttributeKey<SimpleChannelPool> POOL_KEY = AttributeKey.newInstance("channelPool");
+    private static final AttributeKey<Long> CREATION_TIME_KEY = AttributeKey.newInstance("channelPoolCreationTime");
+    private static final AttributeKey<Long> IDLE_TIME_KEY = AttributeKey.newInstance("channelPoolIdleTime");
+    // Interval used to check the minimum number of idle channels if no idle time or maximal lifetime is used.
+    private static final long MIN_IDLE_CHECK_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
     private static final IllegalStateException FULL_EXCEPTION = ThrowableUtil.unknownStackTrace(
             new IllegalStateException("ChannelPool full"), SimpleChannelPool.class, "releaseAndOffer(...)");
     private static final IllegalStateException UNHEALTHY_NON_OFFERED_TO_POOL = ThrowableUtil.unknownStackTrace(
@@ -52,6 +70,24 @@ public class SimpleChannelPool implements ChannelPool {
     private final ChannelHealthChecker healthCheck;
     private final Bootstrap bootstrap;
     private final boolean releaseHealthCheck;
+    private final boolean lastRecentUsed;
+    private final long maxIdleTimeNanos;
+    private final long maxLifetimeNanos;
+    private final int minIdle;
+    private final ScheduledFuture<?> evictionFuture;
+    private final AtomicInteger pendingPrewarmCount = new AtomicInteger();
+    private volatile boolean closed;
+
+    // We need to use the LongCounter here as these are updated from different EventLoops.
+    private final LongCounter acquireCount = PlatformDependent.newLongCounter();
+    private final LongCounter hitCount = PlatformDependent.newLongCounter();
+    private final LongCounter missCount = PlatformDependent.newLongCounter();
+    private final LongCounter createCount = PlatformDependent.newLongCounter();
+    private final LongCounter evictionCount = PlatformDependent.newLongCounter();
+    private final LongCounter acquireTimeNanos = PlatformDependent.newLongCounter();
+    private final LongCounter pendingAcquireCount = PlatformDependent.newLongCounter();
+    private final LongCounter acquiredChannelCount = PlatformDependent.newLongCounter();
+    private final ChannelPoolMetric metric = new PoolMetric();
 
     /**
      * Creates a new instance using the {@link ChannelHealthChecker#ACTIVE}.
@@ -87,18 +123,112 @@ public class SimpleChannelPool implements ChannelPool {
      */
     public SimpleChannelPool(Bootstrap bootstrap, final ChannelPoolHandler handler, ChannelHealthChecker healthCheck,
                              boolean releaseHealthCheck) {
+        this(bootstrap, handler, healthCheck, releaseHealthCheck, true);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param bootstrap          the {@link Bootstrap} that is used for connections
+     * @param handler            the {@link ChannelPoolHandler} that will be notified for the different pool actions
+     * @param healthCheck        the {@link ChannelHealthChecker} that will be used to check if a {@link Channel} is
+     *                           still healthy when obtain from the {@link ChannelPool}
+     * @param releaseHealthCheck will offercheck channel health before offering back if this parameter set to
+     *                           {@code true}.
+     * @param lastRecentUsed     {@code true} if {@link Channel} selection will be LIFO, if {@code false} FIFO.
+     */
+    public SimpleChannelPool(Bootstrap bootstrap, final ChannelPoolHandler handler, ChannelHealthChecker healthCheck,
+                             boolean releaseHealthCheck, boolean lastRecentUsed) {
+        this(bootstrap, handler, healthCheck, releaseHealthCheck, lastRecentUsed, -1, -1, 0);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param bootstrap          the {@link Bootstrap} that is used for connections
+     * @param handler            the {@link ChannelPoolHandler} that will be notified for the different pool actions
+     * @param healthCheck        the {@link ChannelHealthChecker} that will be used to check if a {@link Channel} is
+     *                           still healthy when obtain from the {@link ChannelPool}
+     * @param releaseHealthCheck will offercheck channel health before offering back if this parameter set to
+     *                           {@code true}.
+     * @param lastRecentUsed     {@code true} if {@link Channel} selection will be LIFO, if {@code false} FIFO.
+     * @param maxIdleTimeMillis  the time (in milliseconds) after which an idle {@link Channel} is closed or
+     *                           {@code -1} if idle {@link Channel}s should never be closed.
+     * @param maxLifetimeMillis  the time (in milliseconds) after its creation at which a {@link Channel} is closed
+     *                           instead of being reused or {@code -1} if there is no limit.
+     * @param minIdle            the minimum number of idle {@link Channel}s the pool tries to keep by creating new
+     *                           {@link Channel}s in the background.
+     */
+    public SimpleChannelPool(Bootstrap bootstrap, final ChannelPoolHandler handler, ChannelHealthChecker healthCheck,
+                             boolean releaseHealthCheck, boolean lastRecentUsed,
+                             long maxIdleTimeMillis, long maxLifetimeMillis, int minIdle) {
+        if (maxIdleTimeMillis == 0 || maxIdleTimeMillis < -1) {
+            throw new IllegalArgumentException(
+                    "maxIdleTimeMillis: " + maxIdleTimeMillis + " (expected: -1 or >= 1)");
+        }
+        if (maxLifetimeMillis == 0 || maxLifetimeMillis < -1) {
+            throw new IllegalArgumentException(
+                    "maxLifetimeMillis: " + maxLifetimeMillis + " (expected: -1 or >= 1)");
+        }
+        if (minIdle < 0) {
+            throw new IllegalArgumentException("minIdle: " + minIdle + " (expected: >= 0)");
+        }
         this.handler = checkNotNull(handler, "handler");
         this.healthCheck = checkNotNull(healthCheck, "healthCheck");
         this.releaseHealthCheck = releaseHealthCheck;
+        this.lastRecentUsed = lastRecentUsed;
+        maxIdleTimeNanos = maxIdleTimeMillis == -1 ? -1 : TimeUnit.MILLISECONDS.toNanos(maxIdleTimeMillis);
+        maxLifetimeNanos = maxLifetimeMillis == -1 ? -1 : TimeUnit.MILLISECONDS.toNanos(maxLifetimeMillis);
+        this.minIdle = minIdle;
         // Clone the original Bootstrap as we want to set our own handler
         this.bootstrap = checkNotNull(bootstrap, "bootstrap").clone();
         this.bootstrap.handler(new ChannelInitializer<Channel>() {
             @Override
             protected void initChannel(Channel ch) throws Exception {
                 assert ch.eventLoop().inEventLoop();
+                if (maxLifetimeNanos != -1) {
+                    ch.attr(CREATION_TIME_KEY).set(System.nanoTime());
+                }
                 handler.channelCreated(ch);
             }
         });
+
+        long evictionIntervalNanos = evictionIntervalNanos(maxIdleTimeNanos, maxLifetimeNanos, minIdle);
+        if (evictionIntervalNanos == -1) {
+            evictionFuture = null;
+        } else {
+            // Start directly so the minimum number of idle channels is created as soon as possible.
+            EventExecutor executor = this.bootstrap.config().group().next();
+            evictionFuture = executor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    evictAndPrewarm();
+                }
+            }, 0, evictionIntervalNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static long evictionIntervalNanos(long maxIdleTimeNanos, long maxLifetimeNanos, int minIdle) {
+        long interval;
+        if (maxIdleTimeNanos == -1) {
+            interval = maxLifetimeNanos;
+        } else if (maxLifetimeNanos == -1) {
+            interval = maxIdleTimeNanos;
+        } else {
+            interval = Math.min(maxIdleTimeNanos, maxLifetimeNanos);
+        }
+        if (interval == -1) {
+            return minIdle > 0 ? MIN_IDLE_CHECK_INTERVAL_NANOS : -1;
+        }
+        // Check twice per interval so a Channel is closed at most half an interval too late.
+        return Math.max(1, interval / 2);
+    }
+
+    /**
+     * Returns the {@link ChannelPoolMetric} of this pool.
+     */
+    public ChannelPoolMetric metric() {
+        return metric;
     }
 
     @Override
@@ -109,7 +239,38 @@ public class SimpleChannelPool implements ChannelPool {
     @Override
     public Future<Channel> acquire(final Promise<Channel> promise) {
         checkNotNull(promise, "promise");
-        return acquireHealthyFromPoolOrNew(promise);
+        acquireHealthyFromPoolOrNew(trackAcquire(promise));
+        return promise;
+    }
+
+    /**
+     * Returns a new {@link Promise} that updates the {@link ChannelPoolMetric} before it notifies the given acquire
+     * {@link Promise}, so the metric is up to date once the acquire operation completes.
+     */
+    final Promise<Channel> trackAcquire(final Promise<Channel> promise) {
+        pendingAcquireCount.increment();
+        final long startTime = System.nanoTime();
+        return ImmediateEventExecutor.INSTANCE.<Channel>newPromise().addListener(new FutureListener<Channel>() {
+            @Override
+            public void operationComplete(Future<Channel> future) throws Exception {
+                pendingAcquireCount.decrement();
+                if (future.isSuccess()) {
+                    long acquireTime = System.nanoTime() - startTime;
+                    acquireCount.increment();
+                    acquiredChannelCount.increment();
+                    acquireTimeNanos.add(acquireTime);
+                    if (!promise.trySuccess(future.getNow())) {
+                        // The caller cancelled the acquire, so nobody will release the Channel. Undo the metric
+                        // and return it to the pool, which also decrements the acquired channel count again.
+                        acquireCount.decrement();
+                        acquireTimeNanos.add(-acquireTime);
+                        release(future.getNow());
+                    }
+                } else {
+                    promise.tryFailure(future.cause());
+                }
+            }
+        });
     }
 
     /**
@@ -117,10 +278,11 @@ public class SimpleChannelPool implements ChannelPool {
      * @param promise the promise to provide acquire result.
      * @return future for acquiring a channel.
      */
-    private Future<Channel> acquireHealthyFromPoolOrNew(final Promise<Channel> promise) {
+    final Future<Channel> acquireHealthyFromPoolOrNew(final Promise<Channel> promise) {
         try {
-            final Channel ch = pollChannel();
+            final Channel ch = pollNonExpiredChannel();
             if (ch == null) {
+                missCount.increment();
                 // No Channel left in the pool bootstrap a new Channel
                 Bootstrap bs = bootstrap.clone();
                 bs.attr(POOL_KEY, this);
@@ -154,8 +316,37 @@ public class SimpleChannelPool implements ChannelPool {
         return promise;
     }
 
-    private static void notifyConnect(ChannelFuture future, Promise<Channel> promise) {
+    private Channel pollNonExpiredChannel() {
+        for (;;) {
+            Channel ch = pollChannel();
+            if (ch == null || !isExpired(ch, System.nanoTime())) {
+                return ch;
+            }
+            evictionCount.increment();
+            closeChannel(ch);
+        }
+    }
+
+    private boolean isExpired(Channel ch, long nanoTime) {
+        if (maxLifetimeNanos == -1) {
+            return false;
+        }
+        Long creationTime = ch.attr(CREATION_TIME_KEY).get();
+        // Compare nanoTime as descripted in the javadocs of System.nanoTime()
+        return creationTime != null && nanoTime - creationTime - maxLifetimeNanos >= 0;
+    }
+
+    private boolean isIdleTooLong(Channel ch, long nanoTime) {
+        if (maxIdleTimeNanos == -1) {
+            return false;
+        }
+        Long idleTime = ch.attr(IDLE_TIME_KEY).get();
+        return idleTime != null && nanoTime - idleTime - maxIdleTimeNanos >= 0;
+    }
+
+    private void notifyConnect(ChannelFuture future, Promise<Channel> promise) {
         if (future.isSuccess()) {
+            createCount.increment();
             promise.setSuccess(future.channel());
         } else {
             promise.setFailure(future.cause());
@@ -186,15 +377,18 @@ public class SimpleChannelPool implements ChannelPool {
                 try {
                     ch.attr(POOL_KEY).set(this);
                     handler.channelAcquired(ch);
+                    hitCount.increment();
                     promise.setSuccess(ch);
                 } catch (Throwable cause) {
                     closeAndFail(ch, cause, promise);
                 }
             } else {
+                evictionCount.increment();
                 closeChannel(ch);
                 acquireHealthyFromPoolOrNew(promise);
             }
         } else {
+            evictionCount.increment();
             closeChannel(ch);
             acquireHealthyFromPoolOrNew(promise);
         }
@@ -247,6 +441,7 @@ public class SimpleChannelPool implements ChannelPool {
                                  "Channel " + channel + " was not acquired from this ChannelPool"),
                          promise);
         } else {
+            acquiredChannelCount.decrement();
             try {
                 if (releaseHealthCheck) {
                     doHealthCheckOnRelease(channel, promise);
@@ -291,6 +486,17 @@ public class SimpleChannelPool implements ChannelPool {
     }
 
     private void releaseAndOffer(Channel channel, Promise<Void> promise) throws Exception {
+        if (isExpired(channel, System.nanoTime())) {
+            // The channel was used for long enough, close it instead of offering it back.
+            handler.channelReleased(channel);
+            evictionCount.increment();
+            closeChannel(channel);
+            promise.setSuccess(null);
+            return;
+        }
+        if (maxIdleTimeNanos != -1) {
+            channel.attr(IDLE_TIME_KEY).set(System.nanoTime());
+        }
         if (offerChannel(channel)) {
             handler.channelReleased(channel);
             promise.setSuccess(null);
@@ -317,7 +523,7 @@ public class SimpleChannelPool implements ChannelPool {
      * implementations of these methods needs to be thread-safe!
      */
     protected Channel pollChannel() {
-        return deque.pollLast();
+        return lastRecentUsed ? deque.pollLast() : deque.pollFirst();
     }
 
     /**
@@ -331,8 +537,62 @@ public class SimpleChannelPool implements ChannelPool {
         return deque.offer(channel);
     }
 
+    private void evictAndPrewarm() {
+        if (closed) {
+            return;
+        }
+        long nanoTime = System.nanoTime();
+        int idle = 0;
+        for (Iterator<Channel> i = deque.iterator(); i.hasNext();) {
+            Channel ch = i.next();
+            if (!ch.isActive() || isIdleTooLong(ch, nanoTime) || isExpired(ch, nanoTime)) {
+                // Only close the Channel if it was not acquired in the meantime.
+                if (deque.remove(ch)) {
+                    evictionCount.increment();
+                    closeChannel(ch);
+                }
+            } else {
+                idle++;
+            }
+        }
+
+        for (int missing = minIdle - idle - pendingPrewarmCount.get(); missing > 0; missing--) {
+            prewarmChannel();
+        }
+    }
+
+    private void prewarmChannel() {
+        pendingPrewarmCount.incrementAndGet();
+        try {
+            ChannelFuture f = connectChannel(bootstrap.clone());
+            f.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) throws Exception {
+                    pendingPrewarmCount.decrementAndGet();
+                    if (!future.isSuccess()) {
+                        return;
+                    }
+                    createCount.increment();
+                    Channel ch = future.channel();
+                    if (maxIdleTimeNanos != -1) {
+                        ch.attr(IDLE_TIME_KEY).set(System.nanoTime());
+                    }
+                    if (closed || !offerChannel(ch)) {
+                        closeChannel(ch);
+                    }
+                }
+            });
+        } catch (Throwable cause) {
+            pendingPrewarmCount.decrementAndGet();
+        }
+    }
+
     @Override
     public void close() {
+        closed = true;
+        if (evictionFuture != null) {
+            evictionFuture.cancel(false);
+        }
         for (;;) {
             Channel channel = pollChannel();
             if (channel == null) {
@@ -341,4 +601,64 @@ public class SimpleChannelPool implements ChannelPool {
             channel.close();
         }
     }
+
+    private final class PoolMetric implements ChannelPoolMetric {
+        @Override
+        public long acquireCount() {
+            return acquireCount.value();
+        }
+
+        @Override
+        public long hitCount() {
+            return hitCount.value();
+        }
+
+        @Override
+        public long missCount() {
+            return missCount.value();
+        }
+
+        @Override
+        public long createCount() {
+            return createCount.value();
+        }
+
+        @Override
+        public long evictionCount() {
+            return evictionCount.value();
+        }
+
+        @Override
+        public long totalAcquireTime(TimeUnit unit) {
+            return unit.convert(acquireTimeNanos.value(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public long pendingAcquireCount() {
+            return pendingAcquireCount.value();
+        }
+
+        @Override
+        public long acquiredChannelCount() {
+            return acquiredChannelCount.value();
+        }
+
+        @Override
+        public int idleChannelCount() {
+            return deque.size();
+        }
+
+        @Override
+        public String toString() {
+            return StringUtil.simpleClassName(this) +
+                    "(acquires: " + acquireCount() +
+                    ", hits: " + hitCount() +
+                    ", misses: " + missCount() +
+                    ", creates: " + createCount() +
+                    ", evictions: " + evictionCount() +
+                    ", pending: " + pendingAcquireCount() +
+                    ", acquired: " + acquiredChannelCount() +
+                    ", idle: " + idleChannelCount() + ')';
+        }
+    }
 }
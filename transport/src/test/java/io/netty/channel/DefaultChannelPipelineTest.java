@@ -899,6 +899,69 @@ public class DefaultChannelPipelineTest {
         pipeline.addBefore("test", null, newHandler());
     }
 
+    @Test
+    public void testHandlerMask() {
+        assertEquals(0, ChannelHandlerMask.mask(ChannelInboundHandlerAdapter.class));
+        assertEquals(0, ChannelHandlerMask.mask(ChannelOutboundHandlerAdapter.class));
+        assertEquals(0, ChannelHandlerMask.mask(ChannelDuplexHandler.class));
+
+        class ReadHandler extends ChannelInboundHandlerAdapter {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                ctx.fireChannelRead(msg);
+            }
+        }
+        assertEquals(ChannelHandlerMask.MASK_CHANNEL_READ, ChannelHandlerMask.mask(ReadHandler.class));
+
+        class ExceptionHandler extends ChannelOutboundHandlerAdapter {
+            @Override
+            public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                ctx.fireExceptionCaught(cause);
+            }
+        }
+        assertEquals(ChannelHandlerMask.MASK_EXCEPTION_CAUGHT, ChannelHandlerMask.mask(ExceptionHandler.class));
+    }
+
+    @Test
+    public void testSkipPassThroughHandlers() {
+        final Queue<String> events = new ArrayDeque<String>();
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new ChannelDuplexHandler(),
+                new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        events.add("read");
+                        ctx.fireChannelRead(msg);
+                    }
+                },
+                new ChannelOutboundHandlerAdapter() {
+                    @Override
+                    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                        events.add("write");
+                        ctx.write(msg, promise);
+                    }
+
+                    @Override
+                    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                        events.add("exceptionCaught");
+                    }
+                },
+                new ChannelInboundHandlerAdapter());
+
+        assertTrue(channel.writeInbound("msg"));
+        assertEquals("msg", channel.readInbound());
+        assertTrue(channel.writeOutbound("msg"));
+        assertEquals("msg", channel.readOutbound());
+        channel.pipeline().fireExceptionCaught(new Exception());
+        channel.checkException();
+
+        assertEquals("read", events.poll());
+        assertEquals("write", events.poll());
+        assertEquals("exceptionCaught", events.poll());
+        assertNull(events.poll());
+        assertFalse(channel.finish());
+    }
+
     private static final class TestTask implements Runnable {
 
         private final ChannelPipeline pipeline;
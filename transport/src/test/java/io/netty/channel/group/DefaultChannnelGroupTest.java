@@ -16,15 +16,30 @@
 package io.netty.channel.group;
 
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultChannelId;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.CharsetUtil;
+import io.netty.util.ReferenceCountUtil;
 import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.concurrent.ImmediateEventExecutor;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
 public class DefaultChannnelGroupTest {
 
     // Test for #1183
@@ -57,4 +72,78 @@ public class DefaultChannnelGroupTest {
         bossGroup.terminationFuture().sync();
         workerGroup.terminationFuture().sync();
     }
+
+    @Test
+    public void testBroadcast() {
+        DefaultChannelGroup group = new DefaultChannelGroup(ImmediateEventExecutor.INSTANCE);
+        EmbeddedChannel ch1 = new EmbeddedChannel(DefaultChannelId.newInstance());
+        EmbeddedChannel ch2 = new EmbeddedChannel(DefaultChannelId.newInstance());
+        group.add(ch1);
+        group.add(ch2);
+
+        ByteBuf buf = Unpooled.copiedBuffer("broadcast", CharsetUtil.US_ASCII);
+        ChannelGroupFuture future = group.broadcast(buf);
+        assertTrue(future.isSuccess());
+        assertFalse(future.iterator().hasNext());
+        assertEquals(2, buf.refCnt());
+
+        ByteBuf written1 = ch1.readOutbound();
+        ByteBuf written2 = ch2.readOutbound();
+        assertTrue(written1.isReadOnly());
+        assertEquals("broadcast", written1.toString(CharsetUtil.US_ASCII));
+        assertEquals("broadcast", written2.toString(CharsetUtil.US_ASCII));
+        assertEquals(9, written2.readableBytes());
+        written1.release();
+        written2.release();
+        assertEquals(0, buf.refCnt());
+        assertFalse(ch1.finish());
+        assertFalse(ch2.finish());
+    }
+
+    @Test
+    public void testBroadcastPartialFailure() {
+        final Exception cause = new Exception();
+        DefaultChannelGroup group = new DefaultChannelGroup(ImmediateEventExecutor.INSTANCE);
+        EmbeddedChannel ch1 = new EmbeddedChannel(DefaultChannelId.newInstance());
+        EmbeddedChannel ch2 = new EmbeddedChannel(DefaultChannelId.newInstance(),
+                new ChannelOutboundHandlerAdapter() {
+                    @Override
+                    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                        ReferenceCountUtil.release(msg);
+                        promise.setFailure(cause);
+                    }
+                });
+        group.add(ch1);
+        group.add(ch2);
+
+        ByteBuf buf = Unpooled.copiedBuffer("broadcast", CharsetUtil.US_ASCII);
+        ChannelGroupFuture future = group.broadcast(buf);
+        assertFalse(future.isSuccess());
+        assertTrue(future.isPartialFailure());
+        assertTrue(future.isPartialSuccess());
+        assertNull(future.find(ch1));
+        assertSame(cause, future.find(ch2).cause());
+        assertSame(cause, future.cause().iterator().next().getValue());
+
+        ByteBuf written = ch1.readOutbound();
+        written.release();
+        assertEquals(0, buf.refCnt());
+        assertFalse(ch1.finish());
+        assertFalse(ch2.finish());
+    }
+
+    @Test
+    public void testBroadcastVoidPromise() {
+        DefaultChannelGroup group = new DefaultChannelGroup(ImmediateEventExecutor.INSTANCE);
+        EmbeddedChannel ch = new EmbeddedChannel(DefaultChannelId.newInstance());
+        group.add(ch);
+
+        ByteBuf buf = Unpooled.copiedBuffer("broadcast", CharsetUtil.US_ASCII);
+        group.broadcast(buf, ChannelMatchers.all(), true);
+        ByteBuf written = ch.readOutbound();
+        assertEquals("broadcast", written.toString(CharsetUtil.US_ASCII));
+        written.release();
+        assertEquals(0, buf.refCnt());
+        assertFalse(ch.finish());
+    }
 }
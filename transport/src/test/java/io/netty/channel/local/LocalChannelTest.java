@@ -45,11 +45,13 @@ import java.net.ConnectException;
 import java.nio.channels.ClosedChannelException;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
@@ -863,6 +865,57 @@ public class LocalChannelTest {
         }
     }
 
+    @Test
+    public void testManyFlushesDifferentEventLoopPreserveOrder() throws InterruptedException {
+        final int messages = 10000;
+        final CountDownLatch messageLatch = new CountDownLatch(1);
+        final AtomicInteger expected = new AtomicInteger();
+        Bootstrap cb = new Bootstrap();
+        ServerBootstrap sb = new ServerBootstrap();
+
+        cb.group(group1)
+        .channel(LocalChannel.class)
+        .handler(new TestHandler());
+
+        sb.group(group2)
+        .channel(LocalServerChannel.class)
+        .childHandler(new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+                // Only increment if the messages are received in order.
+                if (expected.compareAndSet((Integer) msg, (Integer) msg + 1) && expected.get() == messages) {
+                    messageLatch.countDown();
+                }
+            }
+        });
+
+        Channel sc = null;
+        Channel cc = null;
+        try {
+            // Start server
+            sc = sb.bind(TEST_ADDRESS).syncUninterruptibly().channel();
+
+            // Connect to the server
+            cc = cb.connect(sc.localAddress()).syncUninterruptibly().channel();
+
+            final Channel ccCpy = cc;
+            cc.eventLoop().execute(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < messages; i++) {
+                        ccCpy.writeAndFlush(i, ccCpy.voidPromise());
+                    }
+                }
+            });
+
+            assertTrue(messageLatch.await(5, SECONDS));
+            assertEquals(messages, expected.get());
+        } finally {
+            closeChannel(cc);
+            closeChannel(sc);
+        }
+    }
+
     @Test(expected = ConnectException.class)
     public void testConnectionRefused() {
         Bootstrap sb = new Bootstrap();
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.pool;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.util.concurrent.Future;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class EventLoopAffineChannelPoolTest {
+    private static final String LOCAL_ADDR_ID = "test.id";
+
+    private EventLoopGroup group;
+    private Channel sc;
+    private Bootstrap cb;
+
+    @Before
+    public void setUp() throws Exception {
+        group = new DefaultEventLoopGroup(2);
+        LocalAddress addr = new LocalAddress(LOCAL_ADDR_ID);
+        cb = new Bootstrap();
+        cb.remoteAddress(addr);
+        cb.group(group)
+          .channel(LocalChannel.class);
+
+        ServerBootstrap sb = new ServerBootstrap();
+        sb.group(group)
+          .channel(LocalServerChannel.class)
+          .childHandler(new ChannelInitializer<LocalChannel>() {
+              @Override
+              public void initChannel(LocalChannel ch) throws Exception {
+                  ch.pipeline().addLast(new ChannelInboundHandlerAdapter());
+              }
+          });
+
+        // Start server
+        sc = sb.bind(addr).syncUninterruptibly().channel();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        sc.close().syncUninterruptibly();
+        group.shutdownGracefully().syncUninterruptibly();
+    }
+
+    @Test
+    public void testAcquirePrefersCallerEventLoop() throws Exception {
+        CountingChannelPoolHandler handler = new CountingChannelPoolHandler();
+        ChannelPool pool = new EventLoopAffineChannelPool(cb, handler);
+        EventLoop loop1 = group.next();
+        EventLoop loop2 = group.next();
+        assertNotSame(loop1, loop2);
+
+        Channel channel1 = acquire(pool, loop1);
+        Channel channel2 = acquire(pool, loop2);
+        assertSame(loop1, channel1.eventLoop());
+        assertSame(loop2, channel2.eventLoop());
+        pool.release(channel1).syncUninterruptibly();
+        pool.release(channel2).syncUninterruptibly();
+
+        assertSame(channel2, acquire(pool, loop2));
+        assertSame(channel1, acquire(pool, loop1));
+        assertEquals(2, handler.channelCount());
+        assertEquals(2, handler.acquiredCount());
+
+        pool.release(channel1).syncUninterruptibly();
+        pool.release(channel2).syncUninterruptibly();
+        pool.close();
+    }
+
+    @Test
+    public void testStealFromOtherEventLoop() throws Exception {
+        CountingChannelPoolHandler handler = new CountingChannelPoolHandler();
+        ChannelPool pool = new EventLoopAffineChannelPool(cb, handler);
+        EventLoop loop1 = group.next();
+        EventLoop loop2 = group.next();
+
+        Channel channel = acquire(pool, loop1);
+        pool.release(channel).syncUninterruptibly();
+
+        // Nothing is idle for loop2 so the Channel of loop1 should be used.
+        assertSame(channel, acquire(pool, loop2));
+        pool.release(channel).syncUninterruptibly();
+
+        // The Channel must be returned to the pool of its own EventLoop.
+        assertSame(channel, acquire(pool, loop1));
+        pool.release(channel).syncUninterruptibly();
+
+        assertEquals(1, handler.channelCount());
+        assertEquals(2, handler.acquiredCount());
+        assertEquals(3, handler.releasedCount());
+        pool.close();
+    }
+
+    @Test
+    public void testReleaseUnknownChannelFails() throws Exception {
+        ChannelPool pool = new EventLoopAffineChannelPool(cb, new CountingChannelPoolHandler());
+        Channel channel = cb.clone().handler(new ChannelInboundHandlerAdapter()).connect()
+                .syncUninterruptibly().channel();
+        Future<Void> future = pool.release(channel).awaitUninterruptibly();
+        assertTrue(future.cause() instanceof IllegalArgumentException);
+        pool.close();
+    }
+
+    private static Channel acquire(final ChannelPool pool, EventLoop loop) throws Exception {
+        return loop.submit(new Callable<Future<Channel>>() {
+            @Override
+            public Future<Channel> call() throws Exception {
+                return pool.acquire();
+            }
+        }).syncUninterruptibly().getNow().syncUninterruptibly().getNow();
+    }
+}
@@ -26,6 +26,7 @@ import io.netty.channel.local.LocalChannel;
 import io.netty.channel.local.LocalEventLoopGroup;
 import io.netty.channel.local.LocalServerChannel;
 import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
 import org.hamcrest.CoreMatchers;
 import org.junit.Rule;
 import org.junit.Test;
@@ -39,6 +40,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public class SimpleChannelPoolTest {
@@ -242,4 +244,210 @@ public class SimpleChannelPoolTest {
         channel2.close().syncUninterruptibly();
         group.shutdownGracefully();
     }
+
+    @Test
+    public void testFifoAndMetric() throws Exception {
+        EventLoopGroup group = new LocalEventLoopGroup();
+        LocalAddress addr = new LocalAddress(LOCAL_ADDR_ID);
+        Bootstrap cb = new Bootstrap();
+        cb.remoteAddress(addr);
+        cb.group(group)
+          .channel(LocalChannel.class);
+
+        ServerBootstrap sb = new ServerBootstrap();
+        sb.group(group)
+          .channel(LocalServerChannel.class)
+          .childHandler(new ChannelInitializer<LocalChannel>() {
+              @Override
+              public void initChannel(LocalChannel ch) throws Exception {
+                  ch.pipeline().addLast(new ChannelInboundHandlerAdapter());
+              }
+          });
+
+        // Start server
+        Channel sc = sb.bind(addr).syncUninterruptibly().channel();
+        CountingChannelPoolHandler handler = new CountingChannelPoolHandler();
+        SimpleChannelPool pool = new SimpleChannelPool(cb, handler, ChannelHealthChecker.ACTIVE, true, false);
+        Channel channel1 = pool.acquire().syncUninterruptibly().getNow();
+        Channel channel2 = pool.acquire().syncUninterruptibly().getNow();
+        pool.release(channel1).syncUninterruptibly();
+        pool.release(channel2).syncUninterruptibly();
+
+        // FIFO so the Channel that was released first must be returned.
+        Channel channel3 = pool.acquire().syncUninterruptibly().getNow();
+        assertSame(channel1, channel3);
+
+        ChannelPoolMetric metric = pool.metric();
+        assertEquals(3, metric.acquireCount());
+        assertEquals(1, metric.hitCount());
+        assertEquals(2, metric.missCount());
+        assertEquals(2, metric.createCount());
+        assertEquals(0, metric.evictionCount());
+        assertEquals(0, metric.pendingAcquireCount());
+        assertEquals(1, metric.acquiredChannelCount());
+        assertEquals(1, metric.idleChannelCount());
+
+        pool.release(channel3).syncUninterruptibly();
+        pool.close();
+        sc.close().syncUninterruptibly();
+        group.shutdownGracefully();
+    }
+
+    @Test(timeout = 5000)
+    public void testChannelOfCancelledAcquireIsReleased() throws Exception {
+        EventLoopGroup group = new LocalEventLoopGroup();
+        LocalAddress addr = new LocalAddress(LOCAL_ADDR_ID);
+        Bootstrap cb = new Bootstrap();
+        cb.remoteAddress(addr);
+        cb.group(group)
+          .channel(LocalChannel.class);
+
+        ServerBootstrap sb = new ServerBootstrap();
+        sb.group(group)
+          .channel(LocalServerChannel.class)
+          .childHandler(new ChannelInitializer<LocalChannel>() {
+              @Override
+              public void initChannel(LocalChannel ch) throws Exception {
+                  ch.pipeline().addLast(new ChannelInboundHandlerAdapter());
+              }
+          });
+
+        // Start server
+        Channel sc = sb.bind(addr).syncUninterruptibly().channel();
+        CountingChannelPoolHandler handler = new CountingChannelPoolHandler();
+        SimpleChannelPool pool = new SimpleChannelPool(cb, handler);
+
+        Promise<Channel> promise = group.next().newPromise();
+        assertTrue(promise.cancel(false));
+        pool.acquire(promise);
+
+        // The Channel which was created for the cancelled acquire is returned to the pool.
+        while (handler.releasedCount() != 1) {
+            Thread.sleep(10);
+        }
+        ChannelPoolMetric metric = pool.metric();
+        assertEquals(1, metric.idleChannelCount());
+        assertEquals(0, metric.acquiredChannelCount());
+        assertEquals(0, metric.acquireCount());
+
+        pool.close();
+        sc.close().syncUninterruptibly();
+        group.shutdownGracefully();
+    }
+
+    @Test(timeout = 5000)
+    public void testIdleChannelIsEvicted() throws Exception {
+        EventLoopGroup group = new LocalEventLoopGroup();
+        LocalAddress addr = new LocalAddress(LOCAL_ADDR_ID);
+        Bootstrap cb = new Bootstrap();
+        cb.remoteAddress(addr);
+        cb.group(group)
+          .channel(LocalChannel.class);
+
+        ServerBootstrap sb = new ServerBootstrap();
+        sb.group(group)
+          .channel(LocalServerChannel.class)
+          .childHandler(new ChannelInitializer<LocalChannel>() {
+              @Override
+              public void initChannel(LocalChannel ch) throws Exception {
+                  ch.pipeline().addLast(new ChannelInboundHandlerAdapter());
+              }
+          });
+
+        // Start server
+        Channel sc = sb.bind(addr).syncUninterruptibly().channel();
+        CountingChannelPoolHandler handler = new CountingChannelPoolHandler();
+        SimpleChannelPool pool = new SimpleChannelPool(
+                cb, handler, ChannelHealthChecker.ACTIVE, true, true, 100, -1, 0);
+        Channel channel = pool.acquire().syncUninterruptibly().getNow();
+        pool.release(channel).syncUninterruptibly();
+
+        channel.closeFuture().syncUninterruptibly();
+        assertEquals(1, pool.metric().evictionCount());
+        assertEquals(0, pool.metric().idleChannelCount());
+
+        Channel channel2 = pool.acquire().syncUninterruptibly().getNow();
+        assertNotSame(channel, channel2);
+
+        pool.release(channel2).syncUninterruptibly();
+        pool.close();
+        sc.close().syncUninterruptibly();
+        group.shutdownGracefully();
+    }
+
+    @Test
+    public void testExpiredChannelIsNotOffered() throws Exception {
+        EventLoopGroup group = new LocalEventLoopGroup();
+        LocalAddress addr = new LocalAddress(LOCAL_ADDR_ID);
+        Bootstrap cb = new Bootstrap();
+        cb.remoteAddress(addr);
+        cb.group(group)
+          .channel(LocalChannel.class);
+
+        ServerBootstrap sb = new ServerBootstrap();
+        sb.group(group)
+          .channel(LocalServerChannel.class)
+          .childHandler(new ChannelInitializer<LocalChannel>() {
+              @Override
+              public void initChannel(LocalChannel ch) throws Exception {
+                  ch.pipeline().addLast(new ChannelInboundHandlerAdapter());
+              }
+          });
+
+        // Start server
+        Channel sc = sb.bind(addr).syncUninterruptibly().channel();
+        CountingChannelPoolHandler handler = new CountingChannelPoolHandler();
+        SimpleChannelPool pool = new SimpleChannelPool(
+                cb, handler, ChannelHealthChecker.ACTIVE, true, true, -1, 1, 0);
+        Channel channel = pool.acquire().syncUninterruptibly().getNow();
+        Thread.sleep(10);
+        pool.release(channel).syncUninterruptibly();
+
+        channel.closeFuture().syncUninterruptibly();
+        assertEquals(1, pool.metric().evictionCount());
+        assertEquals(1, handler.releasedCount());
+
+        pool.close();
+        sc.close().syncUninterruptibly();
+        group.shutdownGracefully();
+    }
+
+    @Test(timeout = 5000)
+    public void testMinIdleChannelsAreCreated() throws Exception {
+        EventLoopGroup group = new LocalEventLoopGroup();
+        LocalAddress addr = new LocalAddress(LOCAL_ADDR_ID);
+        Bootstrap cb = new Bootstrap();
+        cb.remoteAddress(addr);
+        cb.group(group)
+          .channel(LocalChannel.class);
+
+        ServerBootstrap sb = new ServerBootstrap();
+        sb.group(group)
+          .channel(LocalServerChannel.class)
+          .childHandler(new ChannelInitializer<LocalChannel>() {
+              @Override
+              public void initChannel(LocalChannel ch) throws Exception {
+                  ch.pipeline().addLast(new ChannelInboundHandlerAdapter());
+              }
+          });
+
+        // Start server
+        Channel sc = sb.bind(addr).syncUninterruptibly().channel();
+        CountingChannelPoolHandler handler = new CountingChannelPoolHandler();
+        SimpleChannelPool pool = new SimpleChannelPool(
+                cb, handler, ChannelHealthChecker.ACTIVE, true, true, -1, -1, 2);
+        while (pool.metric().idleChannelCount() < 2) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, handler.channelCount());
+
+        Channel channel = pool.acquire().syncUninterruptibly().getNow();
+        assertEquals(1, pool.metric().hitCount());
+        assertEquals(0, pool.metric().missCount());
+
+        pool.release(channel).syncUninterruptibly();
+        pool.close();
+        sc.close().syncUninterruptibly();
+        group.shutdownGracefully();
+    }
 }